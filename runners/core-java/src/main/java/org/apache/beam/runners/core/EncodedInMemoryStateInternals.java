@@ -0,0 +1,525 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.core;
+
+import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.apache.beam.runners.core.InMemoryStateInternals.InMemoryState;
+import org.apache.beam.runners.core.InMemoryStateInternals.InMemoryStateBinder;
+import org.apache.beam.runners.core.StateTag.StateBinder;
+import org.apache.beam.sdk.annotations.Experimental;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.state.BagState;
+import org.apache.beam.sdk.state.ReadableState;
+import org.apache.beam.sdk.state.State;
+import org.apache.beam.sdk.state.StateContext;
+import org.apache.beam.sdk.state.ValueState;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * In-memory implementation of {@link StateInternals} that keeps value and bag state in encoded
+ * form, in chunks allocated from an {@link Arena} which may be off-heap. The arena and each {@link
+ * EncodedInMemoryStateInternals} report the number of bytes they hold.
+ *
+ * <p>Other kinds of state are small per key, or are looked up by element, and are kept as objects
+ * like in {@link InMemoryStateInternals}. They are not included in the reported sizes.
+ *
+ * <p>Values are encoded when written and decoded on every read, so mutating a value that was read
+ * has no effect on the state until it is written back.
+ *
+ * <p>Iterables returned by {@link BagState#read} remain valid after the bag is cleared, until
+ * {@link #releaseRetired} is called. Until then the chunks they refer to are still counted as
+ * allocated.
+ */
+@Experimental
+@SuppressWarnings({
+  "rawtypes", // TODO(https://issues.apache.org/jira/browse/BEAM-10556)
+  "nullness" // TODO(https://issues.apache.org/jira/browse/BEAM-10402)
+})
+public class EncodedInMemoryStateInternals<K> implements StateInternals {
+
+  public static <K> EncodedInMemoryStateInternals<K> forKey(@Nullable K key, Arena arena) {
+    return new EncodedInMemoryStateInternals<>(key, arena);
+  }
+
+  /**
+   * Allocates the buffers that hold encoded state, and tracks the total number of bytes allocated.
+   * One arena is usually shared by the {@link EncodedInMemoryStateInternals} of all keys.
+   *
+   * <p>Buffers are slices of large slabs, rounded up to a power of two. Released buffers are kept
+   * on a free list for their size and handed out again, so the arena never returns memory to the
+   * system; it is freed with the arena itself. Buffers larger than a slab are allocated on their
+   * own and are not reused.
+   */
+  public static final class Arena {
+    private static final int DEFAULT_CHUNK_BYTES = 64 * 1024;
+    private static final int SLAB_BYTES = 1024 * 1024;
+    private static final int MIN_BLOCK_SHIFT = 4;
+    private static final int MIN_BLOCK_BYTES = 1 << MIN_BLOCK_SHIFT;
+
+    private final int chunkBytes;
+    private final boolean offHeap;
+    // Released blocks, by size class. Blocks of class i hold MIN_BLOCK_BYTES << i bytes.
+    private final List<ArrayDeque<ByteBuffer>> freeBlocks = new ArrayList<>();
+    // The part of the current slab that was not handed out yet.
+    private @Nullable ByteBuffer slab = null;
+    private long allocatedBytes = 0;
+    private long reservedBytes = 0;
+
+    private Arena(int chunkBytes, boolean offHeap) {
+      checkArgument(chunkBytes > 0, "chunkBytes must be positive, got %s", chunkBytes);
+      this.chunkBytes = chunkBytes;
+      this.offHeap = offHeap;
+      for (int i = 0; i <= sizeClass(SLAB_BYTES); i++) {
+        freeBlocks.add(new ArrayDeque<>());
+      }
+    }
+
+    /** Returns an arena that allocates heap buffers. */
+    public static Arena onHeap() {
+      return new Arena(DEFAULT_CHUNK_BYTES, false);
+    }
+
+    /** Returns an arena that allocates direct buffers, outside of the Java heap. */
+    public static Arena offHeap() {
+      return new Arena(DEFAULT_CHUNK_BYTES, true);
+    }
+
+    /**
+     * Returns an arena like this one, which appends bag elements to chunks of the given size.
+     * Elements larger than a chunk get a chunk of their own.
+     */
+    public Arena withChunkBytes(int chunkBytes) {
+      return new Arena(chunkBytes, offHeap);
+    }
+
+    /** Returns the number of bytes currently allocated for encoded state. */
+    public synchronized long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    /**
+     * Returns the number of bytes held by the arena, including slabs and released buffers that are
+     * kept for reuse.
+     */
+    public synchronized long getReservedBytes() {
+      return reservedBytes;
+    }
+
+    private synchronized ByteBuffer allocate(int capacity) {
+      ByteBuffer buffer;
+      if (capacity > SLAB_BYTES) {
+        buffer = newBuffer(capacity);
+        reservedBytes += capacity;
+      } else {
+        int sizeClass = sizeClass(capacity);
+        buffer = freeBlocks.get(sizeClass).pollFirst();
+        if (buffer == null) {
+          buffer = carve(MIN_BLOCK_BYTES << sizeClass);
+        }
+        buffer.clear();
+      }
+      allocatedBytes += buffer.capacity();
+      return buffer;
+    }
+
+    private synchronized void release(ByteBuffer buffer) {
+      int capacity = buffer.capacity();
+      allocatedBytes -= capacity;
+      if (capacity > SLAB_BYTES) {
+        reservedBytes -= capacity;
+      } else {
+        freeBlocks.get(sizeClass(capacity)).addFirst(buffer);
+      }
+    }
+
+    /** Cuts a block of the given size off the current slab, starting a new slab if needed. */
+    private ByteBuffer carve(int blockBytes) {
+      if (slab == null || slab.remaining() < blockBytes) {
+        if (slab != null) {
+          // Keep what is left of the old slab as smaller blocks.
+          while (slab.remaining() >= MIN_BLOCK_BYTES) {
+            int bytes = Integer.highestOneBit(slab.remaining());
+            freeBlocks.get(sizeClass(bytes)).addLast(slice(slab, bytes));
+          }
+        }
+        slab = newBuffer(SLAB_BYTES);
+        reservedBytes += SLAB_BYTES;
+      }
+      return slice(slab, blockBytes);
+    }
+
+    private ByteBuffer newBuffer(int capacity) {
+      return offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /** Returns the next {@code bytes} bytes of the buffer as a new buffer, and skips past them. */
+    private static ByteBuffer slice(ByteBuffer buffer, int bytes) {
+      int limit = buffer.limit();
+      buffer.limit(buffer.position() + bytes);
+      ByteBuffer slice = buffer.slice();
+      buffer.position(buffer.limit());
+      buffer.limit(limit);
+      return slice;
+    }
+
+    /** Returns the smallest size class whose blocks hold the given number of bytes. */
+    private static int sizeClass(int capacity) {
+      if (capacity <= MIN_BLOCK_BYTES) {
+        return 0;
+      }
+      return Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1) - MIN_BLOCK_SHIFT;
+    }
+  }
+
+  private final @Nullable K key;
+  private final Arena arena;
+  private long allocatedBytes = 0;
+  // Chunks of cleared bags that iterables returned by read may still refer to.
+  private List<ByteBuffer> retired = new ArrayList<>();
+  // Scratch buffer for values that do not fit the space left in a chunk.
+  private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+  protected EncodedInMemoryStateInternals(@Nullable K key, Arena arena) {
+    this.key = key;
+    this.arena = arena;
+  }
+
+  @Override
+  public @Nullable K getKey() {
+    return key;
+  }
+
+  /** Returns the number of bytes currently allocated for the encoded state of this key. */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  protected final StateTable inMemoryState =
+      new StateTable() {
+        @Override
+        protected StateBinder binderForNamespace(StateNamespace namespace, StateContext<?> c) {
+          return new EncodedStateBinder(c);
+        }
+      };
+
+  /**
+   * Clears all state of this key, returning the buffers it holds to the arena. Chunks of bags that
+   * were read are only returned by {@link #releaseRetired}.
+   */
+  public void clear() {
+    for (State state : inMemoryState.values()) {
+      state.clear();
+    }
+    inMemoryState.clear();
+  }
+
+  /**
+   * Returns the chunks of cleared bags that were read to the arena. Iterables returned by {@link
+   * BagState#read} before this call must not be used after it. Runners call this once they are
+   * done with the key, or at the end of a bundle.
+   */
+  public void releaseRetired() {
+    for (ByteBuffer chunk : retired) {
+      release(chunk);
+    }
+    retired = new ArrayList<>();
+  }
+
+  @Override
+  public <T extends State> T state(
+      StateNamespace namespace, StateTag<T> address, final StateContext<?> c) {
+    return inMemoryState.get(namespace, address, c);
+  }
+
+  private ByteBuffer allocate(int capacity) {
+    ByteBuffer buffer = arena.allocate(capacity);
+    allocatedBytes += buffer.capacity();
+    return buffer;
+  }
+
+  private void release(ByteBuffer buffer) {
+    allocatedBytes -= buffer.capacity();
+    arena.release(buffer);
+  }
+
+  /** Encodes the value into {@link #scratch}, returning the flipped buffer. */
+  private <T> ByteBuffer encodeToScratch(Coder<T> coder, T value) {
+    try {
+      scratch = CoderUtils.encodeToByteBuffer(coder, value, scratch);
+    } catch (CoderException e) {
+      throw new RuntimeException(e);
+    }
+    return scratch;
+  }
+
+  private static <T> T decode(Coder<T> coder, ByteBuffer buffer) {
+    try {
+      return coder.decodeFromBuffer(buffer);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /** A {@link StateBinder} that binds value and bag state to encoded cells. */
+  private class EncodedStateBinder extends InMemoryStateBinder {
+    EncodedStateBinder(StateContext<?> c) {
+      super(c);
+    }
+
+    @Override
+    public <T> ValueState<T> bindValue(StateTag<ValueState<T>> address, Coder<T> coder) {
+      return new EncodedValue<>(coder);
+    }
+
+    @Override
+    public <T> BagState<T> bindBag(StateTag<BagState<T>> address, Coder<T> elemCoder) {
+      return new EncodedBag<>(elemCoder);
+    }
+  }
+
+  /** An {@link InMemoryState} implementation of {@link ValueState} holding the encoded value. */
+  private final class EncodedValue<T> implements ValueState<T>, InMemoryState<EncodedValue<T>> {
+    private final Coder<T> coder;
+    // Holds the encoded value between position 0 and the limit, or null if cleared.
+    private @Nullable ByteBuffer encoded = null;
+
+    private EncodedValue(Coder<T> coder) {
+      this.coder = coder;
+    }
+
+    @Override
+    public void clear() {
+      if (encoded != null) {
+        release(encoded);
+        encoded = null;
+      }
+    }
+
+    @Override
+    public EncodedValue<T> readLater() {
+      return this;
+    }
+
+    @Override
+    public @Nullable T read() {
+      return encoded == null ? null : decode(coder, encoded.duplicate());
+    }
+
+    @Override
+    public void write(T input) {
+      writeEncoded(encodeToScratch(coder, input));
+    }
+
+    private void writeEncoded(ByteBuffer bytes) {
+      if (encoded == null || encoded.capacity() < bytes.remaining()) {
+        clear();
+        encoded = allocate(bytes.remaining());
+      }
+      encoded.clear();
+      encoded.put(bytes);
+      encoded.flip();
+    }
+
+    @Override
+    public EncodedValue<T> copy() {
+      EncodedValue<T> that = new EncodedValue<>(coder);
+      if (encoded != null) {
+        that.writeEncoded(encoded.duplicate());
+      }
+      return that;
+    }
+
+    @Override
+    public boolean isCleared() {
+      return encoded == null;
+    }
+  }
+
+  /**
+   * An {@link InMemoryState} implementation of {@link BagState} that appends encoded elements to
+   * chunks. Only the last chunk is ever appended to, so the elements present when a bag is read
+   * are identified by the number of chunks and the number of elements in the last one.
+   */
+  private final class EncodedBag<T> implements BagState<T>, InMemoryState<EncodedBag<T>> {
+    private final Coder<T> elemCoder;
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    // The number of elements in each chunk but the last. Elements are counted rather than delimited
+    // by position since some coders encode values in zero bytes.
+    private List<Integer> chunkCounts = new ArrayList<>();
+    private int lastChunkCount = 0;
+    // Whether an iterable returned by read may refer to the current chunks.
+    private boolean read = false;
+
+    private EncodedBag(Coder<T> elemCoder) {
+      this.elemCoder = elemCoder;
+    }
+
+    @Override
+    public void clear() {
+      // As in InMemoryBag, the contents are swapped rather than cleared, since iterables returned
+      // by read must remain valid. Chunks that such an iterable may refer to are retired rather
+      // than returned to the arena, which would hand them out again.
+      if (read) {
+        retired.addAll(chunks);
+      } else {
+        for (ByteBuffer chunk : chunks) {
+          release(chunk);
+        }
+      }
+      chunks = new ArrayList<>();
+      chunkCounts = new ArrayList<>();
+      lastChunkCount = 0;
+      read = false;
+    }
+
+    @Override
+    public EncodedBag<T> readLater() {
+      return this;
+    }
+
+    @Override
+    public Iterable<T> read() {
+      if (chunks.isEmpty()) {
+        return Collections.emptyList();
+      }
+      read = true;
+      List<ByteBuffer> snapshotChunks = chunks;
+      List<Integer> snapshotCounts = chunkCounts;
+      int snapshotSize = chunks.size();
+      int snapshotLastCount = lastChunkCount;
+      return () ->
+          new ChunkIterator(snapshotChunks, snapshotCounts, snapshotSize, snapshotLastCount);
+    }
+
+    @Override
+    public void add(T input) {
+      if (!chunks.isEmpty()) {
+        ByteBuffer last = chunks.get(chunks.size() - 1);
+        int position = last.position();
+        try {
+          elemCoder.encodeToBuffer(input, last);
+          lastChunkCount++;
+          return;
+        } catch (BufferOverflowException e) {
+          // The element goes to a new chunk. The partially written bytes are past the position
+          // and are never read.
+          last.position(position);
+        } catch (IOException e) {
+          last.position(position);
+          throw new RuntimeException(e);
+        }
+      }
+      appendChunk(encodeToScratch(elemCoder, input), 1);
+    }
+
+    private void appendChunk(ByteBuffer bytes, int count) {
+      ByteBuffer chunk = allocate(Math.max(arena.chunkBytes, bytes.remaining()));
+      chunk.put(bytes);
+      if (!chunks.isEmpty()) {
+        chunkCounts.add(lastChunkCount);
+      }
+      chunks.add(chunk);
+      lastChunkCount = count;
+    }
+
+    @Override
+    public boolean isCleared() {
+      return chunks.isEmpty();
+    }
+
+    @Override
+    public ReadableState<Boolean> isEmpty() {
+      return new ReadableState<Boolean>() {
+        @Override
+        public ReadableState<Boolean> readLater() {
+          return this;
+        }
+
+        @Override
+        public Boolean read() {
+          return chunks.isEmpty();
+        }
+      };
+    }
+
+    @Override
+    public EncodedBag<T> copy() {
+      EncodedBag<T> that = new EncodedBag<>(elemCoder);
+      for (int i = 0; i < chunks.size(); i++) {
+        ByteBuffer bytes = chunks.get(i).duplicate();
+        bytes.flip();
+        that.appendChunk(bytes, i < chunkCounts.size() ? chunkCounts.get(i) : lastChunkCount);
+      }
+      return that;
+    }
+
+    /** Decodes the elements in the first {@code size} chunks. */
+    private final class ChunkIterator implements Iterator<T> {
+      private final List<ByteBuffer> chunks;
+      private final List<Integer> chunkCounts;
+      private final int size;
+      private final int lastChunkCount;
+      private int nextChunk = 0;
+      private @Nullable ByteBuffer current = null;
+      private int remainingInCurrent = 0;
+
+      private ChunkIterator(
+          List<ByteBuffer> chunks, List<Integer> chunkCounts, int size, int lastChunkCount) {
+        this.chunks = chunks;
+        this.chunkCounts = chunkCounts;
+        this.size = size;
+        this.lastChunkCount = lastChunkCount;
+      }
+
+      @Override
+      public boolean hasNext() {
+        while (remainingInCurrent == 0) {
+          if (nextChunk == size) {
+            return false;
+          }
+          current = chunks.get(nextChunk).duplicate();
+          current.position(0);
+          remainingInCurrent = nextChunk == size - 1 ? lastChunkCount : chunkCounts.get(nextChunk);
+          nextChunk++;
+        }
+        return true;
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        remainingInCurrent--;
+        return decode(elemCoder, current);
+      }
+    }
+  }
+}
@@ -29,6 +29,7 @@ import org.apache.beam.sdk.util.WindowedValue;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.TupleTag;
 import org.apache.beam.sdk.values.WindowingStrategy;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Instant;
 
 /**
@@ -68,6 +69,8 @@ public class GroupAlsoByWindowViaWindowSetNewDoFn<
   private transient SideInputReader sideInputReader;
   private transient DoFnRunners.OutputManager outputManager;
   private TupleTag<KV<K, OutputT>> mainTag;
+  // The trigger is translated once per instance instead of once per work item.
+  private transient @Nullable ExecutableTriggerStateMachine triggerStateMachine;
 
   public GroupAlsoByWindowViaWindowSetNewDoFn(
       WindowingStrategy<?, W> windowingStrategy,
@@ -111,6 +114,18 @@ public class GroupAlsoByWindowViaWindowSetNewDoFn<
     };
   }
 
+  private ExecutableTriggerStateMachine triggerStateMachine() {
+    ExecutableTriggerStateMachine result = triggerStateMachine;
+    if (result == null) {
+      result =
+          ExecutableTriggerStateMachine.create(
+              TriggerStateMachines.stateMachineForTrigger(
+                  TriggerTranslation.toProto(windowingStrategy.getTrigger())));
+      triggerStateMachine = result;
+    }
+    return result;
+  }
+
   @ProcessElement
   public void processElement(ProcessContext c) throws Exception {
     KeyedWorkItem<K, InputT> keyedWorkItem = c.element();
@@ -123,9 +138,7 @@ public class GroupAlsoByWindowViaWindowSetNewDoFn<
         new ReduceFnRunner<>(
             key,
             windowingStrategy,
-            ExecutableTriggerStateMachine.create(
-                TriggerStateMachines.stateMachineForTrigger(
-                    TriggerTranslation.toProto(windowingStrategy.getTrigger()))),
+            triggerStateMachine(),
             stateInternals,
             timerInternals,
             outputWindowedValue(),
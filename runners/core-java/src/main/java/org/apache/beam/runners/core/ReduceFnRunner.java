@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -32,6 +33,7 @@ import org.apache.beam.runners.core.GroupByKeyViaGroupByKeyOnly.GroupByKeyOnly;
 import org.apache.beam.runners.core.ReduceFnContextFactory.StateStyle;
 import org.apache.beam.runners.core.StateNamespaces.WindowNamespace;
 import org.apache.beam.runners.core.TimerInternals.TimerData;
+import org.apache.beam.runners.core.triggers.DefaultTriggerStateMachine;
 import org.apache.beam.runners.core.triggers.ExecutableTriggerStateMachine;
 import org.apache.beam.runners.core.triggers.TriggerStateMachineContextFactory;
 import org.apache.beam.runners.core.triggers.TriggerStateMachineRunner;
@@ -211,6 +213,13 @@ public class ReduceFnRunner<K, InputT, OutputT, W extends BoundedWindow> {
    */
   private final NonEmptyPanes<K, W> nonEmptyPanes;
 
+  /**
+   * Whether elements can take the path in {@link #processElementsForDefaultTrigger}, which applies
+   * to non-merging windows with the default trigger in discarding mode. For these there is no
+   * window merging, the trigger never closes and keeps no state, and panes need no element count.
+   */
+  private final boolean isDefaultTriggerNonMerging;
+
   public ReduceFnRunner(
       K key,
       WindowingStrategy<?, W> windowingStrategy,
@@ -257,6 +266,10 @@ public class ReduceFnRunner<K, InputT, OutputT, W extends BoundedWindow> {
             triggerStateMachine,
             new TriggerStateMachineContextFactory<>(
                 windowingStrategy.getWindowFn(), stateInternals, activeWindows));
+    this.isDefaultTriggerNonMerging =
+        windowingStrategy.getWindowFn().isNonMerging()
+            && triggerStateMachine.getSpec() instanceof DefaultTriggerStateMachine
+            && windowingStrategy.getMode() == AccumulationMode.DISCARDING_FIRED_PANES;
   }
 
   private ActiveWindowSet<W> createActiveWindowSet() {
@@ -330,6 +343,11 @@ public class ReduceFnRunner<K, InputT, OutputT, W extends BoundedWindow> {
       return;
     }
 
+    if (isDefaultTriggerNonMerging) {
+      processElementsForDefaultTrigger(values);
+      return;
+    }
+
     // Determine all the windows for elements.
     Set<W> windows = collectWindows(values);
     // If an incoming element introduces a new window, attempt to merge it into an existing
@@ -384,6 +402,57 @@ public class ReduceFnRunner<K, InputT, OutputT, W extends BoundedWindow> {
     activeWindows.cleanupTemporaryWindows();
   }
 
+  /**
+   * Equivalent to the general path of {@link #processElements} for non-merging windows with the
+   * default trigger in discarding mode.
+   *
+   * <p>Each element is appended to the state of its windows and holds the watermark as usual, but
+   * the end-of-window and garbage collection timers are set once per window rather than once per
+   * element, and no trigger, active window or non-empty pane bookkeeping is done. A window is
+   * fired right away only if its end has already been reached, in which case the elements are late.
+   */
+  private void processElementsForDefaultTrigger(Iterable<WindowedValue<InputT>> values)
+      throws Exception {
+    Instant inputWatermark = timerInternals.currentInputWatermarkTime();
+    Set<W> windows = new HashSet<>();
+    Set<W> windowsToFire = new LinkedHashSet<>();
+
+    for (WindowedValue<InputT> value : values) {
+      for (BoundedWindow untypedWindow : value.getWindows()) {
+        @SuppressWarnings("unchecked")
+        W window = (W) untypedWindow;
+        if (windows.add(window)) {
+          ReduceFn<K, InputT, OutputT, W>.Context directContext =
+              contextFactory.base(window, StateStyle.DIRECT);
+          scheduleGarbageCollectionTimer(directContext);
+          // The default trigger fires when the input watermark passes the end of the window.
+          if (inputWatermark.isAfter(window.maxTimestamp())) {
+            windowsToFire.add(window);
+          } else {
+            directContext.timers().setTimer(window.maxTimestamp(), TimeDomain.EVENT_TIME);
+          }
+        }
+
+        ReduceFn<K, InputT, OutputT, W>.ProcessValueContext renamedContext =
+            contextFactory.forValue(
+                window, value.getValue(), value.getTimestamp(), StateStyle.RENAMED);
+        watermarkHold.addHolds(renamedContext);
+        reduceFn.processValue(renamedContext);
+      }
+    }
+
+    for (W window : windowsToFire) {
+      prefetchEmit(
+          contextFactory.base(window, StateStyle.DIRECT),
+          contextFactory.base(window, StateStyle.RENAMED));
+    }
+    for (W window : windowsToFire) {
+      emit(
+          contextFactory.base(window, StateStyle.DIRECT),
+          contextFactory.base(window, StateStyle.RENAMED));
+    }
+  }
+
   public void persist() {
     if (activeWindows instanceof MergingActiveWindowSet) {
       // li_trunk only LISAMZA-20208
@@ -939,8 +1008,8 @@ public class ReduceFnRunner<K, InputT, OutputT, W extends BoundedWindow> {
             directContext.window(), directContext.timers(), directContext.state()));
 
     // Inform the trigger of the transition to see if it is finished
-    triggerRunner.onFire(directContext.window(), directContext.timers(), directContext.state());
-    boolean isFinished = triggerRunner.isClosed(directContext.state());
+    boolean isFinished =
+        triggerRunner.onFire(directContext.window(), directContext.timers(), directContext.state());
 
     // Will be able to clear all element state after triggering?
     boolean shouldDiscard = shouldDiscardAfterFiring(isFinished);
@@ -73,6 +73,11 @@ import org.joda.time.format.PeriodFormat;
  * explodes windows of the input {@link WindowedValue} and calls {@link DoFn.ProcessElement} for
  * each window individually.
  *
+ * <p>The contexts passed to {@link DoFn.ProcessElement} and {@link DoFn.OnTimer} methods are reset
+ * and reused for later elements and timers. They are only valid for the duration of the call they
+ * are passed to. A context retained past the call observes whatever element or timer the runner
+ * processes next.
+ *
  * @param <InputT> the type of the {@link DoFn} (main) input elements
  * @param <OutputT> the type of the {@link DoFn} (main) output elements
  */
@@ -116,6 +121,19 @@ public class SimpleDoFnRunner<InputT, OutputT> implements DoFnRunner<InputT, Out
 
   private final Map<String, PCollectionView<?>> sideInputMapping;
 
+  /**
+   * Contexts that are reset and reused for every element and timer instead of being allocated for
+   * each one. A fresh context is only allocated for a call that arrives while the reusable one is
+   * still in use.
+   */
+  private final DoFnProcessContext processContext;
+
+  private boolean processContextInUse;
+
+  private final OnTimerArgumentProvider<Object> onTimerArgumentProvider;
+
+  private boolean onTimerArgumentProviderInUse;
+
   /** Constructor. */
   public SimpleDoFnRunner(
       PipelineOptions options,
@@ -159,6 +177,8 @@ public class SimpleDoFnRunner<InputT, OutputT> implements DoFnRunner<InputT, Out
     this.allowedLateness = windowingStrategy.getAllowedLateness();
     this.doFnSchemaInformation = doFnSchemaInformation;
     this.sideInputMapping = sideInputMapping;
+    this.processContext = new DoFnProcessContext(null);
+    this.onTimerArgumentProvider = new OnTimerArgumentProvider<>();
   }
 
   @Override
@@ -179,7 +199,7 @@ public class SimpleDoFnRunner<InputT, OutputT> implements DoFnRunner<InputT, Out
 
   @Override
   public void processElement(WindowedValue<InputT> compressedElem) {
-    if (observesWindow) {
+    if (observesWindow && !compressedElem.isSingleWindowedValue()) {
       for (WindowedValue<InputT> elem : compressedElem.explodeWindows()) {
         invokeProcessElement(elem);
       }
@@ -216,16 +236,41 @@ public class SimpleDoFnRunner<InputT, OutputT> implements DoFnRunner<InputT, Out
         throw new IllegalArgumentException(String.format("Unknown time domain: %s", timeDomain));
     }
 
-    OnTimerArgumentProvider<KeyT> argumentProvider =
-        new OnTimerArgumentProvider<>(
-            timerId, key, window, timestamp, effectiveTimestamp, timeDomain);
-    invoker.invokeOnTimer(timerId, timerFamilyId, argumentProvider);
+    if (onTimerArgumentProviderInUse) {
+      OnTimerArgumentProvider<KeyT> argumentProvider = new OnTimerArgumentProvider<>();
+      argumentProvider.reset(timerId, key, window, timestamp, effectiveTimestamp, timeDomain);
+      invoker.invokeOnTimer(timerId, timerFamilyId, argumentProvider);
+      return;
+    }
+    onTimerArgumentProviderInUse = true;
+    try {
+      onTimerArgumentProvider.reset(
+          timerId, key, window, timestamp, effectiveTimestamp, timeDomain);
+      invoker.invokeOnTimer(timerId, timerFamilyId, onTimerArgumentProvider);
+    } finally {
+      onTimerArgumentProviderInUse = false;
+    }
   }
 
   private void invokeProcessElement(WindowedValue<InputT> elem) {
+    if (processContextInUse) {
+      invokeProcessElement(new DoFnProcessContext(elem));
+      return;
+    }
+    processContextInUse = true;
+    try {
+      processContext.reset(elem);
+      invokeProcessElement(processContext);
+    } finally {
+      // The context is not cleared, it is only valid during the call and reset for the next one.
+      processContextInUse = false;
+    }
+  }
+
+  private void invokeProcessElement(DoFnProcessContext context) {
     // This can contain user code. Wrap it in case it throws an exception.
     try {
-      invoker.invokeProcessElement(new DoFnProcessContext(elem));
+      invoker.invokeProcessElement(context);
     } catch (Exception ex) {
       throw wrapUserCodeException(ex);
     }
@@ -353,9 +398,17 @@ public class SimpleDoFnRunner<InputT, OutputT> implements DoFnRunner<InputT, Out
    */
   private class DoFnProcessContext extends DoFn<InputT, OutputT>.ProcessContext
       implements DoFnInvoker.ArgumentProvider<InputT, OutputT> {
-    final WindowedValue<InputT> elem;
+    private WindowedValue<InputT> elem;
     /** Lazily initialized; should only be accessed via {@link #getNamespace()}. */
     private @Nullable StateNamespace namespace;
+    /** The window {@link #namespace} was created for, so it can be kept across elements. */
+    private @Nullable BoundedWindow namespaceWindow;
+
+    /** Lazily initialized; the receivers only hold on to this context, so they are reused. */
+    private @Nullable OutputReceiver<OutputT> outputReceiver;
+
+    private @Nullable OutputReceiver<Row> outputRowReceiver;
+    private @Nullable MultiOutputReceiver taggedOutputReceiver;
 
     /**
      * The state namespace for this context.
@@ -365,8 +418,10 @@ public class SimpleDoFnRunner<InputT, OutputT> implements DoFnRunner<InputT, Out
      * when state or timers are relevant.
      */
     private StateNamespace getNamespace() {
-      if (namespace == null) {
-        namespace = StateNamespaces.window(windowCoder, window());
+      BoundedWindow window = window();
+      if (namespace == null || !window.equals(namespaceWindow)) {
+        namespace = StateNamespaces.window(windowCoder, window);
+        namespaceWindow = window;
       }
       return namespace;
     }
@@ -376,6 +431,10 @@ public class SimpleDoFnRunner<InputT, OutputT> implements DoFnRunner<InputT, Out
       this.elem = elem;
     }
 
+    private void reset(WindowedValue<InputT> elem) {
+      this.elem = elem;
+    }
+
     @Override
     public PipelineOptions getPipelineOptions() {
       return options;
@@ -420,8 +479,13 @@ public class SimpleDoFnRunner<InputT, OutputT> implements DoFnRunner<InputT, Out
     public <T> void outputWithTimestamp(TupleTag<T> tag, T output, Instant timestamp) {
       checkNotNull(tag, "Tag passed to outputWithTimestamp cannot be null");
       checkTimestamp(timestamp);
-      outputWindowedValue(
-          tag, WindowedValue.of(output, timestamp, elem.getWindows(), elem.getPane()));
+      if (timestamp.equals(elem.getTimestamp())) {
+        // Keep the windows and pane of the input as they are.
+        outputWindowedValue(tag, elem.withValue(output));
+      } else {
+        outputWindowedValue(
+            tag, WindowedValue.of(output, timestamp, elem.getWindows(), elem.getPane()));
+      }
     }
 
     @Override
@@ -529,17 +593,27 @@ public class SimpleDoFnRunner<InputT, OutputT> implements DoFnRunner<InputT, Out
 
     @Override
     public OutputReceiver<OutputT> outputReceiver(DoFn<InputT, OutputT> doFn) {
-      return DoFnOutputReceivers.windowedReceiver(this, mainOutputTag);
+      if (outputReceiver == null) {
+        outputReceiver = DoFnOutputReceivers.windowedReceiver(this, mainOutputTag);
+      }
+      return outputReceiver;
     }
 
     @Override
     public OutputReceiver<Row> outputRowReceiver(DoFn<InputT, OutputT> doFn) {
-      return DoFnOutputReceivers.rowReceiver(this, mainOutputTag, mainOutputSchemaCoder);
+      if (outputRowReceiver == null) {
+        outputRowReceiver =
+            DoFnOutputReceivers.rowReceiver(this, mainOutputTag, mainOutputSchemaCoder);
+      }
+      return outputRowReceiver;
     }
 
     @Override
     public MultiOutputReceiver taggedOutputReceiver(DoFn<InputT, OutputT> doFn) {
-      return DoFnOutputReceivers.windowedMultiReceiver(this, outputCoders);
+      if (taggedOutputReceiver == null) {
+        taggedOutputReceiver = DoFnOutputReceivers.windowedMultiReceiver(this, outputCoders);
+      }
+      return taggedOutputReceiver;
     }
 
     @Override
@@ -629,12 +703,12 @@ public class SimpleDoFnRunner<InputT, OutputT> implements DoFnRunner<InputT, Out
    */
   private class OnTimerArgumentProvider<KeyT> extends DoFn<InputT, OutputT>.OnTimerContext
       implements DoFnInvoker.ArgumentProvider<InputT, OutputT> {
-    private final BoundedWindow window;
-    private final Instant fireTimestamp;
-    private final Instant timestamp;
-    private final TimeDomain timeDomain;
-    private final String timerId;
-    private final KeyT key;
+    private BoundedWindow window;
+    private Instant fireTimestamp;
+    private Instant timestamp;
+    private TimeDomain timeDomain;
+    private String timerId;
+    private KeyT key;
 
     /** Lazily initialized; should only be accessed via {@link #getNamespace()}. */
     private @Nullable StateNamespace namespace;
@@ -653,15 +727,22 @@ public class SimpleDoFnRunner<InputT, OutputT> implements DoFnRunner<InputT, Out
       return namespace;
     }
 
-    private OnTimerArgumentProvider(
+    private OnTimerArgumentProvider() {
+      fn.super();
+    }
+
+    private void reset(
         String timerId,
         KeyT key,
         BoundedWindow window,
         Instant fireTimestamp,
         Instant timestamp,
         TimeDomain timeDomain) {
-      fn.super();
       this.timerId = timerId;
+      if (this.window == null || !this.window.equals(window)) {
+        // The namespace only depends on the window.
+        this.namespace = null;
+      }
       this.window = window;
       this.fireTimestamp = fireTimestamp;
       this.timestamp = timestamp;
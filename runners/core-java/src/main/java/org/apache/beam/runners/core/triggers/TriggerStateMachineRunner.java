@@ -63,6 +63,7 @@ public class TriggerStateMachineRunner<W extends BoundedWindow> {
 
   private final ExecutableTriggerStateMachine rootTrigger;
   private final TriggerStateMachineContextFactory<W> contextFactory;
+  private final boolean finishedSetNeeded;
 
   public TriggerStateMachineRunner(
       ExecutableTriggerStateMachine rootTrigger,
@@ -70,10 +71,11 @@ public class TriggerStateMachineRunner<W extends BoundedWindow> {
     checkState(rootTrigger.getTriggerIndex() == 0);
     this.rootTrigger = rootTrigger;
     this.contextFactory = contextFactory;
+    this.finishedSetNeeded = isFinishedSetNeeded(rootTrigger.getSpec());
   }
 
   private FinishedTriggersBitSet readFinishedBits(ValueState<BitSet> state) {
-    if (!isFinishedSetNeeded()) {
+    if (!finishedSetNeeded) {
       // If no trigger in the tree will ever have finished bits, then we don't need to read them.
       // So that the code can be agnostic to that fact, we create a BitSet that is all 0 (not
       // finished) for each trigger in the tree.
@@ -87,7 +89,7 @@ public class TriggerStateMachineRunner<W extends BoundedWindow> {
   }
 
   private void clearFinishedBits(ValueState<BitSet> state) {
-    if (!isFinishedSetNeeded()) {
+    if (!finishedSetNeeded) {
       // Nothing to clear.
       return;
     }
@@ -100,7 +102,7 @@ public class TriggerStateMachineRunner<W extends BoundedWindow> {
   }
 
   public void prefetchIsClosed(StateAccessor<?> state) {
-    if (isFinishedSetNeeded()) {
+    if (finishedSetNeeded) {
       state.access(FINISHED_BITS_TAG).readLater();
     }
   }
@@ -118,17 +120,19 @@ public class TriggerStateMachineRunner<W extends BoundedWindow> {
   /** Run the trigger logic to deal with a new value. */
   public void processValue(W window, Instant timestamp, Timers timers, StateAccessor<?> state)
       throws Exception {
+    ValueState<BitSet> finishedSetState = state.access(FINISHED_BITS_TAG);
+    FinishedTriggersBitSet originalFinishedSet = readFinishedBits(finishedSetState);
     // Clone so that we can detect changes and so that changes here don't pollute merging.
-    FinishedTriggersBitSet finishedSet = readFinishedBits(state.access(FINISHED_BITS_TAG)).copy();
+    FinishedTriggersBitSet finishedSet = originalFinishedSet.copy();
     TriggerStateMachine.OnElementContext triggerContext =
         contextFactory.createOnElementContext(window, timers, timestamp, rootTrigger, finishedSet);
     rootTrigger.invokeOnElement(triggerContext);
-    persistFinishedSet(state, finishedSet);
+    persistFinishedSet(finishedSetState, originalFinishedSet, finishedSet);
   }
 
   public void prefetchForMerge(
       W window, Collection<W> mergingWindows, MergingStateAccessor<?, W> state) {
-    if (isFinishedSetNeeded()) {
+    if (finishedSetNeeded) {
       for (ValueState<?> value : state.accessInEachMergingWindow(FINISHED_BITS_TAG).values()) {
         value.readLater();
       }
@@ -139,8 +143,10 @@ public class TriggerStateMachineRunner<W extends BoundedWindow> {
 
   /** Run the trigger merging logic as part of executing the specified merge. */
   public void onMerge(W window, Timers timers, MergingStateAccessor<?, W> state) throws Exception {
+    ValueState<BitSet> finishedSetState = state.access(FINISHED_BITS_TAG);
+    FinishedTriggersBitSet originalFinishedSet = readFinishedBits(finishedSetState);
     // Clone so that we can detect changes and so that changes here don't pollute merging.
-    FinishedTriggersBitSet finishedSet = readFinishedBits(state.access(FINISHED_BITS_TAG)).copy();
+    FinishedTriggersBitSet finishedSet = originalFinishedSet.copy();
 
     // And read the finished bits in each merging window.
     ImmutableMap.Builder<W, FinishedTriggers> builder = ImmutableMap.builder();
@@ -160,7 +166,7 @@ public class TriggerStateMachineRunner<W extends BoundedWindow> {
     // Run the merge from the trigger
     rootTrigger.invokeOnMerge(mergeContext);
 
-    persistFinishedSet(state, finishedSet);
+    persistFinishedSet(finishedSetState, originalFinishedSet, finishedSet);
   }
 
   public boolean shouldFire(W window, Timers timers, StateAccessor<?> state) throws Exception {
@@ -170,24 +176,29 @@ public class TriggerStateMachineRunner<W extends BoundedWindow> {
     return rootTrigger.invokeShouldFire(context);
   }
 
-  public void onFire(W window, Timers timers, StateAccessor<?> state) throws Exception {
+  /** Run the trigger logic to deal with a firing. Returns whether the trigger is now closed. */
+  public boolean onFire(W window, Timers timers, StateAccessor<?> state) throws Exception {
     // shouldFire should be false.
     // However it is too expensive to assert.
-    FinishedTriggersBitSet finishedSet = readFinishedBits(state.access(FINISHED_BITS_TAG)).copy();
+    ValueState<BitSet> finishedSetState = state.access(FINISHED_BITS_TAG);
+    FinishedTriggersBitSet originalFinishedSet = readFinishedBits(finishedSetState);
+    FinishedTriggersBitSet finishedSet = originalFinishedSet.copy();
     TriggerStateMachine.TriggerContext context =
         contextFactory.base(window, timers, rootTrigger, finishedSet);
     rootTrigger.invokeOnFire(context);
-    persistFinishedSet(state, finishedSet);
+    persistFinishedSet(finishedSetState, originalFinishedSet, finishedSet);
+    return finishedSet.isFinished(rootTrigger);
   }
 
   private void persistFinishedSet(
-      StateAccessor<?> state, FinishedTriggersBitSet modifiedFinishedSet) {
-    if (!isFinishedSetNeeded()) {
+      ValueState<BitSet> finishedSetState,
+      FinishedTriggersBitSet originalFinishedSet,
+      FinishedTriggersBitSet modifiedFinishedSet) {
+    if (!finishedSetNeeded) {
       return;
     }
 
-    ValueState<BitSet> finishedSetState = state.access(FINISHED_BITS_TAG);
-    if (!readFinishedBits(finishedSetState).equals(modifiedFinishedSet)) {
+    if (!originalFinishedSet.equals(modifiedFinishedSet)) {
       if (modifiedFinishedSet.getBitSet().isEmpty()) {
         finishedSetState.clear();
       } else {
@@ -211,9 +222,44 @@ public class TriggerStateMachineRunner<W extends BoundedWindow> {
     rootTrigger.invokeClear(contextFactory.base(window, timers, rootTrigger, finishedSet));
   }
 
-  private boolean isFinishedSetNeeded() {
-    // TODO: If we know that no trigger in the tree will ever finish, we don't need to do the
-    // lookup. Right now, we special case this for the DefaultTrigger.
-    return !(rootTrigger.getSpec() instanceof DefaultTriggerStateMachine);
+  /**
+   * Returns whether any subtrigger of the given trigger can be left finished between calls, in
+   * which case the finished bits have to be persisted.
+   *
+   * <p>Triggers that never finish trivially need no finished bits. A {@link RepeatedlyStateMachine}
+   * resets the whole repeated subtree as soon as it finishes, so if every part of that subtree only
+   * finishes by firing, and the repeated trigger itself always finishes when fired, no bit survives
+   * the call that set it.
+   */
+  @VisibleForTesting
+  static boolean isFinishedSetNeeded(TriggerStateMachine trigger) {
+    if (trigger instanceof DefaultTriggerStateMachine
+        || trigger instanceof NeverStateMachine
+        || trigger instanceof ReshuffleTriggerStateMachine) {
+      return false;
+    }
+    if (trigger instanceof RepeatedlyStateMachine) {
+      return !finishesOnlyWhenFired(trigger.subTriggers().iterator().next());
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether the given trigger finishes whenever it fires, and neither it nor any of its
+   * subtriggers finishes otherwise as long as no finished bits are carried between calls.
+   */
+  private static boolean finishesOnlyWhenFired(TriggerStateMachine trigger) {
+    if (trigger instanceof AfterFirstStateMachine || trigger instanceof AfterAllStateMachine) {
+      for (TriggerStateMachine subTrigger : trigger.subTriggers()) {
+        if (!finishesOnlyWhenFired(subTrigger)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return trigger instanceof AfterPaneStateMachine
+        || trigger instanceof AfterDelayFromFirstElementStateMachine
+        || trigger instanceof AfterWatermarkStateMachine.FromEndOfWindow
+        || trigger instanceof NeverStateMachine;
   }
 }
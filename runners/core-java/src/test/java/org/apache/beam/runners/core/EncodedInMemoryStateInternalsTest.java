@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.core;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.beam.runners.core.EncodedInMemoryStateInternals.Arena;
+import org.apache.beam.runners.core.InMemoryStateInternals.InMemoryState;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.coders.VoidCoder;
+import org.apache.beam.sdk.state.BagState;
+import org.apache.beam.sdk.state.ValueState;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Strings;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link EncodedInMemoryStateInternals}. This is based on {@link StateInternalsTest}. */
+public class EncodedInMemoryStateInternalsTest {
+
+  /** A standard StateInternals test, with state on the heap. */
+  @RunWith(JUnit4.class)
+  public static class OnHeapStateInternalsTests extends StateInternalsTest {
+    @Override
+    protected StateInternals createStateInternals() {
+      return EncodedInMemoryStateInternals.forKey("dummyKey", Arena.onHeap());
+    }
+  }
+
+  /** A standard StateInternals test, with state off the heap in small chunks. */
+  @RunWith(JUnit4.class)
+  public static class OffHeapStateInternalsTests extends StateInternalsTest {
+    @Override
+    protected StateInternals createStateInternals() {
+      return EncodedInMemoryStateInternals.forKey("dummyKey", Arena.offHeap().withChunkBytes(8));
+    }
+  }
+
+  /** A specific test of EncodedInMemoryStateInternals. */
+  @RunWith(JUnit4.class)
+  public static class OtherTests {
+
+    private static final StateNamespace NAMESPACE = new StateNamespaceForTest("ns");
+
+    private static final StateTag<ValueState<String>> STRING_VALUE_ADDR =
+        StateTags.value("stringValue", StringUtf8Coder.of());
+    private static final StateTag<BagState<Integer>> INT_BAG_ADDR =
+        StateTags.bag("intBag", VarIntCoder.of());
+    private static final StateTag<BagState<Void>> VOID_BAG_ADDR =
+        StateTags.bag("voidBag", VoidCoder.of());
+
+    private final Arena arena = Arena.offHeap().withChunkBytes(16);
+
+    @Test
+    public void testBagSpanningChunks() {
+      EncodedInMemoryStateInternals<String> underTest =
+          EncodedInMemoryStateInternals.forKey("key", arena);
+      BagState<Integer> bag = underTest.state(NAMESPACE, INT_BAG_ADDR);
+
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        bag.add(i * 1000);
+        expected.add(i * 1000);
+      }
+
+      assertThat(bag.read(), contains(expected.toArray()));
+      assertThat(underTest.getAllocatedBytes(), greaterThan(16L));
+      assertThat(arena.getAllocatedBytes(), equalTo(underTest.getAllocatedBytes()));
+    }
+
+    @Test
+    public void testBagReadIsStable() {
+      EncodedInMemoryStateInternals<String> underTest =
+          EncodedInMemoryStateInternals.forKey("key", arena);
+      BagState<Integer> bag = underTest.state(NAMESPACE, INT_BAG_ADDR);
+
+      bag.add(1);
+      bag.add(2);
+      Iterable<Integer> read = bag.read();
+      for (int i = 3; i < 50; i++) {
+        bag.add(i);
+      }
+      assertThat(read, contains(1, 2));
+
+      bag.clear();
+      bag.add(100);
+      assertThat(read, contains(1, 2));
+      assertThat(bag.read(), contains(100));
+    }
+
+    @Test
+    public void testClearKeepsChunksOfReadBagsUntilReleased() {
+      EncodedInMemoryStateInternals<String> underTest =
+          EncodedInMemoryStateInternals.forKey("key", arena);
+      BagState<Integer> bag = underTest.state(NAMESPACE, INT_BAG_ADDR);
+
+      for (int i = 0; i < 20; i++) {
+        bag.add(i);
+      }
+      Iterable<Integer> read = bag.read();
+      long allocated = underTest.getAllocatedBytes();
+
+      bag.clear();
+      assertThat(underTest.getAllocatedBytes(), equalTo(allocated));
+      assertThat(arena.getAllocatedBytes(), equalTo(allocated));
+      assertThat(read, hasItems(0, 19));
+
+      underTest.releaseRetired();
+      assertThat(underTest.getAllocatedBytes(), equalTo(0L));
+      assertThat(arena.getAllocatedBytes(), equalTo(0L));
+    }
+
+    @Test
+    public void testReleasedChunksAreReused() {
+      for (int key = 0; key < 100; key++) {
+        EncodedInMemoryStateInternals<String> underTest =
+            EncodedInMemoryStateInternals.forKey("key" + key, arena);
+        for (int i = 0; i < 100; i++) {
+          underTest.state(NAMESPACE, INT_BAG_ADDR).add(i * 1000);
+        }
+        underTest.state(NAMESPACE, STRING_VALUE_ADDR).write("hello" + key);
+        underTest.clear();
+      }
+
+      // All keys fit in the first slab, since each reuses the chunks of the previous one.
+      assertThat(arena.getAllocatedBytes(), equalTo(0L));
+      assertThat(arena.getReservedBytes(), equalTo(1024L * 1024L));
+    }
+
+    @Test
+    public void testLargeValuesGetTheirOwnBuffer() {
+      EncodedInMemoryStateInternals<String> underTest =
+          EncodedInMemoryStateInternals.forKey("key", arena);
+      ValueState<String> value = underTest.state(NAMESPACE, STRING_VALUE_ADDR);
+      String large = Strings.repeat("x", 2 * 1024 * 1024);
+
+      value.write(large);
+      assertThat(value.read(), equalTo(large));
+      assertThat(arena.getReservedBytes(), equalTo(underTest.getAllocatedBytes()));
+
+      value.clear();
+      assertThat(arena.getAllocatedBytes(), equalTo(0L));
+      assertThat(arena.getReservedBytes(), equalTo(0L));
+    }
+
+    @Test
+    public void testBagOfZeroByteElements() {
+      EncodedInMemoryStateInternals<String> underTest =
+          EncodedInMemoryStateInternals.forKey("key", arena);
+      BagState<Void> bag = underTest.state(NAMESPACE, VOID_BAG_ADDR);
+
+      bag.add(null);
+      bag.add(null);
+      bag.add(null);
+
+      assertThat(bag.read(), contains(nullValue(), nullValue(), nullValue()));
+    }
+
+    @Test
+    public void testCopy() {
+      EncodedInMemoryStateInternals<String> underTest =
+          EncodedInMemoryStateInternals.forKey("key", arena);
+      BagState<Integer> bag = underTest.state(NAMESPACE, INT_BAG_ADDR);
+      ValueState<String> value = underTest.state(NAMESPACE, STRING_VALUE_ADDR);
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        bag.add(i * 1000);
+        expected.add(i * 1000);
+      }
+      value.write("hello");
+
+      @SuppressWarnings("unchecked")
+      BagState<Integer> bagCopy = (BagState<Integer>) ((InMemoryState<?>) bag).copy();
+      @SuppressWarnings("unchecked")
+      ValueState<String> valueCopy = (ValueState<String>) ((InMemoryState<?>) value).copy();
+      bag.clear();
+      value.clear();
+
+      assertThat(bagCopy.read(), contains(expected.toArray()));
+      assertThat(valueCopy.read(), equalTo("hello"));
+    }
+
+    @Test
+    public void testClearReleasesMemory() {
+      EncodedInMemoryStateInternals<String> first =
+          EncodedInMemoryStateInternals.forKey("first", arena);
+      EncodedInMemoryStateInternals<String> second =
+          EncodedInMemoryStateInternals.forKey("second", arena);
+      for (int i = 0; i < 20; i++) {
+        first.state(NAMESPACE, INT_BAG_ADDR).add(i);
+        second.state(NAMESPACE, INT_BAG_ADDR).add(i);
+      }
+      first.state(NAMESPACE, STRING_VALUE_ADDR).write("hello");
+      assertThat(
+          arena.getAllocatedBytes(),
+          equalTo(first.getAllocatedBytes() + second.getAllocatedBytes()));
+
+      first.state(NAMESPACE, STRING_VALUE_ADDR).clear();
+      first.state(NAMESPACE, INT_BAG_ADDR).clear();
+      assertThat(first.getAllocatedBytes(), equalTo(0L));
+
+      second.clear();
+      assertThat(second.getAllocatedBytes(), equalTo(0L));
+      assertThat(arena.getAllocatedBytes(), equalTo(0L));
+    }
+  }
+}
@@ -21,6 +21,7 @@ import static org.apache.beam.runners.core.WindowMatchers.isSingleWindowedValue;
 import static org.apache.beam.runners.core.WindowMatchers.isWindowedValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.anything;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.emptyIterable;
@@ -399,6 +400,76 @@ public class ReduceFnRunnerTest {
         WindowMatchers.valueWithPaneInfo(PaneInfo.createPane(false, false, Timing.LATE, 1, 1)));
   }
 
+  /**
+   * Tests that non-merging windows with the default trigger in discarding mode fire a single
+   * ON_TIME pane per window, and fire late data right away.
+   */
+  @Test
+  public void testDefaultTriggerNonMergingDiscarding() throws Exception {
+    WindowingStrategy<?, IntervalWindow> strategy =
+        WindowingStrategy.of(
+                (WindowFn<?, IntervalWindow>)
+                    SlidingWindows.of(Duration.millis(10)).every(Duration.millis(5)))
+            .withTrigger(DefaultTrigger.of())
+            .withMode(AccumulationMode.DISCARDING_FIRED_PANES)
+            .withAllowedLateness(Duration.millis(100));
+
+    ReduceFnTester<Integer, Iterable<Integer>, IntervalWindow> tester =
+        ReduceFnTester.nonCombining(strategy);
+
+    BoundedWindow window1 = new IntervalWindow(new Instant(-5), new Instant(5));
+    BoundedWindow window2 = new IntervalWindow(new Instant(0), new Instant(10));
+    BoundedWindow window3 = new IntervalWindow(new Instant(5), new Instant(15));
+
+    tester.advanceInputWatermark(new Instant(0));
+    tester.injectElements(
+        TimestampedValue.of(1, new Instant(1)), TimestampedValue.of(7, new Instant(7)));
+    assertThat(tester.extractOutput(), emptyIterable());
+
+    tester.advanceInputWatermark(new Instant(10));
+    PaneInfo onTime = PaneInfo.createPane(true, false, Timing.ON_TIME, 0, 0);
+    assertThat(
+        tester.extractOutput(),
+        containsInAnyOrder(
+            isSingleWindowedValue(
+                containsInAnyOrder(1),
+                anything(),
+                equalTo(window1),
+                equalTo(onTime)),
+            isSingleWindowedValue(
+                containsInAnyOrder(1, 7),
+                anything(),
+                equalTo(window2),
+                equalTo(onTime))));
+
+    // Both windows of this element have already fired, so it is emitted without waiting.
+    tester.injectElements(TimestampedValue.of(3, new Instant(3)));
+    PaneInfo late = PaneInfo.createPane(false, false, Timing.LATE, 1, 1);
+    assertThat(
+        tester.extractOutput(),
+        containsInAnyOrder(
+            isSingleWindowedValue(
+                containsInAnyOrder(3),
+                anything(),
+                equalTo(window1),
+                equalTo(late)),
+            isSingleWindowedValue(
+                containsInAnyOrder(3),
+                anything(),
+                equalTo(window2),
+                equalTo(late))));
+
+    tester.advanceInputWatermark(new Instant(15));
+    assertThat(
+        tester.extractOutput(),
+        contains(
+            isSingleWindowedValue(
+                containsInAnyOrder(7),
+                anything(),
+                equalTo(window3),
+                equalTo(onTime))));
+  }
+
   @Test
   public void testOnElementCombiningDiscarding() throws Exception {
     // Test basic execution of a trigger using a non-combining window set and discarding mode.
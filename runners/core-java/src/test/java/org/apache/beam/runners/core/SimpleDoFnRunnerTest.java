@@ -28,6 +28,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import org.apache.beam.runners.core.DoFnRunners.OutputManager;
@@ -42,8 +43,11 @@ import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.DoFnSchemaInformation;
 import org.apache.beam.sdk.transforms.reflect.DoFnSignature.TimerDeclaration;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.transforms.windowing.FixedWindows;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindows;
+import org.apache.beam.sdk.transforms.windowing.IntervalWindow;
+import org.apache.beam.sdk.transforms.windowing.PaneInfo;
 import org.apache.beam.sdk.transforms.windowing.WindowFn;
 import org.apache.beam.sdk.util.UserCodeException;
 import org.apache.beam.sdk.util.WindowedValue;
@@ -52,6 +56,7 @@ import org.apache.beam.sdk.values.TupleTag;
 import org.apache.beam.sdk.values.WindowingStrategy;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.ArrayListMultimap;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.ListMultimap;
+import org.hamcrest.Matchers;
 import org.joda.time.Duration;
 import org.joda.time.Instant;
 import org.joda.time.format.PeriodFormat;
@@ -633,6 +638,141 @@ public class SimpleDoFnRunnerTest {
                     PeriodFormat.getDefault().print(Duration.ZERO.toPeriod())))));
   }
 
+  /**
+   * Tests that the process context reused across elements and windows observes the element and
+   * window of each invocation.
+   */
+  @Test
+  public void testProcessElementReusesContextAcrossWindows() {
+    ListOutputManager outputManager = new ListOutputManager();
+    TupleTag<String> mainOutputTag = new TupleTag<>();
+    DoFnRunner<String, String> runner =
+        new SimpleDoFnRunner<>(
+            null,
+            new WindowLabellingDoFn(),
+            NullSideInputReader.empty(),
+            outputManager,
+            mainOutputTag,
+            Collections.emptyList(),
+            mockStepContext,
+            null,
+            Collections.emptyMap(),
+            WindowingStrategy.of(FixedWindows.of(Duration.millis(10))),
+            DoFnSchemaInformation.create(),
+            Collections.emptyMap());
+
+    IntervalWindow first = new IntervalWindow(new Instant(0), new Instant(10));
+    IntervalWindow second = new IntervalWindow(new Instant(10), new Instant(20));
+    runner.startBundle();
+    runner.processElement(
+        WindowedValue.of("a", new Instant(5), Arrays.asList(first, second), PaneInfo.NO_FIRING));
+    runner.processElement(WindowedValue.of("b", new Instant(15), second, PaneInfo.NO_FIRING));
+    runner.finishBundle();
+
+    assertThat(
+        outputManager.outputs.get(mainOutputTag),
+        Matchers.<WindowedValue<?>>contains(
+            WindowedValue.of("a" + first, new Instant(5), first, PaneInfo.NO_FIRING),
+            WindowedValue.of("a" + second, new Instant(5), second, PaneInfo.NO_FIRING),
+            WindowedValue.of("b" + second, new Instant(15), second, PaneInfo.NO_FIRING)));
+  }
+
+  /**
+   * Tests that an element processed while the reusable process context is in use, here from the
+   * output manager, gets a context of its own.
+   */
+  @Test
+  public void testReentrantProcessElementUsesFreshContext() {
+    TupleTag<String> mainOutputTag = new TupleTag<>();
+    ReentrantOutputManager outputManager = new ReentrantOutputManager("nested");
+    DoFnRunner<String, String> runner =
+        new SimpleDoFnRunner<>(
+            null,
+            new OutputTwiceDoFn(),
+            NullSideInputReader.empty(),
+            outputManager,
+            mainOutputTag,
+            Collections.emptyList(),
+            mockStepContext,
+            null,
+            Collections.emptyMap(),
+            WindowingStrategy.globalDefault(),
+            DoFnSchemaInformation.create(),
+            Collections.emptyMap());
+    outputManager.runner = runner;
+
+    runner.startBundle();
+    runner.processElement(WindowedValue.valueInGlobalWindow("outer"));
+    runner.finishBundle();
+
+    assertThat(
+        outputManager.outputs.get(mainOutputTag),
+        Matchers.<WindowedValue<?>>contains(
+            WindowedValue.valueInGlobalWindow("outer-first"),
+            WindowedValue.valueInGlobalWindow("nested-first"),
+            WindowedValue.valueInGlobalWindow("nested-second"),
+            WindowedValue.valueInGlobalWindow("outer-second")));
+  }
+
+  /**
+   * Tests that the timer context reused across timer firings observes the window and timestamps
+   * of each firing.
+   */
+  @Test
+  public void testOnTimerReusesContextAcrossWindows() {
+    WindowFn<?, IntervalWindow> windowFn = FixedWindows.of(Duration.millis(10));
+    DoFnWithTimers<IntervalWindow> fn = new DoFnWithTimers(windowFn.windowCoder());
+    DoFnRunner<String, String> runner =
+        new SimpleDoFnRunner<>(
+            null,
+            fn,
+            NullSideInputReader.empty(),
+            null,
+            null,
+            Collections.emptyList(),
+            mockStepContext,
+            null,
+            Collections.emptyMap(),
+            WindowingStrategy.of(windowFn),
+            DoFnSchemaInformation.create(),
+            Collections.emptyMap());
+
+    IntervalWindow first = new IntervalWindow(new Instant(0), new Instant(10));
+    IntervalWindow second = new IntervalWindow(new Instant(10), new Instant(20));
+    for (IntervalWindow window : Arrays.asList(first, first, second)) {
+      runner.onTimer(
+          TimerDeclaration.PREFIX + DoFnWithTimers.TIMER_ID,
+          "",
+          null,
+          window,
+          window.maxTimestamp(),
+          window.start(),
+          TimeDomain.EVENT_TIME);
+    }
+
+    assertThat(
+        fn.onTimerInvocations,
+        contains(
+            TimerData.of(
+                DoFnWithTimers.TIMER_ID,
+                StateNamespaces.window(windowFn.windowCoder(), first),
+                first.maxTimestamp(),
+                first.start(),
+                TimeDomain.EVENT_TIME),
+            TimerData.of(
+                DoFnWithTimers.TIMER_ID,
+                StateNamespaces.window(windowFn.windowCoder(), first),
+                first.maxTimestamp(),
+                first.start(),
+                TimeDomain.EVENT_TIME),
+            TimerData.of(
+                DoFnWithTimers.TIMER_ID,
+                StateNamespaces.window(windowFn.windowCoder(), second),
+                second.maxTimestamp(),
+                second.start(),
+                TimeDomain.EVENT_TIME)));
+  }
+
   static class ThrowingDoFn extends DoFn<String, String> {
     final Exception exceptionToThrow = new UnsupportedOperationException("Expected exception");
 
@@ -782,6 +922,47 @@ public class SimpleDoFnRunnerTest {
     }
   }
 
+  private static class WindowLabellingDoFn extends DoFn<String, String> {
+    @ProcessElement
+    public void processElement(
+        @Element String element, BoundedWindow window, OutputReceiver<String> receiver) {
+      receiver.output(element + window);
+    }
+  }
+
+  /** Outputs the element twice, reading it from the context each time. */
+  private static class OutputTwiceDoFn extends DoFn<String, String> {
+    @ProcessElement
+    public void processElement(ProcessContext context) {
+      context.output(context.element() + "-first");
+      context.output(context.element() + "-second");
+    }
+  }
+
+  /**
+   * Records outputs like {@link ListOutputManager} and processes one more element on the runner
+   * when it receives the first output.
+   */
+  private static class ReentrantOutputManager implements OutputManager {
+    private ListMultimap<TupleTag<?>, WindowedValue<?>> outputs = ArrayListMultimap.create();
+    private final String nestedElement;
+    private DoFnRunner<String, String> runner;
+    private boolean reentered;
+
+    ReentrantOutputManager(String nestedElement) {
+      this.nestedElement = nestedElement;
+    }
+
+    @Override
+    public <T> void output(TupleTag<T> tag, WindowedValue<T> output) {
+      outputs.put(tag, output);
+      if (!reentered) {
+        reentered = true;
+        runner.processElement(WindowedValue.valueInGlobalWindow(nestedElement));
+      }
+    }
+  }
+
   private static class ListOutputManager implements OutputManager {
     private ListMultimap<TupleTag<?>, WindowedValue<?>> outputs = ArrayListMultimap.create();
 
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.core.triggers;
+
+import static org.apache.beam.runners.core.triggers.TriggerStateMachineRunner.isFinishedSetNeeded;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.joda.time.Duration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TriggerStateMachineRunner}. */
+@RunWith(JUnit4.class)
+public class TriggerStateMachineRunnerTest {
+
+  @Test
+  public void testFinishedSetNotNeededForTriggersThatNeverFinish() {
+    assertFalse(isFinishedSetNeeded(DefaultTriggerStateMachine.of()));
+    assertFalse(isFinishedSetNeeded(NeverStateMachine.ever()));
+    assertFalse(isFinishedSetNeeded(ReshuffleTriggerStateMachine.create()));
+  }
+
+  @Test
+  public void testFinishedSetNotNeededWhenRepeatedTriggerResetsOnFiring() {
+    assertFalse(
+        isFinishedSetNeeded(
+            RepeatedlyStateMachine.forever(AfterPaneStateMachine.elementCountAtLeast(10))));
+    assertFalse(
+        isFinishedSetNeeded(
+            RepeatedlyStateMachine.forever(AfterWatermarkStateMachine.pastEndOfWindow())));
+    assertFalse(
+        isFinishedSetNeeded(
+            RepeatedlyStateMachine.forever(
+                AfterFirstStateMachine.of(
+                    AfterPaneStateMachine.elementCountAtLeast(10),
+                    AfterProcessingTimeStateMachine.pastFirstElementInPane()
+                        .plusDelayOf(Duration.standardMinutes(1))))));
+    assertFalse(
+        isFinishedSetNeeded(
+            RepeatedlyStateMachine.forever(
+                AfterAllStateMachine.of(
+                    AfterPaneStateMachine.elementCountAtLeast(10),
+                    AfterFirstStateMachine.of(
+                        AfterWatermarkStateMachine.pastEndOfWindow(),
+                        NeverStateMachine.ever())))));
+  }
+
+  @Test
+  public void testFinishedSetNeededWhenSubtriggerMayStayFinished() {
+    assertTrue(isFinishedSetNeeded(AfterPaneStateMachine.elementCountAtLeast(10)));
+    assertTrue(
+        isFinishedSetNeeded(
+            RepeatedlyStateMachine.forever(
+                AfterEachStateMachine.inOrder(
+                    AfterPaneStateMachine.elementCountAtLeast(10),
+                    AfterWatermarkStateMachine.pastEndOfWindow()))));
+    assertTrue(
+        isFinishedSetNeeded(
+            RepeatedlyStateMachine.forever(
+                AfterWatermarkStateMachine.pastEndOfWindow()
+                    .withEarlyFirings(AfterPaneStateMachine.elementCountAtLeast(10)))));
+    assertTrue(
+        isFinishedSetNeeded(
+            RepeatedlyStateMachine.forever(AfterPaneStateMachine.elementCountAtLeast(10))
+                .orFinally(AfterWatermarkStateMachine.pastEndOfWindow())));
+  }
+}
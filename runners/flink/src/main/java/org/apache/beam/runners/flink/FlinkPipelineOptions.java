@@ -285,6 +285,13 @@ public interface FlinkPipelineOptions
 
   void setFasterCopy(Boolean fasterCopy);
 
+  @Description(
+      "Flag indicating whether stateful ParDos in batch keep the value and bag state of each key encoded in off-heap buffers, which are reused from key to key, rather than as objects on the heap.")
+  @Default.Boolean(false)
+  Boolean getEncodedBatchState();
+
+  void setEncodedBatchState(Boolean encodedBatchState);
+
   static FlinkPipelineOptions defaults() {
     return PipelineOptionsFactory.as(FlinkPipelineOptions.class);
   }
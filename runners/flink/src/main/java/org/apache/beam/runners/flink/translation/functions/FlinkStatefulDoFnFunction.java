@@ -27,6 +27,7 @@ import java.util.Optional;
 import java.util.Set;
 import org.apache.beam.runners.core.DoFnRunner;
 import org.apache.beam.runners.core.DoFnRunners;
+import org.apache.beam.runners.core.EncodedInMemoryStateInternals;
 import org.apache.beam.runners.core.InMemoryStateInternals;
 import org.apache.beam.runners.core.InMemoryTimerInternals;
 import org.apache.beam.runners.core.StateInternals;
@@ -85,6 +86,8 @@ public class FlinkStatefulDoFnFunction<K, V, OutputT>
 
   private transient DoFnInvoker doFnInvoker;
   private transient FlinkMetricContainer metricContainer;
+  // Holds the state of each key in encoded form if enabled, shared by the keys of this task.
+  private transient EncodedInMemoryStateInternals.Arena stateArena;
 
   public FlinkStatefulDoFnFunction(
       DoFn<KV<K, V>, OutputT> dofn,
@@ -135,7 +138,10 @@ public class FlinkStatefulDoFnFunction<K, V, OutputT>
     WindowedValue<KV<K, V>> currentValue = iterator.next();
     final K key = currentValue.getValue().getKey();
 
-    final InMemoryStateInternals<K> stateInternals = InMemoryStateInternals.forKey(key);
+    final EncodedInMemoryStateInternals<K> encodedStateInternals =
+        stateArena == null ? null : EncodedInMemoryStateInternals.forKey(key, stateArena);
+    final StateInternals stateInternals =
+        encodedStateInternals == null ? InMemoryStateInternals.forKey(key) : encodedStateInternals;
 
     // Used with Batch, we know that all the data is available for this key. We can't use the
     // timer manager from the context because it doesn't exist. So we create one and advance
@@ -208,6 +214,12 @@ public class FlinkStatefulDoFnFunction<K, V, OutputT>
     }
 
     doFnRunner.finishBundle();
+
+    if (encodedStateInternals != null) {
+      // Return the buffers of this key to the arena, to be reused by the next key.
+      encodedStateInternals.clear();
+      encodedStateInternals.releaseRetired();
+    }
   }
 
   private void fireEligibleTimers(
@@ -260,6 +272,9 @@ public class FlinkStatefulDoFnFunction<K, V, OutputT>
     PipelineOptions options = serializedOptions.get();
     FileSystems.setDefaultPipelineOptions(options);
     metricContainer = new FlinkMetricContainer(getRuntimeContext());
+    if (options.as(FlinkPipelineOptions.class).getEncodedBatchState()) {
+      stateArena = EncodedInMemoryStateInternals.Arena.offHeap();
+    }
     doFnInvoker = DoFnInvokers.tryInvokeSetupFor(dofn, options);
   }
 
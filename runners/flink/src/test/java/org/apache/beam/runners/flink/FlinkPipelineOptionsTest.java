@@ -98,6 +98,7 @@ public class FlinkPipelineOptionsTest {
     assertThat(options.getAllowNonRestoredState(), is(false));
     assertThat(options.getDisableMetrics(), is(false));
     assertThat(options.getFasterCopy(), is(false));
+    assertThat(options.getEncodedBatchState(), is(false));
   }
 
   @Test(expected = Exception.class)
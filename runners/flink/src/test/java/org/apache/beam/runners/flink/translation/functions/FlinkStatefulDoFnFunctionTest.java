@@ -17,8 +17,15 @@
  */
 package org.apache.beam.runners.flink.translation.functions;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
 import java.util.Collections;
 import java.util.Map;
+import org.apache.beam.runners.core.EncodedInMemoryStateInternals;
+import org.apache.beam.runners.flink.FlinkPipelineOptions;
 import org.apache.beam.runners.flink.metrics.FlinkMetricContainer;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.options.PipelineOptions;
@@ -67,6 +74,35 @@ public class FlinkStatefulDoFnFunctionTest {
     Mockito.verify(monitoredContainer).registerMetricsForPipelineResult();
   }
 
+  @Test
+  public void testEncodedStateArenaCreatedWhenEnabled() throws Exception {
+    FlinkPipelineOptions options = PipelineOptionsFactory.as(FlinkPipelineOptions.class);
+    FlinkStatefulDoFnFunction doFnFunction = createDoFnFunction(options);
+    doFnFunction.open(new Configuration());
+    assertThat(Whitebox.getInternalState(doFnFunction, "stateArena"), is(nullValue()));
+
+    options.setEncodedBatchState(true);
+    doFnFunction = createDoFnFunction(options);
+    doFnFunction.open(new Configuration());
+    assertThat(
+        Whitebox.getInternalState(doFnFunction, "stateArena"),
+        instanceOf(EncodedInMemoryStateInternals.Arena.class));
+  }
+
+  private static FlinkStatefulDoFnFunction createDoFnFunction(PipelineOptions options) {
+    return new TestDoFnFunction(
+        "step",
+        WindowingStrategy.globalDefault(),
+        Collections.emptyMap(),
+        options,
+        Collections.emptyMap(),
+        new TupleTag<>(),
+        null,
+        Collections.emptyMap(),
+        DoFnSchemaInformation.create(),
+        Collections.emptyMap());
+  }
+
   private static class TestDoFnFunction extends FlinkStatefulDoFnFunction {
 
     public TestDoFnFunction(
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.beam.sdk.io.BoundedSource.BoundedReader;
+import org.apache.beam.sdk.io.fs.EmptyMatchTreatment;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.options.ValueProvider.StaticValueProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks for splitting a file into lines with {@link TextSource} and {@link TextBytesSource}.
+ *
+ * <p>This lives in the package of the sources since they are package private.
+ */
+public class TextSourceBenchmark {
+
+  /** A local file of about 16 MiB made of lines of {@code lineLength} characters. */
+  @State(Scope.Benchmark)
+  public static class TextFile {
+    @Param({"10", "1000"})
+    public int lineLength;
+
+    public Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      file = Files.createTempFile("text-source-benchmark", ".txt");
+      StringBuilder line = new StringBuilder(lineLength);
+      for (int i = 0; i < lineLength; i++) {
+        line.append((char) ('a' + i % 26));
+      }
+      long numLines = (16L << 20) / (lineLength + 1);
+      try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        for (long i = 0; i < numLines; i++) {
+          writer.write(line.toString());
+          writer.write('\n');
+        }
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  // A null delimiter splits on the default line endings.
+  @Benchmark
+  @SuppressWarnings("nullness")
+  public long readStrings(TextFile textFile) throws IOException {
+    return readAll(
+        new TextSource(
+            StaticValueProvider.of(textFile.file.toString()), EmptyMatchTreatment.DISALLOW, null));
+  }
+
+  @Benchmark
+  @SuppressWarnings("nullness")
+  public long readBytes(TextFile textFile) throws IOException {
+    return readAll(
+        new TextBytesSource(
+            StaticValueProvider.of(textFile.file.toString()), EmptyMatchTreatment.DISALLOW, null));
+  }
+
+  /** Reads all the records of the source, and returns their number. */
+  private static <T> long readAll(FileBasedSource<T> source) throws IOException {
+    long numRecords = 0;
+    try (BoundedReader<T> reader = source.createReader(PipelineOptionsFactory.create())) {
+      for (boolean more = reader.start(); more; more = reader.advance()) {
+        if (reader.getCurrent() != null) {
+          numRecords++;
+        }
+      }
+    }
+    return numRecords;
+  }
+}
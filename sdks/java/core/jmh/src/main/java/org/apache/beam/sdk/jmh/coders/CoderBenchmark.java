@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.jmh.coders;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.IterableCoder;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.values.KV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for encoding and decoding with the most used coders, through {@link CoderUtils} as
+ * runners do.
+ */
+public class CoderBenchmark {
+
+  /** An integer which takes one to five bytes when encoded. */
+  @State(Scope.Benchmark)
+  public static class VarInts {
+    @Param({"1", "300", "2147483647"})
+    public int value;
+
+    public byte[] encoded;
+
+    @Setup
+    public void setup() throws CoderException {
+      encoded = CoderUtils.encodeToByteArray(VarIntCoder.of(), value);
+    }
+  }
+
+  /** A string of {@code length} ASCII characters. */
+  @State(Scope.Benchmark)
+  public static class Strings {
+    @Param({"10", "1000", "100000"})
+    public int length;
+
+    public String value;
+    public byte[] encoded;
+
+    @Setup
+    public void setup() throws CoderException {
+      value = makeString(length);
+      encoded = CoderUtils.encodeToByteArray(StringUtf8Coder.of(), value);
+    }
+  }
+
+  /** A key-value pair of an integer and a string of {@code length} characters. */
+  @State(Scope.Benchmark)
+  public static class KVs {
+    @Param({"10", "1000"})
+    public int length;
+
+    public KvCoder<Integer, String> coder;
+    public KV<Integer, String> value;
+    public byte[] encoded;
+
+    @Setup
+    public void setup() throws CoderException {
+      coder = KvCoder.of(VarIntCoder.of(), StringUtf8Coder.of());
+      value = KV.of(length, makeString(length));
+      encoded = CoderUtils.encodeToByteArray(coder, value);
+    }
+  }
+
+  /**
+   * An iterable of {@code size} short strings. Iterables which are not collections have no known
+   * size, and are encoded in blocks through a {@code BufferedElementCountingOutputStream}.
+   */
+  @State(Scope.Benchmark)
+  public static class Iterables {
+    @Param({"10", "10000"})
+    public int size;
+
+    @Param({"true", "false"})
+    public boolean knownSize;
+
+    public IterableCoder<String> coder;
+    public Iterable<String> value;
+    public byte[] encoded;
+
+    @Setup
+    public void setup() throws CoderException {
+      coder = IterableCoder.of(StringUtf8Coder.of());
+      List<String> values = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        values.add(makeString(10));
+      }
+      if (knownSize) {
+        value = values;
+      } else {
+        value = values::iterator;
+      }
+      encoded = CoderUtils.encodeToByteArray(coder, value);
+    }
+  }
+
+  @Benchmark
+  public byte[] encodeVarInt(VarInts varInts) throws CoderException {
+    return CoderUtils.encodeToByteArray(VarIntCoder.of(), varInts.value);
+  }
+
+  @Benchmark
+  public Integer decodeVarInt(VarInts varInts) throws CoderException {
+    return CoderUtils.decodeFromByteArray(VarIntCoder.of(), varInts.encoded);
+  }
+
+  @Benchmark
+  public byte[] encodeString(Strings strings) throws CoderException {
+    return CoderUtils.encodeToByteArray(StringUtf8Coder.of(), strings.value);
+  }
+
+  @Benchmark
+  public String decodeString(Strings strings) throws CoderException {
+    return CoderUtils.decodeFromByteArray(StringUtf8Coder.of(), strings.encoded);
+  }
+
+  @Benchmark
+  public byte[] encodeKV(KVs kvs) throws CoderException {
+    return CoderUtils.encodeToByteArray(kvs.coder, kvs.value);
+  }
+
+  @Benchmark
+  public KV<Integer, String> decodeKV(KVs kvs) throws CoderException {
+    return CoderUtils.decodeFromByteArray(kvs.coder, kvs.encoded);
+  }
+
+  @Benchmark
+  public byte[] encodeIterable(Iterables iterables) throws CoderException {
+    return CoderUtils.encodeToByteArray(iterables.coder, iterables.value);
+  }
+
+  @Benchmark
+  public Iterable<String> decodeIterable(Iterables iterables) throws CoderException {
+    return CoderUtils.decodeFromByteArray(iterables.coder, iterables.encoded);
+  }
+
+  static String makeString(int length) {
+    StringBuilder builder = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      builder.append((char) ('a' + i % 26));
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.jmh.coders;
+
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.RowCoder;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.schemas.Schema.FieldType;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.values.Row;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmarks for {@link RowCoder}, whose coders are generated per schema. */
+public class RowCoderBenchmark {
+
+  /**
+   * A row with {@code numFields} fields alternating between integers and strings, nested {@code
+   * depth} levels deep in rows holding one more integer each.
+   */
+  @State(Scope.Benchmark)
+  public static class Rows {
+    @Param({"1", "10", "100"})
+    public int numFields;
+
+    @Param({"0", "2"})
+    public int depth;
+
+    public RowCoder coder;
+    public Row value;
+    public byte[] encoded;
+
+    @Setup
+    public void setup() throws CoderException {
+      Schema.Builder schemaBuilder = Schema.builder();
+      for (int i = 0; i < numFields; i++) {
+        schemaBuilder.addField("field" + i, i % 2 == 0 ? FieldType.INT64 : FieldType.STRING);
+      }
+      Schema schema = schemaBuilder.build();
+      Row.Builder rowBuilder = Row.withSchema(schema);
+      for (int i = 0; i < numFields; i++) {
+        rowBuilder.addValue(i % 2 == 0 ? (Object) (long) i : CoderBenchmark.makeString(10));
+      }
+      value = rowBuilder.build();
+      for (int i = 0; i < depth; i++) {
+        schema =
+            Schema.builder().addInt64Field("id").addRowField("nested", value.getSchema()).build();
+        value = Row.withSchema(schema).addValues((long) i, value).build();
+      }
+      coder = RowCoder.of(value.getSchema());
+      // Also generates the coder, so that isn't part of the first measurement.
+      encoded = CoderUtils.encodeToByteArray(coder, value);
+    }
+  }
+
+  @Benchmark
+  public byte[] encode(Rows rows) throws CoderException {
+    return CoderUtils.encodeToByteArray(rows.coder, rows.value);
+  }
+
+  @Benchmark
+  public Row decode(Rows rows) throws CoderException {
+    return CoderUtils.decodeFromByteArray(rows.coder, rows.encoded);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.jmh.coders;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.apache.beam.sdk.transforms.windowing.IntervalWindow;
+import org.apache.beam.sdk.transforms.windowing.PaneInfo;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.util.WindowedValue;
+import org.apache.beam.sdk.util.WindowedValue.FullWindowedValueCoder;
+import org.joda.time.Duration;
+import org.joda.time.Instant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmarks for {@link FullWindowedValueCoder}, which encodes every element between stages. */
+public class WindowedValueCoderBenchmark {
+
+  /**
+   * A short string in the global window, or in {@code numWindows} sliding windows when it isn't 0.
+   */
+  @State(Scope.Benchmark)
+  public static class WindowedValues {
+    @Param({"0", "1", "4"})
+    public int numWindows;
+
+    public FullWindowedValueCoder<String> coder;
+    public WindowedValue<String> value;
+    public byte[] encoded;
+
+    @Setup
+    public void setup() throws CoderException {
+      Instant timestamp = new Instant(1_000_000L);
+      if (numWindows == 0) {
+        coder = FullWindowedValueCoder.of(StringUtf8Coder.of(), GlobalWindow.Coder.INSTANCE);
+        value = WindowedValue.of("value", timestamp, GlobalWindow.INSTANCE, PaneInfo.NO_FIRING);
+      } else {
+        coder = FullWindowedValueCoder.of(StringUtf8Coder.of(), IntervalWindow.getCoder());
+        List<IntervalWindow> windows = new ArrayList<>(numWindows);
+        for (int i = 0; i < numWindows; i++) {
+          Instant start = timestamp.minus(Duration.standardMinutes(i));
+          windows.add(new IntervalWindow(start, start.plus(Duration.standardMinutes(numWindows))));
+        }
+        value = WindowedValue.of("value", timestamp, windows, PaneInfo.NO_FIRING);
+      }
+      encoded = CoderUtils.encodeToByteArray(coder, value);
+    }
+  }
+
+  @Benchmark
+  public byte[] encode(WindowedValues windowedValues) throws CoderException {
+    return CoderUtils.encodeToByteArray(windowedValues.coder, windowedValues.value);
+  }
+
+  @Benchmark
+  public WindowedValue<String> decode(WindowedValues windowedValues) throws CoderException {
+    return CoderUtils.decodeFromByteArray(windowedValues.coder, windowedValues.encoded);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.jmh.schemas;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.beam.sdk.schemas.JavaFieldSchema;
+import org.apache.beam.sdk.schemas.NoSuchSchemaException;
+import org.apache.beam.sdk.schemas.SchemaRegistry;
+import org.apache.beam.sdk.schemas.annotations.DefaultSchema;
+import org.apache.beam.sdk.transforms.SerializableFunction;
+import org.apache.beam.sdk.values.Row;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmarks for converting user types to and from {@link Row rows} with inferred schemas. */
+public class SchemaConversionBenchmark {
+
+  /** A POJO with a nested POJO and a list of {@code numTags} strings. */
+  @DefaultSchema(JavaFieldSchema.class)
+  public static class Event {
+    public long id;
+    public String name;
+    public double score;
+    public List<String> tags;
+    public Location location;
+  }
+
+  /** The nested POJO of {@link Event}. */
+  @DefaultSchema(JavaFieldSchema.class)
+  public static class Location {
+    public double latitude;
+    public double longitude;
+  }
+
+  /** Conversion functions for {@link Event} along with an event and its row. */
+  @State(Scope.Benchmark)
+  public static class Events {
+    @Param({"0", "100"})
+    public int numTags;
+
+    public SerializableFunction<Event, Row> toRow;
+    public SerializableFunction<Row, Event> fromRow;
+    public Event event;
+    public Row row;
+
+    @Setup
+    public void setup() throws NoSuchSchemaException {
+      SchemaRegistry registry = SchemaRegistry.createDefault();
+      toRow = registry.getToRowFunction(Event.class);
+      fromRow = registry.getFromRowFunction(Event.class);
+      event = new Event();
+      event.id = 42L;
+      event.name = "event";
+      event.score = 0.5;
+      event.tags = new ArrayList<>(numTags);
+      for (int i = 0; i < numTags; i++) {
+        event.tags.add("tag" + i);
+      }
+      event.location = new Location();
+      event.location.latitude = 52.37;
+      event.location.longitude = 4.89;
+      // Build the row field by field, since converting a row created from a POJO back returns the
+      // original POJO.
+      Row location =
+          Row.withSchema(registry.getSchema(Location.class))
+              .withFieldValue("latitude", event.location.latitude)
+              .withFieldValue("longitude", event.location.longitude)
+              .build();
+      row =
+          Row.withSchema(registry.getSchema(Event.class))
+              .withFieldValue("id", event.id)
+              .withFieldValue("name", event.name)
+              .withFieldValue("score", event.score)
+              .withFieldValue("tags", event.tags)
+              .withFieldValue("location", location)
+              .build();
+    }
+  }
+
+  /** Converts the event and reads all the values, since row values are read lazily. */
+  @Benchmark
+  public List<Object> toRow(Events events) {
+    return events.toRow.apply(events.event).getValues();
+  }
+
+  @Benchmark
+  public Event fromRow(Events events) {
+    return events.fromRow.apply(events.row);
+  }
+}
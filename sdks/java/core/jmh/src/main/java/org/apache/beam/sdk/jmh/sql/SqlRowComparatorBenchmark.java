@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.jmh.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.apache.beam.sdk.extensions.sql.impl.rel.BeamSortRel.BeamSqlRowComparator;
+import org.apache.beam.sdk.extensions.sql.impl.utils.CalciteUtils;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.schemas.Schema.FieldType;
+import org.apache.beam.sdk.values.Row;
+import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.sql.type.SqlTypeName;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@link BeamSqlRowComparator}, which orders rows for {@code ORDER BY}, window
+ * functions and {@code MATCH_RECOGNIZE}. The rows are also sorted with {@link
+ * PerComparisonDispatchComparator}, the previous implementation of the comparator, to compare with.
+ */
+public class SqlRowComparatorBenchmark {
+  private static final int NUM_ROWS = 10_000;
+
+  /**
+   * Rows with {@code numKeys} nullable key fields of type {@code keyType}, sorted on all of them.
+   * Keys only take a few distinct values, so that the later keys are compared too.
+   */
+  @State(Scope.Benchmark)
+  public static class Rows {
+    @Param({"INT64", "DOUBLE", "STRING"})
+    public String keyType;
+
+    @Param({"1", "3"})
+    public int numKeys;
+
+    public Row[] rows;
+    public BeamSqlRowComparator comparator;
+    public PerComparisonDispatchComparator perComparisonDispatchComparator;
+
+    @Setup
+    public void setup() {
+      FieldType fieldType = FieldType.of(Schema.TypeName.valueOf(keyType));
+      Schema.Builder schemaBuilder = Schema.builder();
+      List<Integer> keyIndices = new ArrayList<>();
+      List<Boolean> orientation = new ArrayList<>();
+      List<Boolean> nullsFirst = new ArrayList<>();
+      for (int i = 0; i < numKeys; i++) {
+        schemaBuilder.addNullableField("key" + i, fieldType);
+        keyIndices.add(i);
+        orientation.add(i % 2 == 0);
+        nullsFirst.add(i % 2 == 0);
+      }
+      Schema schema = schemaBuilder.addStringField("payload").build();
+
+      Random random = new Random(0);
+      rows = new Row[NUM_ROWS];
+      for (int i = 0; i < NUM_ROWS; i++) {
+        Row.Builder rowBuilder = Row.withSchema(schema);
+        for (int j = 0; j < numKeys; j++) {
+          rowBuilder.addValue(keyValue(fieldType, random.nextInt(10)));
+        }
+        rows[i] = rowBuilder.addValue("payload" + i).build();
+      }
+      comparator = new BeamSqlRowComparator(keyIndices, orientation, nullsFirst);
+      perComparisonDispatchComparator =
+          new PerComparisonDispatchComparator(keyIndices, orientation, nullsFirst);
+    }
+
+    /** Returns a value of the given type for {@code value}, or null for 0. */
+    private static @Nullable Object keyValue(FieldType fieldType, int value) {
+      if (value == 0) {
+        return null;
+      }
+      switch (fieldType.getTypeName()) {
+        case INT64:
+          return (long) value;
+        case DOUBLE:
+          return (double) value;
+        case STRING:
+          return "value" + value;
+        default:
+          throw new IllegalArgumentException("Unsupported key type " + fieldType);
+      }
+    }
+  }
+
+  @Benchmark
+  public Row[] sort(Rows rows) {
+    Row[] sorted = rows.rows.clone();
+    Arrays.sort(sorted, rows.comparator);
+    return sorted;
+  }
+
+  @Benchmark
+  public Row[] sortWithPerComparisonDispatch(Rows rows) {
+    Row[] sorted = rows.rows.clone();
+    Arrays.sort(sorted, rows.perComparisonDispatchComparator);
+    return sorted;
+  }
+
+  /**
+   * The previous {@link BeamSqlRowComparator}, which unboxes the sort spec, looks up the type of
+   * each key field and reads each value twice on every comparison.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  static class PerComparisonDispatchComparator implements Comparator<Row> {
+    private final List<Integer> fieldsIndices;
+    private final List<Boolean> orientation;
+    private final List<Boolean> nullsFirst;
+
+    PerComparisonDispatchComparator(
+        List<Integer> fieldsIndices, List<Boolean> orientation, List<Boolean> nullsFirst) {
+      this.fieldsIndices = fieldsIndices;
+      this.orientation = orientation;
+      this.nullsFirst = nullsFirst;
+    }
+
+    @Override
+    public int compare(Row row1, Row row2) {
+      for (int i = 0; i < fieldsIndices.size(); i++) {
+        int fieldIndex = fieldsIndices.get(i);
+        int fieldRet = 0;
+
+        FieldType fieldType = row1.getSchema().getField(fieldIndex).getType();
+        SqlTypeName sqlTypeName = CalciteUtils.toSqlTypeName(fieldType);
+        boolean isValue1Null = (row1.getValue(fieldIndex) == null);
+        boolean isValue2Null = (row2.getValue(fieldIndex) == null);
+        if (isValue1Null && isValue2Null) {
+          continue;
+        } else if (isValue1Null && !isValue2Null) {
+          fieldRet = -1 * (nullsFirst.get(i) ? -1 : 1);
+        } else if (!isValue1Null && isValue2Null) {
+          fieldRet = 1 * (nullsFirst.get(i) ? -1 : 1);
+        } else {
+          switch (sqlTypeName) {
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+            case FLOAT:
+            case DOUBLE:
+            case VARCHAR:
+            case DATE:
+            case TIMESTAMP:
+              Comparable v1 = row1.getBaseValue(fieldIndex, Comparable.class);
+              Comparable v2 = row2.getBaseValue(fieldIndex, Comparable.class);
+              fieldRet = v1.compareTo(v2);
+              break;
+            default:
+              throw new UnsupportedOperationException(
+                  "Data type: " + sqlTypeName + " not supported yet!");
+          }
+        }
+
+        fieldRet *= (orientation.get(i) ? 1 : -1);
+
+        if (fieldRet != 0) {
+          return fieldRet;
+        }
+      }
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.io;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.beam.sdk.io.TextSourceBenchmark.TextFile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TextSourceBenchmark}. */
+@RunWith(JUnit4.class)
+public class TextSourceBenchmarkTest {
+  @Test
+  public void testReads() throws Exception {
+    TextFile textFile = new TextFile();
+    textFile.lineLength = 1000;
+    textFile.setup();
+    try {
+      long expectedLines = (16L << 20) / 1001;
+      TextSourceBenchmark benchmark = new TextSourceBenchmark();
+      assertEquals(expectedLines, benchmark.readStrings(textFile));
+      assertEquals(expectedLines, benchmark.readBytes(textFile));
+    } finally {
+      textFile.tearDown();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.jmh.coders;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.beam.sdk.jmh.coders.CoderBenchmark.Iterables;
+import org.apache.beam.sdk.jmh.coders.CoderBenchmark.KVs;
+import org.apache.beam.sdk.jmh.coders.CoderBenchmark.Strings;
+import org.apache.beam.sdk.jmh.coders.CoderBenchmark.VarInts;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link CoderBenchmark}. */
+@RunWith(JUnit4.class)
+public class CoderBenchmarkTest {
+  @Test
+  public void testVarInt() throws Exception {
+    VarInts varInts = new VarInts();
+    varInts.value = 300;
+    varInts.setup();
+    CoderBenchmark benchmark = new CoderBenchmark();
+    assertArrayEquals(varInts.encoded, benchmark.encodeVarInt(varInts));
+    assertEquals(Integer.valueOf(300), benchmark.decodeVarInt(varInts));
+  }
+
+  @Test
+  public void testString() throws Exception {
+    Strings strings = new Strings();
+    strings.length = 1000;
+    strings.setup();
+    CoderBenchmark benchmark = new CoderBenchmark();
+    assertArrayEquals(strings.encoded, benchmark.encodeString(strings));
+    assertEquals(strings.value, benchmark.decodeString(strings));
+  }
+
+  @Test
+  public void testKV() throws Exception {
+    KVs kvs = new KVs();
+    kvs.length = 10;
+    kvs.setup();
+    CoderBenchmark benchmark = new CoderBenchmark();
+    assertArrayEquals(kvs.encoded, benchmark.encodeKV(kvs));
+    assertEquals(kvs.value, benchmark.decodeKV(kvs));
+  }
+
+  @Test
+  public void testIterable() throws Exception {
+    for (boolean knownSize : new boolean[] {true, false}) {
+      Iterables iterables = new Iterables();
+      iterables.size = 100;
+      iterables.knownSize = knownSize;
+      iterables.setup();
+      CoderBenchmark benchmark = new CoderBenchmark();
+      assertArrayEquals(iterables.encoded, benchmark.encodeIterable(iterables));
+      assertEquals(toList(iterables.value), toList(benchmark.decodeIterable(iterables)));
+    }
+  }
+
+  private static List<String> toList(Iterable<String> iterable) {
+    List<String> list = new ArrayList<>();
+    iterable.forEach(list::add);
+    return list;
+  }
+}
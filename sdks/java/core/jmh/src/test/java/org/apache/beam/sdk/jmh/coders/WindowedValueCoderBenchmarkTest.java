@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.jmh.coders;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.apache.beam.sdk.jmh.coders.WindowedValueCoderBenchmark.WindowedValues;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link WindowedValueCoderBenchmark}. */
+@RunWith(JUnit4.class)
+public class WindowedValueCoderBenchmarkTest {
+  @Test
+  public void testWindowedValues() throws Exception {
+    for (int numWindows : new int[] {0, 1, 4}) {
+      WindowedValues windowedValues = new WindowedValues();
+      windowedValues.numWindows = numWindows;
+      windowedValues.setup();
+      WindowedValueCoderBenchmark benchmark = new WindowedValueCoderBenchmark();
+      assertArrayEquals(windowedValues.encoded, benchmark.encode(windowedValues));
+      assertEquals(windowedValues.value, benchmark.decode(windowedValues));
+    }
+  }
+}
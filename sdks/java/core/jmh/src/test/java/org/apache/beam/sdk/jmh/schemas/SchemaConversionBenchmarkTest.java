@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.jmh.schemas;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.beam.sdk.jmh.schemas.SchemaConversionBenchmark.Event;
+import org.apache.beam.sdk.jmh.schemas.SchemaConversionBenchmark.Events;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SchemaConversionBenchmark}. */
+@RunWith(JUnit4.class)
+public class SchemaConversionBenchmarkTest {
+  @Test
+  public void testConversions() throws Exception {
+    Events events = new Events();
+    events.numTags = 10;
+    events.setup();
+    SchemaConversionBenchmark benchmark = new SchemaConversionBenchmark();
+    assertEquals(events.row.getValues(), benchmark.toRow(events));
+    Event event = benchmark.fromRow(events);
+    assertEquals(events.event.name, event.name);
+    assertEquals(events.event.tags, event.tags);
+    assertEquals(events.event.location.latitude, event.location.latitude, 0.0);
+  }
+}
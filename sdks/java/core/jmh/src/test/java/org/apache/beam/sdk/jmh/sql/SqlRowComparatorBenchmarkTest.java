@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.jmh.sql;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.beam.sdk.jmh.sql.SqlRowComparatorBenchmark.Rows;
+import org.apache.beam.sdk.values.Row;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SqlRowComparatorBenchmark}. */
+@RunWith(JUnit4.class)
+public class SqlRowComparatorBenchmarkTest {
+  @Test
+  public void testSortsLikePreviousComparator() {
+    for (String keyType : new String[] {"INT64", "DOUBLE", "STRING"}) {
+      Rows rows = new Rows();
+      rows.keyType = keyType;
+      rows.numKeys = 3;
+      rows.setup();
+      SqlRowComparatorBenchmark benchmark = new SqlRowComparatorBenchmark();
+      Row[] sorted = benchmark.sort(rows);
+      for (int i = 1; i < sorted.length; i++) {
+        assertTrue(rows.comparator.compare(sorted[i - 1], sorted[i]) <= 0);
+      }
+      // Both sorts are stable, so they agree row for row.
+      assertArrayEquals(sorted, benchmark.sortWithPerComparisonDispatch(rows));
+    }
+  }
+}
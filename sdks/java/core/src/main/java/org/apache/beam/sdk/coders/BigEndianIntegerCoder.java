@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 import org.apache.beam.sdk.values.TypeDescriptor;
 
 /** A {@link BigEndianIntegerCoder} encodes {@link Integer Integers} in 4 bytes, big-endian. */
@@ -59,6 +60,19 @@ public class BigEndianIntegerCoder extends AtomicCoder<Integer> {
     }
   }
 
+  @Override
+  public void encodeToBuffer(Integer value, ByteBuffer buffer) throws IOException, CoderException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null Integer");
+    }
+    buffer.putInt(value);
+  }
+
+  @Override
+  public Integer decodeFromBuffer(ByteBuffer buffer) throws IOException, CoderException {
+    return buffer.getInt();
+  }
+
   @Override
   public void verifyDeterministic() {}
 
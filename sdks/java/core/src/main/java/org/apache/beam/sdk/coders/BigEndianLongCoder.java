@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 import org.apache.beam.sdk.values.TypeDescriptor;
 
 /** A {@link BigEndianLongCoder} encodes {@link Long Longs} in 8 bytes, big-endian. */
@@ -59,6 +60,19 @@ public class BigEndianLongCoder extends AtomicCoder<Long> {
     }
   }
 
+  @Override
+  public void encodeToBuffer(Long value, ByteBuffer buffer) throws IOException, CoderException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null Long");
+    }
+    buffer.putLong(value);
+  }
+
+  @Override
+  public Long decodeFromBuffer(ByteBuffer buffer) throws IOException, CoderException {
+    return buffer.getLong();
+  }
+
   @Override
   public void verifyDeterministic() {}
 
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 import org.apache.beam.sdk.values.TypeDescriptor;
 
 /** A {@link BigEndianShortCoder} encodes {@link Short Shorts} in 2 bytes, big-endian. */
@@ -59,6 +60,19 @@ public class BigEndianShortCoder extends AtomicCoder<Short> {
     }
   }
 
+  @Override
+  public void encodeToBuffer(Short value, ByteBuffer buffer) throws IOException, CoderException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null Short");
+    }
+    buffer.putShort(value);
+  }
+
+  @Override
+  public Short decodeFromBuffer(ByteBuffer buffer) throws IOException, CoderException {
+    return buffer.getShort();
+  }
+
   @Override
   public void verifyDeterministic() {}
 
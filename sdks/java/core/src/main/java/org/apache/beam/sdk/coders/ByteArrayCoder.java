@@ -20,6 +20,7 @@ package org.apache.beam.sdk.coders;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import org.apache.beam.sdk.util.ExposedByteArrayOutputStream;
 import org.apache.beam.sdk.util.StreamUtils;
 import org.apache.beam.sdk.util.VarInt;
@@ -110,6 +111,26 @@ public class ByteArrayCoder extends AtomicCoder<byte[]> {
     }
   }
 
+  @Override
+  public void encodeToBuffer(byte[] value, ByteBuffer buffer) throws IOException, CoderException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null byte[]");
+    }
+    VarInt.encode(value.length, buffer);
+    buffer.put(value);
+  }
+
+  @Override
+  public byte[] decodeFromBuffer(ByteBuffer buffer) throws IOException, CoderException {
+    int length = VarInt.decodeInt(buffer);
+    if (length < 0) {
+      throw new IOException("invalid length " + length);
+    }
+    byte[] value = new byte[length];
+    buffer.get(value);
+    return value;
+  }
+
   @Override
   public void verifyDeterministic() {}
 
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 import org.apache.beam.sdk.values.TypeDescriptor;
 
 /** A {@link ByteCoder} encodes {@link Byte} values in 1 byte using Java serialization. */
@@ -62,6 +63,19 @@ public class ByteCoder extends AtomicCoder<Byte> {
     }
   }
 
+  @Override
+  public void encodeToBuffer(Byte value, ByteBuffer buffer) throws IOException, CoderException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null Byte");
+    }
+    buffer.put(value);
+  }
+
+  @Override
+  public Byte decodeFromBuffer(ByteBuffer buffer) throws IOException, CoderException {
+    return buffer.get();
+  }
+
   /**
    * {@inheritDoc}
    *
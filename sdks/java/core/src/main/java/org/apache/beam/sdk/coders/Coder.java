@@ -24,11 +24,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import org.apache.beam.sdk.PipelineRunner;
 import org.apache.beam.sdk.annotations.Experimental;
 import org.apache.beam.sdk.annotations.Experimental.Kind;
+import org.apache.beam.sdk.util.ByteBufferInputStream;
+import org.apache.beam.sdk.util.ByteBufferOutputStream;
 import org.apache.beam.sdk.util.common.ElementByteSizeObserver;
 import org.apache.beam.sdk.values.TypeDescriptor;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Joiner;
@@ -159,6 +162,43 @@ public abstract class Coder<T> implements Serializable {
     return decode(inStream);
   }
 
+  /**
+   * Encodes the given value of type {@code T} into the given buffer, starting at its current
+   * position and advancing the position past the encoded bytes. The bytes written are the same as
+   * those written by {@link #encode(Object, OutputStream)}. The buffer must use the default
+   * big-endian byte order.
+   *
+   * <p>By default, this encodes onto an {@link OutputStream} view of the buffer. Coders for common
+   * types override it to write directly into the buffer, which lets runners encode into a reused
+   * buffer without stream wrappers or intermediate byte arrays.
+   *
+   * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining,
+   *     in which case its position is unspecified
+   * @throws IOException if writing to the buffer fails for some reason
+   * @throws CoderException if the value could not be encoded for some reason
+   */
+  @Experimental
+  public void encodeToBuffer(T value, ByteBuffer buffer) throws CoderException, IOException {
+    encode(value, new ByteBufferOutputStream(buffer));
+  }
+
+  /**
+   * Decodes a value of type {@code T} from the given buffer, starting at its current position and
+   * advancing the position past the decoded bytes. Reads values written by {@link
+   * #encode(Object, OutputStream)} or {@link #encodeToBuffer}. The buffer must use the default
+   * big-endian byte order.
+   *
+   * <p>By default, this decodes from an {@link InputStream} view of the buffer.
+   *
+   * @throws IOException or {@link java.nio.BufferUnderflowException} if the buffer ends before the
+   *     value is fully decoded
+   * @throws CoderException if the value could not be decoded for some reason
+   */
+  @Experimental
+  public T decodeFromBuffer(ByteBuffer buffer) throws CoderException, IOException {
+    return decode(new ByteBufferInputStream(buffer));
+  }
+
   /**
    * If this is a {@link Coder} for a parameterized type, returns the list of {@link Coder}s being
    * used for each of the parameters in the same order they appear within the parameterized type's
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 import org.apache.beam.sdk.values.TypeDescriptor;
 
 /** A {@link DoubleCoder} encodes {@link Double} values in 8 bytes using Java serialization. */
@@ -59,6 +60,19 @@ public class DoubleCoder extends AtomicCoder<Double> {
     }
   }
 
+  @Override
+  public void encodeToBuffer(Double value, ByteBuffer buffer) throws IOException, CoderException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null Double");
+    }
+    buffer.putDouble(value);
+  }
+
+  @Override
+  public Double decodeFromBuffer(ByteBuffer buffer) throws IOException, CoderException {
+    return buffer.getDouble();
+  }
+
   /**
    * {@inheritDoc}
    *
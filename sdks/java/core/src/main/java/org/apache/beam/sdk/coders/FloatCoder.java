@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 import org.apache.beam.sdk.values.TypeDescriptor;
 
 /** A {@link FloatCoder} encodes {@link Float} values in 4 bytes using Java serialization. */
@@ -59,6 +60,19 @@ public class FloatCoder extends AtomicCoder<Float> {
     }
   }
 
+  @Override
+  public void encodeToBuffer(Float value, ByteBuffer buffer) throws IOException, CoderException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null Float");
+    }
+    buffer.putFloat(value);
+  }
+
+  @Override
+  public Float decodeFromBuffer(ByteBuffer buffer) throws IOException, CoderException {
+    return buffer.getFloat();
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 import org.apache.beam.sdk.values.TypeDescriptor;
 import org.joda.time.Instant;
 
@@ -79,6 +80,20 @@ public class InstantCoder extends AtomicCoder<Instant> {
     return new Instant(shiftedMillis + Long.MIN_VALUE);
   }
 
+  @Override
+  public void encodeToBuffer(Instant value, ByteBuffer buffer) throws IOException, CoderException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null Instant");
+    }
+    // See encode(Instant, OutputStream) for why the millis are shifted.
+    buffer.putLong(value.getMillis() - Long.MIN_VALUE);
+  }
+
+  @Override
+  public Instant decodeFromBuffer(ByteBuffer buffer) throws IOException, CoderException {
+    return new Instant(buffer.getLong() + Long.MIN_VALUE);
+  }
+
   @Override
   public void verifyDeterministic() {}
 
@@ -24,6 +24,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -159,6 +160,51 @@ public abstract class IterableLikeCoder<T, IterableT extends Iterable<T>>
     }
   }
 
+  /**
+   * Whether the buffer methods may write the encoding directly. Only the coders of this package are
+   * known to keep the default {@link #encode} and {@link #decode}, other subclasses go through the
+   * stream methods so that their overrides are respected.
+   */
+  private boolean hasDefaultEncoding() {
+    Class<?> clazz = getClass();
+    return clazz == IterableCoder.class
+        || clazz == CollectionCoder.class
+        || clazz == ListCoder.class
+        || clazz == SetCoder.class
+        || clazz == DequeCoder.class;
+  }
+
+  @Override
+  public void encodeToBuffer(IterableT iterable, ByteBuffer buffer)
+      throws IOException, CoderException {
+    if (!hasDefaultEncoding() || !(iterable instanceof Collection)) {
+      // Iterables of unknown size are encoded in blocks, which needs the stream encoding.
+      super.encodeToBuffer(iterable, buffer);
+      return;
+    }
+    Collection<T> collection = (Collection<T>) iterable;
+    buffer.putInt(collection.size());
+    for (T elem : collection) {
+      elementCoder.encodeToBuffer(elem, buffer);
+    }
+  }
+
+  @Override
+  public IterableT decodeFromBuffer(ByteBuffer buffer) throws IOException, CoderException {
+    // Peek at the size so that block encoded iterables are left to the stream decoding.
+    if (!hasDefaultEncoding()
+        || buffer.remaining() < Integer.BYTES
+        || buffer.getInt(buffer.position()) < 0) {
+      return super.decodeFromBuffer(buffer);
+    }
+    int size = buffer.getInt();
+    List<T> elements = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      elements.add(elementCoder.decodeFromBuffer(buffer));
+    }
+    return decodeToIterable(elements);
+  }
+
   @Override
   public List<? extends Coder<?>> getCoderArguments() {
     return Arrays.asList(elementCoder);
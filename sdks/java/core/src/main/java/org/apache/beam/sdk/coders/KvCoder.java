@@ -20,6 +20,7 @@ package org.apache.beam.sdk.coders;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import org.apache.beam.sdk.util.common.ElementByteSizeObserver;
@@ -85,6 +86,30 @@ public class KvCoder<K extends @Nullable Object, V extends @Nullable Object>
     return KV.of(key, value);
   }
 
+  @Override
+  public void encodeToBuffer(KV<K, V> kv, ByteBuffer buffer) throws IOException, CoderException {
+    if (getClass() != KvCoder.class) {
+      // Respect subclasses that override the stream encoding.
+      super.encodeToBuffer(kv, buffer);
+      return;
+    }
+    if (kv == null) {
+      throw new CoderException("cannot encode a null KV");
+    }
+    keyCoder.encodeToBuffer(kv.getKey(), buffer);
+    valueCoder.encodeToBuffer(kv.getValue(), buffer);
+  }
+
+  @Override
+  public KV<K, V> decodeFromBuffer(ByteBuffer buffer) throws IOException, CoderException {
+    if (getClass() != KvCoder.class) {
+      return super.decodeFromBuffer(buffer);
+    }
+    K key = keyCoder.decodeFromBuffer(buffer);
+    V value = valueCoder.decodeFromBuffer(buffer);
+    return KV.of(key, value);
+  }
+
   @Override
   public List<? extends Coder<?>> getCoderArguments() {
     return Arrays.asList(keyCoder, valueCoder);
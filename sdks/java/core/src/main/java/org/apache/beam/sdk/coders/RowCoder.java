@@ -32,8 +32,20 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 /** A sub-class of SchemaCoder that can only encode {@link Row} instances. */
 @Experimental(Kind.SCHEMAS)
 public class RowCoder extends SchemaCoder<Row> {
+  private final boolean decodeLazily;
+
   public static RowCoder of(Schema schema) {
-    return new RowCoder(schema);
+    return new RowCoder(schema, false);
+  }
+
+  /**
+   * Returns a {@link RowCoder} that decodes into rows backed by their encoded bytes. Each field is
+   * only decoded when it is first accessed, and rows that are encoded again by the same coder are
+   * copied without re-encoding their fields. This is useful for wide schemas where downstream
+   * transforms only read a few fields. The encoding is unchanged.
+   */
+  public RowCoder withLazyDecoding() {
+    return new RowCoder(schema, true);
   }
 
   /** Override encoding positions for the given schema. */
@@ -41,12 +53,18 @@ public class RowCoder extends SchemaCoder<Row> {
     SchemaCoder.overrideEncodingPositions(uuid, encodingPositions);
   }
 
-  private RowCoder(Schema schema) {
+  private RowCoder(Schema schema, boolean decodeLazily) {
     super(
         schema,
         TypeDescriptors.rows(),
         SerializableFunctions.identity(),
         SerializableFunctions.identity());
+    this.decodeLazily = decodeLazily;
+  }
+
+  @Override
+  protected boolean decodesLazily() {
+    return decodeLazily;
   }
 
   @Override
@@ -58,11 +76,11 @@ public class RowCoder extends SchemaCoder<Row> {
       return false;
     }
     RowCoder rowCoder = (RowCoder) o;
-    return schema.equals(rowCoder.schema);
+    return schema.equals(rowCoder.schema) && decodeLazily == rowCoder.decodeLazily;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(schema);
+    return Objects.hash(schema, decodeLazily);
   }
 }
@@ -19,11 +19,13 @@ package org.apache.beam.sdk.coders;
 
 import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkState;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Map;
@@ -35,7 +37,11 @@ import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.schemas.Schema.Field;
 import org.apache.beam.sdk.schemas.Schema.FieldType;
 import org.apache.beam.sdk.schemas.SchemaCoder;
+import org.apache.beam.sdk.util.ByteBufferOutputStream;
+import org.apache.beam.sdk.util.ExposedByteArrayOutputStream;
+import org.apache.beam.sdk.util.VarInt;
 import org.apache.beam.sdk.values.Row;
+import org.apache.beam.sdk.values.RowWithEncodedBytes;
 import org.apache.beam.vendor.bytebuddy.v1_11_0.net.bytebuddy.ByteBuddy;
 import org.apache.beam.vendor.bytebuddy.v1_11_0.net.bytebuddy.description.modifier.FieldManifestation;
 import org.apache.beam.vendor.bytebuddy.v1_11_0.net.bytebuddy.description.modifier.Ownership;
@@ -57,7 +63,9 @@ import org.apache.beam.vendor.bytebuddy.v1_11_0.net.bytebuddy.implementation.byt
 import org.apache.beam.vendor.bytebuddy.v1_11_0.net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
 import org.apache.beam.vendor.bytebuddy.v1_11_0.net.bytebuddy.matcher.ElementMatchers;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.ImmutableMap;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Maps;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.io.ByteStreams;
 
 /**
  * A utility for automatically generating a {@link Coder} for {@link Row} objects corresponding to a
@@ -111,8 +119,20 @@ public abstract class RowCoderGenerator {
   private static final String CODERS_FIELD_NAME = "FIELD_CODERS";
   private static final String POSITIONS_FIELD_NAME = "FIELD_ENCODING_POSITIONS";
 
+  // Coders whose encoding can be skipped by reading a fixed number of bytes.
+  private static final Map<Class<?>, Integer> FIXED_WIDTH_CODERS =
+      ImmutableMap.<Class<?>, Integer>builder()
+          .put(ByteCoder.class, 1)
+          .put(BooleanCoder.class, 1)
+          .put(BigEndianShortCoder.class, 2)
+          .put(FloatCoder.class, 4)
+          .put(DoubleCoder.class, 8)
+          .put(InstantCoder.class, 8)
+          .build();
+
   // Cache for Coder class that are already generated.
   private static final Map<UUID, Coder<Row>> GENERATED_CODERS = Maps.newConcurrentMap();
+  private static final Map<UUID, Coder<Row>> GENERATED_LAZY_CODERS = Maps.newConcurrentMap();
   private static final Map<UUID, Map<String, Integer>> ENCODING_POSITION_OVERRIDES =
       Maps.newConcurrentMap();
 
@@ -120,17 +140,28 @@ public abstract class RowCoderGenerator {
     ENCODING_POSITION_OVERRIDES.put(uuid, encodingPositions);
   }
 
-  @SuppressWarnings("unchecked")
   public static Coder<Row> generate(Schema schema) {
+    return generate(schema, false);
+  }
+
+  /**
+   * Generates a {@link Coder} for {@link Row} objects of the given schema. If {@code decodeLazily}
+   * is set, the coder decodes into a {@link RowWithEncodedBytes} that keeps the encoded bytes and
+   * only decodes each field when it is first accessed.
+   */
+  @SuppressWarnings("unchecked")
+  public static Coder<Row> generate(Schema schema, boolean decodeLazily) {
+    Map<UUID, Coder<Row>> generatedCoders =
+        decodeLazily ? GENERATED_LAZY_CODERS : GENERATED_CODERS;
     // Using ConcurrentHashMap::computeIfAbsent here would deadlock in case of nested
     // coders. Using HashMap::computeIfAbsent generates ConcurrentModificationExceptions in Java 11.
-    Coder<Row> rowCoder = GENERATED_CODERS.get(schema.getUUID());
+    Coder<Row> rowCoder = generatedCoders.get(schema.getUUID());
     if (rowCoder == null) {
       TypeDescription.Generic coderType =
           TypeDescription.Generic.Builder.parameterizedType(Coder.class, Row.class).build();
       DynamicType.Builder<Coder> builder =
           (DynamicType.Builder<Coder>) BYTE_BUDDY.subclass(coderType);
-      builder = implementMethods(schema, builder);
+      builder = implementMethods(schema, builder, decodeLazily);
 
       int[] encodingPosToRowIndex = new int[schema.getFieldCount()];
       Map<String, Integer> encodingPositions =
@@ -179,7 +210,7 @@ public abstract class RowCoderGenerator {
           | InvocationTargetException e) {
         throw new RuntimeException("Unable to generate coder for schema " + schema, e);
       }
-      GENERATED_CODERS.put(schema.getUUID(), rowCoder);
+      generatedCoders.put(schema.getUUID(), rowCoder);
     }
     return rowCoder;
   }
@@ -232,23 +263,41 @@ public abstract class RowCoderGenerator {
   }
 
   private static DynamicType.Builder<Coder> implementMethods(
-      Schema schema, DynamicType.Builder<Coder> builder) {
+      Schema schema, DynamicType.Builder<Coder> builder, boolean decodeLazily) {
     boolean hasNullableFields =
         schema.getFields().stream().map(Field::getType).anyMatch(FieldType::getNullable);
-    return builder
-        .defineMethod("getSchema", Schema.class, Visibility.PRIVATE, Ownership.STATIC)
-        .intercept(FixedValue.reference(schema))
-        .defineMethod("hasNullableFields", boolean.class, Visibility.PRIVATE, Ownership.STATIC)
-        .intercept(FixedValue.reference(hasNullableFields))
-        .method(ElementMatchers.named("encode"))
-        .intercept(new EncodeInstruction())
-        .method(ElementMatchers.named("decode"))
-        .intercept(new DecodeInstruction());
+    builder =
+        builder
+            .defineMethod("getSchema", Schema.class, Visibility.PRIVATE, Ownership.STATIC)
+            .intercept(FixedValue.reference(schema))
+            .defineMethod("hasNullableFields", boolean.class, Visibility.PRIVATE, Ownership.STATIC)
+            .intercept(FixedValue.reference(hasNullableFields))
+            .method(ElementMatchers.named("encode"))
+            .intercept(new EncodeInstruction("encodeDelegate"))
+            .method(ElementMatchers.named("encodeToBuffer"))
+            .intercept(new EncodeInstruction("encodeToBufferDelegate"))
+            .method(ElementMatchers.named("decode"))
+            .intercept(
+                new DecodeInstruction(decodeLazily ? "decodeLazilyDelegate" : "decodeDelegate"));
+    if (!decodeLazily) {
+      // Lazily decoded rows keep their encoded bytes, so they are decoded through the stream.
+      builder =
+          builder
+              .method(ElementMatchers.named("decodeFromBuffer"))
+              .intercept(new DecodeInstruction("decodeFromBufferDelegate"));
+    }
+    return builder;
   }
 
   private static class EncodeInstruction implements Implementation {
     static final ForLoadedType LOADED_TYPE = new ForLoadedType(EncodeInstruction.class);
 
+    private final String delegateMethodName;
+
+    EncodeInstruction(String delegateMethodName) {
+      this.delegateMethodName = delegateMethodName;
+    }
+
     @Override
     public ByteCodeAppender appender(Target implementationTarget) {
       return (methodVisitor, implementationContext, instrumentedMethod) -> {
@@ -282,12 +331,13 @@ public abstract class RowCoderGenerator {
                         .getDeclaredMethods()
                         .filter(ElementMatchers.named("hasNullableFields"))
                         .getOnly()),
-                // Call EncodeInstruction.encodeDelegate
+                // Call the EncodeInstruction delegate.
                 MethodInvocation.invoke(
                     LOADED_TYPE
                         .getDeclaredMethods()
                         .filter(
-                            ElementMatchers.isStatic().and(ElementMatchers.named("encodeDelegate")))
+                            ElementMatchers.isStatic()
+                                .and(ElementMatchers.named(delegateMethodName)))
                         .getOnly()),
                 MethodReturn.VOID);
         StackManipulation.Size size = manipulation.apply(methodVisitor, implementationContext);
@@ -313,6 +363,14 @@ public abstract class RowCoderGenerator {
       checkState(value.getFieldCount() == value.getSchema().getFieldCount());
       checkState(encodingPosToIndex.length == value.getFieldCount());
 
+      if (value instanceof RowWithEncodedBytes
+          && ((RowWithEncodedBytes) value).isEncodedWith(coders)) {
+        // The row was decoded by this coder and rows are immutable, so its encoded bytes are
+        // exactly what encoding it field by field would produce.
+        ((RowWithEncodedBytes) value).writeEncodedRow(outputStream);
+        return;
+      }
+
       // Encode the field count. This allows us to handle compatible schema changes.
       VAR_INT_CODER.encode(value.getFieldCount(), outputStream);
 
@@ -346,6 +404,40 @@ public abstract class RowCoderGenerator {
       }
     }
 
+    // The encodeToBuffer method of the generated Coder delegates to this method, which encodes the
+    // same way as encodeDelegate.
+    @SuppressWarnings("unchecked")
+    static void encodeToBufferDelegate(
+        Coder[] coders,
+        int[] encodingPosToIndex,
+        Row value,
+        ByteBuffer buffer,
+        boolean hasNullableFields)
+        throws IOException {
+      checkState(value.getFieldCount() == value.getSchema().getFieldCount());
+      checkState(encodingPosToIndex.length == value.getFieldCount());
+
+      if (value instanceof RowWithEncodedBytes
+          && ((RowWithEncodedBytes) value).isEncodedWith(coders)) {
+        ((RowWithEncodedBytes) value).writeEncodedRow(new ByteBufferOutputStream(buffer));
+        return;
+      }
+
+      VAR_INT_CODER.encodeToBuffer(value.getFieldCount(), buffer);
+      Object[] fieldValues = new Object[value.getFieldCount()];
+      for (int idx = 0; idx < fieldValues.length; ++idx) {
+        fieldValues[idx] = value.getValue(idx);
+      }
+      NULL_LIST_CODER.encodeToBuffer(
+          hasNullableFields ? scanNullFields(fieldValues) : EMPTY_BIT_SET, buffer);
+      for (int encodingPos = 0; encodingPos < fieldValues.length; ++encodingPos) {
+        @Nullable Object fieldValue = fieldValues[encodingPosToIndex[encodingPos]];
+        if (fieldValue != null) {
+          coders[encodingPos].encodeToBuffer(fieldValue, buffer);
+        }
+      }
+    }
+
     // Figure out which fields of the Row are null, and returns a BitSet. This allows us to save
     // on encoding each null field separately.
     private static BitSet scanNullFields(Object[] fieldValues) {
@@ -363,6 +455,12 @@ public abstract class RowCoderGenerator {
   private static class DecodeInstruction implements Implementation {
     static final ForLoadedType LOADED_TYPE = new ForLoadedType(DecodeInstruction.class);
 
+    private final String delegateMethodName;
+
+    DecodeInstruction(String delegateMethodName) {
+      this.delegateMethodName = delegateMethodName;
+    }
+
     @Override
     public ByteCodeAppender appender(Target implementationTarget) {
       return (methodVisitor, implementationContext, instrumentedMethod) -> {
@@ -398,7 +496,8 @@ public abstract class RowCoderGenerator {
                     LOADED_TYPE
                         .getDeclaredMethods()
                         .filter(
-                            ElementMatchers.isStatic().and(ElementMatchers.named("decodeDelegate")))
+                            ElementMatchers.isStatic()
+                                .and(ElementMatchers.named(delegateMethodName)))
                         .getOnly()),
                 MethodReturn.REFERENCE);
         StackManipulation.Size size = manipulation.apply(methodVisitor, implementationContext);
@@ -417,8 +516,18 @@ public abstract class RowCoderGenerator {
         Schema schema, Coder[] coders, int[] encodingPosToIndex, InputStream inputStream)
         throws IOException {
       int fieldCount = VAR_INT_CODER.decode(inputStream);
-
       BitSet nullFields = NULL_LIST_CODER.decode(inputStream);
+      return decodeFields(schema, coders, encodingPosToIndex, fieldCount, nullFields, inputStream);
+    }
+
+    private static Row decodeFields(
+        Schema schema,
+        Coder[] coders,
+        int[] encodingPosToIndex,
+        int fieldCount,
+        BitSet nullFields,
+        InputStream inputStream)
+        throws IOException {
       Object[] fieldValues = new Object[coders.length];
       for (int encodingPos = 0; encodingPos < fieldCount; ++encodingPos) {
         // In the case of a schema change going backwards, fieldCount might be > coders.length,
@@ -445,5 +554,130 @@ public abstract class RowCoderGenerator {
       // some processing by simply transferring ownership of the list to the Row.
       return Row.withSchema(schema).attachValues(fieldValues);
     }
+
+    // The decodeFromBuffer method of the generated Coder delegates to this method, which decodes
+    // the same way as decodeDelegate.
+    static Row decodeFromBufferDelegate(
+        Schema schema, Coder[] coders, int[] encodingPosToIndex, ByteBuffer buffer)
+        throws IOException {
+      int fieldCount = VAR_INT_CODER.decodeFromBuffer(buffer);
+      BitSet nullFields = NULL_LIST_CODER.decodeFromBuffer(buffer);
+      Object[] fieldValues = new Object[coders.length];
+      // Fields beyond coders.length are dropped, and fields missing from the encoding are left
+      // null, as in decodeDelegate.
+      for (int encodingPos = 0; encodingPos < Math.min(fieldCount, coders.length); ++encodingPos) {
+        int rowIndex = encodingPosToIndex[encodingPos];
+        if (!nullFields.get(rowIndex)) {
+          fieldValues[rowIndex] = coders[encodingPos].decodeFromBuffer(buffer);
+        }
+      }
+      return Row.withSchema(schema).attachValues(fieldValues);
+    }
+
+    // The decode method of a generated Coder that decodes lazily delegates to this method. The
+    // encoding carries no per-field lengths, so the fields still have to be walked to find where
+    // the row ends. Fields whose encoding can be skipped cheaply are only framed; the others are
+    // decoded and their values kept. All bytes read are recorded so that the remaining fields can
+    // be decoded on first access, and so that the row can be re-encoded by copying them.
+    static Row decodeLazilyDelegate(
+        Schema schema, Coder[] coders, int[] encodingPosToIndex, InputStream inputStream)
+        throws IOException {
+      RecordingInputStream recordingStream = new RecordingInputStream(inputStream);
+      int fieldCount = VAR_INT_CODER.decode(recordingStream);
+      BitSet nullFields = NULL_LIST_CODER.decode(recordingStream);
+      if (fieldCount != coders.length) {
+        // The row was encoded with a different version of the schema, so its bytes cannot be
+        // reused as-is.
+        return decodeFields(
+            schema, coders, encodingPosToIndex, fieldCount, nullFields, recordingStream);
+      }
+
+      Object[] fieldValues = new Object[coders.length];
+      BitSet decodedFields = (BitSet) nullFields.clone();
+      int[] fieldOffsets = new int[coders.length + 1];
+      for (int encodingPos = 0; encodingPos < coders.length; ++encodingPos) {
+        int rowIndex = encodingPosToIndex[encodingPos];
+        fieldOffsets[encodingPos] = recordingStream.size();
+        if (!nullFields.get(rowIndex) && !skipField(coders[encodingPos], recordingStream)) {
+          fieldValues[rowIndex] = coders[encodingPos].decode(recordingStream);
+          decodedFields.set(rowIndex);
+        }
+      }
+      fieldOffsets[coders.length] = recordingStream.size();
+      return Row.withSchema(schema)
+          .attachEncodedValues(
+              coders,
+              encodingPosToIndex,
+              recordingStream.toByteArray(),
+              fieldOffsets,
+              fieldValues,
+              decodedFields);
+    }
+
+    // Skips over a field encoded by the given coder without decoding it. Returns false if the
+    // coder's encoding cannot be skipped without decoding it.
+    private static boolean skipField(Coder coder, InputStream inputStream) throws IOException {
+      if (coder instanceof StringUtf8Coder || coder instanceof ByteArrayCoder) {
+        ByteStreams.skipFully(inputStream, VarInt.decodeInt(inputStream));
+        return true;
+      } else if (coder instanceof VarIntCoder || coder instanceof VarLongCoder) {
+        VarInt.decodeLong(inputStream);
+        return true;
+      }
+      Integer fixedWidth = FIXED_WIDTH_CODERS.get(coder.getClass());
+      if (fixedWidth != null) {
+        ByteStreams.skipFully(inputStream, fixedWidth);
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /** An {@link InputStream} that keeps a copy of every byte read from the underlying stream. */
+  private static class RecordingInputStream extends FilterInputStream {
+    private final ExposedByteArrayOutputStream recorded = new ExposedByteArrayOutputStream();
+
+    RecordingInputStream(InputStream inputStream) {
+      super(inputStream);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b != -1) {
+        recorded.write(b);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = in.read(b, off, len);
+      if (read > 0) {
+        recorded.write(b, off, read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      // Skipped bytes have to be recorded as well, so read them instead.
+      byte[] buffer = new byte[(int) Math.min(n, 8192)];
+      int read = read(buffer, 0, buffer.length);
+      return Math.max(read, 0);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    int size() {
+      return recorded.size();
+    }
+
+    byte[] toByteArray() {
+      return recorded.toByteArray();
+    }
   }
 }
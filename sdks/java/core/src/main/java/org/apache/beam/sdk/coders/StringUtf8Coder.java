@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import org.apache.beam.sdk.util.ExposedByteArrayOutputStream;
 import org.apache.beam.sdk.util.StreamUtils;
@@ -106,6 +107,41 @@ public class StringUtf8Coder extends AtomicCoder<String> {
     }
   }
 
+  @Override
+  public void encodeToBuffer(String value, ByteBuffer buffer) throws IOException, CoderException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null String");
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    VarInt.encode(bytes.length, buffer);
+    buffer.put(bytes);
+  }
+
+  @Override
+  public String decodeFromBuffer(ByteBuffer buffer) throws IOException, CoderException {
+    int len;
+    try {
+      len = VarInt.decodeInt(buffer);
+    } catch (EOFException exn) {
+      throw new CoderException(exn);
+    }
+    if (len < 0 || len > buffer.remaining()) {
+      throw new CoderException("Invalid encoded string length: " + len);
+    }
+    String value;
+    if (buffer.hasArray()) {
+      // Decode straight out of the backing array rather than copying the bytes first.
+      int offset = buffer.arrayOffset() + buffer.position();
+      value = new String(buffer.array(), offset, len, StandardCharsets.UTF_8);
+      buffer.position(buffer.position() + len);
+    } else {
+      byte[] bytes = new byte[len];
+      buffer.get(bytes);
+      value = new String(bytes, StandardCharsets.UTF_8);
+    }
+    return value;
+  }
+
   @Override
   public void verifyDeterministic() {}
 
@@ -18,7 +18,6 @@
 package org.apache.beam.sdk.io;
 
 import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkArgument;
-import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.io.Files.fileTraverser;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
@@ -27,32 +26,39 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 import org.apache.beam.sdk.io.fs.CreateOptions;
 import org.apache.beam.sdk.io.fs.MatchResult;
 import org.apache.beam.sdk.io.fs.MatchResult.Metadata;
 import org.apache.beam.sdk.io.fs.MatchResult.Status;
 import org.apache.beam.sdk.io.fs.MoveOptions;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.annotations.VisibleForTesting;
-import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Predicates;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.cache.Cache;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.cache.CacheBuilder;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.ImmutableList;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Lists;
 import org.apache.commons.lang3.SystemUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -91,7 +97,44 @@ class LocalFileSystem extends FileSystem<LocalResourceId> {
   /** Matches a glob containing a wildcard, capturing the portion before the first wildcard. */
   private static final Pattern GLOB_PREFIX = Pattern.compile("(?<PREFIX>[^\\[*?]*)[\\[*?].*");
 
-  LocalFileSystem() {}
+  /** Walks the directory trees of globs, one task per directory. */
+  private static final ForkJoinPool MATCH_POOL =
+      new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+  /**
+   * Directories changed within this many milliseconds are not cached, since a later change within
+   * the same modification time granularity would go unnoticed.
+   */
+  private static final long LISTING_CACHE_SETTLE_MILLIS = 2000;
+
+  private final long mmapThresholdBytes;
+  private final int mmapRegionBytes;
+  private final boolean mmapReadAhead;
+  private final @Nullable Cache<File, DirectoryListing> listingCache;
+
+  LocalFileSystem() {
+    this(0L, 64 * 1024 * 1024, false, 0L);
+  }
+
+  LocalFileSystem(LocalFileSystemOptions options) {
+    this(
+        options.getLocalFileSystemMmapThresholdBytes(),
+        options.getLocalFileSystemMmapRegionBytes(),
+        options.getLocalFileSystemMmapReadAhead(),
+        options.getLocalFileSystemListingCacheSize());
+  }
+
+  @VisibleForTesting
+  LocalFileSystem(
+      long mmapThresholdBytes, int mmapRegionBytes, boolean mmapReadAhead, long listingCacheSize) {
+    this.mmapThresholdBytes = mmapThresholdBytes;
+    this.mmapRegionBytes = mmapRegionBytes;
+    this.mmapReadAhead = mmapReadAhead;
+    this.listingCache =
+        listingCacheSize > 0
+            ? CacheBuilder.newBuilder().maximumSize(listingCacheSize).build()
+            : null;
+  }
 
   @Override
   protected List<MatchResult> match(List<String> specs) throws IOException {
@@ -128,7 +171,11 @@ class LocalFileSystem extends FileSystem<LocalResourceId> {
     FileInputStream inputStream = new FileInputStream(resourceId.getPath().toFile());
     // Use this method for creating the channel (rather than new FileChannel) so that we get
     // regular FileNotFoundException. Closing the underyling channel will close the inputStream.
-    return inputStream.getChannel();
+    FileChannel channel = inputStream.getChannel();
+    if (mmapThresholdBytes > 0 && channel.size() >= mmapThresholdBytes) {
+      return new MappedFileChannel(channel, mmapRegionBytes, mmapReadAhead);
+    }
+    return channel;
   }
 
   @Override
@@ -154,11 +201,46 @@ class LocalFileSystem extends FileSystem<LocalResourceId> {
       }
       // Copy the source file, replacing the existing destination.
       // Paths.get(x) will not work on Windows OSes cause of the ":" after the drive letter.
-      Files.copy(
-          src.getPath(),
-          dst.getPath(),
-          StandardCopyOption.REPLACE_EXISTING,
-          StandardCopyOption.COPY_ATTRIBUTES);
+      try {
+        transferFile(src.getPath(), dst.getPath());
+      } catch (AccessDeniedException e) {
+        // An existing destination may not be writable, Files.copy replaces it instead.
+        Files.copy(
+            src.getPath(),
+            dst.getPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.COPY_ATTRIBUTES);
+      }
+    }
+  }
+
+  /**
+   * Copies {@code src} to {@code dst} with {@link FileChannel#transferTo}, which lets the kernel
+   * move the bytes without copying them through the JVM heap, and then copies the last modified
+   * time and permissions like {@link StandardCopyOption#COPY_ATTRIBUTES}.
+   */
+  private static void transferFile(Path src, Path dst) throws IOException {
+    try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ);
+        FileChannel out =
+            FileChannel.open(
+                dst,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+      long size = in.size();
+      long transferred = 0;
+      while (transferred < size) {
+        long count = in.transferTo(transferred, size - transferred, out);
+        if (count <= 0) {
+          // The source shrank while copying it.
+          break;
+        }
+        transferred += count;
+      }
+    }
+    Files.setLastModifiedTime(dst, Files.getLastModifiedTime(src));
+    if (src.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+      Files.setPosixFilePermissions(dst, Files.getPosixFilePermissions(src));
     }
   }
 
@@ -190,11 +272,34 @@ class LocalFileSystem extends FileSystem<LocalResourceId> {
             dst.getPath());
       }
       // Rename the source file, replacing the existing destination.
-      Files.move(
-          src.getPath(),
-          dst.getPath(),
-          StandardCopyOption.REPLACE_EXISTING,
-          StandardCopyOption.ATOMIC_MOVE);
+      try {
+        Files.move(
+            src.getPath(),
+            dst.getPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        // The destination is on another file store. Transfer the file to a temporary sibling of
+        // the destination, which can then be moved into place atomically.
+        LOG.debug("Renaming {} to {} across file stores", src, dst);
+        Path temp =
+            Files.createTempFile(
+                dst.getPath().toAbsolutePath().getParent(),
+                "." + dst.getPath().getFileName(),
+                ".tmp");
+        try {
+          transferFile(src.getPath(), temp);
+          Files.move(
+              temp,
+              dst.getPath(),
+              StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException transferException) {
+          Files.deleteIfExists(temp);
+          throw transferException;
+        }
+        Files.delete(src.getPath());
+      }
     }
   }
 
@@ -284,16 +389,13 @@ class LocalFileSystem extends FileSystem<LocalResourceId> {
     final PathMatcher matcher =
         java.nio.file.FileSystems.getDefault().getPathMatcher("glob:" + pathToMatch);
 
-    // TODO: Avoid iterating all files: https://issues.apache.org/jira/browse/BEAM-1309
-    Iterable<File> files = fileTraverser().depthFirstPreOrder(parent);
-    Iterable<File> matchedFiles =
-        StreamSupport.stream(files.spliterator(), false)
-            .filter(
-                Predicates.and(
-                        org.apache.beam.vendor.guava.v26_0_jre.com.google.common.io.Files.isFile(),
-                        input -> matcher.matches(input.toPath()))
-                    ::apply)
-            .collect(Collectors.toList());
+    // Only descend into the directories that can still contain a match.
+    GlobSegments segments =
+        SystemUtils.IS_OS_WINDOWS
+            ? null
+            : GlobSegments.parse(
+                absoluteFile.getAbsolutePath(), parent.getAbsolutePath() + File.separator);
+    List<File> matchedFiles = MATCH_POOL.invoke(new MatchTask(parent, 0, segments, matcher));
 
     List<Metadata> result = Lists.newLinkedList();
     for (File match : matchedFiles) {
@@ -310,6 +412,157 @@ class LocalFileSystem extends FileSystem<LocalResourceId> {
     }
   }
 
+  /** Lists the files of a directory and its matching subdirectories, in depth-first pre-order. */
+  private class MatchTask extends RecursiveTask<List<File>> {
+    private final File directory;
+    private final int depth;
+    private final @Nullable GlobSegments segments;
+    private final PathMatcher matcher;
+
+    MatchTask(File directory, int depth, @Nullable GlobSegments segments, PathMatcher matcher) {
+      this.directory = directory;
+      this.depth = depth;
+      this.segments = segments;
+      this.matcher = matcher;
+    }
+
+    @Override
+    protected List<File> compute() {
+      File[] children = listDirectory(directory);
+      if (children == null) {
+        return Collections.emptyList();
+      }
+      // Either a matched file or the task listing a subdirectory, in listing order.
+      List<Object> results = new ArrayList<>();
+      for (File child : children) {
+        if (child.isFile()) {
+          if (matcher.matches(child.toPath())) {
+            results.add(child);
+          }
+        } else if (child.isDirectory()
+            && (segments == null || segments.mayMatchBelow(depth, child.getName()))) {
+          results.add(new MatchTask(child, depth + 1, segments, matcher).fork());
+        }
+      }
+      List<File> matched = new ArrayList<>();
+      for (Object result : results) {
+        if (result instanceof MatchTask) {
+          matched.addAll(((MatchTask) result).join());
+        } else {
+          matched.add((File) result);
+        }
+      }
+      return matched;
+    }
+  }
+
+  private File @Nullable [] listDirectory(File directory) {
+    if (listingCache == null) {
+      return directory.listFiles();
+    }
+    long lastModified = directory.lastModified();
+    DirectoryListing cached = listingCache.getIfPresent(directory);
+    if (cached != null && cached.lastModified == lastModified) {
+      return cached.children;
+    }
+    File[] children = directory.listFiles();
+    if (children != null
+        && lastModified < System.currentTimeMillis() - LISTING_CACHE_SETTLE_MILLIS) {
+      listingCache.put(directory, new DirectoryListing(lastModified, children));
+    }
+    return children;
+  }
+
+  /** The entries of a directory, as of its last modification time. */
+  private static class DirectoryListing {
+    private final long lastModified;
+    private final File[] children;
+
+    DirectoryListing(long lastModified, File[] children) {
+      this.lastModified = lastModified;
+      this.children = children;
+    }
+  }
+
+  /**
+   * The path segments of a glob below its non-wildcard parent directory, used to skip the
+   * subdirectories which cannot contain a match.
+   */
+  @VisibleForTesting
+  static class GlobSegments {
+    private final List<PathMatcher> segments;
+    // Whether the segment after the last one is a "**", which matches any number of directories.
+    private final boolean unbounded;
+
+    private GlobSegments(List<PathMatcher> segments, boolean unbounded) {
+      this.segments = segments;
+      this.unbounded = unbounded;
+    }
+
+    /**
+     * Splits the part of {@code glob} after {@code parentPrefix} into segments. Returns null if the
+     * glob can't be split safely, e.g. because a separator occurs within a {@code {}} or {@code []}
+     * group.
+     */
+    static @Nullable GlobSegments parse(String glob, String parentPrefix) {
+      if (!glob.startsWith(parentPrefix)) {
+        return null;
+      }
+      String relative = glob.substring(parentPrefix.length());
+      List<String> parts = new ArrayList<>();
+      int braces = 0;
+      boolean inBrackets = false;
+      int start = 0;
+      for (int i = 0; i < relative.length(); i++) {
+        char c = relative.charAt(i);
+        if (c == '\\') {
+          return null;
+        } else if (inBrackets) {
+          inBrackets = c != ']';
+        } else if (c == '[') {
+          inBrackets = true;
+        } else if (c == '{') {
+          braces++;
+        } else if (c == '}') {
+          braces--;
+        }
+        if (c == File.separatorChar) {
+          if (inBrackets || braces > 0) {
+            return null;
+          }
+          parts.add(relative.substring(start, i));
+          start = i + 1;
+        }
+      }
+      parts.add(relative.substring(start));
+
+      java.nio.file.FileSystem fileSystem = java.nio.file.FileSystems.getDefault();
+      List<PathMatcher> segments = new ArrayList<>();
+      for (String part : parts) {
+        if (part.contains("**")) {
+          return new GlobSegments(segments, true);
+        }
+        segments.add(fileSystem.getPathMatcher("glob:" + part));
+      }
+      return new GlobSegments(segments, false);
+    }
+
+    /**
+     * Returns whether a directory named {@code name}, {@code depth} levels below the parent
+     * directory, may contain files matching the glob.
+     */
+    boolean mayMatchBelow(int depth, String name) {
+      if (depth >= segments.size()) {
+        return unbounded;
+      }
+      if (!unbounded && depth == segments.size() - 1) {
+        // Only files can match the last segment.
+        return false;
+      }
+      return segments.get(depth).matches(Paths.get(name));
+    }
+  }
+
   private File getSpecNonGlobPrefixParentFile(String spec) {
     String specNonWildcardPrefix = getNonWildcardPrefix(spec);
     File file = new File(specNonWildcardPrefix);
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.io;
+
+import org.apache.beam.sdk.annotations.Experimental;
+import org.apache.beam.sdk.annotations.Experimental.Kind;
+import org.apache.beam.sdk.options.Default;
+import org.apache.beam.sdk.options.Description;
+import org.apache.beam.sdk.options.PipelineOptions;
+
+/** Options used to configure the {@link LocalFileSystem}. */
+@Experimental(Kind.FILESYSTEM)
+public interface LocalFileSystemOptions extends PipelineOptions {
+
+  @Description(
+      "Files at least this many bytes large are read through memory-mapped regions instead of "
+          + "read() calls. 0 disables memory mapping.")
+  @Default.Long(0)
+  Long getLocalFileSystemMmapThresholdBytes();
+
+  void setLocalFileSystemMmapThresholdBytes(Long value);
+
+  @Description("Size in bytes of the regions of a file that are memory-mapped at a time.")
+  @Default.Integer(64 * 1024 * 1024)
+  Integer getLocalFileSystemMmapRegionBytes();
+
+  void setLocalFileSystemMmapRegionBytes(Integer value);
+
+  @Description(
+      "Whether to read ahead every memory-mapped region by loading it into physical memory as "
+          + "soon as it is mapped.")
+  @Default.Boolean(false)
+  Boolean getLocalFileSystemMmapReadAhead();
+
+  void setLocalFileSystemMmapReadAhead(Boolean value);
+
+  @Description(
+      "Maximum number of directory listings cached by glob matching. A cached listing is reused "
+          + "as long as the modification time of its directory is unchanged, so repeated matches, "
+          + "e.g. by FileIO.match().continuously(), only list the changed directories. "
+          + "0 disables the cache.")
+  @Default.Long(0)
+  Long getLocalFileSystemListingCacheSize();
+
+  void setLocalFileSystemListingCacheSize(Long value);
+}
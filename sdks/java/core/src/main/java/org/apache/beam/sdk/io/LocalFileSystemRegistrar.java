@@ -30,6 +30,9 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 public class LocalFileSystemRegistrar implements FileSystemRegistrar {
   @Override
   public Iterable<FileSystem<?>> fromOptions(@Nullable PipelineOptions options) {
-    return ImmutableList.of(new LocalFileSystem());
+    return ImmutableList.of(
+        options == null
+            ? new LocalFileSystem()
+            : new LocalFileSystem(options.as(LocalFileSystemOptions.class)));
   }
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.io;
+
+import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A read-only {@link SeekableByteChannel} which reads a file through memory-mapped regions, so
+ * reads are served by copying from the page cache instead of issuing a {@code read()} call each.
+ *
+ * <p>Only one region of at most {@code regionSize} bytes is mapped at a time. The size of the file
+ * is fixed when the channel is created, bytes appended later are not visible.
+ */
+class MappedFileChannel implements SeekableByteChannel {
+  private final FileChannel channel;
+  private final long size;
+  private final int regionSize;
+  private final boolean readAhead;
+  private @Nullable MappedByteBuffer region;
+  private long regionStart;
+  private long position;
+
+  MappedFileChannel(FileChannel channel, int regionSize, boolean readAhead) throws IOException {
+    checkArgument(regionSize > 0, "regionSize must be positive, got %s", regionSize);
+    this.channel = channel;
+    this.size = channel.size();
+    this.regionSize = regionSize;
+    this.readAhead = readAhead;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    ensureOpen();
+    if (position >= size) {
+      return -1;
+    }
+    int read = 0;
+    while (dst.hasRemaining() && position < size) {
+      MappedByteBuffer mapped = mapRegionContaining(position);
+      ByteBuffer src = mapped.duplicate();
+      src.position((int) (position - regionStart));
+      if (src.remaining() > dst.remaining()) {
+        src.limit(src.position() + dst.remaining());
+      }
+      int length = src.remaining();
+      dst.put(src);
+      position += length;
+      read += length;
+    }
+    return read;
+  }
+
+  private MappedByteBuffer mapRegionContaining(long offset) throws IOException {
+    MappedByteBuffer mapped = region;
+    if (mapped != null && offset >= regionStart && offset < regionStart + mapped.capacity()) {
+      return mapped;
+    }
+    regionStart = offset - offset % regionSize;
+    mapped =
+        channel.map(
+            FileChannel.MapMode.READ_ONLY, regionStart, Math.min(regionSize, size - regionStart));
+    if (readAhead) {
+      mapped.load();
+    }
+    region = mapped;
+    return mapped;
+  }
+
+  @Override
+  public int write(ByteBuffer src) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public long position() throws IOException {
+    ensureOpen();
+    return position;
+  }
+
+  @Override
+  public SeekableByteChannel position(long newPosition) throws IOException {
+    ensureOpen();
+    checkArgument(newPosition >= 0, "position must be non-negative, got %s", newPosition);
+    position = newPosition;
+    return this;
+  }
+
+  @Override
+  public long size() throws IOException {
+    ensureOpen();
+    return size;
+  }
+
+  @Override
+  public SeekableByteChannel truncate(long size) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return channel.isOpen();
+  }
+
+  @Override
+  public void close() throws IOException {
+    // The mapping itself is released once the buffer is garbage collected.
+    region = null;
+    channel.close();
+  }
+
+  private void ensureOpen() throws ClosedChannelException {
+    if (!channel.isOpen()) {
+      throw new ClosedChannelException();
+    }
+  }
+}
@@ -197,6 +197,18 @@ public class TextIO {
         .build();
   }
 
+  /**
+   * A {@link PTransform} that works like {@link #read}, but outputs the bytes of every line as they
+   * are instead of decoding them as {@code UTF-8} strings. Use it when the lines are parsed from
+   * bytes anyway, to skip the cost of decoding and allocating a {@link String} per line.
+   */
+  public static ReadBytes readBytes() {
+    return new AutoValue_TextIO_ReadBytes.Builder()
+        .setCompression(Compression.AUTO)
+        .setEmptyMatchTreatment(EmptyMatchTreatment.DISALLOW)
+        .build();
+  }
+
   /**
    * A {@link PTransform} that works like {@link #read}, but reads each file in a {@link
    * PCollection} of filepatterns.
@@ -441,6 +453,94 @@ public class TextIO {
 
   /////////////////////////////////////////////////////////////////////////////
 
+  /** Implementation of {@link #readBytes}. */
+  @AutoValue
+  public abstract static class ReadBytes extends PTransform<PBegin, PCollection<byte[]>> {
+
+    abstract @Nullable ValueProvider<String> getFilepattern();
+
+    abstract EmptyMatchTreatment getEmptyMatchTreatment();
+
+    abstract Compression getCompression();
+
+    @SuppressWarnings("mutable") // this returns an array that can be mutated by the caller
+    abstract byte @Nullable [] getDelimiter();
+
+    abstract Builder toBuilder();
+
+    @AutoValue.Builder
+    abstract static class Builder {
+      abstract Builder setFilepattern(ValueProvider<String> filepattern);
+
+      abstract Builder setEmptyMatchTreatment(EmptyMatchTreatment emptyMatchTreatment);
+
+      abstract Builder setCompression(Compression compression);
+
+      abstract Builder setDelimiter(byte @Nullable [] delimiter);
+
+      abstract ReadBytes build();
+    }
+
+    /** Like {@link Read#from(String)}. */
+    public ReadBytes from(String filepattern) {
+      checkArgument(filepattern != null, "filepattern can not be null");
+      return from(StaticValueProvider.of(filepattern));
+    }
+
+    /** Same as {@code from(filepattern)}, but accepting a {@link ValueProvider}. */
+    public ReadBytes from(ValueProvider<String> filepattern) {
+      checkArgument(filepattern != null, "filepattern can not be null");
+      return toBuilder().setFilepattern(filepattern).build();
+    }
+
+    /** Like {@link Read#withCompression}. */
+    public ReadBytes withCompression(Compression compression) {
+      return toBuilder().setCompression(compression).build();
+    }
+
+    /** Like {@link Read#withEmptyMatchTreatment}. */
+    public ReadBytes withEmptyMatchTreatment(EmptyMatchTreatment treatment) {
+      return toBuilder().setEmptyMatchTreatment(treatment).build();
+    }
+
+    /** Like {@link Read#withDelimiter}. */
+    public ReadBytes withDelimiter(byte[] delimiter) {
+      checkArgument(delimiter != null, "delimiter can not be null");
+      checkArgument(!Read.isSelfOverlapping(delimiter), "delimiter must not self-overlap");
+      return toBuilder().setDelimiter(delimiter).build();
+    }
+
+    @Override
+    public PCollection<byte[]> expand(PBegin input) {
+      checkNotNull(getFilepattern(), "need to set the filepattern of a TextIO.ReadBytes transform");
+      return input.apply(
+          "Read",
+          org.apache.beam.sdk.io.Read.from(
+              CompressedSource.from(
+                      new TextBytesSource(
+                          getFilepattern(), getEmptyMatchTreatment(), getDelimiter()))
+                  .withCompression(getCompression())));
+    }
+
+    @Override
+    public void populateDisplayData(DisplayData.Builder builder) {
+      super.populateDisplayData(builder);
+      builder
+          .add(
+              DisplayData.item("compressionType", getCompression().toString())
+                  .withLabel("Compression Type"))
+          .addIfNotNull(DisplayData.item("filePattern", getFilepattern()).withLabel("File Pattern"))
+          .add(
+              DisplayData.item("emptyMatchTreatment", getEmptyMatchTreatment().toString())
+                  .withLabel("Treatment of filepatterns that match no files"))
+          .addIfNotNull(
+              DisplayData.item("delimiter", Arrays.toString(getDelimiter()))
+                  .withLabel("Custom delimiter to split records"));
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
   /**
    * Implementation of {@link #readAll}.
    *
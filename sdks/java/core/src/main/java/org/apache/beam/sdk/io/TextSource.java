@@ -21,8 +21,11 @@ import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Prec
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
@@ -30,7 +33,6 @@ import org.apache.beam.sdk.io.fs.EmptyMatchTreatment;
 import org.apache.beam.sdk.io.fs.MatchResult;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.ValueProvider;
-import org.apache.beam.vendor.grpc.v1p43p2.com.google.protobuf.ByteString;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.annotations.VisibleForTesting;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -88,28 +90,73 @@ class TextSource extends FileBasedSource<String> {
    * <p>See {@link TextSource} for further details.
    */
   @VisibleForTesting
-  static class TextBasedReader extends FileBasedReader<String> {
+  static class TextBasedReader extends DelimitedReader<String> {
+    private TextBasedReader(FileBasedSource<String> source, byte @Nullable [] delimiter) {
+      super(source, delimiter);
+    }
+
+    @Override
+    protected String decode(byte[] bytes, int offset, int length) {
+      return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+  }
+
+  /** A {@link DelimitedReader} which outputs the undecoded bytes of every record. */
+  static class BytesReader extends DelimitedReader<byte[]> {
+    BytesReader(FileBasedSource<byte[]> source, byte @Nullable [] delimiter) {
+      super(source, delimiter);
+    }
+
+    @Override
+    protected byte[] decode(byte[] bytes, int offset, int length) {
+      return Arrays.copyOfRange(bytes, offset, offset + length);
+    }
+  }
+
+  /**
+   * A {@link FileBasedReader FileBasedReader} which splits the channel into records delimited by
+   * delimiter characters, and leaves decoding the record bytes to subclasses.
+   *
+   * <p>The bytes are read into a single reusable array, which is compacted or grown when it runs
+   * out of space. Delimiters are searched a word at a time: whole 8 byte words that cannot contain
+   * the first byte of a delimiter are skipped without looking at every byte.
+   */
+  abstract static class DelimitedReader<T> extends FileBasedReader<T> {
     private static final int READ_BUFFER_SIZE = 8192;
-    private static final ByteString UTF8_BOM =
-        ByteString.copyFrom(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
-    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
-    private ByteString buffer;
+    private static final byte[] UTF8_BOM = new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LF_WORD = '\n' * ONES;
+    private static final long CR_WORD = '\r' * ONES;
+    private byte[] buffer = new byte[READ_BUFFER_SIZE];
+    // Views of buffer, used to read from the channel and to load whole words.
+    private ByteBuffer readBuffer = ByteBuffer.wrap(buffer);
+    private ByteBuffer words = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+    // The unconsumed bytes are buffer[startOfBuffer, endOfBuffer), positions "in buffer" below
+    // are relative to startOfBuffer.
+    private int startOfBuffer;
+    private int endOfBuffer;
     private int startOfDelimiterInBuffer;
     private int endOfDelimiterInBuffer;
     private long startOfRecord;
     private volatile long startOfNextRecord;
     private volatile boolean eof;
     private volatile boolean elementIsPresent;
-    private @Nullable String currentValue;
+    private @Nullable T currentValue;
     private @Nullable ReadableByteChannel inChannel;
     private byte @Nullable [] delimiter;
+    private final long delimiterWord;
 
-    private TextBasedReader(TextSource source, byte[] delimiter) {
+    DelimitedReader(FileBasedSource<T> source, byte @Nullable [] delimiter) {
       super(source);
-      buffer = ByteString.EMPTY;
       this.delimiter = delimiter;
+      this.delimiterWord =
+          delimiter == null || delimiter.length == 0 ? 0L : (delimiter[0] & 0xFFL) * ONES;
     }
 
+    /** Decodes the record stored in {@code bytes[offset, offset + length)}. */
+    protected abstract T decode(byte[] bytes, int offset, int length);
+
     @Override
     protected long getCurrentOffset() throws NoSuchElementException {
       if (!elementIsPresent) {
@@ -127,7 +174,7 @@ class TextSource extends FileBasedSource<String> {
     }
 
     @Override
-    public String getCurrent() throws NoSuchElementException {
+    public T getCurrent() throws NoSuchElementException {
       if (!elementIsPresent) {
         throw new NoSuchElementException();
       }
@@ -154,7 +201,7 @@ class TextSource extends FileBasedSource<String> {
         }
         ((SeekableByteChannel) channel).position(requiredPosition);
         findDelimiterBounds();
-        buffer = buffer.substring(endOfDelimiterInBuffer);
+        startOfBuffer += endOfDelimiterInBuffer;
         startOfNextRecord = requiredPosition + endOfDelimiterInBuffer;
         endOfDelimiterInBuffer = 0;
         startOfDelimiterInBuffer = 0;
@@ -184,7 +231,14 @@ class TextSource extends FileBasedSource<String> {
           break;
         }
 
-        byte currentByte = buffer.byteAt(bytePositionInBuffer);
+        int candidatePosition = skipWordsWithoutDelimiter(bytePositionInBuffer);
+        if (candidatePosition != bytePositionInBuffer) {
+          // The skipped bytes may have been the last ones in the buffer, so refill it first.
+          bytePositionInBuffer = candidatePosition;
+          continue;
+        }
+
+        byte currentByte = byteAt(bytePositionInBuffer);
 
         if (delimiter == null) {
           // default delimiter
@@ -197,7 +251,7 @@ class TextSource extends FileBasedSource<String> {
             endOfDelimiterInBuffer = startOfDelimiterInBuffer + 1;
 
             if (tryToEnsureNumberOfBytesInBuffer(bytePositionInBuffer + 2)) {
-              currentByte = buffer.byteAt(bytePositionInBuffer + 1);
+              currentByte = byteAt(bytePositionInBuffer + 1);
               if (currentByte == '\n') {
                 endOfDelimiterInBuffer += 1;
               }
@@ -213,7 +267,7 @@ class TextSource extends FileBasedSource<String> {
             // read next byte
             i++;
             if (tryToEnsureNumberOfBytesInBuffer(bytePositionInBuffer + i + 1)) {
-              currentByte = buffer.byteAt(bytePositionInBuffer + i);
+              currentByte = byteAt(bytePositionInBuffer + i);
             } else {
               // corner case: delimiter truncated at the end of the file
               startOfDelimiterInBuffer = endOfDelimiterInBuffer = bytePositionInBuffer;
@@ -231,6 +285,42 @@ class TextSource extends FileBasedSource<String> {
       }
     }
 
+    /**
+     * Returns the position of the first buffered word, at or after {@code bytePositionInBuffer},
+     * which may contain the first byte of a delimiter. Trailing bytes which don't fill a whole word
+     * are not skipped.
+     */
+    private int skipWordsWithoutDelimiter(int bytePositionInBuffer) {
+      if (delimiter != null && delimiter.length == 0) {
+        return bytePositionInBuffer;
+      }
+      int lastWordPosition = endOfBuffer - startOfBuffer - Long.BYTES;
+      while (bytePositionInBuffer <= lastWordPosition) {
+        long word = words.getLong(startOfBuffer + bytePositionInBuffer);
+        long candidates =
+            delimiter == null
+                ? hasZeroByte(word ^ LF_WORD) | hasZeroByte(word ^ CR_WORD)
+                : hasZeroByte(word ^ delimiterWord);
+        if (candidates != 0) {
+          break;
+        }
+        bytePositionInBuffer += Long.BYTES;
+      }
+      return bytePositionInBuffer;
+    }
+
+    /**
+     * Returns a non-zero value iff any byte of {@code word} is zero. See "Determine if a word has
+     * a zero byte" in Bit Twiddling Hacks.
+     */
+    private static long hasZeroByte(long word) {
+      return (word - ONES) & ~word & HIGH_BITS;
+    }
+
+    private byte byteAt(int bytePositionInBuffer) {
+      return buffer[startOfBuffer + bytePositionInBuffer];
+    }
+
     @Override
     protected boolean readNextRecord() throws IOException {
       startOfRecord = startOfNextRecord;
@@ -238,7 +328,7 @@ class TextSource extends FileBasedSource<String> {
 
       // If we have reached EOF file and consumed all of the buffer then we know
       // that there are no more records.
-      if (eof && buffer.isEmpty()) {
+      if (eof && startOfBuffer == endOfBuffer) {
         elementIsPresent = false;
         return false;
       }
@@ -255,28 +345,66 @@ class TextSource extends FileBasedSource<String> {
      * endOfDelimiterInBuffer}.
      */
     private void decodeCurrentElement() throws IOException {
-      ByteString dataToDecode = buffer.substring(0, startOfDelimiterInBuffer);
+      int offset = startOfBuffer;
+      int length = startOfDelimiterInBuffer;
       // If present, the UTF8 Byte Order Mark (BOM) will be removed.
-      if (startOfRecord == 0 && dataToDecode.startsWith(UTF8_BOM)) {
-        dataToDecode = dataToDecode.substring(UTF8_BOM.size());
+      if (startOfRecord == 0 && startsWithUtf8Bom(offset, length)) {
+        offset += UTF8_BOM.length;
+        length -= UTF8_BOM.length;
       }
-      currentValue = dataToDecode.toStringUtf8();
+      currentValue = decode(buffer, offset, length);
       elementIsPresent = true;
-      buffer = buffer.substring(endOfDelimiterInBuffer);
+      startOfBuffer += endOfDelimiterInBuffer;
+    }
+
+    private boolean startsWithUtf8Bom(int offset, int length) {
+      if (length < UTF8_BOM.length) {
+        return false;
+      }
+      for (int i = 0; i < UTF8_BOM.length; i++) {
+        if (buffer[offset + i] != UTF8_BOM[i]) {
+          return false;
+        }
+      }
+      return true;
     }
 
     /** Returns false if we were unable to ensure the minimum capacity by consuming the channel. */
     private boolean tryToEnsureNumberOfBytesInBuffer(int minCapacity) throws IOException {
       // While we aren't at EOF or haven't fulfilled the minimum buffer capacity,
       // attempt to read more bytes.
-      while (buffer.size() <= minCapacity && !eof) {
-        eof = inChannel.read(readBuffer) == -1;
-        readBuffer.flip();
-        buffer = buffer.concat(ByteString.copyFrom(readBuffer));
-        readBuffer.clear();
+      while (endOfBuffer - startOfBuffer <= minCapacity && !eof) {
+        if (endOfBuffer == buffer.length) {
+          makeRoom();
+        }
+        readBuffer.limit(buffer.length).position(endOfBuffer);
+        int read = inChannel.read(readBuffer);
+        eof = read == -1;
+        if (read > 0) {
+          endOfBuffer += read;
+        }
       }
       // Return true if we were able to honor the minimum buffer capacity request
-      return buffer.size() >= minCapacity;
+      return endOfBuffer - startOfBuffer >= minCapacity;
+    }
+
+    /**
+     * Moves the unconsumed bytes to the front of the buffer if that frees at least half of it,
+     * otherwise grows the buffer.
+     */
+    private void makeRoom() {
+      int unconsumed = endOfBuffer - startOfBuffer;
+      if (unconsumed <= buffer.length / 2) {
+        System.arraycopy(buffer, startOfBuffer, buffer, 0, unconsumed);
+      } else {
+        byte[] grown = new byte[buffer.length * 2];
+        System.arraycopy(buffer, startOfBuffer, grown, 0, unconsumed);
+        buffer = grown;
+        readBuffer = ByteBuffer.wrap(buffer);
+        words = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+      }
+      startOfBuffer = 0;
+      endOfBuffer = unconsumed;
     }
   }
 }
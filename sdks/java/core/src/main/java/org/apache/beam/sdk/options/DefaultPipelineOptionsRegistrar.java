@@ -18,6 +18,7 @@
 package org.apache.beam.sdk.options;
 
 import com.google.auto.service.AutoService;
+import org.apache.beam.sdk.io.LocalFileSystemOptions;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.ImmutableList;
 
 /**
@@ -35,6 +36,7 @@ public class DefaultPipelineOptionsRegistrar implements PipelineOptionsRegistrar
         .add(ExperimentalOptions.class)
         .add(SdkHarnessOptions.class)
         .add(PortablePipelineOptions.class)
+        .add(LocalFileSystemOptions.class)
         .build();
   }
 }
@@ -22,6 +22,7 @@ import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Prec
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
@@ -114,11 +115,19 @@ public class SchemaCoder<T> extends CustomCoder<T> {
     if (delegateCoder == null) {
       // RowCoderGenerator caches based on id, so if a new instance of this RowCoder is
       // deserialized, we don't need to run ByteBuddy again to construct the class.
-      delegateCoder = RowCoderGenerator.generate(schema);
+      delegateCoder = RowCoderGenerator.generate(schema, decodesLazily());
     }
     return delegateCoder;
   }
 
+  /**
+   * Whether decoded rows keep their encoded bytes and decode each field on first access. See
+   * {@link RowCoderGenerator#generate(Schema, boolean)}.
+   */
+  protected boolean decodesLazily() {
+    return false;
+  }
+
   @Override
   public void encode(T value, OutputStream outStream) throws IOException {
     getDelegateCoder().encode(toRowFunction.apply(value), outStream);
@@ -129,6 +138,28 @@ public class SchemaCoder<T> extends CustomCoder<T> {
     return fromRowFunction.apply(getDelegateCoder().decode(inStream));
   }
 
+  @Override
+  public void encodeToBuffer(T value, ByteBuffer buffer) throws IOException {
+    if (!hasDefaultEncoding()) {
+      // Respect subclasses that override the stream encoding.
+      super.encodeToBuffer(value, buffer);
+      return;
+    }
+    getDelegateCoder().encodeToBuffer(toRowFunction.apply(value), buffer);
+  }
+
+  @Override
+  public T decodeFromBuffer(ByteBuffer buffer) throws IOException {
+    if (!hasDefaultEncoding()) {
+      return super.decodeFromBuffer(buffer);
+    }
+    return fromRowFunction.apply(getDelegateCoder().decodeFromBuffer(buffer));
+  }
+
+  private boolean hasDefaultEncoding() {
+    return getClass() == SchemaCoder.class || getClass() == RowCoder.class;
+  }
+
   @Override
   public void verifyDeterministic()
       throws org.apache.beam.sdk.coders.Coder.NonDeterministicException {
@@ -655,10 +655,24 @@ public class Group {
     }
 
     class ToKv extends PTransform<PCollection<InputT>, PCollection<KV<Row, Iterable<Row>>>> {
+      @Override
+      public PCollection<KV<Row, Iterable<Row>>> expand(PCollection<InputT> input) {
+        return input
+            .apply("ToKeyedRows", getToKeyedRows())
+            .apply("GroupByKey", GroupByKey.create());
+      }
+    }
+
+    public ToKv getToKvs() {
+      return new ToKv();
+    }
+
+    /** Extracts the key fields of every element, without grouping. */
+    class ToKeyedRows extends PTransform<PCollection<InputT>, PCollection<KV<Row, Row>>> {
       private RowSelector rowSelector;
 
       @Override
-      public PCollection<KV<Row, Iterable<Row>>> expand(PCollection<InputT> input) {
+      public PCollection<KV<Row, Row>> expand(PCollection<InputT> input) {
         Schema schema = input.getSchema();
         FieldAccessDescriptor resolved = getFieldAccessDescriptor().resolve(schema);
         rowSelector = new RowSelectorContainer(schema, resolved, true);
@@ -669,13 +683,12 @@ public class Group {
             .apply(
                 "selectKeys",
                 WithKeys.of((Row e) -> rowSelector.select(e)).withKeyType(TypeDescriptors.rows()))
-            .setCoder(KvCoder.of(SchemaCoder.of(keySchema), SchemaCoder.of(schema)))
-            .apply("GroupByKey", GroupByKey.create());
+            .setCoder(KvCoder.of(SchemaCoder.of(keySchema), SchemaCoder.of(schema)));
       }
     }
 
-    public ToKv getToKvs() {
-      return new ToKv();
+    ToKeyedRows getToKeyedRows() {
+      return new ToKeyedRows();
     }
 
     private static <InputT> ByFields<InputT> of(FieldAccessDescriptor fieldAccessDescriptor) {
@@ -953,6 +966,8 @@ public class Group {
 
     abstract String getValueField();
 
+    abstract int getHotKeyFanout();
+
     abstract Builder<InputT> toBuilder();
 
     @AutoValue.Builder
@@ -965,6 +980,8 @@ public class Group {
 
       abstract Builder<InputT> setValueField(String valueField);
 
+      abstract Builder<InputT> setHotKeyFanout(int hotKeyFanout);
+
       abstract CombineFieldsByFields<InputT> build();
     }
 
@@ -978,6 +995,7 @@ public class Group {
           .setSchemaAggregateFn(schemaAggregateFn)
           .setKeyField(keyField)
           .setValueField(valueField)
+          .setHotKeyFanout(0)
           .build();
     }
 
@@ -986,6 +1004,15 @@ public class Group {
       return toBuilder().setKeyField(keyField).build();
     }
 
+    /**
+     * Pre-aggregate every key on {@code hotKeyFanout} intermediate, randomly assigned sub-keys
+     * before the final aggregation. This spreads the load of hot keys across several workers, see
+     * {@link Combine.PerKey#withHotKeyFanout(int)}.
+     */
+    public CombineFieldsByFields<InputT> withHotKeyFanout(int hotKeyFanout) {
+      return toBuilder().setHotKeyFanout(hotKeyFanout).build();
+    }
+
     /** Set the name of the value field in the resulting schema. */
     public CombineFieldsByFields<InputT> witValueField(String valueField) {
       return toBuilder().setValueField(valueField).build();
@@ -1201,9 +1228,14 @@ public class Group {
               .addRowField(getValueField(), getSchemaAggregateFn().getOutputSchema())
               .build();
 
+      // Combine per key rather than grouping first, so that runners can lift the partial
+      // aggregation in front of the shuffle.
+      Combine.PerKey<Row, Row, Row> combine = Combine.perKey(fn);
+      PTransform<PCollection<KV<Row, Row>>, PCollection<KV<Row, Row>>> combineTransform =
+          getHotKeyFanout() > 0 ? combine.withHotKeyFanout(getHotKeyFanout()) : combine;
       return input
-          .apply("ToKvs", getByFields().getToKvs())
-          .apply("Combine", Combine.groupedValues(fn))
+          .apply("ToKvs", getByFields().getToKeyedRows())
+          .apply("Combine", combineTransform)
           .apply(
               "ToRow",
               ParDo.of(
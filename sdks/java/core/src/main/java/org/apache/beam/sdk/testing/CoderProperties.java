@@ -27,6 +27,7 @@ import static org.junit.Assert.assertEquals;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -98,6 +99,24 @@ public class CoderProperties {
     }
   }
 
+  /**
+   * Verifies that for the given {@code Coder<T>} and value of type {@code T}, {@link
+   * Coder#encodeToBuffer} writes the same bytes as encoding in the nested context, and that {@link
+   * Coder#decodeFromBuffer} decodes them to an equal value.
+   */
+  public static <T> void coderDecodeEncodeEqualInBuffer(Coder<T> coder, T value) throws Exception {
+    byte[] bytes = encode(coder, Coder.Context.NESTED, value);
+    Coder<T> deserializedCoder = SerializableUtils.clone(coder);
+    // Start from a buffer that is too small so that growing it is exercised as well.
+    ByteBuffer buffer =
+        CoderUtils.encodeToByteBuffer(deserializedCoder, value, ByteBuffer.allocate(1));
+    byte[] bufferBytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bufferBytes);
+    assertThat("bytes encoded into a buffer", bufferBytes, equalTo(bytes));
+    assertThat(
+        CoderUtils.decodeFromByteBuffer(deserializedCoder, ByteBuffer.wrap(bytes)), equalTo(value));
+  }
+
   /**
    * Verifies that for the given {@code Coder<T>}, {@code Coder.Context}, and value of type {@code
    * T}, encoding followed by decoding yields an equal value of type {@code T}.
@@ -26,6 +26,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -42,6 +43,7 @@ import org.apache.beam.sdk.coders.ListCoder;
 import org.apache.beam.sdk.transforms.Combine.AccumulatingCombineFn;
 import org.apache.beam.sdk.transforms.Combine.AccumulatingCombineFn.Accumulator;
 import org.apache.beam.sdk.transforms.display.DisplayData;
+import org.apache.beam.sdk.util.VarInt;
 import org.apache.beam.sdk.util.WeightedValue;
 import org.apache.beam.sdk.util.common.ElementByteSizeObserver;
 import org.apache.beam.sdk.values.KV;
@@ -158,6 +160,29 @@ public class ApproximateQuantiles {
     return Combine.perKey(ApproximateQuantilesCombineFn.<V>create(numQuantiles));
   }
 
+  /**
+   * Like {@link #globally(int)}, but specialized for {@code Long} inputs. The summary is kept in
+   * arrays of primitive {@code long}s rather than lists of boxed values sorted with a {@code
+   * Comparator}.
+   *
+   * @param numQuantiles the number of elements in the resulting quantile values {@code List}
+   */
+  public static PTransform<PCollection<Long>, PCollection<List<Long>>> ofLongs(int numQuantiles) {
+    return Combine.globally(PrimitiveQuantilesCombineFn.ofLongs(numQuantiles));
+  }
+
+  /**
+   * Like {@link #globally(int)}, but specialized for {@code Double} inputs, which are ordered as by
+   * {@link Double#compare}. The summary is kept in arrays of primitives rather than lists of boxed
+   * values sorted with a {@code Comparator}.
+   *
+   * @param numQuantiles the number of elements in the resulting quantile values {@code List}
+   */
+  public static PTransform<PCollection<Double>, PCollection<List<Double>>> ofDoubles(
+      int numQuantiles) {
+    return Combine.globally(PrimitiveQuantilesCombineFn.ofDoubles(numQuantiles));
+  }
+
   /////////////////////////////////////////////////////////////////////////////
 
   /**
@@ -296,13 +321,8 @@ public class ApproximateQuantiles {
     public static <T, ComparatorT extends Comparator<T> & Serializable>
         ApproximateQuantilesCombineFn<T, ComparatorT> create(
             int numQuantiles, ComparatorT compareFn, long maxNumElements, double epsilon) {
-      // Compute optimal b and k.
-      int b = 2;
-      while ((b - 2) * (1 << (b - 2)) < epsilon * maxNumElements) {
-        b++;
-      }
-      b--;
-      int k = Math.max(2, (int) Math.ceil(maxNumElements / (float) (1 << (b - 1))));
+      int b = optimalNumBuffers(maxNumElements, epsilon);
+      int k = optimalBufferSize(maxNumElements, b);
       return new ApproximateQuantilesCombineFn<>(numQuantiles, compareFn, k, b, maxNumElements);
     }
 
@@ -334,6 +354,20 @@ public class ApproximateQuantiles {
     }
   }
 
+  /** Returns the optimal number of buffers, corresponding to b in the referenced paper. */
+  private static int optimalNumBuffers(long maxNumElements, double epsilon) {
+    int b = 2;
+    while ((b - 2) * (1 << (b - 2)) < epsilon * maxNumElements) {
+      b++;
+    }
+    return b - 1;
+  }
+
+  /** Returns the optimal buffer size for {@code numBuffers}, corresponding to k in the paper. */
+  private static int optimalBufferSize(long maxNumElements, int numBuffers) {
+    return Math.max(2, (int) Math.ceil(maxNumElements / (float) (1 << (numBuffers - 1))));
+  }
+
   /** Compact summarization of a collection on which quantiles can be estimated. */
   static class QuantileState<T, ComparatorT extends Comparator<T> & Serializable>
       implements Accumulator<T, QuantileState<T, ComparatorT>, List<T>> {
@@ -709,4 +743,416 @@ public class ApproximateQuantiles {
           this, "QuantileState.ElementListCoder must be deterministic", elementListCoder);
     }
   }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * A combiner like {@link ApproximateQuantilesCombineFn} for {@code Long} or {@code Double}
+   * values, using the same algorithm and producing the same output for the values' natural
+   * ordering. The buffers of the summary hold primitive {@code long} keys that sort like the
+   * values, and are merged without boxing or a {@code Comparator}.
+   *
+   * @param <T> the type of the values being combined
+   */
+  public static class PrimitiveQuantilesCombineFn<T extends Number>
+      extends AccumulatingCombineFn<T, PrimitiveQuantileState<T>, List<T>> {
+
+    private final Top.PrimitiveOrdering ordering;
+    private final int numQuantiles;
+    private final int bufferSize;
+    private final int numBuffers;
+    private final long maxNumElements;
+    private final double epsilon;
+
+    private PrimitiveQuantilesCombineFn(
+        Top.PrimitiveOrdering ordering, int numQuantiles, long maxNumElements, double epsilon) {
+      checkArgument(numQuantiles >= 2);
+      this.ordering = ordering;
+      this.numQuantiles = numQuantiles;
+      this.numBuffers = optimalNumBuffers(maxNumElements, epsilon);
+      this.bufferSize = optimalBufferSize(maxNumElements, numBuffers);
+      this.maxNumElements = maxNumElements;
+      this.epsilon = epsilon;
+    }
+
+    /**
+     * Returns an approximate quantiles combiner for {@code Long} values with the desired number of
+     * quantiles. See {@link ApproximateQuantilesCombineFn#create(int, Comparator)}.
+     */
+    public static PrimitiveQuantilesCombineFn<Long> ofLongs(int numQuantiles) {
+      return new PrimitiveQuantilesCombineFn<>(
+          Top.PrimitiveOrdering.LONGS,
+          numQuantiles,
+          ApproximateQuantilesCombineFn.DEFAULT_MAX_NUM_ELEMENTS,
+          1.0 / numQuantiles);
+    }
+
+    /**
+     * Returns an approximate quantiles combiner for {@code Double} values with the desired number
+     * of quantiles. See {@link ApproximateQuantilesCombineFn#create(int, Comparator)}.
+     */
+    public static PrimitiveQuantilesCombineFn<Double> ofDoubles(int numQuantiles) {
+      return new PrimitiveQuantilesCombineFn<>(
+          Top.PrimitiveOrdering.DOUBLES,
+          numQuantiles,
+          ApproximateQuantilesCombineFn.DEFAULT_MAX_NUM_ELEMENTS,
+          1.0 / numQuantiles);
+    }
+
+    /**
+     * Returns a {@code PrimitiveQuantilesCombineFn} that's like this one except that it uses the
+     * specified {@code epsilon} value. See {@link ApproximateQuantilesCombineFn#create(int,
+     * Comparator, long, double)} for its meaning.
+     */
+    public PrimitiveQuantilesCombineFn<T> withEpsilon(double epsilon) {
+      return new PrimitiveQuantilesCombineFn<>(ordering, numQuantiles, maxNumElements, epsilon);
+    }
+
+    /**
+     * Returns a {@code PrimitiveQuantilesCombineFn} that's like this one except that it uses the
+     * specified {@code maxNumElements} value. See {@link ApproximateQuantilesCombineFn#create(int,
+     * Comparator, long, double)} for its meaning.
+     */
+    public PrimitiveQuantilesCombineFn<T> withMaxInputSize(long maxNumElements) {
+      return new PrimitiveQuantilesCombineFn<>(ordering, numQuantiles, maxNumElements, epsilon);
+    }
+
+    @Override
+    public PrimitiveQuantileState<T> createAccumulator() {
+      return new PrimitiveQuantileState<>(ordering, numQuantiles, numBuffers, bufferSize);
+    }
+
+    @Override
+    public Coder<PrimitiveQuantileState<T>> getAccumulatorCoder(
+        CoderRegistry registry, Coder<T> elementCoder) {
+      return new PrimitiveQuantileStateCoder<>(ordering);
+    }
+
+    @Override
+    public Coder<List<T>> getDefaultOutputCoder(CoderRegistry registry, Coder<T> inputCoder) {
+      return ListCoder.of(inputCoder);
+    }
+
+    @Override
+    public void populateDisplayData(DisplayData.Builder builder) {
+      super.populateDisplayData(builder);
+      builder.add(DisplayData.item("numQuantiles", numQuantiles).withLabel("Quantile Count"));
+    }
+
+    int getNumBuffers() {
+      return numBuffers;
+    }
+
+    int getBufferSize() {
+      return bufferSize;
+    }
+  }
+
+  /**
+   * The counterpart of {@link QuantileState} for primitive keys. Buffers are sorted arrays of keys,
+   * and the partially filled buffer of unbuffered keys is kept in a preallocated array.
+   */
+  static class PrimitiveQuantileState<T extends Number>
+      implements Accumulator<T, PrimitiveQuantileState<T>, List<T>> {
+
+    private final Top.PrimitiveOrdering ordering;
+    private final int numQuantiles;
+    private final int numBuffers;
+    private final int bufferSize;
+
+    private long min;
+    private long max;
+
+    /** The set of buffers, ordered by level from smallest to largest. */
+    private final PriorityQueue<PrimitiveQuantileBuffer> buffers;
+
+    /** See {@link QuantileState}; the first {@code numUnbuffered} entries are valid. */
+    private long[] unbuffered;
+
+    private int numUnbuffered;
+
+    /** For alternating between biasing up and down in the even weight collapse operation. */
+    private int offsetJitter = 0;
+
+    private PrimitiveQuantileState(
+        Top.PrimitiveOrdering ordering, int numQuantiles, int numBuffers, int bufferSize) {
+      this.ordering = ordering;
+      this.numQuantiles = numQuantiles;
+      this.numBuffers = numBuffers;
+      this.bufferSize = bufferSize;
+      this.buffers =
+          new PriorityQueue<>(numBuffers + 1, (q1, q2) -> Integer.compare(q1.level, q2.level));
+      this.unbuffered = new long[bufferSize];
+    }
+
+    @Override
+    public void addInput(T elem) {
+      long key = ordering.toKey(elem);
+      if (isEmpty()) {
+        min = max = key;
+      } else if (key < min) {
+        min = key;
+      } else if (key > max) {
+        max = key;
+      }
+      addUnbuffered(key);
+    }
+
+    private void addUnbuffered(long key) {
+      unbuffered[numUnbuffered++] = key;
+      if (numUnbuffered == bufferSize) {
+        Arrays.sort(unbuffered);
+        buffers.add(new PrimitiveQuantileBuffer(0, 1, unbuffered));
+        unbuffered = new long[bufferSize];
+        numUnbuffered = 0;
+        collapseIfNeeded();
+      }
+    }
+
+    @Override
+    public void mergeAccumulator(PrimitiveQuantileState<T> other) {
+      if (other.isEmpty()) {
+        return;
+      }
+      if (isEmpty() || other.min < min) {
+        min = other.min;
+      }
+      if (isEmpty() || other.max > max) {
+        max = other.max;
+      }
+      for (int i = 0; i < other.numUnbuffered; i++) {
+        addUnbuffered(other.unbuffered[i]);
+      }
+      buffers.addAll(other.buffers);
+      collapseIfNeeded();
+    }
+
+    public boolean isEmpty() {
+      return numUnbuffered == 0 && buffers.isEmpty();
+    }
+
+    private void collapseIfNeeded() {
+      while (buffers.size() > numBuffers) {
+        List<PrimitiveQuantileBuffer> toCollapse = Lists.newArrayList();
+        toCollapse.add(buffers.poll());
+        toCollapse.add(buffers.poll());
+        int minLevel = toCollapse.get(1).level;
+        while (!buffers.isEmpty() && buffers.peek().level == minLevel) {
+          toCollapse.add(buffers.poll());
+        }
+        buffers.add(collapse(toCollapse));
+      }
+    }
+
+    private PrimitiveQuantileBuffer collapse(List<PrimitiveQuantileBuffer> buffers) {
+      int newLevel = 0;
+      long newWeight = 0;
+      for (PrimitiveQuantileBuffer buffer : buffers) {
+        // See QuantileState#collapse.
+        newLevel = Math.max(newLevel, buffer.level + 1);
+        newWeight += buffer.weight;
+      }
+      long[] newKeys = interpolate(buffers, bufferSize, newWeight, offset(newWeight));
+      return new PrimitiveQuantileBuffer(newLevel, newWeight, newKeys);
+    }
+
+    /** See {@code QuantileState#offset}. */
+    private long offset(long newWeight) {
+      if (newWeight % 2 == 1) {
+        return (newWeight + 1) / 2;
+      } else {
+        offsetJitter = 2 - offsetJitter;
+        return (newWeight + offsetJitter) / 2;
+      }
+    }
+
+    /**
+     * Emulates taking the ordered union of all keys in buffers, repeated according to their
+     * weight, and picking out the (k * step + offset)-th keys of this list for {@code 0 &lt;= k
+     * &lt; count}.
+     */
+    private static long[] interpolate(
+        List<PrimitiveQuantileBuffer> buffers, int count, double step, double offset) {
+      // Each of the buffers is already sorted, so they are merged by repeatedly taking the
+      // smallest of their next keys. There are only a few buffers, so a linear scan suffices.
+      int[] positions = new int[buffers.size()];
+      int current = nextBuffer(buffers, positions);
+      long key = buffers.get(current).keys[positions[current]++];
+      double weight = buffers.get(current).weight;
+
+      long[] newKeys = new long[count];
+      for (int j = 0; j < count; j++) {
+        double target = j * step + offset;
+        while (weight <= target && (current = nextBuffer(buffers, positions)) >= 0) {
+          key = buffers.get(current).keys[positions[current]++];
+          weight += buffers.get(current).weight;
+        }
+        newKeys[j] = key;
+      }
+      return newKeys;
+    }
+
+    /** Returns the index of the buffer with the smallest next key, or -1 if all are exhausted. */
+    private static int nextBuffer(List<PrimitiveQuantileBuffer> buffers, int[] positions) {
+      int next = -1;
+      for (int i = 0; i < positions.length; i++) {
+        long[] keys = buffers.get(i).keys;
+        if (positions[i] < keys.length
+            && (next < 0 || keys[positions[i]] < buffers.get(next).keys[positions[next]])) {
+          next = i;
+        }
+      }
+      return next;
+    }
+
+    /**
+     * Outputs numQuantiles elements consisting of the minimum, maximum, and numQuantiles - 2 evenly
+     * spaced intermediate elements.
+     *
+     * <p>Returns the empty list if no elements have been added.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> extractOutput() {
+      if (isEmpty()) {
+        return Lists.newArrayList();
+      }
+      long totalCount = numUnbuffered;
+      for (PrimitiveQuantileBuffer buffer : buffers) {
+        totalCount += bufferSize * buffer.weight;
+      }
+      List<PrimitiveQuantileBuffer> all = Lists.newArrayList(buffers);
+      if (numUnbuffered > 0) {
+        long[] keys = Arrays.copyOf(unbuffered, numUnbuffered);
+        Arrays.sort(keys);
+        all.add(new PrimitiveQuantileBuffer(0, 1, keys));
+      }
+      double step = 1.0 * totalCount / (numQuantiles - 1);
+      double offset = (1.0 * totalCount - 1) / (numQuantiles - 1);
+      long[] keys = interpolate(all, numQuantiles - 2, step, offset);
+      List<T> quantiles = Lists.newArrayListWithCapacity(numQuantiles);
+      quantiles.add((T) ordering.fromKey(min));
+      for (long key : keys) {
+        quantiles.add((T) ordering.fromKey(key));
+      }
+      quantiles.add((T) ordering.fromKey(max));
+      return quantiles;
+    }
+  }
+
+  /** A single buffer of sorted keys in the sense of the referenced algorithm. */
+  private static class PrimitiveQuantileBuffer {
+    private final int level;
+    private final long weight;
+    private final long[] keys;
+
+    private PrimitiveQuantileBuffer(int level, long weight, long[] keys) {
+      this.level = level;
+      this.weight = weight;
+      this.keys = keys;
+    }
+
+    @Override
+    public String toString() {
+      return "PrimitiveQuantileBuffer["
+          + "level="
+          + level
+          + ", weight="
+          + weight
+          + ", keys="
+          + Arrays.toString(keys)
+          + "]";
+    }
+  }
+
+  /** Coder for PrimitiveQuantileState, writing each key as 8 bytes. */
+  private static class PrimitiveQuantileStateCoder<T extends Number>
+      extends CustomCoder<PrimitiveQuantileState<T>> {
+    private final Top.PrimitiveOrdering ordering;
+
+    private PrimitiveQuantileStateCoder(Top.PrimitiveOrdering ordering) {
+      this.ordering = ordering;
+    }
+
+    @Override
+    public void encode(PrimitiveQuantileState<T> state, OutputStream outStream)
+        throws CoderException, IOException {
+      VarInt.encode(state.numQuantiles, outStream);
+      VarInt.encode(state.numBuffers, outStream);
+      VarInt.encode(state.bufferSize, outStream);
+      DataOutputStream outData = new DataOutputStream(outStream);
+      outData.writeLong(state.min);
+      outData.writeLong(state.max);
+      // The order of the unbuffered keys doesn't matter, sorting them makes the encoding
+      // deterministic.
+      Arrays.sort(state.unbuffered, 0, state.numUnbuffered);
+      VarInt.encode(state.numUnbuffered, outData);
+      for (int i = 0; i < state.numUnbuffered; i++) {
+        outData.writeLong(state.unbuffered[i]);
+      }
+      VarInt.encode(state.buffers.size(), outData);
+      for (PrimitiveQuantileBuffer buffer : state.buffers) {
+        VarInt.encode(buffer.level, outData);
+        VarInt.encode(buffer.weight, outData);
+        VarInt.encode(buffer.keys.length, outData);
+        for (long key : buffer.keys) {
+          outData.writeLong(key);
+        }
+      }
+      outData.flush();
+    }
+
+    @Override
+    public PrimitiveQuantileState<T> decode(InputStream inStream)
+        throws CoderException, IOException {
+      int numQuantiles = VarInt.decodeInt(inStream);
+      int numBuffers = VarInt.decodeInt(inStream);
+      int bufferSize = VarInt.decodeInt(inStream);
+      PrimitiveQuantileState<T> state =
+          new PrimitiveQuantileState<>(ordering, numQuantiles, numBuffers, bufferSize);
+      DataInputStream inData = new DataInputStream(inStream);
+      state.min = inData.readLong();
+      state.max = inData.readLong();
+      state.numUnbuffered = VarInt.decodeInt(inData);
+      if (state.numUnbuffered < 0 || state.numUnbuffered >= bufferSize) {
+        throw new CoderException(
+            String.format(
+                "Invalid number of unbuffered elements %s, expected fewer than %s",
+                state.numUnbuffered, bufferSize));
+      }
+      for (int i = 0; i < state.numUnbuffered; i++) {
+        state.unbuffered[i] = inData.readLong();
+      }
+      int numStoredBuffers = VarInt.decodeInt(inData);
+      for (int i = 0; i < numStoredBuffers; i++) {
+        int level = VarInt.decodeInt(inData);
+        long weight = VarInt.decodeLong(inData);
+        long[] keys = new long[VarInt.decodeInt(inData)];
+        for (int j = 0; j < keys.length; j++) {
+          keys[j] = inData.readLong();
+        }
+        state.buffers.add(new PrimitiveQuantileBuffer(level, weight, keys));
+      }
+      return state;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      if (other == this) {
+        return true;
+      }
+      if (!(other instanceof PrimitiveQuantileStateCoder)) {
+        return false;
+      }
+      return ordering == ((PrimitiveQuantileStateCoder<?>) other).ordering;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(PrimitiveQuantileStateCoder.class, ordering);
+    }
+
+    @Override
+    public void verifyDeterministic() {}
+  }
 }
@@ -17,8 +17,16 @@
  */
 package org.apache.beam.sdk.transforms;
 
+import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Objects;
 import org.apache.beam.sdk.coders.BooleanCoder;
 import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CustomCoder;
 import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.state.StateSpec;
 import org.apache.beam.sdk.state.StateSpecs;
@@ -31,6 +39,13 @@ import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.TypeDescriptor;
+import org.apache.beam.sdk.values.TypeDescriptors;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.hash.BloomFilter;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.hash.Funnel;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.hash.Funnels;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.hash.HashFunction;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.hash.Hashing;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.hash.PrimitiveSink;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Duration;
 
@@ -57,6 +72,12 @@ import org.joda.time.Duration;
  *
  * <p>Does not preserve any order the input PCollection might have had.
  *
+ * <p>Each of the transforms can instead deduplicate approximately with {@code withBloomFilter}.
+ * Rather than keeping state and a timer for every distinct value, values are spread over a fixed
+ * number of shards, each of which remembers the values it has seen in Bloom filters. This bounds
+ * the state and timers to a few per shard and window, at the cost of occasionally dropping a value
+ * that is not a duplicate.
+ *
  * <p>Example of use:
  *
  * <pre>{@code
@@ -80,10 +101,13 @@ public final class Deduplicate {
   public static final class Values<T> extends PTransform<PCollection<T>, PCollection<T>> {
     private final TimeDomain timeDomain;
     private final Duration duration;
+    private final @Nullable BloomFilterParams bloomFilterParams;
 
-    private Values(TimeDomain timeDomain, Duration duration) {
+    private Values(
+        TimeDomain timeDomain, Duration duration, @Nullable BloomFilterParams bloomFilterParams) {
       this.timeDomain = timeDomain;
       this.duration = duration;
+      this.bloomFilterParams = bloomFilterParams;
     }
 
     @Override
@@ -98,7 +122,7 @@ public final class Deduplicate {
                       return KV.of(element, (Void) null);
                     }
                   }))
-          .apply(new KeyedValues<>(timeDomain, duration))
+          .apply(new KeyedValues<>(timeDomain, duration, bloomFilterParams))
           .apply(Keys.create());
     }
 
@@ -106,14 +130,26 @@ public final class Deduplicate {
      * Returns a {@code Values} {@link PTransform} like this one but with the specified time domain.
      */
     public Values<T> withTimeDomain(TimeDomain timeDomain) {
-      return new Values<T>(timeDomain, duration);
+      return new Values<T>(timeDomain, duration, bloomFilterParams);
     }
 
     /**
      * Returns a {@code Values} {@link PTransform} like this one but with the specified duration.
      */
     public Values<T> withDuration(Duration duration) {
-      return new Values<T>(timeDomain, duration);
+      return new Values<T>(timeDomain, duration, bloomFilterParams);
+    }
+
+    /**
+     * Returns a {@code Values} {@link PTransform} like this one but which deduplicates
+     * approximately using Bloom filters. See {@link KeyedValues#withBloomFilter}.
+     */
+    public Values<T> withBloomFilter(
+        int numShards, long expectedValuesPerShard, double falsePositiveProbability) {
+      return new Values<T>(
+          timeDomain,
+          duration,
+          BloomFilterParams.of(numShards, expectedValuesPerShard, falsePositiveProbability));
     }
   }
 
@@ -133,18 +169,21 @@ public final class Deduplicate {
     private final @Nullable Coder<IdT> coder;
     private final TimeDomain timeDomain;
     private final Duration duration;
+    private final @Nullable BloomFilterParams bloomFilterParams;
 
     private WithRepresentativeValues(
         TimeDomain timeDomain,
         Duration duration,
         SerializableFunction<T, IdT> fn,
         @Nullable TypeDescriptor<IdT> type,
-        @Nullable Coder<IdT> coder) {
+        @Nullable Coder<IdT> coder,
+        @Nullable BloomFilterParams bloomFilterParams) {
       this.timeDomain = timeDomain;
       this.duration = duration;
       this.fn = fn;
       this.type = type;
       this.coder = coder;
+      this.bloomFilterParams = bloomFilterParams;
     }
 
     /**
@@ -161,7 +200,8 @@ public final class Deduplicate {
      *     value coder will be cleared.
      */
     public WithRepresentativeValues<T, IdT> withRepresentativeType(TypeDescriptor<IdT> type) {
-      return new WithRepresentativeValues<>(timeDomain, duration, fn, type, null);
+      return new WithRepresentativeValues<>(
+          timeDomain, duration, fn, type, null, bloomFilterParams);
     }
 
     /**
@@ -178,7 +218,8 @@ public final class Deduplicate {
      *     descriptor will be cleared.
      */
     public WithRepresentativeValues<T, IdT> withRepresentativeCoder(Coder<IdT> coder) {
-      return new WithRepresentativeValues<>(timeDomain, duration, fn, null, coder);
+      return new WithRepresentativeValues<>(
+          timeDomain, duration, fn, null, coder, bloomFilterParams);
     }
 
     /**
@@ -186,7 +227,8 @@ public final class Deduplicate {
      * specified time domain.
      */
     public WithRepresentativeValues<T, IdT> withTimeDomain(TimeDomain timeDomain) {
-      return new WithRepresentativeValues<>(timeDomain, duration, fn, type, coder);
+      return new WithRepresentativeValues<>(
+          timeDomain, duration, fn, type, coder, bloomFilterParams);
     }
 
     /**
@@ -194,7 +236,23 @@ public final class Deduplicate {
      * the specified deduplication duration.
      */
     public WithRepresentativeValues<T, IdT> withDuration(Duration duration) {
-      return new WithRepresentativeValues<>(timeDomain, duration, fn, type, coder);
+      return new WithRepresentativeValues<>(
+          timeDomain, duration, fn, type, coder, bloomFilterParams);
+    }
+
+    /**
+     * Return a {@code WithRepresentativeValues} {@link PTransform} that is like this one, but which
+     * deduplicates approximately using Bloom filters. See {@link KeyedValues#withBloomFilter}.
+     */
+    public WithRepresentativeValues<T, IdT> withBloomFilter(
+        int numShards, long expectedValuesPerShard, double falsePositiveProbability) {
+      return new WithRepresentativeValues<>(
+          timeDomain,
+          duration,
+          fn,
+          type,
+          coder,
+          BloomFilterParams.of(numShards, expectedValuesPerShard, falsePositiveProbability));
     }
 
     @Override
@@ -208,7 +266,7 @@ public final class Deduplicate {
         inputWithKey.setCoder(KvCoder.of(coder, input.getCoder()));
       }
       return inputWithKey
-          .apply(new KeyedValues<>(timeDomain, duration))
+          .apply(new KeyedValues<>(timeDomain, duration, bloomFilterParams))
           .apply(org.apache.beam.sdk.transforms.Values.create());
     }
   }
@@ -221,15 +279,41 @@ public final class Deduplicate {
       extends PTransform<PCollection<KV<K, V>>, PCollection<KV<K, V>>> {
     private final TimeDomain timeDomain;
     private final Duration duration;
+    private final @Nullable BloomFilterParams bloomFilterParams;
 
-    private KeyedValues(TimeDomain timeDomain, Duration duration) {
+    private KeyedValues(
+        TimeDomain timeDomain, Duration duration, @Nullable BloomFilterParams bloomFilterParams) {
       this.timeDomain = timeDomain;
       this.duration = duration;
+      this.bloomFilterParams = bloomFilterParams;
     }
 
     @Override
     public PCollection<KV<K, V>> expand(PCollection<KV<K, V>> input) {
-      return input.apply(ParDo.of(new DeduplicateFn<>(timeDomain, duration)));
+      BloomFilterParams params = bloomFilterParams;
+      if (params == null) {
+        return input.apply(ParDo.of(new DeduplicateFn<>(timeDomain, duration)));
+      }
+      checkArgument(
+          input.getCoder() instanceof KvCoder,
+          "coder specified in the input PCollection is not a KvCoder");
+      Coder<K> keyCoder = ((KvCoder<K, V>) input.getCoder()).getKeyCoder();
+      try {
+        keyCoder.verifyDeterministic();
+      } catch (Coder.NonDeterministicException e) {
+        throw new IllegalStateException(
+            "the key coder of an approximate Deduplicate must be deterministic", e);
+      }
+      KeyFunnel<K> funnel = new KeyFunnel<>(keyCoder);
+      return input
+          .apply(
+              "KeyByShard",
+              WithKeys.of(new ShardFn<K, V>(funnel, params.numShards))
+                  .withKeyType(TypeDescriptors.integers()))
+          .apply(
+              ParDo.of(
+                  new ApproximateDeduplicateFn<K, V>(timeDomain, duration, funnel, params)))
+          .setCoder(input.getCoder());
     }
 
     /**
@@ -237,7 +321,7 @@ public final class Deduplicate {
      * domain.
      */
     public KeyedValues<K, V> withTimeDomain(TimeDomain timeDomain) {
-      return new KeyedValues<>(timeDomain, duration);
+      return new KeyedValues<>(timeDomain, duration, bloomFilterParams);
     }
 
     /**
@@ -245,7 +329,36 @@ public final class Deduplicate {
      * duration.
      */
     public KeyedValues<K, V> withDuration(Duration duration) {
-      return new KeyedValues<>(timeDomain, duration);
+      return new KeyedValues<>(timeDomain, duration, bloomFilterParams);
+    }
+
+    /**
+     * Returns a {@code KeyedValues} {@link PTransform} like this one but which deduplicates keys
+     * approximately using Bloom filters.
+     *
+     * <p>Keys are hashed into {@code numShards} shards. Each shard and window keeps two Bloom
+     * filters sized for {@code expectedKeysPerShard} keys at the given false positive probability:
+     * one for the keys seen during the current period of the configured duration and one for the
+     * previous period. A single timer per shard and window retires the older filter at the end of
+     * each period, so a key is remembered for at least the configured duration and at most twice
+     * that.
+     *
+     * <p>A key that was not seen before is dropped with up to about twice {@code
+     * falsePositiveProbability}, more if a shard receives more than {@code expectedKeysPerShard}
+     * keys within a period. Keys that were seen before are never emitted again while remembered.
+     *
+     * <p>Every key that is not dropped rewrites the current filter of its shard, which takes about
+     * {@code -expectedKeysPerShard * ln(falsePositiveProbability) / (8 * ln(2)^2)} bytes. Runners
+     * that cache state keep the decoded filter between elements and only encode it when state is
+     * committed, others encode and write the whole filter for each new key. Choose {@code
+     * numShards} so that filters stay small, or so that a shard receives few new keys per bundle.
+     */
+    public KeyedValues<K, V> withBloomFilter(
+        int numShards, long expectedKeysPerShard, double falsePositiveProbability) {
+      return new KeyedValues<>(
+          timeDomain,
+          duration,
+          BloomFilterParams.of(numShards, expectedKeysPerShard, falsePositiveProbability));
     }
   }
 
@@ -254,7 +367,7 @@ public final class Deduplicate {
    * TimeDomain#PROCESSING_TIME processing time domain}.
    */
   public static <T> Deduplicate.Values<T> values() {
-    return new Deduplicate.Values<>(DEFAULT_TIME_DOMAIN, DEFAULT_DURATION);
+    return new Deduplicate.Values<>(DEFAULT_TIME_DOMAIN, DEFAULT_DURATION, null);
   }
 
   /**
@@ -262,7 +375,7 @@ public final class Deduplicate {
    * mins within the {@link TimeDomain#PROCESSING_TIME processing time domain}.
    */
   public static <K, V> Deduplicate.KeyedValues<K, V> keyedValues() {
-    return new Deduplicate.KeyedValues<>(DEFAULT_TIME_DOMAIN, DEFAULT_DURATION);
+    return new Deduplicate.KeyedValues<>(DEFAULT_TIME_DOMAIN, DEFAULT_DURATION, null);
   }
 
   /**
@@ -272,7 +385,7 @@ public final class Deduplicate {
   public static <T, IdT> Deduplicate.WithRepresentativeValues<T, IdT> withRepresentativeValueFn(
       SerializableFunction<T, IdT> representativeValueFn) {
     return new Deduplicate.WithRepresentativeValues<T, IdT>(
-        DEFAULT_TIME_DOMAIN, DEFAULT_DURATION, representativeValueFn, null, null);
+        DEFAULT_TIME_DOMAIN, DEFAULT_DURATION, representativeValueFn, null, null, null);
   }
 
   /////////////////////////////////////////////////////////////////////////////
@@ -329,4 +442,201 @@ public final class Deduplicate {
       seenState.clear();
     }
   }
+
+  /** The configuration of approximate deduplication. */
+  private static class BloomFilterParams implements Serializable {
+    private final int numShards;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+
+    private BloomFilterParams(
+        int numShards, long expectedInsertions, double falsePositiveProbability) {
+      this.numShards = numShards;
+      this.expectedInsertions = expectedInsertions;
+      this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    static BloomFilterParams of(
+        int numShards, long expectedInsertions, double falsePositiveProbability) {
+      checkArgument(numShards > 0, "numShards must be positive, but was %s", numShards);
+      checkArgument(
+          expectedInsertions > 0,
+          "the expected number of values per shard must be positive, but was %s",
+          expectedInsertions);
+      checkArgument(
+          falsePositiveProbability > 0.0 && falsePositiveProbability < 1.0,
+          "falsePositiveProbability must be between 0 and 1 (exclusive), but was %s",
+          falsePositiveProbability);
+      return new BloomFilterParams(numShards, expectedInsertions, falsePositiveProbability);
+    }
+  }
+
+  /** Feeds the encoded form of keys into hash functions, without copying it into an array. */
+  private static class KeyFunnel<K> implements Funnel<K> {
+    private final Coder<K> keyCoder;
+
+    private KeyFunnel(Coder<K> keyCoder) {
+      this.keyCoder = keyCoder;
+    }
+
+    @Override
+    public void funnel(K key, PrimitiveSink into) {
+      try {
+        keyCoder.encode(key, Funnels.asOutputStream(into));
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Unable to encode key " + key, e);
+      }
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      return other instanceof KeyFunnel && keyCoder.equals(((KeyFunnel<?>) other).keyCoder);
+    }
+
+    @Override
+    public int hashCode() {
+      return keyCoder.hashCode();
+    }
+  }
+
+  /** Assigns each element to a shard by the hash of its encoded key. */
+  private static class ShardFn<K, V> implements SerializableFunction<KV<K, V>, Integer> {
+    // Seeded differently from the Bloom filters' own hashing so that the keys of one shard are
+    // still spread over all of its filter's bits.
+    private static final HashFunction SHARD_HASH = Hashing.murmur3_32(0x5eed);
+
+    private final KeyFunnel<K> funnel;
+    private final int numShards;
+
+    private ShardFn(KeyFunnel<K> funnel, int numShards) {
+      this.funnel = funnel;
+      this.numShards = numShards;
+    }
+
+    @Override
+    public Integer apply(KV<K, V> element) {
+      return Math.floorMod(SHARD_HASH.hashObject(element.getKey(), funnel).asInt(), numShards);
+    }
+  }
+
+  /** A {@link Coder} for Bloom filters of keys, using the format of {@link BloomFilter#writeTo}. */
+  private static class BloomFilterCoder<K> extends CustomCoder<BloomFilter<K>> {
+    private final KeyFunnel<K> funnel;
+
+    private BloomFilterCoder(KeyFunnel<K> funnel) {
+      this.funnel = funnel;
+    }
+
+    @Override
+    public void encode(BloomFilter<K> value, OutputStream outStream) throws IOException {
+      value.writeTo(outStream);
+    }
+
+    @Override
+    public BloomFilter<K> decode(InputStream inStream) throws IOException {
+      return BloomFilter.readFrom(inStream, funnel);
+    }
+
+    @Override
+    public void verifyDeterministic() {}
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      return other instanceof BloomFilterCoder
+          && funnel.equals(((BloomFilterCoder<?>) other).funnel);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(getClass(), funnel);
+    }
+  }
+
+  /**
+   * A stateful {@link DoFn} that remembers the keys seen by a shard in a Bloom filter for the
+   * current period and one for the previous period, and rotates them with a single timer.
+   *
+   * <p>State can't be written from {@link DoFn.FinishBundle}, so the current filter is written back
+   * whenever a new key is added to it. Dropped duplicates don't write any state.
+   *
+   * @param <K> the type of the keys that are deduplicated
+   * @param <V> the type of the values, which are passed through with the first occurrence of a key
+   */
+  private static class ApproximateDeduplicateFn<K, V>
+      extends DoFn<KV<Integer, KV<K, V>>, KV<K, V>> {
+    private static final String EXPIRY_TIMER = "expiryTimer";
+    private static final String CURRENT_STATE = "current";
+    private static final String PREVIOUS_STATE = "previous";
+
+    @TimerId(EXPIRY_TIMER)
+    private final TimerSpec expiryTimerSpec;
+
+    @StateId(CURRENT_STATE)
+    private final StateSpec<ValueState<BloomFilter<K>>> currentSpec;
+
+    @StateId(PREVIOUS_STATE)
+    private final StateSpec<ValueState<BloomFilter<K>>> previousSpec;
+
+    private final Duration duration;
+    private final KeyFunnel<K> funnel;
+    private final BloomFilterParams params;
+
+    private ApproximateDeduplicateFn(
+        TimeDomain timeDomain, Duration duration, KeyFunnel<K> funnel, BloomFilterParams params) {
+      this.expiryTimerSpec = TimerSpecs.timer(timeDomain);
+      this.currentSpec = StateSpecs.value(new BloomFilterCoder<>(funnel));
+      this.previousSpec = StateSpecs.value(new BloomFilterCoder<>(funnel));
+      this.duration = duration;
+      this.funnel = funnel;
+      this.params = params;
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element KV<Integer, KV<K, V>> element,
+        BoundedWindow window,
+        OutputReceiver<KV<K, V>> receiver,
+        @StateId(CURRENT_STATE) ValueState<BloomFilter<K>> currentState,
+        @StateId(PREVIOUS_STATE) ValueState<BloomFilter<K>> previousState,
+        @TimerId(EXPIRY_TIMER) Timer expiryTimer) {
+      K key = element.getValue().getKey();
+      previousState.readLater();
+      currentState.readLater();
+      BloomFilter<K> previous = previousState.read();
+      BloomFilter<K> current = currentState.read();
+      if ((previous != null && previous.mightContain(key))
+          || (current != null && current.mightContain(key))) {
+        return;
+      }
+      if (current == null) {
+        current =
+            BloomFilter.create(funnel, params.expectedInsertions, params.falsePositiveProbability);
+        if (previous == null) {
+          // Nothing is remembered for this shard, so the expiry timer isn't running. As in
+          // DeduplicateFn, it shouldn't hold up watermarks.
+          expiryTimer.offset(duration).withOutputTimestamp(window.maxTimestamp()).setRelative();
+        }
+      }
+      current.put(key);
+      currentState.write(current);
+      receiver.output(element.getValue());
+    }
+
+    @OnTimer(EXPIRY_TIMER)
+    public void onExpiry(
+        BoundedWindow window,
+        @StateId(CURRENT_STATE) ValueState<BloomFilter<K>> currentState,
+        @StateId(PREVIOUS_STATE) ValueState<BloomFilter<K>> previousState,
+        @TimerId(EXPIRY_TIMER) Timer expiryTimer) {
+      BloomFilter<K> current = currentState.read();
+      currentState.clear();
+      if (current == null) {
+        previousState.clear();
+      } else {
+        // Keep the keys of the period that just ended for one more period.
+        previousState.write(current);
+        expiryTimer.offset(duration).withOutputTimestamp(window.maxTimestamp()).setRelative();
+      }
+    }
+  }
 }
@@ -27,6 +27,8 @@ import javax.annotation.Nullable;
 import org.apache.beam.sdk.annotations.Experimental;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.metrics.Distribution;
+import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.state.BagState;
 import org.apache.beam.sdk.state.CombiningState;
 import org.apache.beam.sdk.state.StateSpec;
@@ -44,7 +46,6 @@ import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.annotations.VisibleForTesting;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.MoreObjects;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions;
-import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Iterables;
 import org.joda.time.Duration;
 import org.joda.time.Instant;
 import org.slf4j.Logger;
@@ -65,7 +66,13 @@ import org.slf4j.LoggerFactory;
  * batching based on a different byte size (e.g. the memory usage of the decoded Java object) or the
  * input coder may not be able to efficiently determine the elements' byte size. For these cases, we
  * also provide the two-argument {@link #ofByteSize} allowing the user to pass in a function to be
- * used to determine the byte size of an element.
+ * used to determine the byte size of an element. Count and byte size limits can be combined with
+ * {@link #withByteSize}, in which case a batch is emitted as soon as either limit is reached.
+ *
+ * <p>The element count and byte size of the buffered batch are tracked incrementally in state, and
+ * emitted batches are iterated directly from the buffered state rather than being copied. The
+ * distributions of emitted batch sizes, batch byte sizes, and how long batches were buffered are
+ * reported as metrics in the {@code GroupIntoBatches} namespace.
  *
  * <p>Windows are preserved (batches contain elements from the same window). Batches may contain
  * elements from more than one bundle.
@@ -204,6 +211,34 @@ public class GroupIntoBatches<K, InputT>
     return params;
   }
 
+  /**
+   * Additionally limits each batch to the specified byte size, as determined by the input coder.
+   * A batch is emitted once either its element count or its byte size reaches its limit.
+   *
+   * <p>See {@link #ofByteSize(long)} for the cost of determining the byte size using the coder.
+   */
+  public GroupIntoBatches<K, InputT> withByteSize(long batchSizeBytes) {
+    Preconditions.checkState(batchSizeBytes < Long.MAX_VALUE);
+    return new GroupIntoBatches<>(
+        BatchingParams.create(
+            params.getBatchSize(), batchSizeBytes, null, params.getMaxBufferingDuration()));
+  }
+
+  /**
+   * Additionally limits each batch to the specified byte size, as determined by the provided
+   * function. A batch is emitted once either its element count or its byte size reaches its limit.
+   */
+  public GroupIntoBatches<K, InputT> withByteSize(
+      long batchSizeBytes, SerializableFunction<InputT, Long> getElementByteSize) {
+    Preconditions.checkState(batchSizeBytes < Long.MAX_VALUE);
+    return new GroupIntoBatches<>(
+        BatchingParams.create(
+            params.getBatchSize(),
+            batchSizeBytes,
+            getElementByteSize,
+            params.getMaxBufferingDuration()));
+  }
+
   /**
    * Sets a time limit (in processing time) on how long an incomplete batch of elements is allowed
    * to be buffered. Once a batch is flushed to output, the timer is reset. The provided limit must
@@ -309,6 +344,12 @@ public class GroupIntoBatches<K, InputT>
       extends DoFn<KV<K, InputT>, KV<K, Iterable<InputT>>> {
 
     private static final Logger LOG = LoggerFactory.getLogger(GroupIntoBatchesDoFn.class);
+    private final Distribution batchSizeDistribution =
+        Metrics.distribution(GroupIntoBatches.class, "batchSize");
+    private final Distribution batchSizeBytesDistribution =
+        Metrics.distribution(GroupIntoBatches.class, "batchSizeBytes");
+    private final Distribution batchBufferingMillisDistribution =
+        Metrics.distribution(GroupIntoBatches.class, "batchBufferingMillis");
     private final long batchSize;
     private final long batchSizeBytes;
     @Nullable private final SerializableFunction<InputT, Long> weigher;
@@ -451,6 +492,7 @@ public class GroupIntoBatches<K, InputT>
           bufferingTimer
               .withOutputTimestamp(Instant.ofEpochMilli(minBufferedTs.read()))
               .set(Instant.ofEpochMilli(targetTs));
+          timerTs.write(targetTs);
         }
       }
       num = storedBatchSize.read();
@@ -470,7 +512,8 @@ public class GroupIntoBatches<K, InputT>
             storedBatchSize,
             storedBatchSizeBytes,
             timerTs,
-            minBufferedTs);
+            minBufferedTs,
+            bufferingTimer.getCurrentRelativeTime());
         bufferingTimer.clear();
       }
     }
@@ -491,7 +534,14 @@ public class GroupIntoBatches<K, InputT>
           timestamp,
           maxBufferingDuration);
       flushBatch(
-          receiver, key, batch, storedBatchSize, storedBatchSizeBytes, timerTs, minBufferedTs);
+          receiver,
+          key,
+          batch,
+          storedBatchSize,
+          storedBatchSizeBytes,
+          timerTs,
+          minBufferedTs,
+          bufferingTimer.getCurrentRelativeTime());
     }
 
     @OnWindowExpiration
@@ -504,7 +554,14 @@ public class GroupIntoBatches<K, InputT>
         @StateId(TIMER_TIMESTAMP) ValueState<Long> timerTs,
         @StateId(MIN_BUFFERED_TS) CombiningState<Long, long[], Long> minBufferedTs) {
       flushBatch(
-          receiver, key, batch, storedBatchSize, storedBatchSizeBytes, timerTs, minBufferedTs);
+          receiver,
+          key,
+          batch,
+          storedBatchSize,
+          storedBatchSizeBytes,
+          timerTs,
+          minBufferedTs,
+          null);
     }
 
     // We no longer set this timer, since OnWindowExpiration takes care of his. However we leave the
@@ -526,7 +583,14 @@ public class GroupIntoBatches<K, InputT>
           timestamp,
           window.toString());
       flushBatch(
-          receiver, key, batch, storedBatchSize, storedBatchSizeBytes, timerTs, minBufferedTs);
+          receiver,
+          key,
+          batch,
+          storedBatchSize,
+          storedBatchSizeBytes,
+          timerTs,
+          minBufferedTs,
+          null);
     }
 
     private void flushBatch(
@@ -536,14 +600,26 @@ public class GroupIntoBatches<K, InputT>
         CombiningState<Long, long[], Long> storedBatchSize,
         CombiningState<Long, long[], Long> storedBatchSizeBytes,
         ValueState<Long> timerTs,
-        CombiningState<Long, long[], Long> minBufferedTs) {
-      Iterable<InputT> values = batch.read();
-      // When the timer fires, batch state might be empty
-      if (!Iterables.isEmpty(values)) {
-        receiver.output(KV.of(key, values));
+        CombiningState<Long, long[], Long> minBufferedTs,
+        @Nullable Instant processingTime) {
+      // When the timer fires, batch state might be empty. The stored count avoids reading the bag
+      // to find out.
+      long num = storedBatchSize.read();
+      if (num > 0) {
+        // The bag is handed out as is, so the batch is iterated straight from state.
+        receiver.output(KV.of(key, batch.read()));
+        batchSizeDistribution.update(num);
+        if (weigher != null) {
+          batchSizeBytesDistribution.update(storedBatchSizeBytes.read());
+        }
+        Long targetTs = timerTs.read();
+        if (processingTime != null && targetTs != null) {
+          // The buffering timer was set maxBufferingDuration after the first buffered element.
+          batchBufferingMillisDistribution.update(
+              processingTime.getMillis() - (targetTs - maxBufferingDuration.getMillis()));
+        }
       }
       clearState(batch, storedBatchSize, storedBatchSizeBytes, timerTs, minBufferedTs);
-      ;
     }
 
     private void clearState(
@@ -19,11 +19,14 @@ package org.apache.beam.sdk.transforms;
 
 import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkArgument;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
@@ -41,6 +44,7 @@ import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindows;
 import org.apache.beam.sdk.util.NameUtils;
 import org.apache.beam.sdk.util.NameUtils.NameOverride;
+import org.apache.beam.sdk.util.VarInt;
 import org.apache.beam.sdk.util.common.ElementByteSizeObserver;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
@@ -207,6 +211,40 @@ public class Top {
     return new TopCombineFn<Double, Reversed<Double>>(count, new Reversed<>()) {};
   }
 
+  /**
+   * Like {@link #largest}, but specialized for {@code Long} inputs. The values are kept in a heap
+   * of primitive {@code long}s rather than being compared through a {@code Comparator}.
+   */
+  public static Combine.Globally<Long, List<Long>> largestLongs(int count) {
+    return Combine.globally(PrimitiveTopCombineFn.largestLongs(count));
+  }
+
+  /**
+   * Like {@link #smallest}, but specialized for {@code Long} inputs. The values are kept in a heap
+   * of primitive {@code long}s rather than being compared through a {@code Comparator}.
+   */
+  public static Combine.Globally<Long, List<Long>> smallestLongs(int count) {
+    return Combine.globally(PrimitiveTopCombineFn.smallestLongs(count));
+  }
+
+  /**
+   * Like {@link #largest}, but specialized for {@code Double} inputs. The values are kept in a heap
+   * of primitives rather than being compared through a {@code Comparator}, and are ordered as by
+   * {@link Double#compare}.
+   */
+  public static Combine.Globally<Double, List<Double>> largestDoubles(int count) {
+    return Combine.globally(PrimitiveTopCombineFn.largestDoubles(count));
+  }
+
+  /**
+   * Like {@link #smallest}, but specialized for {@code Double} inputs. The values are kept in a
+   * heap of primitives rather than being compared through a {@code Comparator}, and are ordered as
+   * by {@link Double#compare}.
+   */
+  public static Combine.Globally<Double, List<Double>> smallestDoubles(int count) {
+    return Combine.globally(PrimitiveTopCombineFn.smallestDoubles(count));
+  }
+
   /**
    * Returns a {@code PTransform} that takes an input {@code PCollection<KV<K, V>>} and returns a
    * {@code PCollection<KV<K, List<V>>>} that contains an output element mapping each distinct key
@@ -588,4 +626,309 @@ public class Top {
       return Objects.hash(compareFn, listCoder, maximumSize);
     }
   }
+
+  ////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Maps {@code Long} and {@code Double} values to primitive {@code long} keys whose signed order
+   * is the natural order of the values, so that they can be stored and compared without boxing.
+   */
+  enum PrimitiveOrdering {
+    LONGS {
+      @Override
+      long toKey(Number value) {
+        return value.longValue();
+      }
+
+      @Override
+      Number fromKey(long key) {
+        return key;
+      }
+    },
+    DOUBLES {
+      @Override
+      long toKey(Number value) {
+        // Flipping all but the sign bit of negative values orders the keys as by Double.compare.
+        long bits = Double.doubleToLongBits(value.doubleValue());
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+      }
+
+      @Override
+      Number fromKey(long key) {
+        return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+      }
+    };
+
+    abstract long toKey(Number value);
+
+    abstract Number fromKey(long key);
+  }
+
+  /**
+   * {@code CombineFn} for {@code Top} transforms over {@code Long} or {@code Double} values, such
+   * as {@link Top#largestLongs}. Produces the same output as the corresponding {@link
+   * TopCombineFn}, but keeps the values in a heap of primitives.
+   *
+   * @param <T> type of element being compared
+   */
+  public static class PrimitiveTopCombineFn<T extends Number>
+      extends AccumulatingCombineFn<T, PrimitiveHeap<T>, List<T>> implements NameOverride {
+
+    private final int count;
+    private final PrimitiveOrdering ordering;
+    private final boolean largest;
+
+    private PrimitiveTopCombineFn(int count, PrimitiveOrdering ordering, boolean largest) {
+      checkArgument(count >= 0, "count must be >= 0 (not %s)", count);
+      this.count = count;
+      this.ordering = ordering;
+      this.largest = largest;
+    }
+
+    /** Returns a {@link PrimitiveTopCombineFn} that aggregates the largest count long values. */
+    public static PrimitiveTopCombineFn<Long> largestLongs(int count) {
+      return new PrimitiveTopCombineFn<>(count, PrimitiveOrdering.LONGS, true);
+    }
+
+    /** Returns a {@link PrimitiveTopCombineFn} that aggregates the smallest count long values. */
+    public static PrimitiveTopCombineFn<Long> smallestLongs(int count) {
+      return new PrimitiveTopCombineFn<>(count, PrimitiveOrdering.LONGS, false);
+    }
+
+    /** Returns a {@link PrimitiveTopCombineFn} that aggregates the largest count double values. */
+    public static PrimitiveTopCombineFn<Double> largestDoubles(int count) {
+      return new PrimitiveTopCombineFn<>(count, PrimitiveOrdering.DOUBLES, true);
+    }
+
+    /** Returns a {@link PrimitiveTopCombineFn} that aggregates the smallest count double values. */
+    public static PrimitiveTopCombineFn<Double> smallestDoubles(int count) {
+      return new PrimitiveTopCombineFn<>(count, PrimitiveOrdering.DOUBLES, false);
+    }
+
+    @Override
+    public String getNameOverride() {
+      return String.format("Top(%s)", largest ? "Largest" : "Smallest");
+    }
+
+    @Override
+    public PrimitiveHeap<T> createAccumulator() {
+      return new PrimitiveHeap<>(count, ordering, largest, new long[0], 0);
+    }
+
+    @Override
+    public Coder<PrimitiveHeap<T>> getAccumulatorCoder(
+        CoderRegistry registry, Coder<T> inputCoder) {
+      return new PrimitiveHeapCoder<>(count, ordering, largest);
+    }
+
+    @Override
+    public Coder<List<T>> getDefaultOutputCoder(CoderRegistry registry, Coder<T> inputCoder) {
+      return ListCoder.of(inputCoder);
+    }
+
+    @Override
+    public void populateDisplayData(DisplayData.Builder builder) {
+      super.populateDisplayData(builder);
+      builder
+          .add(DisplayData.item("count", count).withLabel("Top Count"))
+          .add(DisplayData.item("largest", largest).withLabel("Largest Values"));
+    }
+
+    @Override
+    public String getIncompatibleGlobalWindowErrorMessage() {
+      return "Default values are not supported in Top.[largest, smallest][Longs, Doubles]() if the "
+          + "input PCollection is not windowed by GlobalWindows. Instead, use "
+          + "Top.[largest, smallest][Longs, Doubles]().withoutDefaults() to output an empty "
+          + "PCollection if the input PCollection is empty, or "
+          + "Top.[largest, smallest][Longs, Doubles]().asSingletonView() to get a PCollection "
+          + "containing the empty list if the input PCollection is empty.";
+    }
+  }
+
+  /**
+   * A heap of the keys of at most {@code maximumSize} values, with the key that would be evicted
+   * first at the head. Keys are ordered as described in {@link PrimitiveOrdering}.
+   *
+   * <p>This class is <i>not</i> safe for multithreaded use, except read-only.
+   */
+  static class PrimitiveHeap<T extends Number>
+      implements Accumulator<T, PrimitiveHeap<T>, List<T>> {
+
+    /** The initial capacity of the heap, which grows up to {@code maximumSize} as needed. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maximumSize;
+    private final PrimitiveOrdering ordering;
+    private final boolean largest;
+
+    private long[] keys;
+    private int size;
+
+    private PrimitiveHeap(
+        int maximumSize, PrimitiveOrdering ordering, boolean largest, long[] keys, int size) {
+      this.maximumSize = maximumSize;
+      this.ordering = ordering;
+      this.largest = largest;
+      this.keys = keys;
+      this.size = size;
+    }
+
+    @Override
+    public void addInput(T value) {
+      offer(ordering.toKey(value));
+    }
+
+    private void offer(long key) {
+      if (size < maximumSize) {
+        if (size == keys.length) {
+          keys = Arrays.copyOf(keys, Math.min(maximumSize, Math.max(INITIAL_CAPACITY, size * 2)));
+        }
+        keys[size] = key;
+        siftUp(size++);
+      } else if (maximumSize > 0 && evictsBefore(keys[0], key)) {
+        keys[0] = key;
+        siftDown(0);
+      }
+    }
+
+    /** Returns whether {@code a} should be evicted before {@code b}. */
+    private boolean evictsBefore(long a, long b) {
+      return largest ? a < b : a > b;
+    }
+
+    private void siftUp(int index) {
+      long key = keys[index];
+      while (index > 0) {
+        int parent = (index - 1) >>> 1;
+        if (!evictsBefore(key, keys[parent])) {
+          break;
+        }
+        keys[index] = keys[parent];
+        index = parent;
+      }
+      keys[index] = key;
+    }
+
+    private void siftDown(int index) {
+      long key = keys[index];
+      int half = size >>> 1;
+      while (index < half) {
+        int child = 2 * index + 1;
+        if (child + 1 < size && evictsBefore(keys[child + 1], keys[child])) {
+          child++;
+        }
+        if (!evictsBefore(keys[child], key)) {
+          break;
+        }
+        keys[index] = keys[child];
+        index = child;
+      }
+      keys[index] = key;
+    }
+
+    @Override
+    public void mergeAccumulator(PrimitiveHeap<T> accumulator) {
+      for (int i = 0; i < accumulator.size; i++) {
+        offer(accumulator.keys[i]);
+      }
+    }
+
+    /**
+     * Sorts the keys so that the first one would be evicted first. This leaves a valid heap, and
+     * gives a deterministic encoding.
+     */
+    private void sort() {
+      Arrays.sort(keys, 0, size);
+      if (!largest) {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+          long tmp = keys[i];
+          keys[i] = keys[j];
+          keys[j] = tmp;
+        }
+      }
+    }
+
+    /** Returns the values of this heap as a List, largest first if {@code largest}. */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> extractOutput() {
+      sort();
+      List<T> output = new ArrayList<>(size);
+      for (int i = size - 1; i >= 0; i--) {
+        output.add((T) ordering.fromKey(keys[i]));
+      }
+      return output;
+    }
+  }
+
+  /** A {@link Coder} for {@link PrimitiveHeap}, writing the number of keys and each key. */
+  private static class PrimitiveHeapCoder<T extends Number> extends CustomCoder<PrimitiveHeap<T>> {
+    private final int maximumSize;
+    private final PrimitiveOrdering ordering;
+    private final boolean largest;
+
+    private PrimitiveHeapCoder(int maximumSize, PrimitiveOrdering ordering, boolean largest) {
+      this.maximumSize = maximumSize;
+      this.ordering = ordering;
+      this.largest = largest;
+    }
+
+    @Override
+    public void encode(PrimitiveHeap<T> value, OutputStream outStream) throws IOException {
+      value.sort();
+      VarInt.encode(value.size, outStream);
+      DataOutputStream outData = new DataOutputStream(outStream);
+      for (int i = 0; i < value.size; i++) {
+        outData.writeLong(value.keys[i]);
+      }
+      outData.flush();
+    }
+
+    @Override
+    public PrimitiveHeap<T> decode(InputStream inStream) throws IOException {
+      int size = VarInt.decodeInt(inStream);
+      if (size < 0 || size > maximumSize) {
+        throw new CoderException(
+            String.format("Invalid heap size %s, expected at most %s", size, maximumSize));
+      }
+      DataInputStream inData = new DataInputStream(inStream);
+      long[] keys = new long[size];
+      for (int i = 0; i < size; i++) {
+        keys[i] = inData.readLong();
+      }
+      return new PrimitiveHeap<>(maximumSize, ordering, largest, keys, size);
+    }
+
+    @Override
+    public void verifyDeterministic() {}
+
+    @Override
+    public boolean isRegisterByteSizeObserverCheap(PrimitiveHeap<T> value) {
+      return true;
+    }
+
+    @Override
+    protected long getEncodedElementByteSize(PrimitiveHeap<T> value) {
+      return VarInt.getLength(value.size) + 8L * value.size;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      if (other == this) {
+        return true;
+      }
+      if (!(other instanceof PrimitiveHeapCoder)) {
+        return false;
+      }
+      PrimitiveHeapCoder<?> that = (PrimitiveHeapCoder<?>) other;
+      return this.maximumSize == that.maximumSize
+          && this.ordering == that.ordering
+          && this.largest == that.largest;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(maximumSize, ordering, largest);
+    }
+  }
 }
@@ -17,6 +17,8 @@
  */
 package org.apache.beam.sdk.util;
 
+import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkArgument;
+
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -24,6 +26,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.ref.SoftReference;
 import java.lang.reflect.ParameterizedType;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.CoderException;
 import org.apache.beam.sdk.values.TypeDescriptor;
@@ -37,6 +43,8 @@ import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.io.BaseEncoding;
 public final class CoderUtils {
   private CoderUtils() {} // Non-instantiable
 
+  private static final int MIN_BUFFER_CAPACITY = 64;
+
   private static ThreadLocal<SoftReference<ExposedByteArrayOutputStream>> threadLocalOutputStream =
       new ThreadLocal<>();
 
@@ -123,6 +131,62 @@ public final class CoderUtils {
     }
   }
 
+  /**
+   * Encodes the given value using the specified Coder's {@link Coder#encodeToBuffer} into {@code
+   * buffer}, which is cleared first. If {@code buffer} is too small, encoding is retried in a newly
+   * allocated buffer of twice the capacity.
+   *
+   * <p>Returns the buffer holding the encoded value, flipped so that it is ready to be read.
+   * Callers can pass the returned buffer to the next call to reuse it. Unlike {@link
+   * #encodeToByteArray}, the value is encoded in the nested context.
+   */
+  public static <T> ByteBuffer encodeToByteBuffer(Coder<T> coder, T value, ByteBuffer buffer)
+      throws CoderException {
+    checkArgument(
+        buffer.order() == ByteOrder.BIG_ENDIAN,
+        "Coders require big-endian buffers, got %s",
+        buffer.order());
+    while (true) {
+      buffer.clear();
+      try {
+        coder.encodeToBuffer(value, buffer);
+        buffer.flip();
+        return buffer;
+      } catch (BufferOverflowException exn) {
+        buffer = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), MIN_BUFFER_CAPACITY));
+      } catch (IOException exn) {
+        Throwables.propagateIfPossible(exn, CoderException.class);
+        throw new IllegalArgumentException("Forbidden IOException when writing to ByteBuffer", exn);
+      }
+    }
+  }
+
+  /**
+   * Decodes the remaining bytes of the given buffer using the specified Coder's {@link
+   * Coder#decodeFromBuffer}, and returns the resulting decoded value.
+   */
+  public static <T> T decodeFromByteBuffer(Coder<T> coder, ByteBuffer buffer)
+      throws CoderException {
+    checkArgument(
+        buffer.order() == ByteOrder.BIG_ENDIAN,
+        "Coders require big-endian buffers, got %s",
+        buffer.order());
+    T result;
+    try {
+      result = coder.decodeFromBuffer(buffer);
+    } catch (BufferUnderflowException exn) {
+      throw new CoderException("Unexpected end of buffer", exn);
+    } catch (IOException exn) {
+      Throwables.propagateIfPossible(exn, CoderException.class);
+      throw new IllegalArgumentException("Forbidden IOException when reading from ByteBuffer", exn);
+    }
+    if (buffer.hasRemaining()) {
+      throw new CoderException(
+          buffer.remaining() + " unexpected extra bytes after decoding " + result);
+    }
+    return result;
+  }
+
   private static ByteArrayOutputStream getThreadLocalOutputStream() {
     SoftReference<ExposedByteArrayOutputStream> refStream = threadLocalOutputStream.get();
     ExposedByteArrayOutputStream stream = refStream == null ? null : refStream.get();
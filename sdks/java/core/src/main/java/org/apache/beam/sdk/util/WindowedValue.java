@@ -27,6 +27,7 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -625,6 +626,25 @@ public abstract class WindowedValue<T> {
       return WindowedValue.createWithoutValidation(value, timestamp, windows, pane);
     }
 
+    @Override
+    public void encodeToBuffer(WindowedValue<T> windowedElem, ByteBuffer buffer)
+        throws CoderException, IOException {
+      InstantCoder.of().encodeToBuffer(windowedElem.getTimestamp(), buffer);
+      windowsCoder.encodeToBuffer(windowedElem.getWindows(), buffer);
+      PaneInfoCoder.INSTANCE.encodeToBuffer(windowedElem.getPane(), buffer);
+      valueCoder.encodeToBuffer(windowedElem.getValue(), buffer);
+    }
+
+    @Override
+    public WindowedValue<T> decodeFromBuffer(ByteBuffer buffer)
+        throws CoderException, IOException {
+      Instant timestamp = InstantCoder.of().decodeFromBuffer(buffer);
+      Collection<? extends BoundedWindow> windows = windowsCoder.decodeFromBuffer(buffer);
+      PaneInfo pane = PaneInfoCoder.INSTANCE.decodeFromBuffer(buffer);
+      T value = valueCoder.decodeFromBuffer(buffer);
+      return WindowedValue.createWithoutValidation(value, timestamp, windows, pane);
+    }
+
     @Override
     public void verifyDeterministic() throws NonDeterministicException {
       verifyDeterministic(
@@ -709,6 +729,18 @@ public abstract class WindowedValue<T> {
       return WindowedValue.valueInGlobalWindow(value);
     }
 
+    @Override
+    public void encodeToBuffer(WindowedValue<T> windowedElem, ByteBuffer buffer)
+        throws CoderException, IOException {
+      valueCoder.encodeToBuffer(windowedElem.getValue(), buffer);
+    }
+
+    @Override
+    public WindowedValue<T> decodeFromBuffer(ByteBuffer buffer)
+        throws CoderException, IOException {
+      return WindowedValue.valueInGlobalWindow(valueCoder.decodeFromBuffer(buffer));
+    }
+
     @Override
     public void verifyDeterministic() throws NonDeterministicException {
       verifyDeterministic(
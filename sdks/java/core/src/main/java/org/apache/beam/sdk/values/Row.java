@@ -25,6 +25,7 @@ import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -37,6 +38,7 @@ import java.util.stream.IntStream;
 import org.apache.beam.sdk.annotations.Experimental;
 import org.apache.beam.sdk.annotations.Experimental.Kind;
 import org.apache.beam.sdk.annotations.Internal;
+import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.schemas.Factory;
 import org.apache.beam.sdk.schemas.FieldAccessDescriptor;
 import org.apache.beam.sdk.schemas.FieldValueGetter;
@@ -834,6 +836,22 @@ public abstract class Row implements Serializable {
       return values.size();
     }
 
+    // Attaches the encoded form of a row produced by the given field coders. Fields are decoded
+    // from their offsets in encodedRow on first access. Entries of values whose bit is set in
+    // decodedFields are used as-is. As with attachValues, no validation is done.
+    @Internal
+    public Row attachEncodedValues(
+        Coder[] coders,
+        int[] encodingPosToIndex,
+        byte[] encodedRow,
+        int[] fieldOffsets,
+        Object[] values,
+        BitSet decodedFields) {
+      checkState(this.values.isEmpty());
+      return new RowWithEncodedBytes(
+          schema, coders, encodingPosToIndex, encodedRow, fieldOffsets, values, decodedFields);
+    }
+
     @Internal
     public Row withFieldValueGetters(
         Factory<List<FieldValueGetter>> fieldValueGetterFactory, Object getterTarget) {
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.values;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.apache.beam.sdk.annotations.Experimental;
+import org.apache.beam.sdk.annotations.Experimental.Kind;
+import org.apache.beam.sdk.annotations.Internal;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.schemas.Schema;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Concrete subclass of {@link Row} that is backed by the encoded form of the row.
+ *
+ * <p>Each field is decoded from its slice of the encoded bytes the first time it is accessed, and
+ * the decoded value is cached. Fields that are never accessed are never decoded, and the row can be
+ * re-encoded by the coder that produced it by copying the encoded bytes.
+ *
+ * <p>Like other rows, instances may be read from several threads at once. Decoded values are
+ * published atomically, and if two threads decode the same field concurrently, both see the value
+ * that was published first.
+ */
+@Experimental(Kind.SCHEMAS)
+@SuppressWarnings({
+  "nullness", // TODO(https://issues.apache.org/jira/browse/BEAM-10402)
+  "rawtypes"
+})
+public class RowWithEncodedBytes extends Row {
+  private final Coder[] coders;
+  private final int[] encodingPosToIndex;
+  private final byte[] encodedRow;
+  // Start offset of each field in encodedRow, by encoding position. The extra trailing entry holds
+  // the end of the last field.
+  private final int[] fieldOffsets;
+  // Decoded values by row index, or NOT_DECODED for fields that have not been decoded yet.
+  private final AtomicReferenceArray<Object> values;
+
+  private static final Object NOT_DECODED = new Object();
+
+  RowWithEncodedBytes(
+      Schema schema,
+      Coder[] coders,
+      int[] encodingPosToIndex,
+      byte[] encodedRow,
+      int[] fieldOffsets,
+      Object[] values,
+      BitSet decodedFields) {
+    super(schema);
+    this.coders = coders;
+    this.encodingPosToIndex = encodingPosToIndex;
+    this.encodedRow = encodedRow;
+    this.fieldOffsets = fieldOffsets;
+    this.values = new AtomicReferenceArray<>(values.length);
+    for (int i = 0; i < values.length; ++i) {
+      this.values.set(i, decodedFields.get(i) ? values[i] : NOT_DECODED);
+    }
+  }
+
+  @Override
+  @SuppressWarnings({"TypeParameterUnusedInFormals", "unchecked"})
+  public <T> @Nullable T getValue(int fieldIdx) {
+    if (fieldIdx < 0 || fieldIdx >= values.length()) {
+      throw new IllegalArgumentException("No field at index " + fieldIdx);
+    }
+    Object value = values.get(fieldIdx);
+    if (value == NOT_DECODED) {
+      value = decodeField(encodingPositionOf(fieldIdx));
+    }
+    return (T) value;
+  }
+
+  @Override
+  public List<Object> getValues() {
+    List<Object> result = new ArrayList<>(values.length());
+    for (int fieldIdx = 0; fieldIdx < values.length(); ++fieldIdx) {
+      result.add(getValue(fieldIdx));
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  @Override
+  public int getFieldCount() {
+    return values.length();
+  }
+
+  /**
+   * Returns whether this row was decoded by the coder owning {@code coders}, in which case {@link
+   * #writeEncodedRow} produces exactly what that coder would.
+   */
+  @Internal
+  public boolean isEncodedWith(Coder[] coders) {
+    return this.coders == coders;
+  }
+
+  /** Writes the encoded form of this row without decoding any of its fields. */
+  @Internal
+  public void writeEncodedRow(OutputStream outputStream) throws IOException {
+    outputStream.write(encodedRow);
+  }
+
+  private int encodingPositionOf(int fieldIdx) {
+    // Encoding positions usually match the field order.
+    if (encodingPosToIndex[fieldIdx] == fieldIdx) {
+      return fieldIdx;
+    }
+    for (int encodingPos = 0; encodingPos < encodingPosToIndex.length; ++encodingPos) {
+      if (encodingPosToIndex[encodingPos] == fieldIdx) {
+        return encodingPos;
+      }
+    }
+    throw new IllegalStateException("No encoding position for field " + fieldIdx);
+  }
+
+  /** Decodes the field at the given encoding position, returning the published value. */
+  private Object decodeField(int encodingPos) {
+    int fieldIdx = encodingPosToIndex[encodingPos];
+    int start = fieldOffsets[encodingPos];
+    int length = fieldOffsets[encodingPos + 1] - start;
+    Object decoded;
+    try {
+      decoded = coders[encodingPos].decode(new ByteArrayInputStream(encodedRow, start, length));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to decode field " + getSchema().getField(fieldIdx), e);
+    }
+    // Another thread may have decoded the field meanwhile, in which case its value is kept so
+    // that all readers see the same instance.
+    if (values.compareAndSet(fieldIdx, NOT_DECODED, decoded)) {
+      return decoded;
+    }
+    return values.get(fieldIdx);
+  }
+}
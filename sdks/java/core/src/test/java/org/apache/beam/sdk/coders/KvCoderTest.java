@@ -87,6 +87,23 @@ public class KvCoderTest {
     }
   }
 
+  @Test
+  @SuppressWarnings("rawtypes")
+  public void testDecodeEncodeEqualInBuffer() throws Exception {
+    for (AnyCoderAndData keyCoderAndData : TEST_DATA) {
+      Coder keyCoder = keyCoderAndData.coderAndData.coder;
+      for (Object key : keyCoderAndData.coderAndData.data) {
+        for (AnyCoderAndData valueCoderAndData : TEST_DATA) {
+          Coder valueCoder = valueCoderAndData.coderAndData.coder;
+          for (Object value : valueCoderAndData.coderAndData.data) {
+            CoderProperties.coderDecodeEncodeEqualInBuffer(
+                KvCoder.of(keyCoder, valueCoder), KV.of(key, value));
+          }
+        }
+      }
+    }
+  }
+
   @Test
   public void testCoderIsSerializableWithWellKnownCoderType() throws Exception {
     CoderProperties.coderSerializable(
@@ -22,6 +22,9 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertFalse;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -30,6 +33,7 @@ import org.apache.beam.sdk.testing.CoderProperties;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.util.CoderUtils;
 import org.apache.beam.sdk.values.TypeDescriptor;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Lists;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -136,4 +140,35 @@ public class ListCoderTest {
     TypeDescriptor<List<Integer>> typeDescriptor = new TypeDescriptor<List<Integer>>() {};
     assertThat(TEST_CODER.getEncodedTypeDescriptor(), equalTo(typeDescriptor));
   }
+
+  @Test
+  public void testDecodeEncodeEqualInBuffer() throws Exception {
+    for (List<Integer> value : TEST_VALUES) {
+      CoderProperties.coderDecodeEncodeEqualInBuffer(TEST_CODER, value);
+    }
+  }
+
+  @Test
+  public void testSubclassEncodingIsUsedInBuffer() throws Exception {
+    for (List<Integer> value : TEST_VALUES) {
+      CoderProperties.coderDecodeEncodeEqualInBuffer(new ReversedListCoder(), value);
+    }
+  }
+
+  /** A {@link ListCoder} that overrides the encoding to write the elements in reverse. */
+  private static class ReversedListCoder extends ListCoder<Integer> {
+    ReversedListCoder() {
+      super(VarIntCoder.of());
+    }
+
+    @Override
+    public void encode(List<Integer> list, OutputStream outStream) throws IOException {
+      super.encode(Lists.reverse(list), outStream);
+    }
+
+    @Override
+    public List<Integer> decode(InputStream inStream) throws IOException {
+      return new ArrayList<>(Lists.reverse(super.decode(inStream)));
+    }
+  }
 }
@@ -17,15 +17,24 @@
  */
 package org.apache.beam.sdk.coders;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.beam.sdk.coders.Coder.NonDeterministicException;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.schemas.Schema.FieldType;
@@ -33,7 +42,9 @@ import org.apache.beam.sdk.schemas.Schema.LogicalType;
 import org.apache.beam.sdk.schemas.logicaltypes.EnumerationType;
 import org.apache.beam.sdk.schemas.logicaltypes.EnumerationType.Value;
 import org.apache.beam.sdk.testing.CoderProperties;
+import org.apache.beam.sdk.util.CoderUtils;
 import org.apache.beam.sdk.values.Row;
+import org.apache.beam.sdk.values.RowWithEncodedBytes;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.ImmutableList;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.ImmutableMap;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Lists;
@@ -502,4 +513,158 @@ public class RowCoderTest {
     Row decoded = RowCoder.of(schema2).decode(new ByteArrayInputStream(os.toByteArray()));
     assertEquals(expected, decoded);
   }
+
+  @Test
+  public void testLazyDecoding() throws Exception {
+    Schema nestedSchema = Schema.builder().addInt32Field("f1_int").addStringField("f1_str").build();
+    Schema schema =
+        Schema.builder()
+            .addInt16Field("f_int16")
+            .addInt64Field("f_int64")
+            .addDecimalField("f_decimal")
+            .addNullableField("f_string", FieldType.STRING)
+            .addByteArrayField("f_bytes")
+            .addDateTimeField("f_datetime")
+            .addRowField("nested", nestedSchema)
+            .addArrayField("f_array", FieldType.STRING)
+            .addBooleanField("f_boolean")
+            .build();
+
+    Row nestedRow = Row.withSchema(nestedSchema).addValues(18, "foobar").build();
+    DateTime dateTime =
+        new DateTime().withDate(1979, 03, 14).withTime(1, 2, 3, 4).withZone(DateTimeZone.UTC);
+    Row row =
+        Row.withSchema(schema)
+            .addValues(
+                (short) 1,
+                3L,
+                new BigDecimal("2.3"),
+                null,
+                new byte[] {1, 2, 3},
+                dateTime,
+                nestedRow,
+                Arrays.asList("one", "two"),
+                true)
+            .build();
+
+    CoderProperties.coderDecodeEncodeEqual(RowCoder.of(schema).withLazyDecoding(), row);
+  }
+
+  @Test
+  public void testLazyDecodingSingleField() throws Exception {
+    Schema schema =
+        Schema.builder()
+            .addStringField("f_string1")
+            .addInt32Field("f_int32")
+            .addStringField("f_string2")
+            .build();
+    Row row = Row.withSchema(schema).addValues("hello", 42, "world").build();
+    RowCoder coder = RowCoder.of(schema).withLazyDecoding();
+
+    Row decoded = CoderUtils.decodeFromByteArray(coder, CoderUtils.encodeToByteArray(coder, row));
+    assertThat(decoded, instanceOf(RowWithEncodedBytes.class));
+    assertEquals("world", decoded.getString("f_string2"));
+    assertEquals(row, decoded);
+  }
+
+  @Test
+  public void testLazyDecodingConcurrentReads() throws Exception {
+    Schema.Builder schemaBuilder = Schema.builder();
+    List<Object> values = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      schemaBuilder.addStringField("f_" + i);
+      values.add("value-" + i);
+    }
+    Schema schema = schemaBuilder.build();
+    RowCoder coder = RowCoder.of(schema).withLazyDecoding();
+    byte[] encoded =
+        CoderUtils.encodeToByteArray(coder, Row.withSchema(schema).addValues(values).build());
+
+    int numThreads = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      for (int attempt = 0; attempt < 200; attempt++) {
+        Row decoded = CoderUtils.decodeFromByteArray(coder, encoded);
+        CyclicBarrier barrier = new CyclicBarrier(numThreads);
+        List<Future<List<Object>>> reads = new ArrayList<>();
+        for (int thread = 0; thread < numThreads; thread++) {
+          reads.add(
+              executor.submit(
+                  () -> {
+                    barrier.await();
+                    List<Object> read = new ArrayList<>();
+                    for (int i = 0; i < schema.getFieldCount(); i++) {
+                      read.add(decoded.getValue(i));
+                    }
+                    return read;
+                  }));
+        }
+        List<Object> first = reads.get(0).get();
+        assertEquals(values, first);
+        for (Future<List<Object>> read : reads) {
+          List<Object> result = read.get();
+          for (int i = 0; i < schema.getFieldCount(); i++) {
+            // Every reader sees the same published value.
+            assertThat(result.get(i), sameInstance(first.get(i)));
+          }
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testLazyDecodingReencodesEncodedBytes() throws Exception {
+    Schema schema =
+        Schema.builder()
+            .addNullableField("f_int32", FieldType.INT32)
+            .addMapField("f_map", FieldType.STRING, FieldType.INT64)
+            .build();
+    Row row =
+        Row.withSchema(schema)
+            .addValues(null, ImmutableMap.of("one", 1L, "two", 2L, "three", 3L))
+            .build();
+    RowCoder coder = RowCoder.of(schema).withLazyDecoding();
+
+    byte[] encoded = CoderUtils.encodeToByteArray(coder, row);
+    Row decoded = CoderUtils.decodeFromByteArray(coder, encoded);
+    assertArrayEquals(encoded, CoderUtils.encodeToByteArray(coder, decoded));
+    assertEquals(row, CoderUtils.decodeFromByteArray(RowCoder.of(schema), encoded));
+  }
+
+  @Test
+  public void testLazyDecodingEncodingPositionReorderFields() throws Exception {
+    Schema schema1 =
+        Schema.builder()
+            .addNullableField("f_int32", FieldType.INT32)
+            .addNullableField("f_string", FieldType.STRING)
+            .build();
+    Schema schema2 =
+        Schema.builder()
+            .addNullableField("f_string", FieldType.STRING)
+            .addNullableField("f_int32", FieldType.INT32)
+            .build();
+    schema2.setEncodingPositions(ImmutableMap.of("f_int32", 0, "f_string", 1));
+    Row row =
+        Row.withSchema(schema1)
+            .withFieldValue("f_int32", 42)
+            .withFieldValue("f_string", "hello world!")
+            .build();
+
+    Row expected =
+        Row.withSchema(schema2)
+            .withFieldValue("f_int32", 42)
+            .withFieldValue("f_string", "hello world!")
+            .build();
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    RowCoder.of(schema1).encode(row, os);
+    Row decoded =
+        RowCoder.of(schema2)
+            .withLazyDecoding()
+            .decode(new ByteArrayInputStream(os.toByteArray()));
+    assertEquals("hello world!", decoded.getString("f_string"));
+    assertEquals(expected, decoded);
+  }
 }
@@ -23,6 +23,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeFalse;
@@ -32,7 +33,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -114,6 +117,33 @@ public class LocalFileSystemTest {
     assertEquals(expected, data);
   }
 
+  @Test
+  public void testReadMemoryMapped() throws Exception {
+    String expected = "0123456789abcdefghijklmnopqrstuvwxyz";
+    File existingFile = temporaryFolder.newFile();
+    Files.write(expected, existingFile, StandardCharsets.UTF_8);
+    // Map every file, 16 bytes at a time, so that reads cross region boundaries.
+    LocalFileSystem mappingFileSystem = new LocalFileSystem(1L, 16, true, 0L);
+
+    try (SeekableByteChannel channel =
+        (SeekableByteChannel)
+            mappingFileSystem.open(
+                LocalResourceId.fromPath(existingFile.toPath(), false /* isDirectory */))) {
+      assertEquals(expected.length(), channel.size());
+
+      ByteBuffer buffer = ByteBuffer.allocate(expected.length() + 1);
+      assertEquals(expected.length(), channel.read(buffer));
+      assertEquals(
+          expected, new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+      assertEquals(-1, channel.read(buffer));
+
+      channel.position(10);
+      buffer = ByteBuffer.allocate(20);
+      assertEquals(20, channel.read(buffer));
+      assertEquals(expected.substring(10, 30), new String(buffer.array(), StandardCharsets.UTF_8));
+    }
+  }
+
   @Test
   public void testReadNonExistentFile() throws Exception {
     thrown.expect(FileNotFoundException.class);
@@ -152,6 +182,24 @@ public class LocalFileSystemTest {
         ImmutableList.of(destPath1, destPath2), ImmutableList.of("content1", "content2"));
   }
 
+  @Test
+  public void testCopyOverReadOnlyDestination() throws Exception {
+    // Windows refuses to replace read-only files.
+    assumeFalse(SystemUtils.IS_OS_WINDOWS);
+    Path srcPath = temporaryFolder.newFile().toPath();
+    Path destPath = srcPath.resolveSibling("dest");
+
+    createFileWithContent(srcPath, "content");
+    createFileWithContent(destPath, "old content");
+    assertTrue(destPath.toFile().setWritable(false));
+
+    localFileSystem.copy(
+        toLocalResourceIds(ImmutableList.of(srcPath), false /* isDirectory */),
+        toLocalResourceIds(ImmutableList.of(destPath), false /* isDirectory */));
+
+    assertContents(ImmutableList.of(destPath), ImmutableList.of("content"));
+  }
+
   @Test
   public void testMoveWithExistingSrcFile() throws Exception {
     Path srcPath1 = temporaryFolder.newFile().toPath();
@@ -211,6 +259,69 @@ public class LocalFileSystemTest {
         containsInAnyOrder(expected.toArray(new String[expected.size()])));
   }
 
+  @Test
+  public void testMatchWithRecursiveGlob() throws Exception {
+    File baseFolder = temporaryFolder.newFolder("B");
+    File expectedFile1 = new File(baseFolder, "x/file.txt");
+    File expectedFile2 = new File(baseFolder, "x/y/z/file.txt");
+    createEmptyFile(expectedFile1);
+    createEmptyFile(expectedFile2);
+    createEmptyFile(new File(baseFolder, "w/file.txt"));
+
+    List<MatchResult> matchResults =
+        matchGlobWithPathPrefix(temporaryFolder.getRoot().toPath(), "/B/x/**.txt");
+
+    assertThat(
+        toFilenames(matchResults),
+        containsInAnyOrder(expectedFile1.getAbsolutePath(), expectedFile2.getAbsolutePath()));
+  }
+
+  @Test
+  public void testGlobSegments() {
+    String parent = File.separator + "A" + File.separator;
+    LocalFileSystem.GlobSegments segments =
+        LocalFileSystem.GlobSegments.parse(parent + "a=[0-9]*/*/*.txt", parent);
+    assertTrue(segments.mayMatchBelow(0, "a=100"));
+    assertFalse(segments.mayMatchBelow(0, "b=100"));
+    assertTrue(segments.mayMatchBelow(1, "data"));
+    assertFalse(segments.mayMatchBelow(2, "data"));
+
+    LocalFileSystem.GlobSegments recursive =
+        LocalFileSystem.GlobSegments.parse(parent + "a=*/**/*.txt", parent);
+    assertFalse(recursive.mayMatchBelow(0, "b=100"));
+    assertTrue(recursive.mayMatchBelow(5, "data"));
+
+    assertNull(LocalFileSystem.GlobSegments.parse(parent + "{a,b/c}/*", parent));
+  }
+
+  @Test
+  public void testMatchWithListingCache() throws Exception {
+    LocalFileSystem cachingFileSystem = new LocalFileSystem(0L, 16, false, 100L);
+    File folder = temporaryFolder.newFolder("C");
+    File file1 = new File(folder, "file1");
+    File file2 = new File(folder, "file2");
+    assertTrue(file1.createNewFile());
+    String glob = folder.getAbsolutePath() + File.separator + "*";
+    long lastModified = System.currentTimeMillis() - 60_000;
+    assertTrue(folder.setLastModified(lastModified));
+
+    assertThat(
+        toFilenames(cachingFileSystem.match(ImmutableList.of(glob))),
+        containsInAnyOrder(file1.getAbsolutePath()));
+
+    // The cached listing is reused while the directory appears unmodified.
+    assertTrue(file2.createNewFile());
+    assertTrue(folder.setLastModified(lastModified));
+    assertThat(
+        toFilenames(cachingFileSystem.match(ImmutableList.of(glob))),
+        containsInAnyOrder(file1.getAbsolutePath()));
+
+    assertTrue(folder.setLastModified(lastModified + 1000));
+    assertThat(
+        toFilenames(cachingFileSystem.match(ImmutableList.of(glob))),
+        containsInAnyOrder(file1.getAbsolutePath(), file2.getAbsolutePath()));
+  }
+
   @Test
   public void testMatchRelativeWildcardPath() throws Exception {
     File baseFolder = temporaryFolder.newFolder("A");
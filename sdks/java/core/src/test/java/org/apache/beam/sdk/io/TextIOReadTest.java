@@ -69,6 +69,7 @@ import org.apache.beam.sdk.testing.TestPipeline;
 import org.apache.beam.sdk.testing.UsesUnboundedSplittableParDo;
 import org.apache.beam.sdk.transforms.Create;
 import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.MapElements;
 import org.apache.beam.sdk.transforms.PTransform;
 import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.transforms.ToString;
@@ -80,8 +81,10 @@ import org.apache.beam.sdk.transforms.windowing.Repeatedly;
 import org.apache.beam.sdk.transforms.windowing.Window;
 import org.apache.beam.sdk.util.CoderUtils;
 import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.TypeDescriptors;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Charsets;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Joiner;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Strings;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.ImmutableList;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Iterables;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Lists;
@@ -351,6 +354,12 @@ public class TextIOReadTest {
           .add(new Object[] {"asdf\rhjkl\rxyz", EXPECTED})
           .add(new Object[] {"asdf\r\nhjkl\r\nxyz", EXPECTED})
           .add(new Object[] {"asdf\rhjkl\r\nxyz", EXPECTED})
+          // lines spanning several words, to exercise the word at a time delimiter search
+          .add(
+              new Object[] {
+                "0123456789abcdef\r\n01234567\n\r0123456789",
+                ImmutableList.of("0123456789abcdef", "01234567", "", "0123456789")
+              })
           .build();
     }
 
@@ -471,6 +480,38 @@ public class TextIOReadTest {
       runTestRead(LINES_ARRAY);
     }
 
+    @Test
+    public void testReadLinesLongerThanReadBuffer() throws Exception {
+      String longLine = Strings.repeat("0123456789", 2000);
+      String data = longLine + "\r\n" + "short\n" + longLine + longLine;
+      List<String> actual =
+          SourceTestUtils.readFromSource(
+              TextIOReadTest.prepareSource(tempFolder, data.getBytes(UTF_8), null),
+              PipelineOptionsFactory.create());
+      assertEquals(ImmutableList.of(longLine, "short", longLine + longLine), actual);
+
+      List<String> delimited =
+          SourceTestUtils.readFromSource(
+              TextIOReadTest.prepareSource(
+                  tempFolder, (longLine + "|*" + longLine).getBytes(UTF_8), new byte[] {'|', '*'}),
+              PipelineOptionsFactory.create());
+      assertEquals(ImmutableList.of(longLine, longLine), delimited);
+    }
+
+    @Test
+    @Category(NeedsRunner.class)
+    public void testReadBytes() throws Exception {
+      Path path = tempFolder.newFile().toPath();
+      Files.write(path, "asdf\r\nhjkl\nxyz".getBytes(UTF_8));
+
+      PCollection<String> output =
+          p.apply(TextIO.readBytes().from(path.toString()))
+              .apply(MapElements.into(TypeDescriptors.strings()).via(b -> new String(b, UTF_8)));
+
+      PAssert.that(output).containsInAnyOrder("asdf", "hjkl", "xyz");
+      p.run();
+    }
+
     @Test
     @Category(NeedsRunner.class)
     public void testReadEmptyStrings() throws Exception {
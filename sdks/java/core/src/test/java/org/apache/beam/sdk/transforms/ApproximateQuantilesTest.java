@@ -37,6 +37,7 @@ import org.apache.beam.sdk.testing.NeedsRunner;
 import org.apache.beam.sdk.testing.PAssert;
 import org.apache.beam.sdk.testing.TestPipeline;
 import org.apache.beam.sdk.transforms.ApproximateQuantiles.ApproximateQuantilesCombineFn;
+import org.apache.beam.sdk.transforms.ApproximateQuantiles.PrimitiveQuantilesCombineFn;
 import org.apache.beam.sdk.transforms.display.DisplayData;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
@@ -214,6 +215,47 @@ public class ApproximateQuantilesTest {
           Arrays.asList("b", "aaa", "ccccc"));
     }
 
+    @Test
+    public void testPrimitiveLongs() {
+      List<Long> all = new ArrayList<>();
+      for (long i = 0; i < 101; i++) {
+        all.add(i);
+      }
+      testCombineFn(
+          PrimitiveQuantilesCombineFn.ofLongs(5), all, Arrays.asList(0L, 25L, 50L, 75L, 100L));
+    }
+
+    @Test
+    public void testPrimitiveDoubles() {
+      List<Double> all = new ArrayList<>();
+      for (int i = 100; i >= 0; i--) {
+        all.add(i - 50.0);
+      }
+      testCombineFn(
+          PrimitiveQuantilesCombineFn.ofDoubles(5),
+          all,
+          Arrays.asList(-50.0, -25.0, 0.0, 25.0, 50.0));
+    }
+
+    @Test
+    public void testPrimitiveMatchesComparator() {
+      // Both combiners run the same algorithm, so they pick the same quantiles.
+      List<Integer> ints = new ArrayList<>();
+      List<Long> longs = new ArrayList<>();
+      for (int i = 0; i < 10001; i++) {
+        int value = (i * 7919) % 10001;
+        ints.add(value);
+        longs.add((long) value);
+      }
+      List<Long> expected = new ArrayList<>();
+      for (int quantile :
+          ApproximateQuantilesCombineFn.<Integer>create(37).withEpsilon(0.05).apply(ints)) {
+        expected.add((long) quantile);
+      }
+      assertEquals(
+          expected, PrimitiveQuantilesCombineFn.ofLongs(37).withEpsilon(0.05).apply(longs));
+    }
+
     @Test
     public void testDisplayData() {
       Top.Natural<Integer> comparer = new Top.Natural<>();
@@ -92,6 +92,83 @@ public class DeduplicateTest {
     p.run();
   }
 
+  @Test
+  @Category({NeedsRunner.class, UsesTestStream.class})
+  public void testBloomFilterInDifferentWindows() {
+    Instant base = new Instant(0);
+    TestStream<String> values =
+        TestStream.create(StringUtf8Coder.of())
+            .advanceWatermarkTo(base)
+            .addElements(
+                TimestampedValue.of("k1", base),
+                TimestampedValue.of("k2", base.plus(Duration.standardSeconds(10))),
+                TimestampedValue.of("k1", base.plus(Duration.standardSeconds(20))),
+                TimestampedValue.of("k1", base.plus(Duration.standardSeconds(30))),
+                TimestampedValue.of("k2", base.plus(Duration.standardSeconds(40))),
+                TimestampedValue.of("k2", base.plus(Duration.standardSeconds(50))),
+                TimestampedValue.of("k3", base.plus(Duration.standardSeconds(60))),
+                TimestampedValue.of("k4", base.plus(Duration.standardSeconds(70))),
+                TimestampedValue.of("k3", base.plus(Duration.standardSeconds(80))))
+            .advanceWatermarkToInfinity();
+
+    PCollection<String> distinctValues =
+        p.apply(values)
+            .apply(Window.into(FixedWindows.of(Duration.standardSeconds(30))))
+            .apply(Deduplicate.<String>values().withBloomFilter(2, 100, 0.001));
+    PAssert.that(distinctValues)
+        .inWindow(new IntervalWindow(base, base.plus(Duration.standardSeconds(30))))
+        .containsInAnyOrder("k1", "k2");
+    PAssert.that(distinctValues)
+        .inWindow(
+            new IntervalWindow(
+                base.plus(Duration.standardSeconds(30)), base.plus(Duration.standardSeconds(60))))
+        .containsInAnyOrder("k1", "k2");
+    PAssert.that(distinctValues)
+        .inWindow(
+            new IntervalWindow(
+                base.plus(Duration.standardSeconds(60)), base.plus(Duration.standardSeconds(90))))
+        .containsInAnyOrder("k3", "k4");
+    p.run();
+  }
+
+  @Test
+  @Category({NeedsRunner.class, UsesTestStream.class})
+  public void testBloomFilterRotation() {
+    Instant base = new Instant(0);
+    TestStream<String> values =
+        TestStream.create(StringUtf8Coder.of())
+            .advanceWatermarkTo(base)
+            .addElements(TimestampedValue.of("k1", base))
+            // The filter holding k1 is rotated to the previous period, k1 is still remembered.
+            .advanceWatermarkTo(base.plus(Duration.standardSeconds(11)))
+            .addElements(TimestampedValue.of("k1", base.plus(Duration.standardSeconds(15))))
+            // The filter holding k1 is retired, k1 is forgotten.
+            .advanceWatermarkTo(base.plus(Duration.standardSeconds(21)))
+            .addElements(TimestampedValue.of("k1", base.plus(Duration.standardSeconds(25))))
+            .advanceWatermarkToInfinity();
+
+    PCollection<TimestampedValue<String>> distinctValues =
+        p.apply(values)
+            .apply(
+                Deduplicate.<String>values()
+                    .withTimeDomain(TimeDomain.EVENT_TIME)
+                    .withDuration(Duration.standardSeconds(10))
+                    .withBloomFilter(1, 100, 0.001))
+            .apply(Reify.timestamps());
+    PAssert.that(distinctValues)
+        .containsInAnyOrder(
+            TimestampedValue.of("k1", base),
+            TimestampedValue.of("k1", base.plus(Duration.standardSeconds(25))));
+    p.run();
+  }
+
+  @Test
+  public void testBloomFilterInvalidFalsePositiveProbability() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Deduplicate.<String, String>keyedValues().withBloomFilter(1, 100, 1.0));
+  }
+
   @Test
   @Category({NeedsRunner.class, UsesTestStream.class})
   public void testEventTime() {
@@ -24,9 +24,14 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import org.apache.beam.sdk.PipelineResult;
 import org.apache.beam.sdk.coders.IterableCoder;
 import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.metrics.DistributionResult;
+import org.apache.beam.sdk.metrics.MetricNameFilter;
+import org.apache.beam.sdk.metrics.MetricQueryResults;
+import org.apache.beam.sdk.metrics.MetricsFilter;
 import org.apache.beam.sdk.testing.NeedsRunner;
 import org.apache.beam.sdk.testing.PAssert;
 import org.apache.beam.sdk.testing.TestPipeline;
@@ -35,6 +40,8 @@ import org.apache.beam.sdk.testing.TestStream.ElementEvent;
 import org.apache.beam.sdk.testing.TestStream.Event;
 import org.apache.beam.sdk.testing.TestStream.ProcessingTimeEvent;
 import org.apache.beam.sdk.testing.TestStream.WatermarkEvent;
+import org.apache.beam.sdk.testing.UsesAttemptedMetrics;
+import org.apache.beam.sdk.testing.UsesDistributionMetrics;
 import org.apache.beam.sdk.testing.UsesStatefulParDo;
 import org.apache.beam.sdk.testing.UsesTestStream;
 import org.apache.beam.sdk.testing.UsesTestStreamWithProcessingTime;
@@ -222,6 +229,131 @@ public class GroupIntoBatchesTest implements Serializable {
     pipeline.run();
   }
 
+  @Test
+  @Category({NeedsRunner.class, UsesTimersInParDo.class, UsesStatefulParDo.class})
+  public void testInGlobalWindowBatchSizeCountAndByteSize() {
+    final long batchSize = 3;
+    PCollection<KV<String, Iterable<String>>> collection =
+        pipeline
+            .apply("Input data", Create.of(data))
+            .apply(
+                GroupIntoBatches.<String, String>ofSize(batchSize).withByteSize(BATCH_SIZE_BYTES))
+            // set output coder
+            .setCoder(KvCoder.of(StringUtf8Coder.of(), IterableCoder.of(StringUtf8Coder.of())));
+    PAssert.that("Incorrect batch size in one or more elements", collection)
+        .satisfies(
+            new SerializableFunction<Iterable<KV<String, Iterable<String>>>, Void>() {
+
+              private boolean checkBatchSizes(Iterable<KV<String, Iterable<String>>> listToCheck) {
+                for (KV<String, Iterable<String>> element : listToCheck) {
+                  if (Iterables.size(element.getValue()) > batchSize) {
+                    return false;
+                  }
+                  long byteSize = 0;
+                  for (String str : element.getValue()) {
+                    if (byteSize >= BATCH_SIZE_BYTES) {
+                      // We already reached the batch size, so extra elements are not expected.
+                      return false;
+                    }
+                    try {
+                      byteSize += StringUtf8Coder.of().getEncodedElementByteSize(str);
+                    } catch (Exception e) {
+                      throw new RuntimeException(e);
+                    }
+                  }
+                }
+                return true;
+              }
+
+              @Override
+              public Void apply(Iterable<KV<String, Iterable<String>>> input) {
+                assertTrue(checkBatchSizes(input));
+                return null;
+              }
+            });
+    PAssert.thatSingleton("Incorrect collection size", collection.apply("Count", Count.globally()))
+        .isEqualTo(4L);
+    pipeline.run();
+  }
+
+  @Test
+  @Category({NeedsRunner.class, UsesTimersInParDo.class, UsesStatefulParDo.class})
+  public void testInGlobalWindowFirstLimitReachedEmitsBatch() {
+    // The count limit is reached first.
+    PCollection<Integer> countLimited =
+        pipeline
+            .apply("Count limited data", Create.of(data))
+            .apply("Count limited", GroupIntoBatches.<String, String>ofSize(2).withByteSize(1000))
+            .apply("Count limited sizes", MapElements.via(new BatchSizeFn()));
+    PAssert.that("Count limit not applied", countLimited).containsInAnyOrder(2, 2, 2, 2, 2);
+
+    // The byte size limit, counting one byte per element, is reached first.
+    PCollection<Integer> byteSizeLimited =
+        pipeline
+            .apply("Byte size limited data", Create.of(data))
+            .apply(
+                "Byte size limited",
+                GroupIntoBatches.<String, String>ofSize(BATCH_SIZE).withByteSize(3, s -> 1L))
+            .apply("Byte size limited sizes", MapElements.via(new BatchSizeFn()));
+    PAssert.that("Byte size limit not applied", byteSizeLimited).containsInAnyOrder(3, 3, 3, 1);
+
+    pipeline.run();
+  }
+
+  @Test
+  @Category({
+    NeedsRunner.class,
+    UsesTimersInParDo.class,
+    UsesStatefulParDo.class,
+    UsesAttemptedMetrics.class,
+    UsesDistributionMetrics.class
+  })
+  public void testBatchMetrics() {
+    pipeline
+        .apply("Input data", Create.of(data))
+        .apply(
+            GroupIntoBatches.<String, String>ofSize(BATCH_SIZE)
+                .withByteSize(1000, s -> 1L)
+                // Long enough to never fire, so only the batch size and byte size limits apply.
+                .withMaxBufferingDuration(Duration.standardHours(1)))
+        .setCoder(KvCoder.of(StringUtf8Coder.of(), IterableCoder.of(StringUtf8Coder.of())));
+    PipelineResult result = pipeline.run();
+    result.waitUntilFinish();
+
+    // The elements make two full batches, so none is left for the end of the window.
+    DistributionResult batchSize = queryDistribution(result, "batchSize");
+    assertEquals(2, batchSize.getCount());
+    assertEquals(EVEN_NUM_ELEMENTS, batchSize.getSum());
+    assertEquals(BATCH_SIZE, batchSize.getMin());
+    assertEquals(BATCH_SIZE, batchSize.getMax());
+
+    DistributionResult batchSizeBytes = queryDistribution(result, "batchSizeBytes");
+    assertEquals(2, batchSizeBytes.getCount());
+    assertEquals(EVEN_NUM_ELEMENTS, batchSizeBytes.getSum());
+
+    DistributionResult bufferingMillis = queryDistribution(result, "batchBufferingMillis");
+    assertEquals(2, bufferingMillis.getCount());
+    assertTrue(bufferingMillis.getMin() >= 0);
+  }
+
+  private static DistributionResult queryDistribution(PipelineResult result, String name) {
+    MetricQueryResults metrics =
+        result
+            .metrics()
+            .queryMetrics(
+                MetricsFilter.builder()
+                    .addNameFilter(MetricNameFilter.named(GroupIntoBatches.class, name))
+                    .build());
+    return Iterables.getOnlyElement(metrics.getDistributions()).getAttempted();
+  }
+
+  private static class BatchSizeFn extends SimpleFunction<KV<String, Iterable<String>>, Integer> {
+    @Override
+    public Integer apply(KV<String, Iterable<String>> batch) {
+      return Iterables.size(batch.getValue());
+    }
+  }
+
   @Test
   @Category({NeedsRunner.class, UsesTimersInParDo.class, UsesStatefulParDo.class})
   public void testWithShardedKeyInGlobalWindow() {
@@ -668,4 +800,44 @@ public class GroupIntoBatchesTest implements Serializable {
 
     pipeline.run().waitUntilFinish();
   }
+
+  @Test
+  @Category({
+    NeedsRunner.class,
+    UsesTimersInParDo.class,
+    UsesTestStream.class,
+    UsesTestStreamWithProcessingTime.class,
+    UsesStatefulParDo.class
+  })
+  public void testBufferingDeadlineDoesNotMoveWithEarlierElement() {
+    final Duration maxBufferingDuration = Duration.standardSeconds(10);
+    Instant startInstant = new Instant(0L);
+
+    // The second element is earlier than the first one, which moves the output timestamp of the
+    // buffering timer. Its deadline must stay 10s after the first element rather than the second.
+    TestStream<KV<String, String>> stream =
+        TestStream.create(KvCoder.of(StringUtf8Coder.of(), StringUtf8Coder.of()))
+            .addElements(
+                TimestampedValue.of(KV.of("key", "first"), startInstant.plus(Duration.millis(5))))
+            .advanceProcessingTime(Duration.standardSeconds(6))
+            .addElements(
+                TimestampedValue.of(KV.of("key", "second"), startInstant.plus(Duration.millis(1))))
+            .advanceProcessingTime(Duration.standardSeconds(5))
+            .addElements(
+                TimestampedValue.of(KV.of("key", "third"), startInstant.plus(Duration.millis(6))))
+            .advanceProcessingTime(Duration.standardSeconds(100))
+            .advanceWatermarkToInfinity();
+
+    PCollection<Integer> batchSizes =
+        pipeline
+            .apply(stream)
+            .apply(
+                GroupIntoBatches.<String, String>ofSize(BATCH_SIZE)
+                    .withMaxBufferingDuration(maxBufferingDuration))
+            .apply(MapElements.via(new BatchSizeFn()));
+
+    PAssert.that("Buffering deadline was moved", batchSizes).containsInAnyOrder(2, 1);
+
+    pipeline.run().waitUntilFinish();
+  }
 }
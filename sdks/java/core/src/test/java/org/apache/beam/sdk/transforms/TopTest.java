@@ -17,6 +17,7 @@
  */
 package org.apache.beam.sdk.transforms;
 
+import static org.apache.beam.sdk.testing.CombineFnTester.testCombineFn;
 import static org.apache.beam.sdk.transforms.display.DisplayDataMatchers.hasDisplayItem;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
@@ -121,6 +122,41 @@ public class TopTest {
     p.run();
   }
 
+  @Test
+  public void testPrimitiveTopLongs() {
+    List<Long> input = Arrays.asList(5L, -1L, 7L, 3L, Long.MIN_VALUE, 7L, Long.MAX_VALUE);
+    testCombineFn(
+        Top.PrimitiveTopCombineFn.largestLongs(3), input, Arrays.asList(Long.MAX_VALUE, 7L, 7L));
+    testCombineFn(
+        Top.PrimitiveTopCombineFn.smallestLongs(3), input, Arrays.asList(Long.MIN_VALUE, -1L, 3L));
+    testCombineFn(Top.PrimitiveTopCombineFn.largestLongs(0), input, Arrays.<Long>asList());
+  }
+
+  @Test
+  public void testPrimitiveTopDoubles() {
+    List<Double> input =
+        Arrays.asList(1.5, Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, 2.0, -3.25);
+    // Doubles are ordered as by Double.compare, like Top.largest() and Top.smallest() do.
+    testCombineFn(
+        Top.PrimitiveTopCombineFn.largestDoubles(3), input, Arrays.asList(Double.NaN, 2.0, 1.5));
+    testCombineFn(
+        Top.PrimitiveTopCombineFn.smallestDoubles(4),
+        input,
+        Arrays.asList(Double.NEGATIVE_INFINITY, -3.25, -0.0, 0.0));
+  }
+
+  @Test
+  @Category(NeedsRunner.class)
+  public void testPrimitiveTop() {
+    PCollection<Long> input = p.apply(Create.of(3L, 1L, 4L, 1L, 5L, 9L, 2L, 6L));
+
+    PAssert.thatSingletonIterable(input.apply(Top.largestLongs(3))).containsInAnyOrder(9L, 6L, 5L);
+    PAssert.thatSingletonIterable(input.apply(Top.smallestLongs(3)))
+        .containsInAnyOrder(1L, 1L, 2L);
+
+    p.run();
+  }
+
   @Test
   @Category(NeedsRunner.class)
   @SuppressWarnings("unchecked")
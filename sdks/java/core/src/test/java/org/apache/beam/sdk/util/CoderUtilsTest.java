@@ -17,6 +17,9 @@
  */
 package org.apache.beam.sdk.util;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doThrow;
@@ -24,11 +27,16 @@ import static org.mockito.Mockito.mock;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import org.apache.beam.sdk.coders.AtomicCoder;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.Coder.Context;
 import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarLongCoder;
 import org.apache.beam.sdk.testing.CoderPropertiesTest.ClosingCoder;
+import org.apache.beam.sdk.values.KV;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -117,4 +125,36 @@ public class CoderUtilsTest {
     expectedException.expectMessage("Caller does not own the underlying");
     CoderUtils.encodeToByteArray(new ClosingCoder(), "test-value", Context.NESTED);
   }
+
+  @Test
+  public void testEncodeToByteBufferGrowsBuffer() throws Exception {
+    String value = "a value that does not fit into a tiny buffer";
+    ByteBuffer buffer = ByteBuffer.allocate(4);
+    ByteBuffer encoded = CoderUtils.encodeToByteBuffer(StringUtf8Coder.of(), value, buffer);
+    assertNotSame(buffer, encoded);
+    assertEquals(value, CoderUtils.decodeFromByteBuffer(StringUtf8Coder.of(), encoded));
+  }
+
+  @Test
+  public void testEncodeToByteBufferReusesBuffer() throws Exception {
+    KvCoder<String, Long> coder = KvCoder.of(StringUtf8Coder.of(), VarLongCoder.of());
+    ByteBuffer buffer = ByteBuffer.allocate(64);
+    for (long i = 0; i < 10; i++) {
+      ByteBuffer encoded = CoderUtils.encodeToByteBuffer(coder, KV.of("key", i), buffer);
+      assertSame(buffer, encoded);
+      assertEquals(KV.of("key", i), CoderUtils.decodeFromByteBuffer(coder, encoded));
+    }
+  }
+
+  @Test
+  public void testDecodeFromByteBufferFailsWithExtraBytes() throws Exception {
+    ByteBuffer encoded =
+        CoderUtils.encodeToByteBuffer(VarLongCoder.of(), 1L, ByteBuffer.allocate(16));
+    ByteBuffer withExtraBytes = ByteBuffer.allocate(encoded.remaining() + 1);
+    withExtraBytes.put(encoded).put((byte) 0).flip();
+
+    expectedException.expect(CoderException.class);
+    expectedException.expectMessage("1 unexpected extra bytes");
+    CoderUtils.decodeFromByteBuffer(VarLongCoder.of(), withExtraBytes);
+  }
 }
@@ -25,6 +25,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -226,6 +227,32 @@ public class VarIntTest {
     }
   }
 
+  @Test
+  public void encodeAndDecodeValuesInBuffer() throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(10);
+    for (int i = 0; i < LONG_VALUES.length; ++i) {
+      buffer.clear();
+      VarInt.encode(LONG_VALUES[i], buffer);
+      buffer.flip();
+      byte[] encoded = new byte[buffer.remaining()];
+      buffer.duplicate().get(encoded);
+      assertThat(encoded, equalTo(LONG_ENCODED[i]));
+      assertEquals(LONG_VALUES[i], VarInt.decodeLong(buffer));
+      assertEquals(0, buffer.remaining());
+    }
+
+    for (int i = 0; i < INT_VALUES.length; ++i) {
+      buffer.clear();
+      VarInt.encode(INT_VALUES[i], buffer);
+      buffer.flip();
+      byte[] encoded = new byte[buffer.remaining()];
+      buffer.duplicate().get(encoded);
+      assertThat(encoded, equalTo(INT_ENCODED[i]));
+      assertEquals(INT_VALUES[i], VarInt.decodeInt(buffer));
+      assertEquals(0, buffer.remaining());
+    }
+  }
+
   @Test
   public void decodeThrowsExceptionForOverflow() throws IOException {
     final byte[] tooLargeNumber = {
@@ -299,6 +326,12 @@ public class VarIntTest {
     VarInt.decodeInt(inStream);
   }
 
+  @Test
+  public void endOfBufferThrowsException() throws Exception {
+    thrown.expect(EOFException.class);
+    VarInt.decodeInt(ByteBuffer.allocate(0));
+  }
+
   @Test
   public void unterminatedThrowsException() throws Exception {
     byte[] e = encodeLong(Long.MAX_VALUE);
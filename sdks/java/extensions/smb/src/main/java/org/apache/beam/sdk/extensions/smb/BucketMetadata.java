@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.smb;
+
+import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkArgument;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.util.Base64;
+import java.util.Objects;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.io.FileSystems;
+import org.apache.beam.sdk.io.fs.ResolveOptions.StandardResolveOptions;
+import org.apache.beam.sdk.io.fs.ResourceId;
+import org.apache.beam.sdk.util.MimeTypes;
+import org.apache.beam.sdk.util.SerializableUtils;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.hash.HashFunction;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.hash.Hashing;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Describes how a directory of sort merge bucket files was written: the number of buckets, how keys
+ * are assigned to buckets and how they are encoded and sorted within each bucket.
+ *
+ * <p>The metadata is stored as JSON in a {@value #METADATA_FILENAME} file next to the bucket
+ * files. It is written after all of the bucket files, so its presence also marks the directory as
+ * complete.
+ */
+public class BucketMetadata implements Serializable {
+  /** The name of the file holding the metadata, relative to the output directory. */
+  public static final String METADATA_FILENAME = "metadata.json";
+
+  static final int CURRENT_VERSION = 1;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /** The hash functions which can be used to assign keys to buckets. */
+  public enum HashType {
+    /** 32-bit Murmur3 of the encoded key. */
+    MURMUR3_32 {
+      @Override
+      HashFunction hashFunction() {
+        return Hashing.murmur3_32();
+      }
+    };
+
+    abstract HashFunction hashFunction();
+  }
+
+  /** The order of the records within each bucket file. */
+  public enum SortOrder {
+    /** Ascending by the unsigned lexicographic order of the encoded keys. */
+    ENCODED_KEY_ASCENDING
+  }
+
+  private final int version;
+  private final int numBuckets;
+  private final HashType hashType;
+  private final SortOrder sortOrder;
+  private final String keyCoder;
+  private final String filenameSuffix;
+
+  @JsonCreator
+  BucketMetadata(
+      @JsonProperty("version") int version,
+      @JsonProperty("numBuckets") int numBuckets,
+      @JsonProperty("hashType") HashType hashType,
+      @JsonProperty("sortOrder") SortOrder sortOrder,
+      @JsonProperty("keyCoder") String keyCoder,
+      @JsonProperty("filenameSuffix") String filenameSuffix) {
+    checkArgument(version <= CURRENT_VERSION, "Unsupported bucket metadata version %s", version);
+    checkArgument(numBuckets > 0, "numBuckets must be positive, but was %s", numBuckets);
+    this.version = version;
+    this.numBuckets = numBuckets;
+    this.hashType = hashType;
+    this.sortOrder = sortOrder;
+    this.keyCoder = keyCoder;
+    this.filenameSuffix = filenameSuffix;
+  }
+
+  /** Returns the metadata of {@code numBuckets} buckets, keyed with {@code keyCoder}. */
+  public static BucketMetadata of(int numBuckets, Coder<?> keyCoder, String filenameSuffix) {
+    return new BucketMetadata(
+        CURRENT_VERSION,
+        numBuckets,
+        HashType.MURMUR3_32,
+        SortOrder.ENCODED_KEY_ASCENDING,
+        Base64.getEncoder().encodeToString(SerializableUtils.serializeToByteArray(keyCoder)),
+        filenameSuffix);
+  }
+
+  @JsonProperty
+  public int getVersion() {
+    return version;
+  }
+
+  @JsonProperty
+  public int getNumBuckets() {
+    return numBuckets;
+  }
+
+  @JsonProperty
+  public HashType getHashType() {
+    return hashType;
+  }
+
+  @JsonProperty
+  public SortOrder getSortOrder() {
+    return sortOrder;
+  }
+
+  /** The serialized key {@link Coder}, see {@link #getKeyCoder}. */
+  @JsonProperty("keyCoder")
+  String getSerializedKeyCoder() {
+    return keyCoder;
+  }
+
+  @JsonProperty
+  public String getFilenameSuffix() {
+    return filenameSuffix;
+  }
+
+  /** Returns the {@link Coder} the keys are encoded with, for hashing and sorting. */
+  @JsonIgnore
+  public Coder<?> getKeyCoder() {
+    return (Coder<?>)
+        SerializableUtils.deserializeFromByteArray(
+            Base64.getDecoder().decode(keyCoder), "key coder");
+  }
+
+  /** Returns the bucket a record with the given encoded key belongs to. */
+  public int getBucketId(byte[] encodedKey) {
+    return Math.floorMod(hashType.hashFunction().hashBytes(encodedKey).asInt(), numBuckets);
+  }
+
+  /** Returns the file holding the given bucket within {@code directory}. */
+  public ResourceId getBucketFile(ResourceId directory, int bucketId) {
+    return directory.resolve(
+        String.format("bucket-%05d-of-%05d%s", bucketId, numBuckets, filenameSuffix),
+        StandardResolveOptions.RESOLVE_FILE);
+  }
+
+  /** Writes this metadata to the {@value #METADATA_FILENAME} file of {@code directory}. */
+  public void writeTo(ResourceId directory) throws IOException {
+    ResourceId file = directory.resolve(METADATA_FILENAME, StandardResolveOptions.RESOLVE_FILE);
+    try (OutputStream out = Channels.newOutputStream(FileSystems.create(file, MimeTypes.TEXT))) {
+      MAPPER.writeValue(out, this);
+    }
+  }
+
+  /** Reads the metadata from the {@value #METADATA_FILENAME} file of {@code directory}. */
+  public static BucketMetadata readFrom(ResourceId directory) throws IOException {
+    ResourceId file = directory.resolve(METADATA_FILENAME, StandardResolveOptions.RESOLVE_FILE);
+    try (InputStream in = Channels.newInputStream(FileSystems.open(file))) {
+      return MAPPER.readValue(in, BucketMetadata.class);
+    }
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof BucketMetadata)) {
+      return false;
+    }
+    BucketMetadata that = (BucketMetadata) o;
+    return version == that.version
+        && numBuckets == that.numBuckets
+        && hashType == that.hashType
+        && sortOrder == that.sortOrder
+        && keyCoder.equals(that.keyCoder)
+        && filenameSuffix.equals(that.filenameSuffix);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(version, numBuckets, hashType, sortOrder, keyCoder, filenameSuffix);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "BucketMetadata{version=%s, numBuckets=%s, hashType=%s, sortOrder=%s, suffix=%s}",
+        version, numBuckets, hashType, sortOrder, filenameSuffix);
+  }
+}
@@ -0,0 +1,765 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.smb;
+
+import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkArgument;
+import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkState;
+
+import com.google.auto.value.AutoValue;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.beam.sdk.coders.ByteArrayCoder;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.Coder.NonDeterministicException;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.coders.VoidCoder;
+import org.apache.beam.sdk.extensions.sorter.BufferedExternalSorter;
+import org.apache.beam.sdk.extensions.sorter.ExternalSorter.Options.SorterType;
+import org.apache.beam.sdk.extensions.sorter.Sorter;
+import org.apache.beam.sdk.io.FileIO;
+import org.apache.beam.sdk.io.FileSystems;
+import org.apache.beam.sdk.io.fs.ResourceId;
+import org.apache.beam.sdk.io.fs.ResourceIdCoder;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.GroupByKey;
+import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.Reshuffle;
+import org.apache.beam.sdk.transforms.SerializableFunction;
+import org.apache.beam.sdk.transforms.View;
+import org.apache.beam.sdk.transforms.display.DisplayData;
+import org.apache.beam.sdk.transforms.join.CoGbkResult;
+import org.apache.beam.sdk.transforms.join.CoGbkResultSchema;
+import org.apache.beam.sdk.transforms.join.RawUnionValue;
+import org.apache.beam.sdk.transforms.join.UnionCoder;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindows;
+import org.apache.beam.sdk.transforms.windowing.Window;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.util.MimeTypes;
+import org.apache.beam.sdk.util.SerializableUtils;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PBegin;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollection.IsBounded;
+import org.apache.beam.sdk.values.PCollectionView;
+import org.apache.beam.sdk.values.TupleTag;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.ImmutableList;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.primitives.UnsignedBytes;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Transforms for writing and reading sort merge bucket files.
+ *
+ * <p>{@link #write} hashes a key of each record into one of a fixed number of buckets and writes
+ * each bucket to a single file, sorted by the key. The records are written with any {@link
+ * FileIO.Sink}, e.g. {@code AvroIO.sink()} or {@code ParquetIO.sink()}. A {@link BucketMetadata}
+ * file next to the buckets records how they were written.
+ *
+ * <pre>{@code
+ * PCollection<GenericRecord> users = ...;
+ * users.apply(
+ *     SortedBucketIO.write(
+ *             (GenericRecord user) -> user.get("id").toString(), StringUtf8Coder.of())
+ *         .to("gs://bucket/users")
+ *         .withNumBuckets(128)
+ *         .withSuffix(".avro")
+ *         .via(AvroIO.sink(schema)));
+ * }</pre>
+ *
+ * <p>Records are sorted by the unsigned lexicographic order of their encoded keys, which matches
+ * the natural order of e.g. strings encoded with {@code StringUtf8Coder}, but not necessarily that
+ * of other types. Key coders must be deterministic.
+ *
+ * <p>{@link #read} joins inputs written this way without a shuffle: for each bucket, it opens the
+ * matching bucket file of every input and merges them by key, producing the same output as a
+ * {@link org.apache.beam.sdk.transforms.join.CoGroupByKey}. The inputs must use the same key coder,
+ * and their numbers of buckets must divide the largest one.
+ *
+ * <pre>{@code
+ * TupleTag<GenericRecord> usersTag = new TupleTag<>();
+ * TupleTag<String> eventsTag = new TupleTag<>();
+ * PCollection<KV<String, CoGbkResult>> joined =
+ *     pipeline.apply(
+ *         SortedBucketIO.read(StringUtf8Coder.of())
+ *             .and(usersTag, "gs://bucket/users", user -> user.get("id").toString(),
+ *                 SortedBucketIO.avroReader(schema), AvroCoder.of(schema))
+ *             .and(eventsTag, "gs://bucket/events", event -> event.split(",")[0],
+ *                 SortedBucketIO.textReader(), StringUtf8Coder.of()));
+ * }</pre>
+ */
+public class SortedBucketIO {
+  private static final Comparator<byte[]> KEY_COMPARATOR =
+      UnsignedBytes.lexicographicalComparator();
+
+  /**
+   * Writes the records bucketed and sorted by the key extracted with {@code keyFn}, encoded with
+   * {@code keyCoder}.
+   */
+  public static <KeyT, T> Write<KeyT, T> write(
+      SerializableFunction<T, KeyT> keyFn, Coder<KeyT> keyCoder) {
+    return new AutoValue_SortedBucketIO_Write.Builder<KeyT, T>()
+        .setKeyFn(keyFn)
+        .setKeyCoder(keyCoder)
+        .setNumBuckets(0)
+        .setFilenameSuffix("")
+        .setSorterOptions(
+            BufferedExternalSorter.options().withExternalSorterType(SorterType.NATIVE))
+        .build();
+  }
+
+  /**
+   * Joins inputs bucketed and sorted by keys encoded with {@code keyCoder}. Add the inputs with
+   * {@link Read#and}.
+   */
+  public static <KeyT> Read<KeyT> read(Coder<KeyT> keyCoder) {
+    return new AutoValue_SortedBucketIO_Read.Builder<KeyT>()
+        .setKeyCoder(keyCoder)
+        .setInputs(ImmutableList.of())
+        .build();
+  }
+
+  /** Reads records written with a {@link FileIO.Sink} from a bucket file. */
+  public interface BucketReader<T> extends Serializable {
+    /**
+     * Initializes reading from the given channel. Will be invoked once on a given {@link
+     * BucketReader} instance.
+     */
+    void open(ReadableByteChannel channel) throws IOException;
+
+    /** Returns the next record of the file, or null if there are none left. */
+    @Nullable
+    T read() throws IOException;
+  }
+
+  /** Returns a {@link BucketReader} for files written with {@code TextIO.sink()}. */
+  public static BucketReader<String> textReader() {
+    return new TextBucketReader();
+  }
+
+  /** Returns a {@link BucketReader} for files written with {@code AvroIO.sink(schema)}. */
+  public static BucketReader<GenericRecord> avroReader(Schema schema) {
+    return new AvroBucketReader(schema.toString());
+  }
+
+  /** Implementation of {@link #write}. */
+  @AutoValue
+  public abstract static class Write<KeyT, T>
+      extends PTransform<PCollection<T>, PCollection<ResourceId>> {
+    abstract SerializableFunction<T, KeyT> getKeyFn();
+
+    abstract Coder<KeyT> getKeyCoder();
+
+    abstract int getNumBuckets();
+
+    abstract @Nullable String getOutputDirectory();
+
+    abstract String getFilenameSuffix();
+
+    abstract FileIO.@Nullable Sink<T> getSink();
+
+    abstract BufferedExternalSorter.Options getSorterOptions();
+
+    abstract Builder<KeyT, T> toBuilder();
+
+    @AutoValue.Builder
+    abstract static class Builder<KeyT, T> {
+      abstract Builder<KeyT, T> setKeyFn(SerializableFunction<T, KeyT> keyFn);
+
+      abstract Builder<KeyT, T> setKeyCoder(Coder<KeyT> keyCoder);
+
+      abstract Builder<KeyT, T> setNumBuckets(int numBuckets);
+
+      abstract Builder<KeyT, T> setOutputDirectory(String outputDirectory);
+
+      abstract Builder<KeyT, T> setFilenameSuffix(String filenameSuffix);
+
+      abstract Builder<KeyT, T> setSink(FileIO.Sink<T> sink);
+
+      abstract Builder<KeyT, T> setSorterOptions(BufferedExternalSorter.Options sorterOptions);
+
+      abstract Write<KeyT, T> build();
+    }
+
+    /** Writes the buckets to the given directory, which should not contain any other files. */
+    public Write<KeyT, T> to(String outputDirectory) {
+      return toBuilder().setOutputDirectory(outputDirectory).build();
+    }
+
+    /** Specifies the number of buckets to write. Required. */
+    public Write<KeyT, T> withNumBuckets(int numBuckets) {
+      checkArgument(numBuckets > 0, "numBuckets must be positive, but was %s", numBuckets);
+      return toBuilder().setNumBuckets(numBuckets).build();
+    }
+
+    /** Specifies the suffix of the bucket files, e.g. {@code ".avro"}. */
+    public Write<KeyT, T> withSuffix(String filenameSuffix) {
+      return toBuilder().setFilenameSuffix(filenameSuffix).build();
+    }
+
+    /** Specifies the {@link FileIO.Sink} to write each bucket with. Required. */
+    public Write<KeyT, T> via(FileIO.Sink<T> sink) {
+      return toBuilder().setSink(sink).build();
+    }
+
+    /**
+     * Specifies the options of the {@link BufferedExternalSorter} used to sort each bucket, which
+     * spills to local disk if a bucket doesn't fit in memory.
+     *
+     * <p>By default the native external sorter is used. Options passed here should also use {@link
+     * SorterType#NATIVE} unless Hadoop is on the classpath, which this module does not provide.
+     */
+    public Write<KeyT, T> withSorterOptions(BufferedExternalSorter.Options sorterOptions) {
+      return toBuilder().setSorterOptions(sorterOptions).build();
+    }
+
+    @Override
+    public PCollection<ResourceId> expand(PCollection<T> input) {
+      checkArgument(getNumBuckets() > 0, "withNumBuckets() is required");
+      String outputDirectory = checkNotNull(getOutputDirectory(), "to() is required");
+      FileIO.Sink<T> sink = checkNotNull(getSink(), "via() is required");
+      checkArgument(
+          input.isBounded() == IsBounded.BOUNDED,
+          "SortedBucketIO.write() only supports bounded inputs");
+      try {
+        getKeyCoder().verifyDeterministic();
+      } catch (NonDeterministicException e) {
+        throw new IllegalArgumentException("The key coder must be deterministic", e);
+      }
+
+      BucketMetadata metadata =
+          BucketMetadata.of(getNumBuckets(), getKeyCoder(), getFilenameSuffix());
+      ResourceId directory = FileSystems.matchNewResource(outputDirectory, true);
+
+      PCollectionView<List<Integer>> writtenBuckets =
+          input
+              .apply("RewindowIntoGlobal", Window.into(new GlobalWindows()))
+              .apply(
+                  "AssignBuckets",
+                  ParDo.of(
+                      new AssignBucketFn<>(
+                          getKeyFn(), getKeyCoder(), input.getCoder(), metadata)))
+              .setCoder(
+                  KvCoder.of(
+                      VarIntCoder.of(), KvCoder.of(ByteArrayCoder.of(), ByteArrayCoder.of())))
+              .apply("GroupByBucket", GroupByKey.create())
+              .apply(
+                  "WriteBuckets",
+                  ParDo.of(
+                      new WriteBucketFn<>(
+                          sink, input.getCoder(), metadata, directory, getSorterOptions())))
+              .setCoder(VarIntCoder.of())
+              .apply("WrittenBuckets", View.asList());
+
+      return input
+          .getPipeline()
+          .apply("CreateSingleton", Create.of((Void) null).withCoder(VoidCoder.of()))
+          .apply(
+              "FinalizeBuckets",
+              ParDo.of(
+                      new FinalizeBucketsFn<>(
+                          sink, input.getCoder(), metadata, directory, writtenBuckets))
+                  .withSideInputs(writtenBuckets))
+          .setCoder(ResourceIdCoder.of());
+    }
+
+    @Override
+    public void populateDisplayData(DisplayData.Builder builder) {
+      super.populateDisplayData(builder);
+      builder
+          .add(DisplayData.item("numBuckets", getNumBuckets()).withLabel("Number of buckets"))
+          .addIfNotNull(
+              DisplayData.item("outputDirectory", getOutputDirectory())
+                  .withLabel("Output directory"))
+          .add(DisplayData.item("keyCoder", getKeyCoder().getClass()).withLabel("Key coder"));
+    }
+  }
+
+  /** Implementation of {@link #read}. */
+  @AutoValue
+  public abstract static class Read<KeyT>
+      extends PTransform<PBegin, PCollection<KV<KeyT, CoGbkResult>>> {
+    abstract Coder<KeyT> getKeyCoder();
+
+    abstract ImmutableList<BucketedInput<KeyT, ?>> getInputs();
+
+    abstract Builder<KeyT> toBuilder();
+
+    @AutoValue.Builder
+    abstract static class Builder<KeyT> {
+      abstract Builder<KeyT> setKeyCoder(Coder<KeyT> keyCoder);
+
+      abstract Builder<KeyT> setInputs(ImmutableList<BucketedInput<KeyT, ?>> inputs);
+
+      abstract Read<KeyT> build();
+    }
+
+    /**
+     * Adds the bucket files in {@code directory} as an input, tagged with {@code tag} in the
+     * output. The files are read with {@code reader}, and {@code keyFn} extracts the key each
+     * record was bucketed and sorted by.
+     */
+    public <T> Read<KeyT> and(
+        TupleTag<T> tag,
+        String directory,
+        SerializableFunction<T, KeyT> keyFn,
+        BucketReader<T> reader,
+        Coder<T> coder) {
+      return toBuilder()
+          .setInputs(
+              ImmutableList.<BucketedInput<KeyT, ?>>builder()
+                  .addAll(getInputs())
+                  .add(new BucketedInput<>(tag, directory, keyFn, reader, coder))
+                  .build())
+          .build();
+    }
+
+    @Override
+    public PCollection<KV<KeyT, CoGbkResult>> expand(PBegin input) {
+      checkArgument(!getInputs().isEmpty(), "At least one input is required");
+      List<TupleTag<?>> tags = new ArrayList<>();
+      List<Coder<?>> coders = new ArrayList<>();
+      List<BucketMetadata> metadata = new ArrayList<>();
+      int numBuckets = 0;
+      for (BucketedInput<KeyT, ?> bucketedInput : getInputs()) {
+        BucketMetadata inputMetadata = bucketedInput.readMetadata();
+        checkArgument(
+            getKeyCoder().equals(inputMetadata.getKeyCoder()),
+            "The key coder %s of %s doesn't match %s",
+            inputMetadata.getKeyCoder(),
+            bucketedInput.directory,
+            getKeyCoder());
+        tags.add(bucketedInput.tag);
+        coders.add(bucketedInput.coder);
+        metadata.add(inputMetadata);
+        numBuckets = Math.max(numBuckets, inputMetadata.getNumBuckets());
+      }
+      for (int i = 0; i < metadata.size(); i++) {
+        BucketMetadata inputMetadata = metadata.get(i);
+        checkArgument(
+            inputMetadata.getHashType() == metadata.get(0).getHashType()
+                && inputMetadata.getSortOrder() == metadata.get(0).getSortOrder(),
+            "%s isn't bucketed and sorted like %s",
+            getInputs().get(i).directory,
+            getInputs().get(0).directory);
+        checkArgument(
+            numBuckets % inputMetadata.getNumBuckets() == 0,
+            "The %s buckets of %s don't divide the %s buckets of the other inputs",
+            inputMetadata.getNumBuckets(),
+            getInputs().get(i).directory,
+            numBuckets);
+      }
+
+      CoGbkResultSchema schema = CoGbkResultSchema.of(tags);
+      List<Integer> bucketIds = new ArrayList<>();
+      for (int bucketId = 0; bucketId < numBuckets; bucketId++) {
+        bucketIds.add(bucketId);
+      }
+      return input
+          .apply("CreateBuckets", Create.of(bucketIds).withCoder(VarIntCoder.of()))
+          .apply("Reshuffle", Reshuffle.viaRandomKey())
+          .apply(
+              "MergeBuckets",
+              ParDo.of(
+                  new MergeBucketsFn<>(
+                      getKeyCoder(),
+                      getInputs(),
+                      metadata,
+                      BucketMetadata.of(numBuckets, getKeyCoder(), ""),
+                      schema)))
+          .setCoder(
+              KvCoder.of(
+                  getKeyCoder(), CoGbkResult.CoGbkResultCoder.of(schema, UnionCoder.of(coders))));
+    }
+
+    @Override
+    public void populateDisplayData(DisplayData.Builder builder) {
+      super.populateDisplayData(builder);
+      for (int i = 0; i < getInputs().size(); i++) {
+        builder.add(
+            DisplayData.item("input" + i, getInputs().get(i).directory).withLabel("Input " + i));
+      }
+    }
+  }
+
+  /** One of the inputs of {@link Read}. */
+  static class BucketedInput<KeyT, T> implements Serializable {
+    private final TupleTag<T> tag;
+    private final String directory;
+    private final SerializableFunction<T, KeyT> keyFn;
+    private final BucketReader<T> reader;
+    private final Coder<T> coder;
+
+    BucketedInput(
+        TupleTag<T> tag,
+        String directory,
+        SerializableFunction<T, KeyT> keyFn,
+        BucketReader<T> reader,
+        Coder<T> coder) {
+      this.tag = tag;
+      this.directory = directory;
+      this.keyFn = keyFn;
+      this.reader = reader;
+      this.coder = coder;
+    }
+
+    ResourceId getDirectory() {
+      return FileSystems.matchNewResource(directory, true);
+    }
+
+    BucketMetadata readMetadata() {
+      try {
+        return BucketMetadata.readFrom(getDirectory());
+      } catch (IOException e) {
+        throw new IllegalArgumentException(
+            "Unable to read the bucket metadata of " + directory, e);
+      }
+    }
+  }
+
+  /** Writes the records of a bucket with a fresh copy of {@code sink}. */
+  private static <T> void writeBucket(
+      FileIO.Sink<T> sink, Coder<T> coder, ResourceId file, Iterable<KV<byte[], byte[]>> records)
+      throws IOException {
+    FileIO.Sink<T> writer = SerializableUtils.clone(sink);
+    try (WritableByteChannel channel = FileSystems.create(file, MimeTypes.BINARY)) {
+      writer.open(channel);
+      for (KV<byte[], byte[]> record : records) {
+        writer.write(CoderUtils.decodeFromByteArray(coder, record.getValue()));
+      }
+      writer.flush();
+    }
+  }
+
+  /** Keys each record by its bucket, and pairs it with its encoded key to sort by. */
+  private static class AssignBucketFn<KeyT, T> extends DoFn<T, KV<Integer, KV<byte[], byte[]>>> {
+    private final SerializableFunction<T, KeyT> keyFn;
+    private final Coder<KeyT> keyCoder;
+    private final Coder<T> coder;
+    private final BucketMetadata metadata;
+
+    AssignBucketFn(
+        SerializableFunction<T, KeyT> keyFn,
+        Coder<KeyT> keyCoder,
+        Coder<T> coder,
+        BucketMetadata metadata) {
+      this.keyFn = keyFn;
+      this.keyCoder = keyCoder;
+      this.coder = coder;
+      this.metadata = metadata;
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element T element, OutputReceiver<KV<Integer, KV<byte[], byte[]>>> out)
+        throws IOException {
+      byte[] key = CoderUtils.encodeToByteArray(keyCoder, keyFn.apply(element));
+      out.output(
+          KV.of(
+              metadata.getBucketId(key),
+              KV.of(key, CoderUtils.encodeToByteArray(coder, element))));
+    }
+  }
+
+  /** Sorts the records of each bucket by their encoded keys and writes them to its file. */
+  private static class WriteBucketFn<T>
+      extends DoFn<KV<Integer, Iterable<KV<byte[], byte[]>>>, Integer> {
+    private final FileIO.Sink<T> sink;
+    private final Coder<T> coder;
+    private final BucketMetadata metadata;
+    private final ResourceId directory;
+    private final BufferedExternalSorter.Options sorterOptions;
+
+    WriteBucketFn(
+        FileIO.Sink<T> sink,
+        Coder<T> coder,
+        BucketMetadata metadata,
+        ResourceId directory,
+        BufferedExternalSorter.Options sorterOptions) {
+      this.sink = sink;
+      this.coder = coder;
+      this.metadata = metadata;
+      this.directory = directory;
+      this.sorterOptions = sorterOptions;
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element KV<Integer, Iterable<KV<byte[], byte[]>>> bucket, OutputReceiver<Integer> out)
+        throws IOException {
+      Sorter sorter = BufferedExternalSorter.create(sorterOptions);
+      for (KV<byte[], byte[]> record : bucket.getValue()) {
+        sorter.add(record);
+      }
+      int bucketId = bucket.getKey();
+      writeBucket(sink, coder, metadata.getBucketFile(directory, bucketId), sorter.sort());
+      out.output(bucketId);
+    }
+  }
+
+  /**
+   * Writes empty files for the buckets without records, then the metadata, and outputs all bucket
+   * files.
+   */
+  private static class FinalizeBucketsFn<T> extends DoFn<Void, ResourceId> {
+    private final FileIO.Sink<T> sink;
+    private final Coder<T> coder;
+    private final BucketMetadata metadata;
+    private final ResourceId directory;
+    private final PCollectionView<List<Integer>> writtenBuckets;
+
+    FinalizeBucketsFn(
+        FileIO.Sink<T> sink,
+        Coder<T> coder,
+        BucketMetadata metadata,
+        ResourceId directory,
+        PCollectionView<List<Integer>> writtenBuckets) {
+      this.sink = sink;
+      this.coder = coder;
+      this.metadata = metadata;
+      this.directory = directory;
+      this.writtenBuckets = writtenBuckets;
+    }
+
+    @ProcessElement
+    public void processElement(ProcessContext c) throws IOException {
+      Set<Integer> written = new HashSet<>(c.sideInput(writtenBuckets));
+      for (int bucketId = 0; bucketId < metadata.getNumBuckets(); bucketId++) {
+        if (!written.contains(bucketId)) {
+          writeBucket(
+              sink, coder, metadata.getBucketFile(directory, bucketId), Collections.emptyList());
+        }
+      }
+      metadata.writeTo(directory);
+      for (int bucketId = 0; bucketId < metadata.getNumBuckets(); bucketId++) {
+        c.output(metadata.getBucketFile(directory, bucketId));
+      }
+    }
+  }
+
+  /**
+   * Merges the files of a bucket from every input by key. Inputs with fewer buckets contribute the
+   * records of the coarser bucket which belong to this one.
+   */
+  private static class MergeBucketsFn<KeyT> extends DoFn<Integer, KV<KeyT, CoGbkResult>> {
+    private final Coder<KeyT> keyCoder;
+    private final List<BucketedInput<KeyT, ?>> inputs;
+    private final List<BucketMetadata> metadata;
+    private final BucketMetadata joinMetadata;
+    private final CoGbkResultSchema schema;
+
+    MergeBucketsFn(
+        Coder<KeyT> keyCoder,
+        List<BucketedInput<KeyT, ?>> inputs,
+        List<BucketMetadata> metadata,
+        BucketMetadata joinMetadata,
+        CoGbkResultSchema schema) {
+      this.keyCoder = keyCoder;
+      this.inputs = inputs;
+      this.metadata = metadata;
+      this.joinMetadata = joinMetadata;
+      this.schema = schema;
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element Integer bucketId, OutputReceiver<KV<KeyT, CoGbkResult>> out) throws IOException {
+      List<KeyedRecordIterator<KeyT, ?>> iterators = new ArrayList<>();
+      try {
+        for (int i = 0; i < inputs.size(); i++) {
+          BucketMetadata inputMetadata = metadata.get(i);
+          iterators.add(
+              new KeyedRecordIterator<>(
+                  inputs.get(i),
+                  inputMetadata.getBucketFile(
+                      inputs.get(i).getDirectory(), bucketId % inputMetadata.getNumBuckets()),
+                  keyCoder,
+                  inputMetadata.getNumBuckets() < joinMetadata.getNumBuckets()
+                      ? joinMetadata
+                      : null,
+                  bucketId));
+        }
+
+        while (true) {
+          byte @Nullable [] minKey = null;
+          for (KeyedRecordIterator<KeyT, ?> iterator : iterators) {
+            byte[] key = iterator.peekKey();
+            if (key != null && (minKey == null || KEY_COMPARATOR.compare(key, minKey) < 0)) {
+              minKey = key;
+            }
+          }
+          if (minKey == null) {
+            break;
+          }
+          List<RawUnionValue> values = new ArrayList<>();
+          for (int i = 0; i < iterators.size(); i++) {
+            KeyedRecordIterator<KeyT, ?> iterator = iterators.get(i);
+            while (iterator.peekKey() != null && Arrays.equals(iterator.peekKey(), minKey)) {
+              values.add(new RawUnionValue(i, iterator.next()));
+            }
+          }
+          out.output(
+              KV.of(
+                  CoderUtils.decodeFromByteArray(keyCoder, minKey),
+                  new CoGbkResult(schema, values)));
+        }
+      } finally {
+        for (KeyedRecordIterator<KeyT, ?> iterator : iterators) {
+          iterator.close();
+        }
+      }
+    }
+  }
+
+  /** Iterates over the records of a bucket file along with their encoded keys. */
+  private static class KeyedRecordIterator<KeyT, T> implements Closeable {
+    private final ResourceId file;
+    private final ReadableByteChannel channel;
+    private final BucketReader<T> reader;
+    private final SerializableFunction<T, KeyT> keyFn;
+    private final Coder<KeyT> keyCoder;
+    // Filters out the records of other buckets, if the file holds more than one of the buckets.
+    private final @Nullable BucketMetadata filter;
+    private final int bucketId;
+    private byte @Nullable [] nextKey;
+    private @Nullable T next;
+
+    KeyedRecordIterator(
+        BucketedInput<KeyT, T> input,
+        ResourceId file,
+        Coder<KeyT> keyCoder,
+        @Nullable BucketMetadata filter,
+        int bucketId)
+        throws IOException {
+      this.file = file;
+      this.reader = SerializableUtils.clone(input.reader);
+      this.keyFn = input.keyFn;
+      this.keyCoder = keyCoder;
+      this.filter = filter;
+      this.bucketId = bucketId;
+      this.channel = FileSystems.open(file);
+      try {
+        reader.open(channel);
+        advance();
+      } catch (IOException | RuntimeException e) {
+        // The caller can't close an iterator that failed to open, so the channel is closed here.
+        try {
+          channel.close();
+        } catch (IOException closeException) {
+          e.addSuppressed(closeException);
+        }
+        throw e;
+      }
+    }
+
+    /** Returns the encoded key of the next record, or null if there are none left. */
+    byte @Nullable [] peekKey() {
+      return nextKey;
+    }
+
+    T next() throws IOException {
+      T record = checkNotNull(next);
+      advance();
+      return record;
+    }
+
+    private void advance() throws IOException {
+      byte @Nullable [] previousKey = nextKey;
+      while (true) {
+        T record = reader.read();
+        if (record == null) {
+          next = null;
+          nextKey = null;
+          return;
+        }
+        byte[] key = CoderUtils.encodeToByteArray(keyCoder, keyFn.apply(record));
+        if (filter != null && filter.getBucketId(key) != bucketId) {
+          continue;
+        }
+        checkState(
+            previousKey == null || KEY_COMPARATOR.compare(previousKey, key) <= 0,
+            "The records of %s aren't sorted by key",
+            file);
+        next = record;
+        nextKey = key;
+        return;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  private static class TextBucketReader implements BucketReader<String> {
+    private transient @Nullable BufferedReader reader;
+
+    @Override
+    public void open(ReadableByteChannel channel) {
+      reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.name()));
+    }
+
+    @Override
+    public @Nullable String read() throws IOException {
+      return checkNotNull(reader, "open() must be called first").readLine();
+    }
+  }
+
+  private static class AvroBucketReader implements BucketReader<GenericRecord> {
+    // Avro schemas aren't serializable, so the reader holds the schema as JSON.
+    private final String jsonSchema;
+    private transient @Nullable DataFileStream<GenericRecord> stream;
+
+    AvroBucketReader(String jsonSchema) {
+      this.jsonSchema = jsonSchema;
+    }
+
+    @Override
+    public void open(ReadableByteChannel channel) throws IOException {
+      Schema schema = new Schema.Parser().parse(jsonSchema);
+      stream =
+          new DataFileStream<>(Channels.newInputStream(channel), new GenericDatumReader<>(schema));
+    }
+
+    @Override
+    public @Nullable GenericRecord read() {
+      DataFileStream<GenericRecord> stream = checkNotNull(this.stream);
+      return stream.hasNext() ? stream.next() : null;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.smb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarLongCoder;
+import org.apache.beam.sdk.io.FileSystems;
+import org.apache.beam.sdk.io.fs.ResourceId;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.util.SerializableUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link BucketMetadata}. */
+@RunWith(JUnit4.class)
+public class BucketMetadataTest {
+  @Rule public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    BucketMetadata metadata = BucketMetadata.of(16, VarLongCoder.of(), ".avro");
+    ResourceId directory =
+        FileSystems.matchNewResource(tmpFolder.getRoot().getAbsolutePath(), true);
+    metadata.writeTo(directory);
+
+    BucketMetadata read = BucketMetadata.readFrom(directory);
+    assertEquals(metadata, read);
+    assertEquals(VarLongCoder.of(), read.getKeyCoder());
+    assertEquals(metadata, SerializableUtils.clone(metadata));
+  }
+
+  @Test
+  public void testBucketFile() {
+    BucketMetadata metadata = BucketMetadata.of(16, StringUtf8Coder.of(), ".txt");
+    ResourceId directory = FileSystems.matchNewResource("/tmp/output", true);
+    assertEquals(
+        "bucket-00003-of-00016.txt", metadata.getBucketFile(directory, 3).getFilename());
+  }
+
+  @Test
+  public void testBucketIdIsDeterministicAndInRange() throws Exception {
+    BucketMetadata metadata = BucketMetadata.of(7, StringUtf8Coder.of(), "");
+    for (int i = 0; i < 1000; i++) {
+      byte[] key = CoderUtils.encodeToByteArray(StringUtf8Coder.of(), "key" + i);
+      int bucketId = metadata.getBucketId(key);
+      assertTrue(bucketId >= 0 && bucketId < 7);
+      assertEquals(bucketId, metadata.getBucketId(key.clone()));
+    }
+  }
+
+  @Test
+  public void testUnsupportedVersion() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new BucketMetadata(
+                BucketMetadata.CURRENT_VERSION + 1,
+                4,
+                BucketMetadata.HashType.MURMUR3_32,
+                BucketMetadata.SortOrder.ENCODED_KEY_ASCENDING,
+                "",
+                ""));
+  }
+}
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.smb;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.coders.AvroCoder;
+import org.apache.beam.sdk.coders.DoubleCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.extensions.sorter.BufferedExternalSorter;
+import org.apache.beam.sdk.extensions.sorter.ExternalSorter.Options.SorterType;
+import org.apache.beam.sdk.io.AvroIO;
+import org.apache.beam.sdk.io.FileSystems;
+import org.apache.beam.sdk.io.TextIO;
+import org.apache.beam.sdk.io.fs.ResourceId;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.transforms.MapElements;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.TupleTag;
+import org.apache.beam.sdk.values.TypeDescriptors;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SortedBucketIO}. */
+@RunWith(JUnit4.class)
+public class SortedBucketIOTest {
+  private static final Schema SCHEMA =
+      SchemaBuilder.record("User")
+          .fields()
+          .requiredString("id")
+          .requiredInt("value")
+          .endRecord();
+
+  @Rule public final transient TestPipeline pipeline = TestPipeline.create();
+  @Rule public final transient TestPipeline readPipeline = TestPipeline.create();
+  @Rule public final transient TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  @Test
+  public void testWriteText() throws Exception {
+    List<String> records = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      records.add("record-" + (i * 7919 % 1000));
+    }
+    String output = tmpFolder.newFolder("output").getAbsolutePath();
+
+    pipeline
+        .apply(Create.of(records))
+        .apply(
+            SortedBucketIO.write((String record) -> record, StringUtf8Coder.of())
+                .to(output)
+                .withNumBuckets(8)
+                .withSuffix(".txt")
+                .via(TextIO.sink()));
+    pipeline.run();
+
+    ResourceId directory = FileSystems.matchNewResource(output, true);
+    BucketMetadata metadata = BucketMetadata.readFrom(directory);
+    assertEquals(BucketMetadata.of(8, StringUtf8Coder.of(), ".txt"), metadata);
+
+    List<String> actual = new ArrayList<>();
+    for (int bucketId = 0; bucketId < 8; bucketId++) {
+      File file = new File(metadata.getBucketFile(directory, bucketId).toString());
+      List<String> lines = Files.readAllLines(file.toPath(), UTF_8);
+      for (String line : lines) {
+        assertEquals(
+            bucketId,
+            metadata.getBucketId(CoderUtils.encodeToByteArray(StringUtf8Coder.of(), line)));
+      }
+      assertSorted(lines);
+      actual.addAll(lines);
+    }
+    assertThat(actual, containsInAnyOrder(records.toArray()));
+  }
+
+  @Test
+  public void testWriteSpillsToDisk() throws Exception {
+    // About 3MB of records in a single bucket, sorted with a 1MB buffer.
+    String padding = String.join("", Collections.nCopies(1000, "x"));
+    List<String> records = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      records.add("record-" + (i * 7919 % 3000) + "-" + padding);
+    }
+    String output = tmpFolder.newFolder("output").getAbsolutePath();
+    String sortTemp = tmpFolder.newFolder("sort").getAbsolutePath();
+
+    pipeline
+        .apply(Create.of(records))
+        .apply(
+            SortedBucketIO.write((String record) -> record, StringUtf8Coder.of())
+                .to(output)
+                .withNumBuckets(1)
+                .withSorterOptions(
+                    BufferedExternalSorter.options()
+                        .withExternalSorterType(SorterType.NATIVE)
+                        .withTempLocation(sortTemp)
+                        .withMemoryMB(1))
+                .via(TextIO.sink()));
+    pipeline.run();
+
+    ResourceId directory = FileSystems.matchNewResource(output, true);
+    BucketMetadata metadata = BucketMetadata.readFrom(directory);
+    File file = new File(metadata.getBucketFile(directory, 0).toString());
+    List<String> lines = Files.readAllLines(file.toPath(), UTF_8);
+    assertSorted(lines);
+    assertThat(lines, containsInAnyOrder(records.toArray()));
+  }
+
+  @Test
+  public void testWriteEmptyBuckets() throws Exception {
+    String output = tmpFolder.newFolder("output").getAbsolutePath();
+
+    pipeline
+        .apply(Create.of("a", "b", "c"))
+        .apply(
+            SortedBucketIO.write((String record) -> record, StringUtf8Coder.of())
+                .to(output)
+                .withNumBuckets(16)
+                .via(TextIO.sink()));
+    pipeline.run();
+
+    ResourceId directory = FileSystems.matchNewResource(output, true);
+    BucketMetadata metadata = BucketMetadata.readFrom(directory);
+    List<String> actual = new ArrayList<>();
+    for (int bucketId = 0; bucketId < 16; bucketId++) {
+      File file = new File(metadata.getBucketFile(directory, bucketId).toString());
+      assertTrue(file.exists());
+      actual.addAll(Files.readAllLines(file.toPath(), UTF_8));
+    }
+    assertThat(actual, containsInAnyOrder("a", "b", "c"));
+  }
+
+  @Test
+  public void testWriteAvro() throws Exception {
+    List<GenericRecord> records = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      GenericRecord record = new GenericData.Record(SCHEMA);
+      record.put("id", "user-" + (i * 31 % 500));
+      record.put("value", i);
+      records.add(record);
+    }
+    String output = tmpFolder.newFolder("output").getAbsolutePath();
+
+    pipeline
+        .apply(Create.of(records).withCoder(AvroCoder.of(SCHEMA)))
+        .apply(
+            SortedBucketIO.write(
+                    (GenericRecord record) -> record.get("id").toString(), StringUtf8Coder.of())
+                .to(output)
+                .withNumBuckets(4)
+                .withSuffix(".avro")
+                .via(AvroIO.sink(SCHEMA)));
+    pipeline.run();
+
+    ResourceId directory = FileSystems.matchNewResource(output, true);
+    BucketMetadata metadata = BucketMetadata.readFrom(directory);
+    int count = 0;
+    for (int bucketId = 0; bucketId < 4; bucketId++) {
+      File file = new File(metadata.getBucketFile(directory, bucketId).toString());
+      List<String> ids = new ArrayList<>();
+      try (DataFileReader<GenericRecord> reader =
+          new DataFileReader<>(file, new GenericDatumReader<>(SCHEMA))) {
+        for (GenericRecord record : reader) {
+          ids.add(record.get("id").toString());
+        }
+      }
+      assertSorted(ids);
+      count += ids.size();
+    }
+    assertEquals(records.size(), count);
+  }
+
+  @Test
+  public void testReadJoinsMatchingBuckets() throws Exception {
+    List<String> left = new ArrayList<>();
+    List<String> right = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      left.add("k" + i + ":left");
+      if (i % 2 == 0) {
+        right.add("k" + i + ":right-a");
+        right.add("k" + i + ":right-b");
+        expected.add("k" + i + "=[k" + i + ":left][k" + i + ":right-a, k" + i + ":right-b]");
+      } else {
+        expected.add("k" + i + "=[k" + i + ":left][]");
+      }
+    }
+    right.add("k200:right");
+    expected.add("k200=[][k200:right]");
+    String leftOutput = tmpFolder.newFolder("left").getAbsolutePath();
+    String rightOutput = tmpFolder.newFolder("right").getAbsolutePath();
+
+    // The inputs have different numbers of buckets.
+    pipeline
+        .apply("CreateLeft", Create.of(left))
+        .apply(
+            "WriteLeft",
+            SortedBucketIO.write(SortedBucketIOTest::keyOf, StringUtf8Coder.of())
+                .to(leftOutput)
+                .withNumBuckets(4)
+                .via(TextIO.sink()));
+    pipeline
+        .apply("CreateRight", Create.of(right))
+        .apply(
+            "WriteRight",
+            SortedBucketIO.write(SortedBucketIOTest::keyOf, StringUtf8Coder.of())
+                .to(rightOutput)
+                .withNumBuckets(8)
+                .via(TextIO.sink()));
+    pipeline.run();
+
+    TupleTag<String> leftTag = new TupleTag<>();
+    TupleTag<String> rightTag = new TupleTag<>();
+    PCollection<String> joined =
+        readPipeline
+            .apply(
+                SortedBucketIO.read(StringUtf8Coder.of())
+                    .and(
+                        leftTag,
+                        leftOutput,
+                        SortedBucketIOTest::keyOf,
+                        SortedBucketIO.textReader(),
+                        StringUtf8Coder.of())
+                    .and(
+                        rightTag,
+                        rightOutput,
+                        SortedBucketIOTest::keyOf,
+                        SortedBucketIO.textReader(),
+                        StringUtf8Coder.of()))
+            .apply(
+                MapElements.into(TypeDescriptors.strings())
+                    .via(
+                        kv ->
+                            kv.getKey()
+                                + "="
+                                + sorted(kv.getValue().getAll(leftTag))
+                                + sorted(kv.getValue().getAll(rightTag))));
+    PAssert.that(joined).containsInAnyOrder(expected);
+    readPipeline.run();
+  }
+
+  @Test
+  public void testNonDeterministicKeyCoder() {
+    Pipeline p = Pipeline.create();
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            p.apply(Create.of("1.0", "2.0"))
+                .apply(
+                    SortedBucketIO.write(
+                            (String record) -> Double.valueOf(record), DoubleCoder.of())
+                        .to(tmpFolder.getRoot().getAbsolutePath())
+                        .withNumBuckets(2)
+                        .via(TextIO.sink())));
+  }
+
+  private static String keyOf(String record) {
+    return record.substring(0, record.indexOf(':'));
+  }
+
+  private static List<String> sorted(Iterable<String> values) {
+    List<String> sorted = new ArrayList<>();
+    values.forEach(sorted::add);
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  private static void assertSorted(List<String> values) {
+    List<String> sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+    assertEquals(sorted, values);
+  }
+}
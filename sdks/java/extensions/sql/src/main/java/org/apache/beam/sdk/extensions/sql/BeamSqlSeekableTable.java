@@ -18,6 +18,7 @@
 package org.apache.beam.sdk.extensions.sql;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.beam.sdk.annotations.Experimental;
 import org.apache.beam.sdk.values.Row;
@@ -34,6 +35,22 @@ public interface BeamSqlSeekableTable extends Serializable {
   /** return a list of {@code Row} with given key set. */
   List<Row> seekRow(Row lookupSubRow);
 
+  /**
+   * return the lookup results of several key sets, in the same order as {@code lookupSubRows}.
+   *
+   * <p>Tables backed by an external store should override this to fetch all keys in a single
+   * request. It may be called concurrently from several threads when the lookup join runs with a
+   * concurrency above 1, see {@link
+   * org.apache.beam.sdk.extensions.sql.impl.BeamSqlPipelineOptions#getLookupJoinConcurrency()}.
+   */
+  default List<List<Row>> seekRows(List<Row> lookupSubRows) {
+    List<List<Row>> results = new ArrayList<>(lookupSubRows.size());
+    for (Row lookupSubRow : lookupSubRows) {
+      results.add(seekRow(lookupSubRow));
+    }
+    return results;
+  }
+
   /** cleanup resources of the instance. */
   default void tearDown() {};
 }
@@ -43,4 +43,39 @@ public interface BeamSqlPipelineOptions extends PipelineOptions {
   Boolean getVerifyRowValues();
 
   void setVerifyRowValues(Boolean verifyRowValues);
+
+  @Description(
+      "Number of intermediate sub-keys each GROUP BY key is spread across before the final "
+          + "aggregation. Use this to relieve hot keys; 0 disables the fanout.")
+  @Default.Integer(0)
+  Integer getAggregationHotKeyFanout();
+
+  void setAggregationHotKeyFanout(Integer aggregationHotKeyFanout);
+
+  @Description(
+      "Maximum number of fact rows whose keys are looked up together in a seekable table join.")
+  @Default.Integer(100)
+  Integer getLookupJoinBatchSize();
+
+  void setLookupJoinBatchSize(Integer lookupJoinBatchSize);
+
+  @Description("Number of concurrent lookup requests a seekable table join issues per batch.")
+  @Default.Integer(1)
+  Integer getLookupJoinConcurrency();
+
+  void setLookupJoinConcurrency(Integer lookupJoinConcurrency);
+
+  @Description(
+      "Maximum number of keys whose lookup results a seekable table join caches per DoFn "
+          + "instance; 0 disables the cache.")
+  @Default.Long(0)
+  Long getLookupJoinCacheSize();
+
+  void setLookupJoinCacheSize(Long lookupJoinCacheSize);
+
+  @Description("Time in seconds a cached seekable table lookup result stays valid.")
+  @Default.Long(60)
+  Long getLookupJoinCacheTtlSeconds();
+
+  void setLookupJoinCacheTtlSeconds(Long lookupJoinCacheTtlSeconds);
 }
@@ -32,6 +32,7 @@ import org.apache.beam.sdk.extensions.sql.impl.utils.CalciteUtils;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.schemas.Schema.Field;
 import org.apache.beam.sdk.schemas.Schema.FieldType;
+import org.apache.beam.sdk.schemas.transforms.Group.CombineFieldsByFields;
 import org.apache.beam.sdk.transforms.Combine.CombineFn;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.GroupByKey;
@@ -252,8 +253,13 @@ public class BeamAggregationRel extends Aggregate implements BeamRelNode {
         org.apache.beam.sdk.schemas.transforms.Group.AggregateCombiner<Row> byFields =
             org.apache.beam.sdk.schemas.transforms.Group.byFieldIds(keyFieldsIds);
         PTransform<PCollection<Row>, PCollection<Row>> combiner = createCombiner(byFields);
-        boolean verifyRowValues =
-            pinput.getPipeline().getOptions().as(BeamSqlPipelineOptions.class).getVerifyRowValues();
+        BeamSqlPipelineOptions options =
+            pinput.getPipeline().getOptions().as(BeamSqlPipelineOptions.class);
+        int hotKeyFanout = options.getAggregationHotKeyFanout();
+        if (hotKeyFanout > 0 && combiner instanceof CombineFieldsByFields) {
+          combiner = ((CombineFieldsByFields<Row>) combiner).withHotKeyFanout(hotKeyFanout);
+        }
+        boolean verifyRowValues = options.getVerifyRowValues();
         return windowedStream
             .apply(combiner)
             .apply(
@@ -78,6 +78,11 @@ public class BeamIOSourceRel extends TableScan implements BeamRelNode {
         calciteTable);
   }
 
+  public BeamLimitIOSourceRel createLimitRel(long limit) {
+    return new BeamLimitIOSourceRel(
+        getCluster(), traitSet, table, beamTable, limit, pipelineOptions, calciteTable);
+  }
+
   @Override
   public double estimateRowCount(RelMetadataQuery mq) {
     BeamTableStatistics rowCountStatistics = calciteTable.getStatistic();
@@ -20,12 +20,16 @@ package org.apache.beam.sdk.extensions.sql.impl.rel;
 import static org.apache.beam.sdk.extensions.sql.impl.cep.CEPUtils.makeOrderKeysFromCollation;
 import static org.apache.beam.vendor.calcite.v1_28_0.com.google.common.base.Preconditions.checkArgument;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
+import org.apache.beam.sdk.coders.InstantCoder;
 import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.coders.RowCoder;
+import org.apache.beam.sdk.coders.SerializableCoder;
 import org.apache.beam.sdk.extensions.sql.impl.cep.CEPCall;
 import org.apache.beam.sdk.extensions.sql.impl.cep.CEPFieldRef;
 import org.apache.beam.sdk.extensions.sql.impl.cep.CEPKind;
@@ -40,15 +44,27 @@ import org.apache.beam.sdk.extensions.sql.impl.planner.BeamCostModel;
 import org.apache.beam.sdk.extensions.sql.impl.planner.BeamRelMetadataQuery;
 import org.apache.beam.sdk.extensions.sql.impl.planner.NodeStats;
 import org.apache.beam.sdk.extensions.sql.impl.utils.CalciteUtils;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.state.OrderedListState;
+import org.apache.beam.sdk.state.StateSpec;
+import org.apache.beam.sdk.state.StateSpecs;
+import org.apache.beam.sdk.state.TimeDomain;
+import org.apache.beam.sdk.state.Timer;
+import org.apache.beam.sdk.state.TimerSpec;
+import org.apache.beam.sdk.state.TimerSpecs;
+import org.apache.beam.sdk.state.ValueState;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.GroupByKey;
 import org.apache.beam.sdk.transforms.PTransform;
 import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.PCollectionList;
 import org.apache.beam.sdk.values.Row;
+import org.apache.beam.sdk.values.TimestampedValue;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.plan.RelOptCluster;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.plan.RelOptPlanner;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.plan.RelTraitSet;
@@ -61,6 +77,9 @@ import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rex.RexNode;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.sql.SqlKind;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.util.ImmutableBitSet;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.Duration;
+import org.joda.time.Instant;
+import org.joda.time.ReadableDateTime;
 
 /**
  * {@code BeamRelNode} to replace a {@code Match} node.
@@ -68,6 +87,10 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * <p>The {@code BeamMatchRel} is the Beam implementation of {@code MATCH_RECOGNIZE} in SQL.
  *
  * <p>For now, the underline implementation is based on java.util.regex.
+ *
+ * <p>Bounded inputs are grouped and sorted per partition before running the {@link NFA} over each
+ * partition. Unbounded inputs are matched incrementally in event-time order with a stateful {@link
+ * DoFn}, which requires runner support for {@link OrderedListState}.
  */
 @SuppressWarnings({
   "rawtypes", // TODO(https://issues.apache.org/jira/browse/BEAM-10556)
@@ -176,22 +199,9 @@ public class BeamMatchRel extends Match implements BeamRelNode {
 
       // partition according to the partition keys
       PCollection<KV<Row, Row>> keyedUpstream =
-          upstream.apply(ParDo.of(new MapKeys(partitionKeySchema)));
-
-      // group by keys
-      PCollection<KV<Row, Iterable<Row>>> groupedUpstream =
-          keyedUpstream
-              .setCoder(KvCoder.of(RowCoder.of(partitionKeySchema), RowCoder.of(upstreamSchema)))
-              .apply(GroupByKey.create());
-
-      // sort within each keyed partition
-      ArrayList<OrderKey> orderKeyList = makeOrderKeysFromCollation(orderKeys);
-      // This will rely on an assumption that Fusion will fuse
-      // operators here so the sorted result will be preserved
-      // for the next match transform.
-      // In most of the runners (if not all) this should be true.
-      PCollection<KV<Row, Iterable<Row>>> orderedUpstream =
-          groupedUpstream.apply(ParDo.of(new SortPerKey(orderKeyList)));
+          upstream
+              .apply(ParDo.of(new MapKeys(partitionKeySchema)))
+              .setCoder(KvCoder.of(RowCoder.of(partitionKeySchema), RowCoder.of(upstreamSchema)));
 
       // apply the pattern match in each partition
       ArrayList<CEPPattern> cepPattern =
@@ -213,17 +223,54 @@ public class BeamMatchRel extends Match implements BeamRelNode {
         cepMeasures.add(new CEPMeasure(upstreamSchema, outTableName, measureOperation));
       }
 
+      ArrayList<OrderKey> orderKeyList = makeOrderKeysFromCollation(orderKeys);
+
       // apply the ParDo for the match process and measures clause
       // for now, support FINAL only
       // TODO: add support for FINAL/RUNNING
       List<CEPFieldRef> cepParKeys = CEPUtils.getCEPFieldRefFromParKeys(partitionKeys);
-      PCollection<Row> outStream =
-          orderedUpstream
-              .apply(
-                  ParDo.of(
-                      new MatchPattern(
-                          upstreamSchema, cepParKeys, cepPattern, cepMeasures, allRows, outSchema)))
-              .setRowSchema(outSchema);
+      PCollection<Row> outStream;
+      if (upstream.isBounded() == PCollection.IsBounded.UNBOUNDED) {
+        // advance the NFA per row as the watermark passes it, without materializing partitions
+        outStream =
+            keyedUpstream
+                .apply(
+                    ParDo.of(
+                        new StreamingMatchPattern(
+                            upstreamSchema,
+                            cepParKeys,
+                            cepPattern,
+                            orderKeyList,
+                            cepMeasures,
+                            allRows,
+                            outSchema)))
+                .setRowSchema(outSchema);
+      } else {
+        // group by keys
+        PCollection<KV<Row, Iterable<Row>>> groupedUpstream =
+            keyedUpstream.apply(GroupByKey.create());
+
+        // sort within each keyed partition
+        // This will rely on an assumption that Fusion will fuse
+        // operators here so the sorted result will be preserved
+        // for the next match transform.
+        // In most of the runners (if not all) this should be true.
+        PCollection<KV<Row, Iterable<Row>>> orderedUpstream =
+            groupedUpstream.apply(ParDo.of(new SortPerKey(orderKeyList)));
+
+        outStream =
+            orderedUpstream
+                .apply(
+                    ParDo.of(
+                        new MatchPattern(
+                            upstreamSchema,
+                            cepParKeys,
+                            cepPattern,
+                            cepMeasures,
+                            allRows,
+                            outSchema)))
+                .setRowSchema(outSchema);
+      }
 
       return outStream;
     }
@@ -234,11 +281,8 @@ public class BeamMatchRel extends Match implements BeamRelNode {
   private static class MatchPattern extends DoFn<KV<Row, Iterable<Row>>, Row> {
 
     private final Schema upstreamSchema;
-    private final Schema outSchema;
-    private final List<CEPFieldRef> partitionKeys;
     private final ArrayList<CEPPattern> pattern;
-    private final List<CEPMeasure> measures;
-    private final boolean allRows;
+    private final MatchOutput matchOutput;
 
     MatchPattern(
         Schema upstreamSchema,
@@ -248,11 +292,9 @@ public class BeamMatchRel extends Match implements BeamRelNode {
         boolean allRows,
         Schema outSchema) {
       this.upstreamSchema = upstreamSchema;
-      this.partitionKeys = partitionKeys;
       this.pattern = pattern;
-      this.measures = measures;
-      this.allRows = allRows;
-      this.outSchema = outSchema;
+      this.matchOutput =
+          new MatchOutput(upstreamSchema, partitionKeys, measures, allRows, outSchema);
     }
 
     @ProcessElement
@@ -268,119 +310,314 @@ public class BeamMatchRel extends Match implements BeamRelNode {
           // if there isn't match
           continue;
         }
+        matchOutput.output(keyRows.getKey(), result, out);
+      }
+    }
+  }
 
-        if (allRows) {
-          for (ArrayList<Row> i : result.values()) {
-            for (Row j : i) {
-              out.output(j);
-            }
-          }
-        } else {
+  /**
+   * Incremental version of {@link MatchPattern} for unbounded inputs.
+   *
+   * <p>Rows are buffered in an {@link OrderedListState} keyed by their event time, and fed to the
+   * {@link NFA} in event-time order once the watermark passes them. Only the rows that are not yet
+   * processed and the partial matches kept alive by the {@link NFA} are stored, and matches are
+   * emitted as soon as they complete instead of waiting for the whole partition.
+   *
+   * <p>The watermark only bounds event times, so the first {@code ORDER BY} key must be an
+   * ascending {@code TIMESTAMP} column holding the event time of each row. Rows whose ordering
+   * column does not match their event time fail the pipeline instead of being matched out of order.
+   * Late rows, whose event time was already processed for their partition, are dropped and counted
+   * in the {@code droppedLateRows} counter.
+   */
+  private static class StreamingMatchPattern extends DoFn<KV<Row, Row>, Row> {
+
+    private final Schema upstreamSchema;
+    private final ArrayList<CEPPattern> pattern;
+    private final BeamSortRel.BeamSqlRowComparator comparator;
+    private final int eventTimeIndex;
+    private final MatchOutput matchOutput;
+    private final Counter droppedLateRows = Metrics.counter(BeamMatchRel.class, "droppedLateRows");
+
+    @StateId("buffer")
+    private final StateSpec<OrderedListState<Row>> bufferSpec;
+
+    @StateId("nfa")
+    private final StateSpec<ValueState<NFA>> nfaSpec =
+        StateSpecs.value(SerializableCoder.of(NFA.class));
+
+    @StateId("nextTimer")
+    private final StateSpec<ValueState<Instant>> nextTimerSpec =
+        StateSpecs.value(InstantCoder.of());
+
+    // The event time up to which rows were fed to the NFA.
+    @StateId("processedUpTo")
+    private final StateSpec<ValueState<Instant>> processedUpToSpec =
+        StateSpecs.value(InstantCoder.of());
+
+    @TimerId("process")
+    private final TimerSpec processSpec = TimerSpecs.timer(TimeDomain.EVENT_TIME);
+
+    StreamingMatchPattern(
+        Schema upstreamSchema,
+        List<CEPFieldRef> partitionKeys,
+        ArrayList<CEPPattern> pattern,
+        ArrayList<OrderKey> orderKeys,
+        List<CEPMeasure> measures,
+        boolean allRows,
+        Schema outSchema) {
+      this.upstreamSchema = upstreamSchema;
+      this.pattern = pattern;
+      this.comparator = makeComparator(orderKeys);
+      this.eventTimeIndex = getEventTimeIndex(upstreamSchema, orderKeys);
+      this.matchOutput =
+          new MatchOutput(upstreamSchema, partitionKeys, measures, allRows, outSchema);
+      this.bufferSpec = StateSpecs.orderedList(RowCoder.of(upstreamSchema));
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element KV<Row, Row> keyRow,
+        @Timestamp Instant timestamp,
+        @StateId("buffer") OrderedListState<Row> buffer,
+        @StateId("nextTimer") ValueState<Instant> nextTimer,
+        @StateId("processedUpTo") ValueState<Instant> processedUpTo,
+        @TimerId("process") Timer processTimer) {
+      Instant processed = processedUpTo.read();
+      if (processed != null && !timestamp.isAfter(processed)) {
+        // The NFA already moved past this row, matching it now would be out of order.
+        droppedLateRows.inc();
+        return;
+      }
+      Row row = keyRow.getValue();
+      ReadableDateTime eventTime = row.getDateTime(eventTimeIndex);
+      if (eventTime == null || eventTime.getMillis() != timestamp.getMillis()) {
+        throw new IllegalStateException(
+            String.format(
+                "MATCH_RECOGNIZE over an unbounded input must be ordered by the event time of the "
+                    + "rows, but ORDER BY column %s is %s for a row with event time %s.",
+                upstreamSchema.getField(eventTimeIndex).getName(), eventTime, timestamp));
+      }
+      buffer.add(TimestampedValue.of(row, timestamp));
+
+      // Only one timer is kept per key, set at the earliest timestamp not yet processed.
+      Instant currentTimer = nextTimer.read();
+      if (currentTimer == null || timestamp.isBefore(currentTimer)) {
+        processTimer.set(timestamp);
+        nextTimer.write(timestamp);
+      }
+    }
+
+    @OnTimer("process")
+    public void onTimer(
+        OnTimerContext context,
+        @Key Row key,
+        @StateId("buffer") OrderedListState<Row> buffer,
+        @StateId("nfa") ValueState<NFA> nfaState,
+        @StateId("nextTimer") ValueState<Instant> nextTimer,
+        @StateId("processedUpTo") ValueState<Instant> processedUpTo,
+        @TimerId("process") Timer processTimer,
+        OutputReceiver<Row> out) {
+      Instant limit = context.fireTimestamp().plus(Duration.millis(1));
+
+      // Rows with the same event time are ordered by the ORDER BY keys.
+      ArrayList<Row> rows = new ArrayList<>();
+      for (TimestampedValue<Row> row :
+          buffer.readRange(BoundedWindow.TIMESTAMP_MIN_VALUE, limit)) {
+        rows.add(row.getValue());
+      }
+      rows.sort(comparator);
+      buffer.clearRange(BoundedWindow.TIMESTAMP_MIN_VALUE, limit);
+
+      NFA nfa = nfaState.read();
+      if (nfa == null) {
+        nfa = NFA.compile(pattern, upstreamSchema);
+      }
+      for (Row row : rows) {
+        Map<String, ArrayList<Row>> result = nfa.processNewRow(row);
+        if (result != null) {
+          matchOutput.output(key, result, out);
+        }
+      }
+      // The NFA only keeps the runs that can still complete, dead partial matches are dropped.
+      nfaState.write(nfa);
+      processedUpTo.write(context.fireTimestamp());
+
+      Iterator<TimestampedValue<Row>> remaining =
+          buffer.readRange(limit, BoundedWindow.TIMESTAMP_MAX_VALUE).iterator();
+      if (remaining.hasNext()) {
+        Instant next = remaining.next().getTimestamp();
+        processTimer.set(next);
+        nextTimer.write(next);
+      } else {
+        nextTimer.clear();
+      }
+    }
+  }
+
+  /** Builds output rows for a match, as specified by the {@code MEASURES} clause. */
+  private static class MatchOutput implements Serializable {
+
+    private final Schema upstreamSchema;
+    private final Schema outSchema;
+    private final List<CEPFieldRef> partitionKeys;
+    private final List<CEPMeasure> measures;
+    private final boolean allRows;
+
+    MatchOutput(
+        Schema upstreamSchema,
+        List<CEPFieldRef> partitionKeys,
+        List<CEPMeasure> measures,
+        boolean allRows,
+        Schema outSchema) {
+      this.upstreamSchema = upstreamSchema;
+      this.partitionKeys = partitionKeys;
+      this.measures = measures;
+      this.allRows = allRows;
+      this.outSchema = outSchema;
+    }
 
-          // output corresponding columns according to the measures schema
-          Row.Builder newRowBuilder = Row.withSchema(outSchema);
-          Row.FieldValueBuilder newFieldBuilder = null;
-
-          // add partition key columns
-          for (CEPFieldRef i : partitionKeys) {
-            int colIndex = i.getIndex();
-            Schema.Field parSchema = upstreamSchema.getField(colIndex);
-            String fieldName = parSchema.getName();
-            if (!result.isEmpty()) {
-              Row partitionKeyRow = keyRows.getKey();
-              if (newFieldBuilder == null) {
-                newFieldBuilder =
-                    newRowBuilder.withFieldValue(fieldName, partitionKeyRow.getValue(fieldName));
-              } else {
-                newFieldBuilder =
-                    newFieldBuilder.withFieldValue(fieldName, partitionKeyRow.getValue(fieldName));
-              }
+    void output(Row partitionKeyRow, Map<String, ArrayList<Row>> result, OutputReceiver<Row> out) {
+      if (allRows) {
+        for (ArrayList<Row> i : result.values()) {
+          for (Row j : i) {
+            out.output(j);
+          }
+        }
+      } else {
+
+        // output corresponding columns according to the measures schema
+        Row.Builder newRowBuilder = Row.withSchema(outSchema);
+        Row.FieldValueBuilder newFieldBuilder = null;
+
+        // add partition key columns
+        for (CEPFieldRef i : partitionKeys) {
+          int colIndex = i.getIndex();
+          Schema.Field parSchema = upstreamSchema.getField(colIndex);
+          String fieldName = parSchema.getName();
+          if (!result.isEmpty()) {
+            if (newFieldBuilder == null) {
+              newFieldBuilder =
+                  newRowBuilder.withFieldValue(fieldName, partitionKeyRow.getValue(fieldName));
             } else {
-              break;
+              newFieldBuilder =
+                  newFieldBuilder.withFieldValue(fieldName, partitionKeyRow.getValue(fieldName));
             }
+          } else {
+            break;
           }
+        }
 
-          // add measure columns
-          for (CEPMeasure i : measures) {
-            String outName = i.getName();
-            CEPFieldRef patternRef = i.getField();
-            String patternVar = patternRef.getAlpha();
-            List<Row> patternRows = result.get(patternVar);
-
-            // implement CEPOperation as functions
-            CEPOperation opr = i.getOperation();
-            if (opr.getClass() == CEPCall.class) {
-              CEPCall call = (CEPCall) opr;
-              CEPKind funcName = call.getOperator().getCepKind();
-              switch (funcName) {
-                case FIRST:
-                  CEPFieldRef colFirstField = (CEPFieldRef) call.getOperands().get(0);
-                  CEPLiteral colFirstIndex = (CEPLiteral) call.getOperands().get(1);
-                  Row rowFirstToProc = patternRows.get(colFirstIndex.getDecimal().intValue());
-                  if (newFieldBuilder == null) {
-                    newFieldBuilder =
-                        newRowBuilder.withFieldValue(
-                            outName, rowFirstToProc.getValue(colFirstField.getIndex()));
-                  } else {
-                    newFieldBuilder =
-                        newFieldBuilder.withFieldValue(
-                            outName, rowFirstToProc.getValue(colFirstField.getIndex()));
-                  }
-                  break;
-                case LAST:
-                  CEPFieldRef colLastField = (CEPFieldRef) call.getOperands().get(0);
-                  CEPLiteral colLastIndex = (CEPLiteral) call.getOperands().get(1);
-                  Row rowLastToProc =
-                      patternRows.get(
-                          patternRows.size() - 1 - colLastIndex.getDecimal().intValue());
-                  if (newFieldBuilder == null) {
-                    newFieldBuilder =
-                        newRowBuilder.withFieldValue(
-                            outName, rowLastToProc.getValue(colLastField.getIndex()));
-                  } else {
-                    newFieldBuilder =
-                        newFieldBuilder.withFieldValue(
-                            outName, rowLastToProc.getValue(colLastField.getIndex()));
-                  }
-                  break;
-                default:
-                  throw new UnsupportedOperationException(
-                      "The measure function is not recognized: " + funcName.name());
-              }
-            } else if (opr.getClass() == CEPFieldRef.class) {
-              Row rowToProc = patternRows.get(0);
-              CEPFieldRef fieldRef = (CEPFieldRef) opr;
-              if (newFieldBuilder == null) {
-                newFieldBuilder =
-                    newRowBuilder.withFieldValue(outName, rowToProc.getValue(fieldRef.getIndex()));
-              } else {
-                newFieldBuilder =
-                    newFieldBuilder.withFieldValue(
-                        outName, rowToProc.getValue(fieldRef.getIndex()));
-              }
+        // add measure columns
+        for (CEPMeasure i : measures) {
+          String outName = i.getName();
+          CEPFieldRef patternRef = i.getField();
+          String patternVar = patternRef.getAlpha();
+          List<Row> patternRows = result.get(patternVar);
+
+          // implement CEPOperation as functions
+          CEPOperation opr = i.getOperation();
+          if (opr.getClass() == CEPCall.class) {
+            CEPCall call = (CEPCall) opr;
+            CEPKind funcName = call.getOperator().getCepKind();
+            switch (funcName) {
+              case FIRST:
+                CEPFieldRef colFirstField = (CEPFieldRef) call.getOperands().get(0);
+                CEPLiteral colFirstIndex = (CEPLiteral) call.getOperands().get(1);
+                Row rowFirstToProc = patternRows.get(colFirstIndex.getDecimal().intValue());
+                if (newFieldBuilder == null) {
+                  newFieldBuilder =
+                      newRowBuilder.withFieldValue(
+                          outName, rowFirstToProc.getValue(colFirstField.getIndex()));
+                } else {
+                  newFieldBuilder =
+                      newFieldBuilder.withFieldValue(
+                          outName, rowFirstToProc.getValue(colFirstField.getIndex()));
+                }
+                break;
+              case LAST:
+                CEPFieldRef colLastField = (CEPFieldRef) call.getOperands().get(0);
+                CEPLiteral colLastIndex = (CEPLiteral) call.getOperands().get(1);
+                Row rowLastToProc =
+                    patternRows.get(patternRows.size() - 1 - colLastIndex.getDecimal().intValue());
+                if (newFieldBuilder == null) {
+                  newFieldBuilder =
+                      newRowBuilder.withFieldValue(
+                          outName, rowLastToProc.getValue(colLastField.getIndex()));
+                } else {
+                  newFieldBuilder =
+                      newFieldBuilder.withFieldValue(
+                          outName, rowLastToProc.getValue(colLastField.getIndex()));
+                }
+                break;
+              default:
+                throw new UnsupportedOperationException(
+                    "The measure function is not recognized: " + funcName.name());
+            }
+          } else if (opr.getClass() == CEPFieldRef.class) {
+            Row rowToProc = patternRows.get(0);
+            CEPFieldRef fieldRef = (CEPFieldRef) opr;
+            if (newFieldBuilder == null) {
+              newFieldBuilder =
+                  newRowBuilder.withFieldValue(outName, rowToProc.getValue(fieldRef.getIndex()));
             } else {
-              throw new UnsupportedOperationException(
-                  "CEP operation is not recognized: " + opr.getClass().getName());
+              newFieldBuilder =
+                  newFieldBuilder.withFieldValue(outName, rowToProc.getValue(fieldRef.getIndex()));
             }
-          }
-          Row newRow;
-          if (newFieldBuilder == null) {
-            newRow = newRowBuilder.build();
           } else {
-            newRow = newFieldBuilder.build();
+            throw new UnsupportedOperationException(
+                "CEP operation is not recognized: " + opr.getClass().getName());
           }
-          out.output(newRow);
         }
+        Row newRow;
+        if (newFieldBuilder == null) {
+          newRow = newRowBuilder.build();
+        } else {
+          newRow = newFieldBuilder.build();
+        }
+        out.output(newRow);
       }
     }
   }
 
+  private static int getEventTimeIndex(Schema upstreamSchema, List<OrderKey> orderKeys) {
+    if (orderKeys.isEmpty()) {
+      throw new UnsupportedOperationException(
+          "MATCH_RECOGNIZE over an unbounded input requires an ORDER BY on the event time.");
+    }
+    OrderKey first = orderKeys.get(0);
+    Schema.Field field = upstreamSchema.getField(first.getIndex());
+    if (!first.getDir() || field.getType().getTypeName() != Schema.TypeName.DATETIME) {
+      throw new UnsupportedOperationException(
+          String.format(
+              "MATCH_RECOGNIZE over an unbounded input must first be ordered ascending by the "
+                  + "event time, but was ordered by %s %s.",
+              field.getName(), first.getDir() ? "ASC" : "DESC"));
+    }
+    return first.getIndex();
+  }
+
+  private static BeamSortRel.BeamSqlRowComparator makeComparator(List<OrderKey> orderKeys) {
+    ArrayList<Integer> fIndexList = new ArrayList<>();
+    ArrayList<Boolean> dirList = new ArrayList<>();
+    ArrayList<Boolean> nullDirList = new ArrayList<>();
+
+    // reversely traverse the order key list
+    for (int i = (orderKeys.size() - 1); i >= 0; --i) {
+      OrderKey thisKey = orderKeys.get(i);
+      fIndexList.add(thisKey.getIndex());
+      dirList.add(thisKey.getDir());
+      nullDirList.add(thisKey.getNullFirst());
+    }
+
+    return new BeamSortRel.BeamSqlRowComparator(fIndexList, dirList, nullDirList);
+  }
+
   private static class SortPerKey extends DoFn<KV<Row, Iterable<Row>>, KV<Row, Iterable<Row>>> {
 
-    private final ArrayList<OrderKey> orderKeys;
+    private final BeamSortRel.BeamSqlRowComparator comparator;
 
     public SortPerKey(ArrayList<OrderKey> orderKeys) {
-      this.orderKeys = orderKeys;
+      this.comparator = makeComparator(orderKeys);
     }
 
     @ProcessElement
@@ -391,19 +628,7 @@ public class BeamMatchRel extends Match implements BeamRelNode {
         rows.add(i);
       }
 
-      ArrayList<Integer> fIndexList = new ArrayList<>();
-      ArrayList<Boolean> dirList = new ArrayList<>();
-      ArrayList<Boolean> nullDirList = new ArrayList<>();
-
-      // reversely traverse the order key list
-      for (int i = (orderKeys.size() - 1); i >= 0; --i) {
-        OrderKey thisKey = orderKeys.get(i);
-        fIndexList.add(thisKey.getIndex());
-        dirList.add(thisKey.getDir());
-        nullDirList.add(thisKey.getNullFirst());
-      }
-
-      rows.sort(new BeamSortRel.BeamSqlRowComparator(fIndexList, dirList, nullDirList));
+      rows.sort(comparator);
 
       out.output(KV.of(keyRows.getKey(), rows));
     }
@@ -34,6 +34,7 @@ import org.apache.beam.sdk.extensions.sql.impl.planner.BeamCostModel;
 import org.apache.beam.sdk.extensions.sql.impl.planner.BeamRelMetadataQuery;
 import org.apache.beam.sdk.extensions.sql.impl.planner.NodeStats;
 import org.apache.beam.sdk.extensions.sql.impl.utils.CalciteUtils;
+import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.schemas.Schema.FieldType;
 import org.apache.beam.sdk.state.StateSpec;
 import org.apache.beam.sdk.state.StateSpecs;
@@ -63,6 +64,9 @@ import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rex.RexInputRef
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rex.RexLiteral;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rex.RexNode;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.annotations.VisibleForTesting;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.primitives.Booleans;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.primitives.Ints;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -245,13 +249,44 @@ public class BeamSortRel extends Sort implements BeamRelNode {
     @Override
     public PCollection<T> expand(PCollection<T> input) {
       Coder<T> coder = input.getCoder();
+      // No more than (offset + fetch) rows of any single bundle can make it into the result, so
+      // drop the rest before they are funneled through a single key.
       PCollection<KV<String, T>> keyedRow =
-          input.apply(WithKeys.of("DummyKey")).setCoder(KvCoder.of(StringUtf8Coder.of(), coder));
+          input
+              .apply("limitPerBundle", ParDo.of(new BundleLimitFn<T>(startIndex, getCount())))
+              .setCoder(coder)
+              .apply(WithKeys.of("DummyKey"))
+              .setCoder(KvCoder.of(StringUtf8Coder.of(), coder));
 
       return keyedRow.apply(ParDo.of(new LimitFn<T>(getCount(), startIndex)));
     }
   }
 
+  /** Passes through the first {@code startIndex + count} elements of every bundle. */
+  @VisibleForTesting
+  static class BundleLimitFn<T> extends DoFn<T, T> {
+    private final long limit;
+    private transient long seen;
+
+    BundleLimitFn(int startIndex, int count) {
+      // Summed as longs, a large OFFSET plus FETCH would otherwise overflow and drop every row.
+      this.limit = (long) startIndex + count;
+    }
+
+    @StartBundle
+    public void startBundle() {
+      seen = 0;
+    }
+
+    @ProcessElement
+    public void processElement(@Element T element, OutputReceiver<T> out) {
+      if (seen < limit) {
+        seen++;
+        out.output(element);
+      }
+    }
+  }
+
   private static class LimitFn<T> extends DoFn<KV<String, T>, T> {
     private final Integer limitCount;
     private final Integer startIndex;
@@ -312,64 +347,91 @@ public class BeamSortRel extends Sort implements BeamRelNode {
   }
 
   public static class BeamSqlRowComparator implements Comparator<Row>, Serializable {
-    private List<Integer> fieldsIndices;
-    private List<Boolean> orientation;
-    private List<Boolean> nullsFirst;
+    private final int[] fieldsIndices;
+    private final boolean[] orientation;
+    private final boolean[] nullsFirst;
+
+    // Value comparators specialized for the key field types. They are resolved once per schema
+    // rather than looking up and switching on the field type on every comparison.
+    private transient @Nullable Schema schema;
+    private transient ValueComparator @Nullable [] valueComparators;
 
     public BeamSqlRowComparator(
         List<Integer> fieldsIndices, List<Boolean> orientation, List<Boolean> nullsFirst) {
-      this.fieldsIndices = fieldsIndices;
-      this.orientation = orientation;
-      this.nullsFirst = nullsFirst;
+      this.fieldsIndices = Ints.toArray(fieldsIndices);
+      this.orientation = Booleans.toArray(orientation);
+      this.nullsFirst = Booleans.toArray(nullsFirst);
     }
 
     @Override
     public int compare(Row row1, Row row2) {
-      for (int i = 0; i < fieldsIndices.size(); i++) {
-        int fieldIndex = fieldsIndices.get(i);
-        int fieldRet = 0;
-
-        FieldType fieldType = row1.getSchema().getField(fieldIndex).getType();
-        SqlTypeName sqlTypeName = CalciteUtils.toSqlTypeName(fieldType);
+      ValueComparator[] comparators = getValueComparators(row1.getSchema());
+      for (int i = 0; i < fieldsIndices.length; i++) {
+        Object value1 = row1.getValue(fieldsIndices[i]);
+        Object value2 = row2.getValue(fieldsIndices[i]);
+        int fieldRet;
         // whether NULL should be ordered first or last(compared to non-null values) depends on
         // what user specified in SQL(NULLS FIRST/NULLS LAST)
-        boolean isValue1Null = (row1.getValue(fieldIndex) == null);
-        boolean isValue2Null = (row2.getValue(fieldIndex) == null);
-        if (isValue1Null && isValue2Null) {
-          continue;
-        } else if (isValue1Null && !isValue2Null) {
-          fieldRet = -1 * (nullsFirst.get(i) ? -1 : 1);
-        } else if (!isValue1Null && isValue2Null) {
-          fieldRet = 1 * (nullsFirst.get(i) ? -1 : 1);
-        } else {
-          switch (sqlTypeName) {
-            case TINYINT:
-            case SMALLINT:
-            case INTEGER:
-            case BIGINT:
-            case FLOAT:
-            case DOUBLE:
-            case VARCHAR:
-            case DATE:
-            case TIMESTAMP:
-              Comparable v1 = row1.getBaseValue(fieldIndex, Comparable.class);
-              Comparable v2 = row2.getBaseValue(fieldIndex, Comparable.class);
-              fieldRet = v1.compareTo(v2);
-              break;
-            default:
-              throw new UnsupportedOperationException(
-                  "Data type: " + sqlTypeName + " not supported yet!");
+        if (value1 == null) {
+          if (value2 == null) {
+            continue;
           }
+          fieldRet = nullsFirst[i] ? 1 : -1;
+        } else if (value2 == null) {
+          fieldRet = nullsFirst[i] ? -1 : 1;
+        } else {
+          fieldRet = comparators[i].compare(value1, value2);
         }
 
-        fieldRet *= (orientation.get(i) ? 1 : -1);
-
         if (fieldRet != 0) {
-          return fieldRet;
+          return orientation[i] ? fieldRet : -fieldRet;
         }
       }
       return 0;
     }
+
+    private ValueComparator[] getValueComparators(Schema rowSchema) {
+      ValueComparator[] comparators = valueComparators;
+      if (comparators != null && (rowSchema == schema || rowSchema.equals(schema))) {
+        return comparators;
+      }
+      comparators = new ValueComparator[fieldsIndices.length];
+      for (int i = 0; i < fieldsIndices.length; i++) {
+        comparators[i] = valueComparator(rowSchema.getField(fieldsIndices[i]).getType());
+      }
+      schema = rowSchema;
+      valueComparators = comparators;
+      return comparators;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ValueComparator valueComparator(FieldType fieldType) {
+      SqlTypeName sqlTypeName = CalciteUtils.toSqlTypeName(fieldType);
+      switch (sqlTypeName) {
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+        case BIGINT:
+          return (v1, v2) -> Long.compare(((Number) v1).longValue(), ((Number) v2).longValue());
+        case FLOAT:
+        case DOUBLE:
+          return (v1, v2) ->
+              Double.compare(((Number) v1).doubleValue(), ((Number) v2).doubleValue());
+        case VARCHAR:
+          return (v1, v2) -> ((String) v1).compareTo((String) v2);
+        case DATE:
+        case TIMESTAMP:
+          return (v1, v2) -> ((Comparable<Object>) v1).compareTo(v2);
+        default:
+          throw new UnsupportedOperationException(
+              "Data type: " + sqlTypeName + " not supported yet!");
+      }
+    }
+
+    /** Compares two non-null values of a key field. */
+    private interface ValueComparator {
+      int compare(Object value1, Object value2);
+    }
   }
 
   private static class ReversedBeamSqlRowComparator implements Comparator<Row>, Serializable {
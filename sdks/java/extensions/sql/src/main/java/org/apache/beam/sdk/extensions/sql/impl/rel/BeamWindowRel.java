@@ -410,13 +410,14 @@ public class BeamWindowRel extends Window implements BeamRelNode {
 
   private static DoFn<Iterable<Row>, List<Row>> sortPartition(final FieldAggregation fieldAgg) {
     return new DoFn<Iterable<Row>, List<Row>>() {
+      private final BeamSortRel.BeamSqlRowComparator beamSqlRowComparator =
+          new BeamSortRel.BeamSqlRowComparator(
+              fieldAgg.orderKeys, fieldAgg.orderOrientations, fieldAgg.orderNulls);
+
       @ProcessElement
       public void processElement(
           @Element Iterable<Row> inputPartition, OutputReceiver<List<Row>> out, ProcessContext c) {
         List<Row> partitionRows = Lists.newArrayList(inputPartition);
-        BeamSortRel.BeamSqlRowComparator beamSqlRowComparator =
-            new BeamSortRel.BeamSqlRowComparator(
-                fieldAgg.orderKeys, fieldAgg.orderOrientations, fieldAgg.orderNulls);
         Collections.sort(partitionRows, beamSqlRowComparator);
         out.output(partitionRows);
       }
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.sql.impl.rule;
+
+import java.math.BigDecimal;
+import org.apache.beam.sdk.extensions.sql.impl.rel.BeamIOSourceRel;
+import org.apache.beam.sdk.extensions.sql.impl.rel.BeamLimitIOSourceRel;
+import org.apache.beam.sdk.extensions.sql.impl.rel.BeamPushDownIOSourceRel;
+import org.apache.beam.sdk.extensions.sql.meta.BeamSqlTable;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.plan.RelOptRule;
+import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rel.core.RelFactories;
+import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rel.core.Sort;
+import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rex.RexLiteral;
+import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rex.RexNode;
+import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.tools.RelBuilderFactory;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Pushes a {@code LIMIT} without {@code ORDER BY} into a bounded {@link BeamIOSourceRel} that
+ * supports limit push-down, so that the IO can stop reading early. The {@code Sort} is kept on top
+ * of the new {@link BeamLimitIOSourceRel}, since IOs are only required to read at least {@code
+ * offset + fetch} rows.
+ */
+public class BeamIOLimitPushDownRule extends RelOptRule {
+  public static final BeamIOLimitPushDownRule INSTANCE =
+      new BeamIOLimitPushDownRule(RelFactories.LOGICAL_BUILDER);
+
+  public BeamIOLimitPushDownRule(RelBuilderFactory relBuilderFactory) {
+    super(operand(Sort.class, operand(BeamIOSourceRel.class, any())), relBuilderFactory, null);
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    final Sort sort = call.rel(0);
+    final BeamIOSourceRel ioSourceRel = call.rel(1);
+    final BeamSqlTable beamSqlTable = ioSourceRel.getBeamSqlTable();
+
+    // Limit is already pushed-down, or other push-down already happened.
+    if (ioSourceRel instanceof BeamLimitIOSourceRel
+        || ioSourceRel instanceof BeamPushDownIOSourceRel) {
+      return;
+    }
+
+    // Only a plain LIMIT can be pushed-down, ORDER BY ... LIMIT needs to see every row.
+    if (!sort.getCollation().getFieldCollations().isEmpty()) {
+      return;
+    }
+
+    if (!beamSqlTable.supportsLimit()
+        || beamSqlTable.isBounded() != PCollection.IsBounded.BOUNDED) {
+      return;
+    }
+
+    Long fetch = literalValue(sort.fetch);
+    Long offset = sort.offset == null ? Long.valueOf(0L) : literalValue(sort.offset);
+    if (fetch == null || offset == null) {
+      return;
+    }
+
+    call.transformTo(
+        sort.copy(
+            sort.getTraitSet(),
+            ioSourceRel.createLimitRel(offset + fetch),
+            sort.getCollation(),
+            sort.offset,
+            sort.fetch));
+  }
+
+  private static @Nullable Long literalValue(@Nullable RexNode node) {
+    if (!(node instanceof RexLiteral)) {
+      return null;
+    }
+    Object value = ((RexLiteral) node).getValue();
+    return value instanceof BigDecimal ? ((BigDecimal) value).longValue() : null;
+  }
+}
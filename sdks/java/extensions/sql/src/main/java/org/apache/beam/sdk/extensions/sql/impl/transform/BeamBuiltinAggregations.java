@@ -17,18 +17,24 @@
  */
 package org.apache.beam.sdk.extensions.sql.impl.transform;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.Map;
 import java.util.function.Function;
+import org.apache.beam.sdk.coders.AtomicCoder;
 import org.apache.beam.sdk.coders.BigDecimalCoder;
 import org.apache.beam.sdk.coders.BigEndianIntegerCoder;
 import org.apache.beam.sdk.coders.CannotProvideCoderException;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.CoderRegistry;
 import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.NullableCoder;
+import org.apache.beam.sdk.coders.VarLongCoder;
 import org.apache.beam.sdk.extensions.sql.impl.transform.agg.CountIf;
 import org.apache.beam.sdk.extensions.sql.impl.transform.agg.CovarianceFn;
 import org.apache.beam.sdk.extensions.sql.impl.transform.agg.VarianceFn;
@@ -433,51 +439,134 @@ public class BeamBuiltinAggregations {
     public abstract BigDecimal toBigDecimal(T record);
   }
 
-  static class IntegerAvg extends Avg<Integer> {
+  /**
+   * {@link CombineFn} for <em>AVG</em> on integral types. The running sum is kept in a primitive
+   * {@code long} and only spills into a {@link BigDecimal} once it overflows, which keeps the
+   * accumulator cheap to update, merge and encode for partial aggregation.
+   */
+  abstract static class IntegralAvg<T extends Number> extends CombineFn<T, IntegralAvg.Accum, T> {
+    static class Accum {
+      /** Number of inputs seen so far. */
+      long count;
+      /** Sum of the inputs seen so far, excluding {@link #overflow}. */
+      long sum;
+      /** Part of the sum that no longer fits in {@link #sum}, or null if it never overflowed. */
+      @Nullable BigDecimal overflow;
+
+      void add(long value) {
+        long result = sum + value;
+        // Overflow iff both operands have the opposite sign of the result.
+        if (((sum ^ result) & (value ^ result)) < 0) {
+          BigDecimal spilled = BigDecimal.valueOf(sum);
+          overflow = overflow == null ? spilled : overflow.add(spilled);
+          result = value;
+        }
+        sum = result;
+      }
+
+      BigDecimal total() {
+        BigDecimal total = BigDecimal.valueOf(sum);
+        return overflow == null ? total : overflow.add(total);
+      }
+    }
+
     @Override
-    public @Nullable Integer extractOutput(KV<Integer, BigDecimal> accumulator) {
-      return accumulator.getKey() == 0 ? null : prepareOutput(accumulator).intValue();
+    public Accum createAccumulator() {
+      return new Accum();
     }
 
     @Override
-    public BigDecimal toBigDecimal(Integer record) {
-      return new BigDecimal(record);
+    public Accum addInput(Accum accumulator, T input) {
+      accumulator.count++;
+      accumulator.add(input.longValue());
+      return accumulator;
     }
-  }
 
-  static class LongAvg extends Avg<Long> {
     @Override
-    public @Nullable Long extractOutput(KV<Integer, BigDecimal> accumulator) {
-      return accumulator.getKey() == 0 ? null : prepareOutput(accumulator).longValue();
+    public Accum mergeAccumulators(Iterable<Accum> accumulators) {
+      Accum merged = createAccumulator();
+      for (Accum accumulator : accumulators) {
+        merged.count += accumulator.count;
+        merged.add(accumulator.sum);
+        if (accumulator.overflow != null) {
+          merged.overflow =
+              merged.overflow == null
+                  ? accumulator.overflow
+                  : merged.overflow.add(accumulator.overflow);
+        }
+      }
+      return merged;
     }
 
     @Override
-    public BigDecimal toBigDecimal(Long record) {
-      return new BigDecimal(record);
+    public Coder<Accum> getAccumulatorCoder(CoderRegistry registry, Coder<T> inputCoder) {
+      return AccumCoder.INSTANCE;
+    }
+
+    protected BigDecimal prepareOutput(Accum accumulator) {
+      return accumulator.total().divide(BigDecimal.valueOf(accumulator.count), mc);
+    }
+
+    @Override
+    public @Nullable T extractOutput(Accum accumulator) {
+      return accumulator.count == 0 ? null : fromBigDecimal(prepareOutput(accumulator));
+    }
+
+    public abstract T fromBigDecimal(BigDecimal average);
+
+    /** Encodes the count and sum as var-longs, followed by the optional overflow. */
+    static class AccumCoder extends AtomicCoder<Accum> {
+      static final AccumCoder INSTANCE = new AccumCoder();
+
+      private static final Coder<BigDecimal> OVERFLOW_CODER =
+          NullableCoder.of(BigDecimalCoder.of());
+
+      @Override
+      public void encode(Accum value, OutputStream outStream) throws IOException {
+        VarLongCoder.of().encode(value.count, outStream);
+        VarLongCoder.of().encode(value.sum, outStream);
+        OVERFLOW_CODER.encode(value.overflow, outStream);
+      }
+
+      @Override
+      public Accum decode(InputStream inStream) throws IOException {
+        Accum accum = new Accum();
+        accum.count = VarLongCoder.of().decode(inStream);
+        accum.sum = VarLongCoder.of().decode(inStream);
+        accum.overflow = OVERFLOW_CODER.decode(inStream);
+        return accum;
+      }
+
+      @Override
+      public void verifyDeterministic() {}
     }
   }
 
-  static class ShortAvg extends Avg<Short> {
+  static class IntegerAvg extends IntegralAvg<Integer> {
     @Override
-    public @Nullable Short extractOutput(KV<Integer, BigDecimal> accumulator) {
-      return accumulator.getKey() == 0 ? null : prepareOutput(accumulator).shortValue();
+    public Integer fromBigDecimal(BigDecimal average) {
+      return average.intValue();
     }
+  }
 
+  static class LongAvg extends IntegralAvg<Long> {
     @Override
-    public BigDecimal toBigDecimal(Short record) {
-      return new BigDecimal(record);
+    public Long fromBigDecimal(BigDecimal average) {
+      return average.longValue();
     }
   }
 
-  static class ByteAvg extends Avg<Byte> {
+  static class ShortAvg extends IntegralAvg<Short> {
     @Override
-    public @Nullable Byte extractOutput(KV<Integer, BigDecimal> accumulator) {
-      return accumulator.getKey() == 0 ? null : prepareOutput(accumulator).byteValue();
+    public Short fromBigDecimal(BigDecimal average) {
+      return average.shortValue();
     }
+  }
 
+  static class ByteAvg extends IntegralAvg<Byte> {
     @Override
-    public BigDecimal toBigDecimal(Byte record) {
-      return new BigDecimal(record);
+    public Byte fromBigDecimal(BigDecimal average) {
+      return average.byteValue();
     }
   }
 
@@ -18,11 +18,22 @@
 package org.apache.beam.sdk.extensions.sql.impl.transform;
 
 import static java.util.stream.Collectors.toList;
+import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkArgument;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.beam.sdk.extensions.sql.BeamSqlSeekableTable;
+import org.apache.beam.sdk.extensions.sql.impl.BeamSqlPipelineOptions;
 import org.apache.beam.sdk.extensions.sql.impl.utils.SerializableRexFieldAccess;
 import org.apache.beam.sdk.extensions.sql.impl.utils.SerializableRexInputRef;
 import org.apache.beam.sdk.extensions.sql.impl.utils.SerializableRexNode;
@@ -31,12 +42,21 @@ import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.PTransform;
 import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.Row;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rex.RexCall;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rex.RexInputRef;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rex.RexNode;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.util.Pair;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Throwables;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.cache.Cache;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.cache.CacheBuilder;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Lists;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.Instant;
 
 /** Collections of {@code PTransform} and {@code DoFn} used to perform JOIN operation. */
 @SuppressWarnings({
@@ -145,42 +165,228 @@ public class BeamJoinTransforms {
 
     @Override
     public PCollection<Row> expand(PCollection<Row> input) {
+      BeamSqlPipelineOptions options =
+          input.getPipeline().getOptions().as(BeamSqlPipelineOptions.class);
       return input
           .apply(
               "join_as_lookup",
               ParDo.of(
-                  new DoFn<Row, Row>() {
-                    @Setup
-                    public void setup() {
-                      seekableTable.setUp();
-                    }
-
-                    @ProcessElement
-                    public void processElement(ProcessContext context) {
-                      Row factRow = context.element();
-                      Row joinSubRow = extractJoinSubRow(factRow);
-                      List<Row> lookupRows = seekableTable.seekRow(joinSubRow);
-                      for (Row lr : lookupRows) {
-                        context.output(
-                            combineTwoRowsIntoOne(factRow, lr, factColOffset != 0, outputSchema));
-                      }
-                    }
-
-                    @Teardown
-                    public void teardown() {
-                      seekableTable.tearDown();
-                    }
-
-                    private Row extractJoinSubRow(Row factRow) {
-                      List<Object> joinSubsetValues =
-                          factJoinIdx.stream()
-                              .map(i -> factRow.getBaseValue(i, Object.class))
-                              .collect(toList());
-
-                      return Row.withSchema(joinSubsetType).addValues(joinSubsetValues).build();
-                    }
-                  }))
+                  new LookupFn(
+                      seekableTable,
+                      factJoinIdx,
+                      joinSubsetType,
+                      outputSchema,
+                      factColOffset != 0,
+                      options.getLookupJoinBatchSize(),
+                      options.getLookupJoinConcurrency(),
+                      options.getLookupJoinCacheSize(),
+                      options.getLookupJoinCacheTtlSeconds())))
           .setRowSchema(joinSubsetType);
     }
   }
+
+  /**
+   * Looks up the fact rows of a bundle in batches of distinct keys through {@link
+   * BeamSqlSeekableTable#seekRows}, optionally serving recently seen keys from a cache.
+   *
+   * <p>Joined rows keep the window and timestamp of their fact row. Since an element can only
+   * output to its own window, and not before its timestamp, fact rows are batched per window and
+   * timestamp. A batch is looked up and emitted by the element that fills it, so at most {@code
+   * batchSize - 1} rows wait per window and timestamp. Only batches that are not full at the end
+   * of the bundle are looked up there.
+   */
+  private static class LookupFn extends DoFn<Row, Row> {
+    private final BeamSqlSeekableTable seekableTable;
+    private final List<Integer> factJoinIdx;
+    private final Schema joinSubsetType;
+    private final Schema outputSchema;
+    private final boolean swap;
+    private final int batchSize;
+    private final int concurrency;
+    private final long cacheSize;
+    private final long cacheTtlSeconds;
+
+    private transient @Nullable Cache<Row, List<Row>> cache;
+    private transient @Nullable ExecutorService executor;
+    // Fact rows waiting to be looked up, by window and timestamp.
+    private transient Map<KV<BoundedWindow, Instant>, List<PendingRow>> pending;
+
+    LookupFn(
+        BeamSqlSeekableTable seekableTable,
+        List<Integer> factJoinIdx,
+        Schema joinSubsetType,
+        Schema outputSchema,
+        boolean swap,
+        int batchSize,
+        int concurrency,
+        long cacheSize,
+        long cacheTtlSeconds) {
+      checkArgument(batchSize > 0, "Lookup join batch size must be positive, got %s", batchSize);
+      checkArgument(
+          concurrency > 0, "Lookup join concurrency must be positive, got %s", concurrency);
+      this.seekableTable = seekableTable;
+      this.factJoinIdx = factJoinIdx;
+      this.joinSubsetType = joinSubsetType;
+      this.outputSchema = outputSchema;
+      this.swap = swap;
+      this.batchSize = batchSize;
+      this.concurrency = concurrency;
+      this.cacheSize = cacheSize;
+      this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    @Setup
+    public void setup() {
+      seekableTable.setUp();
+      if (cacheSize > 0) {
+        cache =
+            CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtlSeconds, TimeUnit.SECONDS)
+                .build();
+      }
+      if (concurrency > 1) {
+        executor =
+            Executors.newFixedThreadPool(
+                concurrency, new ThreadFactoryBuilder().setDaemon(true).build());
+      }
+    }
+
+    @StartBundle
+    public void startBundle() {
+      pending = new LinkedHashMap<>();
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element Row factRow,
+        @Timestamp Instant timestamp,
+        BoundedWindow window,
+        OutputReceiver<Row> out)
+        throws Exception {
+      KV<BoundedWindow, Instant> batchKey = KV.of(window, timestamp);
+      List<PendingRow> batch = pending.computeIfAbsent(batchKey, k -> new ArrayList<>());
+      batch.add(new PendingRow(factRow, extractJoinSubRow(factRow), timestamp, window));
+      if (batch.size() < batchSize) {
+        return;
+      }
+      pending.remove(batchKey);
+      for (KV<PendingRow, List<Row>> joined : lookup(batch)) {
+        for (Row lr : joined.getValue()) {
+          out.output(combineTwoRowsIntoOne(joined.getKey().factRow, lr, swap, outputSchema));
+        }
+      }
+    }
+
+    @FinishBundle
+    public void finishBundle(FinishBundleContext context) throws Exception {
+      // The partial batches of all windows and timestamps are looked up together.
+      List<PendingRow> rows = new ArrayList<>();
+      for (List<PendingRow> batch : pending.values()) {
+        rows.addAll(batch);
+      }
+      pending.clear();
+      for (List<PendingRow> batch : Lists.partition(rows, batchSize)) {
+        for (KV<PendingRow, List<Row>> joined : lookup(batch)) {
+          PendingRow row = joined.getKey();
+          for (Row lr : joined.getValue()) {
+            context.output(
+                combineTwoRowsIntoOne(row.factRow, lr, swap, outputSchema),
+                row.timestamp,
+                row.window);
+          }
+        }
+      }
+    }
+
+    @Teardown
+    public void teardown() {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+      seekableTable.tearDown();
+    }
+
+    private Row extractJoinSubRow(Row factRow) {
+      List<Object> joinSubsetValues =
+          factJoinIdx.stream().map(i -> factRow.getBaseValue(i, Object.class)).collect(toList());
+
+      return Row.withSchema(joinSubsetType).addValues(joinSubsetValues).build();
+    }
+
+    /** Pairs every pending row with the lookup rows of its key. */
+    private List<KV<PendingRow, List<Row>>> lookup(List<PendingRow> rows) throws Exception {
+      Map<Row, List<Row>> results = new HashMap<>();
+      List<Row> misses = new ArrayList<>();
+      for (PendingRow row : rows) {
+        if (results.containsKey(row.joinSubRow)) {
+          continue;
+        }
+        List<Row> cached = cache == null ? null : cache.getIfPresent(row.joinSubRow);
+        results.put(row.joinSubRow, cached);
+        if (cached == null) {
+          misses.add(row.joinSubRow);
+        }
+      }
+
+      List<List<Row>> fetched = seekRows(misses);
+      for (int i = 0; i < misses.size(); i++) {
+        // Tables may return null for a key without matches, which the cache does not accept.
+        List<Row> lookupRows = fetched.get(i);
+        if (lookupRows == null) {
+          lookupRows = Collections.emptyList();
+        }
+        results.put(misses.get(i), lookupRows);
+        if (cache != null) {
+          cache.put(misses.get(i), lookupRows);
+        }
+      }
+
+      List<KV<PendingRow, List<Row>>> joined = new ArrayList<>(rows.size());
+      for (PendingRow row : rows) {
+        joined.add(KV.of(row, results.get(row.joinSubRow)));
+      }
+      return joined;
+    }
+
+    /** Splits the keys into one request per lookup thread and issues them concurrently. */
+    private List<List<Row>> seekRows(List<Row> keys) throws Exception {
+      if (keys.isEmpty()) {
+        return Collections.emptyList();
+      }
+      if (executor == null || keys.size() == 1) {
+        return seekableTable.seekRows(keys);
+      }
+      int chunkSize = (keys.size() + concurrency - 1) / concurrency;
+      List<Future<List<List<Row>>>> requests = new ArrayList<>();
+      for (List<Row> chunk : Lists.partition(keys, chunkSize)) {
+        requests.add(executor.submit(() -> seekableTable.seekRows(chunk)));
+      }
+      List<List<Row>> results = new ArrayList<>(keys.size());
+      for (Future<List<List<Row>>> request : requests) {
+        try {
+          results.addAll(request.get());
+        } catch (ExecutionException e) {
+          Throwables.throwIfUnchecked(e.getCause());
+          throw e;
+        }
+      }
+      return results;
+    }
+  }
+
+  /** A fact row waiting to be looked up. */
+  private static class PendingRow {
+    private final Row factRow;
+    private final Row joinSubRow;
+    private final Instant timestamp;
+    private final BoundedWindow window;
+
+    PendingRow(Row factRow, Row joinSubRow, Instant timestamp, BoundedWindow window) {
+      this.factRow = factRow;
+      this.joinSubRow = joinSubRow;
+      this.timestamp = timestamp;
+      this.window = window;
+    }
+  }
 }
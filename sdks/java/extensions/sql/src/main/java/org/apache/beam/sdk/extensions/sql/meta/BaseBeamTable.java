@@ -23,7 +23,7 @@ import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.Row;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rex.RexNode;
 
-/** Basic implementation of {@link BeamSqlTable} methods used by predicate and filter push-down. */
+/** Basic implementation of {@link BeamSqlTable} methods used by push-down. */
 public abstract class BaseBeamTable implements BeamSqlTable {
 
   @Override
@@ -44,6 +44,12 @@ public abstract class BaseBeamTable implements BeamSqlTable {
     return buildIOReader(begin);
   }
 
+  @Override
+  public PCollection<Row> buildIOReader(PBegin begin, long limit) {
+    // The limit is still enforced on top of the source, so reading everything is always correct.
+    return buildIOReader(begin);
+  }
+
   @Override
   public BeamSqlTableFilter constructFilter(List<RexNode> filter) {
     return new DefaultTableFilter(filter);
@@ -53,4 +59,9 @@ public abstract class BaseBeamTable implements BeamSqlTable {
   public ProjectSupport supportsProjects() {
     return ProjectSupport.NONE;
   }
+
+  @Override
+  public boolean supportsLimit() {
+    return false;
+  }
 }
@@ -35,6 +35,13 @@ public interface BeamSqlTable {
   /** create a {@code PCollection<Row>} from source with predicate and/or project pushed-down. */
   PCollection<Row> buildIOReader(PBegin begin, BeamSqlTableFilter filters, List<String> fieldNames);
 
+  /**
+   * create a {@code PCollection<Row>} from source with limit pushed-down. The IO may stop reading
+   * once {@code limit} rows have been produced; the rows returned are not guaranteed to be in any
+   * particular order.
+   */
+  PCollection<Row> buildIOReader(PBegin begin, long limit);
+
   /** create a {@code IO.write()} instance to write to target. */
   POutput buildIOWriter(PCollection<Row> input);
 
@@ -44,6 +51,9 @@ public interface BeamSqlTable {
   /** Whether project push-down is supported by the IO API. */
   ProjectSupport supportsProjects();
 
+  /** Whether limit push-down is supported by the IO API. */
+  boolean supportsLimit();
+
   /** Whether this table is bounded (known to be finite) or unbounded (may or may not be finite). */
   PCollection.IsBounded isBounded();
 
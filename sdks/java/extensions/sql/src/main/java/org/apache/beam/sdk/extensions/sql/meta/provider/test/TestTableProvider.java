@@ -74,6 +74,7 @@ import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.sql.type.SqlTyp
 public class TestTableProvider extends InMemoryMetaTableProvider {
   static final Map<Long, Map<String, TableWithRows>> GLOBAL_TABLES = new ConcurrentHashMap<>();
   public static final String PUSH_DOWN_OPTION = "push_down";
+  public static final String LIMIT_PUSH_DOWN_OPTION = "push_down_limit";
 
   private static final AtomicLong INSTANCES = new AtomicLong(0);
   private final long instanceId = INSTANCES.getAndIncrement();
@@ -141,6 +142,7 @@ public class TestTableProvider extends InMemoryMetaTableProvider {
   private static class InMemoryTable extends BaseBeamTable {
     private TableWithRows tableWithRows;
     private PushDownOptions options;
+    private boolean limitPushDown;
 
     @Override
     public PCollection.IsBounded isBounded() {
@@ -159,6 +161,9 @@ public class TestTableProvider extends InMemoryMetaTableProvider {
       } else {
         options = PushDownOptions.NONE;
       }
+      limitPushDown =
+          tableWithRows.table.getProperties().containsKey(LIMIT_PUSH_DOWN_OPTION)
+              && tableWithRows.table.getProperties().getBoolean(LIMIT_PUSH_DOWN_OPTION);
     }
 
     @Override
@@ -222,6 +227,22 @@ public class TestTableProvider extends InMemoryMetaTableProvider {
       return result;
     }
 
+    @Override
+    public PCollection<Row> buildIOReader(PBegin begin, long limit) {
+      if (!limitPushDown) {
+        return super.buildIOReader(begin, limit);
+      }
+      List<Row> rows =
+          GLOBAL_TABLES
+              .get(this.tableWithRows.tableProviderInstanceId)
+              .get(this.tableWithRows.table.getName())
+              .rows;
+      // Only read as many rows as needed.
+      return begin.apply(
+          Create.of(rows.subList(0, (int) Math.min(limit, rows.size())))
+              .withRowSchema(getSchema()));
+    }
+
     @Override
     public POutput buildIOWriter(PCollection<Row> input) {
       input.apply(ParDo.of(new CollectorFn(tableWithRows))).setRowSchema(input.getSchema());
@@ -243,6 +264,11 @@ public class TestTableProvider extends InMemoryMetaTableProvider {
           : ProjectSupport.NONE;
     }
 
+    @Override
+    public boolean supportsLimit() {
+      return limitPushDown;
+    }
+
     @Override
     public Schema getSchema() {
       return tableWithRows.table.getSchema();
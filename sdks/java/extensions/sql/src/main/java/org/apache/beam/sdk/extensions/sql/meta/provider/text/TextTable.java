@@ -17,16 +17,23 @@
  */
 package org.apache.beam.sdk.extensions.sql.meta.provider.text;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import org.apache.beam.sdk.annotations.Internal;
 import org.apache.beam.sdk.extensions.sql.impl.BeamTableStatistics;
 import org.apache.beam.sdk.extensions.sql.meta.BeamSqlTable;
 import org.apache.beam.sdk.extensions.sql.meta.SchemaBaseBeamTable;
+import org.apache.beam.sdk.io.FileIO;
 import org.apache.beam.sdk.io.TextIO;
 import org.apache.beam.sdk.io.TextRowCountEstimator;
 import org.apache.beam.sdk.options.PipelineOptions;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
 import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.values.PBegin;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.PDone;
@@ -110,10 +117,55 @@ public class TextTable extends SchemaBaseBeamTable {
         .apply("StringToRow", readConverter);
   }
 
+  /**
+   * Reads the files one by one instead of splitting them, and stops reading each file once it
+   * produced {@code limit} rows. Empty lines are passed on but not counted, as some formats skip
+   * them.
+   */
+  @Override
+  public PCollection<Row> buildIOReader(PBegin begin, long limit) {
+    return begin
+        .apply("MatchTextFiles", FileIO.match().filepattern(filePattern))
+        .apply("ReadMatches", FileIO.readMatches())
+        .apply("ReadFirstLines", ParDo.of(new ReadFirstLinesFn(limit)))
+        .setCoder(StringUtf8Coder.of())
+        .apply("StringToRow", readConverter);
+  }
+
+  @Override
+  public boolean supportsLimit() {
+    return true;
+  }
+
   @Override
   public PDone buildIOWriter(PCollection<Row> input) {
     return input
         .apply("RowToString", writeConverter)
         .apply("WriteTextFiles", TextIO.write().withDelimiter(new char[] {}).to(filePattern));
   }
+
+  /** Outputs the lines of every file until {@code limit} non-empty lines have been read. */
+  private static class ReadFirstLinesFn extends DoFn<FileIO.ReadableFile, String> {
+    private final long limit;
+
+    ReadFirstLinesFn(long limit) {
+      this.limit = limit;
+    }
+
+    @ProcessElement
+    public void processElement(@Element FileIO.ReadableFile file, OutputReceiver<String> out)
+        throws IOException {
+      try (BufferedReader reader =
+          new BufferedReader(Channels.newReader(file.open(), StandardCharsets.UTF_8.name()))) {
+        long read = 0;
+        String line;
+        while (read < limit && (line = reader.readLine()) != null) {
+          out.output(line);
+          if (!line.isEmpty()) {
+            read++;
+          }
+        }
+      }
+    }
+  }
 }
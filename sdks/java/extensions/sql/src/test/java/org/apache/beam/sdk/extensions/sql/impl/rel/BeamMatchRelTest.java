@@ -19,14 +19,28 @@ package org.apache.beam.sdk.extensions.sql.impl.rel;
 
 import static org.apache.beam.sdk.extensions.sql.impl.rel.BaseRelTest.compilePipeline;
 import static org.apache.beam.sdk.extensions.sql.impl.rel.BaseRelTest.registerTable;
-
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.fail;
+
+import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.PipelineResult;
 import org.apache.beam.sdk.extensions.sql.TestUtils;
 import org.apache.beam.sdk.extensions.sql.meta.provider.test.TestBoundedTable;
+import org.apache.beam.sdk.extensions.sql.meta.provider.test.TestUnboundedTable;
+import org.apache.beam.sdk.metrics.MetricNameFilter;
+import org.apache.beam.sdk.metrics.MetricQueryResults;
+import org.apache.beam.sdk.metrics.MetricResult;
+import org.apache.beam.sdk.metrics.MetricsFilter;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.testing.PAssert;
 import org.apache.beam.sdk.testing.TestPipeline;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.Row;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
@@ -76,6 +90,143 @@ public class BeamMatchRelTest {
     pipeline.run().waitUntilFinish();
   }
 
+  @Test
+  public void matchUnboundedTest() {
+    registerTable(
+        "TestUnboundedTable",
+        TestUnboundedTable.of(
+                Schema.FieldType.INT32, "id",
+                Schema.FieldType.STRING, "name",
+                Schema.FieldType.DATETIME, "event_time")
+            .timestampColumnIndex(2)
+            .addRows(Duration.ZERO, 1, "b", new DateTime(2), 1, "a", new DateTime(1))
+            .addRows(Duration.millis(2), 1, "c", new DateTime(3), 2, "a", new DateTime(3)));
+
+    String sql =
+        "SELECT * "
+            + "FROM TestUnboundedTable "
+            + "MATCH_RECOGNIZE ("
+            + "PARTITION BY id "
+            + "ORDER BY event_time "
+            + "ALL ROWS PER MATCH "
+            + "PATTERN (A B C) "
+            + "DEFINE "
+            + "A AS name = 'a', "
+            + "B AS name = 'b', "
+            + "C AS name = 'c' "
+            + ") AS T";
+
+    PCollection<Row> result = compilePipeline(sql, pipeline);
+
+    PAssert.that(result)
+        .containsInAnyOrder(
+            TestUtils.RowsBuilder.of(
+                    Schema.FieldType.INT32, "id",
+                    Schema.FieldType.STRING, "name",
+                    Schema.FieldType.DATETIME, "event_time")
+                .addRows(1, "a", new DateTime(1), 1, "b", new DateTime(2), 1, "c", new DateTime(3))
+                .getRows());
+
+    pipeline.run().waitUntilFinish();
+  }
+
+  @Test
+  public void matchUnboundedOrderedByOtherColumnTest() {
+    registerTable(
+        "TestUnboundedTable",
+        TestUnboundedTable.of(
+                Schema.FieldType.INT32, "id",
+                Schema.FieldType.STRING, "name",
+                Schema.FieldType.DATETIME, "event_time",
+                Schema.FieldType.DATETIME, "order_time")
+            .timestampColumnIndex(2)
+            .addRows(
+                Duration.ZERO,
+                1, "a", new DateTime(1), new DateTime(3),
+                1, "b", new DateTime(2), new DateTime(2),
+                1, "c", new DateTime(3), new DateTime(1)));
+
+    String sql =
+        "SELECT * "
+            + "FROM TestUnboundedTable "
+            + "MATCH_RECOGNIZE ("
+            + "PARTITION BY id "
+            + "ORDER BY order_time "
+            + "ALL ROWS PER MATCH "
+            + "PATTERN (A B C) "
+            + "DEFINE "
+            + "A AS name = 'c', "
+            + "B AS name = 'b', "
+            + "C AS name = 'a' "
+            + ") AS T";
+
+    compilePipeline(sql, pipeline);
+
+    // Matching in event-time order would silently miss the c, b, a sequence of order_time.
+    try {
+      pipeline.run().waitUntilFinish();
+      fail("Expected the pipeline to reject rows not ordered by their event time");
+    } catch (Pipeline.PipelineExecutionException e) {
+      assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+      assertThat(e.getCause().getMessage(), containsString("order_time"));
+    }
+  }
+
+  @Test
+  public void matchUnboundedDropsLateRowsTest() {
+    registerTable(
+        "TestUnboundedTable",
+        TestUnboundedTable.of(
+                Schema.FieldType.INT32, "id",
+                Schema.FieldType.STRING, "name",
+                Schema.FieldType.DATETIME, "event_time")
+            .timestampColumnIndex(2)
+            .addRows(Duration.ZERO, 1, "a", new DateTime(1), 1, "b", new DateTime(2))
+            // By now rows up to 2 were matched, the late x would break the a, b, c sequence.
+            .addRows(Duration.millis(5), 1, "x", new DateTime(1), 1, "c", new DateTime(6)));
+
+    String sql =
+        "SELECT * "
+            + "FROM TestUnboundedTable "
+            + "MATCH_RECOGNIZE ("
+            + "PARTITION BY id "
+            + "ORDER BY event_time "
+            + "ALL ROWS PER MATCH "
+            + "PATTERN (A B C) "
+            + "DEFINE "
+            + "A AS name = 'a', "
+            + "B AS name = 'b', "
+            + "C AS name = 'c' "
+            + ") AS T";
+
+    PCollection<Row> result = compilePipeline(sql, pipeline);
+
+    PAssert.that(result)
+        .containsInAnyOrder(
+            TestUtils.RowsBuilder.of(
+                    Schema.FieldType.INT32, "id",
+                    Schema.FieldType.STRING, "name",
+                    Schema.FieldType.DATETIME, "event_time")
+                .addRows(1, "a", new DateTime(1), 1, "b", new DateTime(2), 1, "c", new DateTime(6))
+                .getRows());
+
+    PipelineResult pipelineResult = pipeline.run();
+    pipelineResult.waitUntilFinish();
+
+    MetricQueryResults metrics =
+        pipelineResult
+            .metrics()
+            .queryMetrics(
+                MetricsFilter.builder()
+                    .addNameFilter(MetricNameFilter.named(BeamMatchRel.class, "droppedLateRows"))
+                    .build());
+    long dropped = 0;
+    for (MetricResult<Long> counter : metrics.getCounters()) {
+      dropped += counter.getAttempted();
+    }
+    assertThat(dropped, equalTo(1L));
+  }
+
   @Test
   public void matchQuantifierTest() {
     Schema schemaType =
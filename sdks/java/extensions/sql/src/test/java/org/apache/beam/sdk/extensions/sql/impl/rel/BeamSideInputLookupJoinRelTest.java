@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.List;
 import org.apache.beam.sdk.extensions.sql.BeamSqlSeekableTable;
 import org.apache.beam.sdk.extensions.sql.TestUtils;
+import org.apache.beam.sdk.extensions.sql.impl.BeamSqlPipelineOptions;
 import org.apache.beam.sdk.extensions.sql.impl.BeamTableStatistics;
 import org.apache.beam.sdk.extensions.sql.meta.SchemaBaseBeamTable;
 import org.apache.beam.sdk.extensions.sql.meta.provider.test.TestTableUtils;
@@ -83,6 +84,22 @@ public class BeamSideInputLookupJoinRelTest extends BaseRelTest {
     }
   }
 
+  /** Test table for JOIN-AS-LOOKUP that returns {@code null} for keys without a match. */
+  public static class SparseSiteLookupTable extends SiteLookupTable {
+
+    public SparseSiteLookupTable(Schema schema) {
+      super(schema);
+    }
+
+    @Override
+    public List<Row> seekRow(Row lookupSubRow) {
+      if (lookupSubRow.getInt32("site_id") == 2) {
+        return super.seekRow(lookupSubRow);
+      }
+      return null;
+    }
+  }
+
   @BeforeClass
   public static void prepare() {
     BeamSideInputJoinRelTest.registerUnboundedTable();
@@ -97,6 +114,16 @@ public class BeamSideInputLookupJoinRelTest extends BaseRelTest {
                 Schema.FieldType.STRING,
                 "site_name",
                 nullable)));
+    registerTable(
+        "SPARSE_SITE_LKP",
+        new SparseSiteLookupTable(
+            TestTableUtils.buildBeamSqlNullableSchema(
+                Schema.FieldType.INT32,
+                "site_id",
+                nullable,
+                Schema.FieldType.STRING,
+                "site_name",
+                nullable)));
   }
 
   @Test
@@ -119,6 +146,58 @@ public class BeamSideInputLookupJoinRelTest extends BaseRelTest {
     pipeline.run();
   }
 
+  @Test
+  public void testBoundedTableLeftOuterJoinWithLookupTableBatchedAndCached() throws Exception {
+    BeamSqlPipelineOptions options = pipeline.getOptions().as(BeamSqlPipelineOptions.class);
+    options.setLookupJoinBatchSize(2);
+    options.setLookupJoinConcurrency(2);
+    options.setLookupJoinCacheSize(10L);
+    String sql =
+        "SELECT o1.order_id, o2.site_name FROM "
+            + " ORDER_DETAILS1 o1 "
+            + " LEFT OUTER JOIN "
+            + " SITE_LKP o2 "
+            + " on "
+            + " o1.site_id=o2.site_id ";
+    PCollection<Row> rows = compilePipeline(sql, pipeline);
+    PAssert.that(rows.apply(ParDo.of(new TestUtils.BeamSqlRow2StringDoFn())))
+        .containsInAnyOrder(
+            TestUtils.RowsBuilder.ofNullable(
+                    Schema.FieldType.INT32,
+                    "order_id",
+                    nullable,
+                    Schema.FieldType.STRING,
+                    "site_name",
+                    nullable)
+                .addRows(1, "SITE1")
+                .addRows(2, null)
+                .addRows(3, null)
+                .getStringRows());
+    pipeline.run();
+  }
+
+  @Test
+  public void testBoundedTableInnerJoinWithLookupTableMissCached() throws Exception {
+    BeamSqlPipelineOptions options = pipeline.getOptions().as(BeamSqlPipelineOptions.class);
+    options.setLookupJoinBatchSize(2);
+    options.setLookupJoinCacheSize(10L);
+    String sql =
+        "SELECT o1.order_id, o2.site_name FROM "
+            + " ORDER_DETAILS1 o1 "
+            + " JOIN SPARSE_SITE_LKP o2 "
+            + " on "
+            + " o1.site_id=o2.site_id ";
+    PCollection<Row> rows = compilePipeline(sql, pipeline);
+    PAssert.that(rows.apply(ParDo.of(new TestUtils.BeamSqlRow2StringDoFn())))
+        .containsInAnyOrder(
+            TestUtils.RowsBuilder.of(
+                    Schema.FieldType.INT32, "order_id",
+                    Schema.FieldType.STRING, "site_name")
+                .addRows(1, "SITE1")
+                .getStringRows());
+    pipeline.run();
+  }
+
   @Test
   public void testLookupTableInnerJoinWithBoundedTable() throws Exception {
     String sql =
@@ -17,6 +17,7 @@
  */
 package org.apache.beam.sdk.extensions.sql.impl.rel;
 
+import java.util.Arrays;
 import org.apache.beam.sdk.extensions.sql.TestUtils;
 import org.apache.beam.sdk.extensions.sql.impl.planner.BeamRelMetadataQuery;
 import org.apache.beam.sdk.extensions.sql.impl.planner.NodeStats;
@@ -24,6 +25,8 @@ import org.apache.beam.sdk.extensions.sql.meta.provider.test.TestBoundedTable;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.testing.PAssert;
 import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.Row;
 import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rel.RelNode;
@@ -293,6 +296,62 @@ public class BeamSortRelTest extends BaseRelTest {
     compilePipeline(sql, pipeline);
   }
 
+  @Test
+  public void testBundleLimitFnDoesNotOverflow() {
+    PCollection<Integer> result =
+        pipeline
+            .apply(Create.of(1, 2, 3))
+            .apply(
+                ParDo.of(
+                    new BeamSortRel.BundleLimitFn<Integer>(Integer.MAX_VALUE, Integer.MAX_VALUE)));
+
+    PAssert.that(result).containsInAnyOrder(1, 2, 3);
+    pipeline.run().waitUntilFinish();
+  }
+
+  @Test
+  public void testBundleLimitFnZeroLimit() {
+    PCollection<Integer> result =
+        pipeline
+            .apply(Create.of(1, 2, 3))
+            .apply(ParDo.of(new BeamSortRel.BundleLimitFn<Integer>(0, 0)));
+
+    PAssert.that(result).empty();
+    pipeline.run().waitUntilFinish();
+  }
+
+  @Test
+  public void testRowComparator() {
+    Schema schema =
+        Schema.builder()
+            .addNullableField("id", Schema.FieldType.INT32)
+            .addNullableField("price", Schema.FieldType.DOUBLE)
+            .addNullableField("name", Schema.FieldType.STRING)
+            .build();
+    // id asc, price desc, name asc
+    BeamSortRel.BeamSqlRowComparator comparator =
+        new BeamSortRel.BeamSqlRowComparator(
+            Arrays.asList(0, 1, 2),
+            Arrays.asList(true, false, true),
+            Arrays.asList(true, true, true));
+
+    Row row = Row.withSchema(schema).addValues(1, 2.0, "b").build();
+    Assert.assertEquals(0, comparator.compare(row, row));
+    Assert.assertTrue(
+        comparator.compare(row, Row.withSchema(schema).addValues(2, 2.0, "b").build()) < 0);
+    Assert.assertTrue(
+        comparator.compare(row, Row.withSchema(schema).addValues(1, 3.0, "b").build()) > 0);
+    Assert.assertTrue(
+        comparator.compare(row, Row.withSchema(schema).addValues(1, 2.0, "c").build()) < 0);
+    Assert.assertTrue(
+        comparator.compare(row, Row.withSchema(schema).addValues(null, 2.0, "b").build()) < 0);
+
+    // Rows with an equal schema from another instance are compared the same way.
+    Schema copy = Schema.builder().addFields(schema.getFields()).build();
+    Assert.assertTrue(
+        comparator.compare(row, Row.withSchema(copy).addValues(1, 3.0, "b").build()) > 0);
+  }
+
   @Test
   public void testNodeStatsEstimation() {
     String sql =
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.sql.impl.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import org.apache.beam.sdk.coders.CoderRegistry;
+import org.apache.beam.sdk.coders.VarLongCoder;
+import org.apache.beam.sdk.extensions.sql.impl.transform.BeamBuiltinAggregations.IntegralAvg;
+import org.apache.beam.sdk.extensions.sql.impl.transform.BeamBuiltinAggregations.LongAvg;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.junit.Test;
+
+/** Unit tests for {@link BeamBuiltinAggregations}. */
+public class BeamBuiltinAggregationsTest {
+
+  @Test
+  public void testLongAvgOfNoInputsIsNull() {
+    LongAvg avg = new LongAvg();
+
+    assertNull(avg.extractOutput(avg.createAccumulator()));
+  }
+
+  @Test
+  public void testLongAvgRoundsLikeBigDecimal() {
+    LongAvg avg = new LongAvg();
+    IntegralAvg.Accum accum = avg.createAccumulator();
+    for (long value : new long[] {1L, 2L, 4L}) {
+      accum = avg.addInput(accum, value);
+    }
+
+    assertEquals(Long.valueOf(2L), avg.extractOutput(accum));
+  }
+
+  @Test
+  public void testLongAvgSpillsOverflowingSums() {
+    LongAvg avg = new LongAvg();
+    IntegralAvg.Accum accum = avg.createAccumulator();
+    for (int i = 0; i < 4; i++) {
+      accum = avg.addInput(accum, Long.MAX_VALUE);
+    }
+
+    assertEquals(Long.valueOf(Long.MAX_VALUE), avg.extractOutput(accum));
+  }
+
+  @Test
+  public void testLongAvgMergesOverflowingAccumulators() {
+    LongAvg avg = new LongAvg();
+    IntegralAvg.Accum first = avg.addInput(avg.createAccumulator(), Long.MIN_VALUE);
+    first = avg.addInput(first, Long.MIN_VALUE);
+    IntegralAvg.Accum second = avg.addInput(avg.createAccumulator(), Long.MIN_VALUE);
+
+    IntegralAvg.Accum merged = avg.mergeAccumulators(Arrays.asList(first, second));
+
+    assertEquals(3L, merged.count);
+    assertEquals(Long.valueOf(Long.MIN_VALUE), avg.extractOutput(merged));
+  }
+
+  @Test
+  public void testIntegralAvgAccumulatorCoder() throws Exception {
+    LongAvg avg = new LongAvg();
+    IntegralAvg.Accum accum = avg.createAccumulator();
+    accum = avg.addInput(accum, Long.MAX_VALUE);
+    accum = avg.addInput(accum, Long.MAX_VALUE);
+
+    IntegralAvg.Accum decoded =
+        CoderUtils.clone(
+            avg.getAccumulatorCoder(CoderRegistry.createDefault(), VarLongCoder.of()), accum);
+
+    assertEquals(accum.count, decoded.count);
+    assertEquals(accum.total(), decoded.total());
+  }
+}
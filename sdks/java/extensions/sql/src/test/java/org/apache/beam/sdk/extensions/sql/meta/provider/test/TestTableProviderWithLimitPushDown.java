@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.sql.meta.provider.test;
+
+import static org.apache.beam.sdk.extensions.sql.meta.provider.test.TestTableProvider.LIMIT_PUSH_DOWN_OPTION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsNot.not;
+
+import com.alibaba.fastjson.JSON;
+import java.util.List;
+import org.apache.beam.sdk.extensions.sql.impl.BeamSqlEnv;
+import org.apache.beam.sdk.extensions.sql.impl.rel.BeamIOSourceRel;
+import org.apache.beam.sdk.extensions.sql.impl.rel.BeamLimitIOSourceRel;
+import org.apache.beam.sdk.extensions.sql.impl.rel.BeamRelNode;
+import org.apache.beam.sdk.extensions.sql.impl.rel.BeamSortRel;
+import org.apache.beam.sdk.extensions.sql.impl.rel.BeamSqlRelUtils;
+import org.apache.beam.sdk.extensions.sql.impl.rule.BeamCalcRule;
+import org.apache.beam.sdk.extensions.sql.impl.rule.BeamIOLimitPushDownRule;
+import org.apache.beam.sdk.extensions.sql.impl.rule.BeamSortRule;
+import org.apache.beam.sdk.extensions.sql.meta.Table;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Count;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.Row;
+import org.apache.beam.vendor.calcite.v1_28_0.com.google.common.collect.ImmutableList;
+import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.plan.RelOptRule;
+import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.rel.rules.CoreRules;
+import org.apache.beam.vendor.calcite.v1_28_0.org.apache.calcite.tools.RuleSets;
+import org.joda.time.Duration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TestTableProviderWithLimitPushDown {
+  private static final Schema BASIC_SCHEMA =
+      Schema.builder().addInt32Field("id").addStringField("name").build();
+  private static final List<RelOptRule> rulesWithPushDown =
+      ImmutableList.of(
+          BeamCalcRule.INSTANCE,
+          BeamSortRule.INSTANCE,
+          BeamIOLimitPushDownRule.INSTANCE,
+          CoreRules.FILTER_TO_CALC,
+          CoreRules.PROJECT_TO_CALC,
+          CoreRules.CALC_MERGE);
+  private BeamSqlEnv sqlEnv;
+
+  @Rule public TestPipeline pipeline = TestPipeline.create();
+
+  @Before
+  public void buildUp() {
+    TestTableProvider tableProvider = new TestTableProvider();
+    tableProvider.createTable(getTable("TEST", true));
+    tableProvider.createTable(getTable("TEST_NO_PUSH_DOWN", false));
+    for (String name : ImmutableList.of("TEST", "TEST_NO_PUSH_DOWN")) {
+      tableProvider.addRows(
+          name,
+          row(BASIC_SCHEMA, 1, "one"),
+          row(BASIC_SCHEMA, 2, "two"),
+          row(BASIC_SCHEMA, 3, "three"),
+          row(BASIC_SCHEMA, 4, "four"));
+    }
+
+    sqlEnv =
+        BeamSqlEnv.builder(tableProvider)
+            .setPipelineOptions(PipelineOptionsFactory.create())
+            .setRuleSets(ImmutableList.of(RuleSets.ofList(rulesWithPushDown)))
+            .build();
+  }
+
+  @Test
+  public void testLimitPushDown() {
+    BeamRelNode beamRelNode = sqlEnv.parseQuery("SELECT * FROM TEST LIMIT 2");
+    PCollection<Row> result = BeamSqlRelUtils.toPCollection(pipeline, beamRelNode);
+
+    assertThat(beamRelNode, instanceOf(BeamSortRel.class));
+    assertThat(beamRelNode.getInput(0), instanceOf(BeamLimitIOSourceRel.class));
+    assertThat(((BeamLimitIOSourceRel) beamRelNode.getInput(0)).getLimit(), equalTo(2L));
+    PAssert.thatSingleton(result.apply(Count.globally())).isEqualTo(2L);
+
+    pipeline.run().waitUntilFinish(Duration.standardMinutes(2));
+  }
+
+  @Test
+  public void testLimitPushDown_withOffset() {
+    BeamRelNode beamRelNode = sqlEnv.parseQuery("SELECT * FROM TEST LIMIT 2 OFFSET 1");
+    PCollection<Row> result = BeamSqlRelUtils.toPCollection(pipeline, beamRelNode);
+
+    assertThat(beamRelNode, instanceOf(BeamSortRel.class));
+    assertThat(beamRelNode.getInput(0), instanceOf(BeamLimitIOSourceRel.class));
+    // Offset rows need to be read as well.
+    assertThat(((BeamLimitIOSourceRel) beamRelNode.getInput(0)).getLimit(), equalTo(3L));
+    PAssert.thatSingleton(result.apply(Count.globally())).isEqualTo(2L);
+
+    pipeline.run().waitUntilFinish(Duration.standardMinutes(2));
+  }
+
+  @Test
+  public void testLimitPushDown_withOrderBy() {
+    BeamRelNode beamRelNode = sqlEnv.parseQuery("SELECT * FROM TEST ORDER BY id DESC LIMIT 2");
+    PCollection<Row> result = BeamSqlRelUtils.toPCollection(pipeline, beamRelNode);
+
+    // ORDER BY needs to see every row, limit should not be pushed-down.
+    assertThat(beamRelNode, instanceOf(BeamSortRel.class));
+    assertThat(beamRelNode.getInput(0), instanceOf(BeamIOSourceRel.class));
+    assertThat(beamRelNode.getInput(0), not(instanceOf(BeamLimitIOSourceRel.class)));
+    PAssert.that(result)
+        .containsInAnyOrder(row(BASIC_SCHEMA, 4, "four"), row(BASIC_SCHEMA, 3, "three"));
+
+    pipeline.run().waitUntilFinish(Duration.standardMinutes(2));
+  }
+
+  @Test
+  public void testLimitPushDown_notSupported() {
+    BeamRelNode beamRelNode = sqlEnv.parseQuery("SELECT * FROM TEST_NO_PUSH_DOWN LIMIT 2");
+    PCollection<Row> result = BeamSqlRelUtils.toPCollection(pipeline, beamRelNode);
+
+    assertThat(beamRelNode, instanceOf(BeamSortRel.class));
+    assertThat(beamRelNode.getInput(0), not(instanceOf(BeamLimitIOSourceRel.class)));
+    PAssert.thatSingleton(result.apply(Count.globally())).isEqualTo(2L);
+
+    pipeline.run().waitUntilFinish(Duration.standardMinutes(2));
+  }
+
+  private static Row row(Schema schema, Object... objects) {
+    return Row.withSchema(schema).addValues(objects).build();
+  }
+
+  private static Table getTable(String name, boolean limitPushDown) {
+    return Table.builder()
+        .name(name)
+        .comment(name + " table")
+        .schema(BASIC_SCHEMA)
+        .properties(JSON.parseObject("{ " + LIMIT_PUSH_DOWN_OPTION + ": " + limitPushDown + " }"))
+        .type("test")
+        .build();
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.beam.sdk.extensions.sql.SqlTransform;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.testing.PAssert;
 import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Count;
 import org.apache.beam.sdk.transforms.MapElements;
 import org.apache.beam.sdk.util.BackOff;
 import org.apache.beam.sdk.util.NumberedShardedFile;
@@ -208,6 +209,47 @@ public class TextTableProviderTest {
     pipeline.run();
   }
 
+  /** Tests that a limited read stops reading each file once it produced enough rows. */
+  @Test
+  public void testLinesLimitedRead() throws Exception {
+    Files.write(
+        tempFolder.newFile("test.txt").toPath(), "a\n\nb\nc\nd\n".getBytes(Charsets.UTF_8));
+    TextTable table =
+        new TextTable(
+            LINES_SCHEMA,
+            tempFolder.getRoot() + "/*",
+            new TextTableProvider.LinesReadConverter(),
+            new TextTableProvider.LinesWriteConverter());
+
+    PCollection<Row> rows = table.buildIOReader(pipeline.begin(), 2);
+
+    // Empty lines are not counted towards the limit.
+    PCollection<String> lines =
+        rows.apply(MapElements.into(TypeDescriptors.strings()).via((Row row) -> row.getString(0)));
+    PAssert.that(lines).containsInAnyOrder("a", "", "b");
+    pipeline.run();
+  }
+
+  /** Tests that {@code LIMIT} over a text table returns exactly the requested number of rows. */
+  @Test
+  public void testLinesLimit() throws Exception {
+    Files.write(
+        tempFolder.newFile("test1.txt").toPath(), "a\nb\nc\nd\n".getBytes(Charsets.UTF_8));
+    Files.write(
+        tempFolder.newFile("test2.txt").toPath(), "e\nf\ng\nh\n".getBytes(Charsets.UTF_8));
+
+    String query = "SELECT * FROM test LIMIT 3";
+    String ddl =
+        String.format(
+            "CREATE EXTERNAL TABLE test %s TYPE text LOCATION '%s/*' TBLPROPERTIES '{\"format\":\"lines\"}'",
+            SQL_LINES_SCHEMA, tempFolder.getRoot());
+
+    PCollection<Row> rows = pipeline.apply(SqlTransform.query(query).withDdlString(ddl));
+
+    PAssert.thatSingleton(rows.apply(Count.globally())).isEqualTo(3L);
+    pipeline.run();
+  }
+
   @Test
   public void testJson() throws Exception {
     Files.write(tempFolder.newFile("test.json").toPath(), JSON_TEXT.getBytes(Charsets.UTF_8));
@@ -30,6 +30,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -37,8 +38,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -52,6 +59,7 @@ import org.apache.beam.sdk.coders.CoderRegistry;
 import org.apache.beam.sdk.coders.RowCoder;
 import org.apache.beam.sdk.coders.VoidCoder;
 import org.apache.beam.sdk.io.jdbc.JdbcIO.WriteFn.WriteFnSpec;
+import org.apache.beam.sdk.io.jdbc.JdbcUtil.BalancedPartitioningFn;
 import org.apache.beam.sdk.io.jdbc.JdbcUtil.PartitioningFn;
 import org.apache.beam.sdk.io.jdbc.SchemaUtil.FieldWithIndex;
 import org.apache.beam.sdk.metrics.Distribution;
@@ -93,6 +101,8 @@ import org.apache.beam.sdk.values.Row;
 import org.apache.beam.sdk.values.TypeDescriptor;
 import org.apache.beam.sdk.values.TypeDescriptors;
 import org.apache.beam.sdk.values.TypeDescriptors.TypeVariableExtractor;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Lists;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.apache.commons.dbcp2.DataSourceConnectionFactory;
 import org.apache.commons.dbcp2.PoolableConnectionFactory;
@@ -229,7 +239,9 @@ import org.slf4j.LoggerFactory;
  *   <li><b>Use auto-inference</b> if the queries for bound and partition inference are efficient to
  *       execute in your DBMS.
  *   <li>The distribution of data over the partitioning column is <i>roughly uniform</i>. Uniformity
- *       is not mandatory, but this transform will work best in that situation.
+ *       is not mandatory, but this transform will work best in that situation. For skewed columns,
+ *       use {@link ReadWithPartitions#withBalancedPartitions()} to plan partitions holding roughly
+ *       the same number of rows.
  * </ul>
  *
  * <p>The following example shows usage of <b>auto-inferred ranges, number of partitions, and
@@ -361,7 +373,9 @@ public class JdbcIO {
     return new AutoValue_JdbcIO_ReadWithPartitions.Builder<T, PartitionColumnT>()
         .setPartitionColumnType(partitioningColumnType)
         .setNumPartitions(DEFAULT_NUM_PARTITIONS)
+        .setFetchSize(DEFAULT_FETCH_SIZE)
         .setUseBeamSchema(false)
+        .setUseBalancedPartitions(false)
         .build();
   }
 
@@ -389,6 +403,7 @@ public class JdbcIO {
   public static <T> WriteVoid<T> writeVoid() {
     return new AutoValue_JdbcIO_WriteVoid.Builder<T>()
         .setBatchSize(DEFAULT_BATCH_SIZE)
+        .setMaxInFlightBatches(1)
         .setRetryStrategy(new DefaultRetryStrategy())
         .setRetryConfiguration(RetryConfiguration.create(5, null, Duration.standardSeconds(5)))
         .build();
@@ -1069,6 +1084,10 @@ public class JdbcIO {
 
     abstract TypeDescriptor<PartitionColumnT> getPartitionColumnType();
 
+    abstract int getFetchSize();
+
+    abstract boolean getUseBalancedPartitions();
+
     abstract Builder<T, PartitionColumnT> toBuilder();
 
     @AutoValue.Builder
@@ -1096,6 +1115,10 @@ public class JdbcIO {
       abstract Builder<T, PartitionColumnT> setPartitionColumnType(
           TypeDescriptor<PartitionColumnT> partitionColumnType);
 
+      abstract Builder<T, PartitionColumnT> setFetchSize(int fetchSize);
+
+      abstract Builder<T, PartitionColumnT> setUseBalancedPartitions(boolean useBalancedPartitions);
+
       abstract ReadWithPartitions<T, PartitionColumnT> build();
     }
 
@@ -1159,6 +1182,29 @@ public class JdbcIO {
       return toBuilder().setTable(tableName).build();
     }
 
+    /**
+     * This method is used to set the size of the data that is going to be fetched and loaded in
+     * memory per every database call when reading each partition, and when scanning the
+     * partitioning column for {@link #withBalancedPartitions()}. Please refer to: {@link
+     * java.sql.Statement#setFetchSize(int)} It should ONLY be used if the default value throws
+     * memory errors.
+     */
+    public ReadWithPartitions<T, PartitionColumnT> withFetchSize(int fetchSize) {
+      checkArgument(fetchSize > 0, "fetch size must be > 0");
+      return toBuilder().setFetchSize(fetchSize).build();
+    }
+
+    /**
+     * Split the partitioning column into partitions holding roughly the same number of rows,
+     * instead of ranges of the same width. This avoids straggler partitions when the values of the
+     * partitioning column are skewed, at the cost of reading the column within the bounds once
+     * when planning the partitions. The boundaries are taken from a sample of the column, so only
+     * the sample is kept in memory and the database does not need to sort the column.
+     */
+    public ReadWithPartitions<T, PartitionColumnT> withBalancedPartitions() {
+      return toBuilder().setUseBalancedPartitions(true).build();
+    }
+
     private static final int EQUAL = 0;
 
     @Override
@@ -1262,9 +1308,22 @@ public class JdbcIO {
         rowMapper = getRowMapper();
       }
 
+      DoFn<KV<Long, KV<PartitionColumnT, PartitionColumnT>>, KV<PartitionColumnT, PartitionColumnT>>
+          partitioningFn;
+      if (getUseBalancedPartitions()) {
+        partitioningFn =
+            new BalancedPartitioningFn<>(
+                getDataSourceProviderFn(),
+                getTable(),
+                getPartitionColumn(),
+                getFetchSize(),
+                getPartitionColumnType());
+      } else {
+        partitioningFn = new PartitioningFn<>(getPartitionColumnType());
+      }
       PCollection<KV<PartitionColumnT, PartitionColumnT>> ranges =
           params
-              .apply("Partitioning", ParDo.of(new PartitioningFn<>(getPartitionColumnType())))
+              .apply("Partitioning", ParDo.of(partitioningFn))
               .apply("Reshuffle partitions", Reshuffle.viaRandomKey());
 
       JdbcIO.ReadAll<KV<PartitionColumnT, PartitionColumnT>, T> readAll =
@@ -1275,6 +1334,7 @@ public class JdbcIO {
                       "select * from %1$s where %2$s >= ? and %2$s < ?",
                       getTable(), getPartitionColumn()))
               .withRowMapper(rowMapper)
+              .withFetchSize(getFetchSize())
               .withParameterSetter(
                   (JdbcUtil.JdbcReadWithPartitionsHelper.getPartitionsHelper(
                           getPartitionColumnType()))
@@ -1314,6 +1374,8 @@ public class JdbcIO {
       builder.add(
           DisplayData.item(
               "upperBound", getUpperBound() == null ? "auto-infer" : getUpperBound().toString()));
+      builder.add(DisplayData.item("fetchSize", getFetchSize()));
+      builder.add(DisplayData.item("balancedPartitions", getUseBalancedPartitions()));
       if (getDataSourceProviderFn() instanceof HasDisplayData) {
         ((HasDisplayData) getDataSourceProviderFn()).populateDisplayData(builder);
       }
@@ -1509,6 +1571,11 @@ public class JdbcIO {
       return new Write<>(inner.withBatchSize(batchSize));
     }
 
+    /** See {@link WriteVoid#withMaxInFlightBatches(int)}. */
+    public Write<T> withMaxInFlightBatches(int maxInFlightBatches) {
+      return new Write<>(inner.withMaxInFlightBatches(maxInFlightBatches));
+    }
+
     /** See {@link WriteVoid#withRetryStrategy(RetryStrategy)}. */
     public Write<T> withRetryStrategy(RetryStrategy retryStrategy) {
       return new Write<>(inner.withRetryStrategy(retryStrategy));
@@ -1789,6 +1856,7 @@ public class JdbcIO {
                       .setRetryConfiguration(getRetryConfiguration())
                       .setReturnResults(true)
                       .setBatchSize(1)
+                      .setMaxInFlightBatches(1)
                       .build())));
     }
   }
@@ -1808,6 +1876,8 @@ public class JdbcIO {
 
     abstract long getBatchSize();
 
+    abstract int getMaxInFlightBatches();
+
     abstract @Nullable PreparedStatementSetter<T> getPreparedStatementSetter();
 
     abstract @Nullable RetryStrategy getRetryStrategy();
@@ -1829,6 +1899,8 @@ public class JdbcIO {
 
       abstract Builder<T> setBatchSize(long batchSize);
 
+      abstract Builder<T> setMaxInFlightBatches(int maxInFlightBatches);
+
       abstract Builder<T> setPreparedStatementSetter(PreparedStatementSetter<T> setter);
 
       abstract Builder<T> setRetryStrategy(RetryStrategy deadlockPredicate);
@@ -1876,6 +1948,24 @@ public class JdbcIO {
       return toBuilder().setBatchSize(batchSize).build();
     }
 
+    /**
+     * Provide the maximum number of batches each writer keeps in flight. Default is 1, where each
+     * batch is executed and committed before processing the next one.
+     *
+     * <p>With more than one batch in flight, batches are executed and committed in the background,
+     * each on its own connection, so processing isn't blocked on the database round trip. All the
+     * batches of a bundle are committed before the bundle finishes. Batches may then be committed
+     * in a different order than they were produced, so this should only be used when the
+     * statements of different batches don't depend on each other.
+     *
+     * @param maxInFlightBatches maximum number of batches being written at once
+     */
+    public WriteVoid<T> withMaxInFlightBatches(int maxInFlightBatches) {
+      checkArgument(
+          maxInFlightBatches > 0, "maxInFlightBatches must be > 0, but was %s", maxInFlightBatches);
+      return toBuilder().setMaxInFlightBatches(maxInFlightBatches).build();
+    }
+
     /**
      * When a SQL exception occurs, {@link Write} uses this {@link RetryStrategy} to determine if it
      * will retry the statements. If {@link RetryStrategy#apply(SQLException)} returns {@code true},
@@ -1960,6 +2050,7 @@ public class JdbcIO {
                           .setTable(spec.getTable())
                           .setStatement(spec.getStatement())
                           .setBatchSize(spec.getBatchSize())
+                          .setMaxInFlightBatches(spec.getMaxInFlightBatches())
                           .setReturnResults(false)
                           .build())))
           .setCoder(VoidCoder.of());
@@ -2231,7 +2322,8 @@ public class JdbcIO {
                 DisplayData.item(
                     "rowMapper",
                     getRowMapper() == null ? "null" : getRowMapper().getClass().toString()))
-            .addIfNotNull(DisplayData.item("batchSize", getBatchSize()));
+            .addIfNotNull(DisplayData.item("batchSize", getBatchSize()))
+            .add(DisplayData.item("maxInFlightBatches", getMaxInFlightBatches()));
       }
 
       abstract SerializableFunction<Void, DataSource> getDataSourceProviderFn();
@@ -2250,6 +2342,8 @@ public class JdbcIO {
 
       abstract @Nullable Long getBatchSize();
 
+      abstract int getMaxInFlightBatches();
+
       abstract Boolean getReturnResults();
 
       static Builder builder() {
@@ -2274,6 +2368,8 @@ public class JdbcIO {
 
         abstract Builder<T, V> setBatchSize(long batchSize);
 
+        abstract Builder<T, V> setMaxInFlightBatches(int maxInFlightBatches);
+
         abstract Builder<T, V> setReturnResults(Boolean returnResults);
 
         abstract WriteFnSpec<T, V> build();
@@ -2291,6 +2387,12 @@ public class JdbcIO {
     private PreparedStatement preparedStatement;
     private static FluentBackoff retryBackOff;
 
+    // Only used with more than one batch in flight. Each in-flight batch holds one of the
+    // connections, and reports its size and latency to be recorded on the processing thread.
+    private transient ExecutorService batchExecutor;
+    private transient Queue<Future<KV<Integer, Long>>> inFlightBatches;
+    private transient Queue<Connection> idleConnections;
+
     public WriteFn(WriteFnSpec<T, V> spec) {
       this.spec = spec;
     }
@@ -2316,6 +2418,17 @@ public class JdbcIO {
               .withInitialBackoff(retryConfiguration.getInitialDuration())
               .withMaxCumulativeBackoff(retryConfiguration.getMaxDuration())
               .withMaxRetries(retryConfiguration.getMaxAttempts());
+      if (spec.getMaxInFlightBatches() > 1) {
+        batchExecutor =
+            Executors.newFixedThreadPool(
+                spec.getMaxInFlightBatches(),
+                new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("jdbc-write-batch-%d")
+                    .build());
+        inFlightBatches = new ArrayDeque<>();
+        idleConnections = new ConcurrentLinkedQueue<>();
+      }
     }
 
     private Connection getConnection() throws SQLException {
@@ -2329,13 +2442,30 @@ public class JdbcIO {
 
     @ProcessElement
     public void processElement(ProcessContext context) throws Exception {
-      executeBatch(context, context.element());
+      if (batchExecutor != null) {
+        submitBatch(context.element());
+      } else {
+        executeBatch(context, context.element());
+      }
     }
 
     @FinishBundle
     public void finishBundle() throws Exception {
       // We pass a null context because we only execute a final batch for WriteVoid cases.
-      cleanUpStatementAndConnection();
+      try {
+        if (batchExecutor != null) {
+          completeBatches(0);
+        }
+      } finally {
+        cleanUpStatementAndConnection();
+      }
+    }
+
+    @Teardown
+    public void teardown() throws Exception {
+      if (batchExecutor != null) {
+        batchExecutor.shutdownNow();
+      }
     }
 
     @Override
@@ -2344,6 +2474,13 @@ public class JdbcIO {
     }
 
     private void cleanUpStatementAndConnection() throws Exception {
+      if (idleConnections != null) {
+        for (Connection idleConnection = idleConnections.poll();
+            idleConnection != null;
+            idleConnection = idleConnections.poll()) {
+          idleConnection.close();
+        }
+      }
       try {
         if (preparedStatement != null) {
           try {
@@ -2363,14 +2500,75 @@ public class JdbcIO {
       }
     }
 
+    /** Writes the batch in the background, once fewer than the max batches are in flight. */
+    private void submitBatch(Iterable<T> records) throws Exception {
+      completeBatches(spec.getMaxInFlightBatches() - 1);
+      List<T> batch = Lists.newArrayList(records);
+      inFlightBatches.add(
+          batchExecutor.submit(
+              () -> {
+                long startTimeNs = System.nanoTime();
+                Connection batchConnection = idleConnections.poll();
+                if (batchConnection == null) {
+                  batchConnection = dataSource.getConnection();
+                  batchConnection.setAutoCommit(false);
+                }
+                int recordsInBatch;
+                try {
+                  recordsInBatch = executeBatch(batchConnection, null, batch);
+                } catch (Exception e) {
+                  batchConnection.close();
+                  throw e;
+                }
+                idleConnections.add(batchConnection);
+                return KV.of(
+                    recordsInBatch,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNs));
+              }));
+    }
+
+    /**
+     * Waits for the oldest batches until at most {@code maxInFlight} are left. If a batch failed,
+     * waits for all the others and rethrows the first failure.
+     */
+    private void completeBatches(int maxInFlight) throws Exception {
+      Exception failure = null;
+      while (inFlightBatches.size() > (failure == null ? maxInFlight : 0)) {
+        Future<KV<Integer, Long>> batch = inFlightBatches.poll();
+        try {
+          KV<Integer, Long> result = batch.get();
+          // Metrics can only be reported from the processing thread.
+          RECORDS_PER_BATCH.update(result.getKey());
+          MS_PER_BATCH.update(result.getValue());
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure =
+                e.getCause() instanceof Exception ? (Exception) e.getCause() : new IOException(e);
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+
     private void executeBatch(ProcessContext context, Iterable<T> records)
         throws SQLException, IOException, InterruptedException {
       Long startTimeNs = System.nanoTime();
+      int recordsInBatch = executeBatch(getConnection(), context, records);
+      RECORDS_PER_BATCH.update(recordsInBatch);
+      MS_PER_BATCH.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNs));
+    }
+
+    /** Executes and commits the batch on the given connection, and returns its size. */
+    private int executeBatch(
+        Connection connection, @Nullable ProcessContext context, Iterable<T> records)
+        throws SQLException, IOException, InterruptedException {
       Sleeper sleeper = Sleeper.DEFAULT;
       BackOff backoff = retryBackOff.backoff();
       while (true) {
         try (PreparedStatement preparedStatement =
-            getConnection().prepareStatement(spec.getStatement().get())) {
+            connection.prepareStatement(spec.getStatement().get())) {
           try {
             // add each record in the statement batch
             int recordsInBatch = 0;
@@ -2382,11 +2580,9 @@ public class JdbcIO {
               // execute the batch
               preparedStatement.executeBatch();
               // commit the changes
-              getConnection().commit();
+              connection.commit();
             }
-            RECORDS_PER_BATCH.update(recordsInBatch);
-            MS_PER_BATCH.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNs));
-            break;
+            return recordsInBatch;
           } catch (SQLException exception) {
             if (!spec.getRetryStrategy().apply(exception)) {
               throw exception;
@@ -2404,7 +2600,8 @@ public class JdbcIO {
       }
     }
 
-    private void processRecord(T record, PreparedStatement preparedStatement, ProcessContext c) {
+    private void processRecord(
+        T record, PreparedStatement preparedStatement, @Nullable ProcessContext c) {
       try {
         preparedStatement.clearParameters();
         spec.getPreparedStatementSetter().setParameters(record, preparedStatement);
@@ -17,6 +17,7 @@
  */
 package org.apache.beam.sdk.io.jdbc;
 
+import java.sql.Connection;
 import java.sql.Date;
 import java.sql.JDBCType;
 import java.sql.PreparedStatement;
@@ -33,17 +34,21 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import javax.sql.DataSource;
 import org.apache.beam.sdk.io.jdbc.JdbcIO.PreparedStatementSetter;
 import org.apache.beam.sdk.io.jdbc.JdbcIO.ReadWithPartitions;
 import org.apache.beam.sdk.io.jdbc.JdbcIO.RowMapper;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.SerializableFunction;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.Row;
 import org.apache.beam.sdk.values.TypeDescriptor;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.ImmutableMap;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Iterables;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Lists;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
@@ -366,6 +371,9 @@ class JdbcUtil {
 
     @Override
     KV<Long, KV<PartitionT, PartitionT>> mapRow(ResultSet resultSet) throws Exception;
+
+    /** Reads a single value of the partitioning column from the current row. */
+    PartitionT getPartitionValue(ResultSet resultSet, int columnIndex) throws SQLException;
   }
 
   /** Create partitions on a table. */
@@ -392,6 +400,104 @@ class JdbcUtil {
     }
   }
 
+  /**
+   * Create partitions on a table holding roughly the same number of rows each, rather than
+   * covering ranges of the same width. The boundaries are the quantiles of a uniform sample of the
+   * partitioning column, of at most {@link #SAMPLE_SIZE_PER_PARTITION} values per partition, so
+   * skewed columns don't end up with a few partitions holding most of the rows. The column is read
+   * once without sorting, and only the sample is kept in memory.
+   */
+  static class BalancedPartitioningFn<T> extends DoFn<KV<Long, KV<T, T>>, KV<T, T>> {
+    private static final Logger LOG = LoggerFactory.getLogger(BalancedPartitioningFn.class);
+    static final int SAMPLE_SIZE_PER_PARTITION = 1000;
+    private final SerializableFunction<Void, DataSource> dataSourceProviderFn;
+    private final String table;
+    private final String partitionColumn;
+    private final int fetchSize;
+    final TypeDescriptor<T> partitioningColumnType;
+
+    private transient DataSource dataSource;
+
+    BalancedPartitioningFn(
+        SerializableFunction<Void, DataSource> dataSourceProviderFn,
+        String table,
+        String partitionColumn,
+        int fetchSize,
+        TypeDescriptor<T> partitioningColumnType) {
+      this.dataSourceProviderFn = dataSourceProviderFn;
+      this.table = table;
+      this.partitionColumn = partitionColumn;
+      this.fetchSize = fetchSize;
+      this.partitioningColumnType = partitioningColumnType;
+    }
+
+    @Setup
+    public void setup() {
+      dataSource = dataSourceProviderFn.apply(null);
+    }
+
+    @ProcessElement
+    public void processElement(ProcessContext c) throws Exception {
+      long numPartitions = c.element().getKey();
+      KV<T, T> bounds = c.element().getValue();
+      JdbcReadWithPartitionsHelper<T> helper =
+          JdbcReadWithPartitionsHelper.getPartitionsHelper(partitioningColumnType);
+      int sampleSize = (int) Math.min(Integer.MAX_VALUE, numPartitions * SAMPLE_SIZE_PER_PARTITION);
+      List<T> sample = new ArrayList<>();
+      try (Connection connection = dataSource.getConnection()) {
+        // Disable autocommit to stream the column with a cursor, as in JdbcIO.ReadFn.
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement =
+            connection.prepareStatement(
+                String.format(
+                    "SELECT %2$s FROM %1$s WHERE %2$s >= ? AND %2$s <= ?", table, partitionColumn),
+                ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+          statement.setFetchSize(fetchSize);
+          helper.setParameters(bounds, statement);
+          try (ResultSet resultSet = statement.executeQuery()) {
+            // Reservoir sampling, each row read so far is in the sample with the same probability.
+            for (long row = 0; resultSet.next(); row++) {
+              if (row < sampleSize) {
+                sample.add(helper.getPartitionValue(resultSet, 1));
+              } else {
+                long index = ThreadLocalRandom.current().nextLong(row + 1);
+                if (index < sampleSize) {
+                  sample.set((int) index, helper.getPartitionValue(resultSet, 1));
+                }
+              }
+            }
+          }
+        }
+        connection.commit();
+      }
+      sample.sort(BalancedPartitioningFn::compare);
+
+      List<KV<T, T>> ranges = new ArrayList<>();
+      T lowerBound = bounds.getKey();
+      for (long i = 1; i < numPartitions && !sample.isEmpty(); i++) {
+        // Rows sharing a value can't be split, so repeated boundaries are dropped.
+        T boundary = sample.get((int) (i * sample.size() / numPartitions));
+        if (!boundary.equals(lowerBound)) {
+          ranges.add(KV.of(lowerBound, boundary));
+          lowerBound = boundary;
+        }
+      }
+      // The last range ends just above the upper bound, as with PartitioningFn.
+      Iterables.addAll(ranges, helper.calculateRanges(lowerBound, bounds.getValue(), 1L));
+      LOG.info("Total of {} balanced ranges: {}", ranges.size(), ranges);
+      for (KV<T, T> e : ranges) {
+        c.output(e);
+      }
+    }
+
+    /** Compares values of the partitioning column, all supported types being comparable. */
+    @SuppressWarnings("unchecked")
+    private static <V> int compare(V a, V b) {
+      return ((Comparable<V>) a).compareTo(b);
+    }
+  }
+
   public static final Map<Class<?>, JdbcReadWithPartitionsHelper<?>> PRESET_HELPERS =
       ImmutableMap.of(
           Long.class,
@@ -434,6 +540,12 @@ class JdbcUtil {
                 return KV.of(0L, KV.of(resultSet.getLong(1), resultSet.getLong(2)));
               }
             }
+
+            @Override
+            public Long getPartitionValue(ResultSet resultSet, int columnIndex)
+                throws SQLException {
+              return resultSet.getLong(columnIndex);
+            }
           },
           DateTime.class,
           new JdbcReadWithPartitionsHelper<DateTime>() {
@@ -489,5 +601,11 @@ class JdbcUtil {
                         new DateTime(resultSet.getTimestamp(2))));
               }
             }
+
+            @Override
+            public DateTime getPartitionValue(ResultSet resultSet, int columnIndex)
+                throws SQLException {
+              return new DateTime(resultSet.getTimestamp(columnIndex));
+            }
           });
 }
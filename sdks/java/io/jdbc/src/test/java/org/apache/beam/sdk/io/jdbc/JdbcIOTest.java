@@ -69,6 +69,7 @@ import org.apache.beam.sdk.io.common.DatabaseTestHelper;
 import org.apache.beam.sdk.io.common.TestRow;
 import org.apache.beam.sdk.io.jdbc.JdbcIO.DataSourceConfiguration;
 import org.apache.beam.sdk.io.jdbc.JdbcIO.PoolableDataSourceProvider;
+import org.apache.beam.sdk.io.jdbc.JdbcUtil.BalancedPartitioningFn;
 import org.apache.beam.sdk.io.jdbc.JdbcUtil.PartitioningFn;
 import org.apache.beam.sdk.io.jdbc.LogicalTypes.FixedPrecisionNumeric;
 import org.apache.beam.sdk.schemas.Schema;
@@ -448,6 +449,25 @@ public class JdbcIOTest implements Serializable {
     pipeline.run();
   }
 
+  @Test
+  public void testReadWithBalancedPartitions() {
+    PCollection<TestRow> rows =
+        pipeline.apply(
+            JdbcIO.<TestRow>readWithPartitions()
+                .withDataSourceConfiguration(DATA_SOURCE_CONFIGURATION)
+                .withRowMapper(new JdbcTestHelper.CreateTestRowOfNameAndId())
+                .withTable(READ_TABLE_NAME)
+                .withNumPartitions(10)
+                .withPartitionColumn("id")
+                .withLowerBound(0L)
+                .withUpperBound(1000000L)
+                .withBalancedPartitions()
+                .withFetchSize(10));
+    PAssert.thatSingleton(rows.apply("Count All", Count.globally())).isEqualTo(1000L);
+    PAssert.that(rows).containsInAnyOrder(TestRow.getExpectedValues(0, EXPECTED_ROW_COUNT));
+    pipeline.run();
+  }
+
   @Test
   public void testReadWithPartitionsBySubqery() {
     PCollection<TestRow> rows =
@@ -513,6 +533,24 @@ public class JdbcIOTest implements Serializable {
     }
   }
 
+  @Test
+  public void testWriteWithMaxInFlightBatches() throws Exception {
+    String tableName = DatabaseTestHelper.getTestTableName("UT_WRITE");
+    DatabaseTestHelper.createTable(DATA_SOURCE, tableName);
+    try {
+      ArrayList<KV<Integer, String>> data = getDataToWrite(EXPECTED_ROW_COUNT);
+      pipeline
+          .apply(Create.of(data))
+          .apply(getJdbcWrite(tableName).withBatchSize(50L).withMaxInFlightBatches(4));
+
+      pipeline.run();
+
+      assertRowCount(DATA_SOURCE, tableName, EXPECTED_ROW_COUNT);
+    } finally {
+      DatabaseTestHelper.deleteTable(DATA_SOURCE, tableName);
+    }
+  }
+
   @Test
   public void testWriteWithAutosharding() throws Exception {
     String tableName = DatabaseTestHelper.getTestTableName("UT_WRITE");
@@ -1305,4 +1343,30 @@ public class JdbcIOTest implements Serializable {
     PAssert.that(ranges.apply(Count.globally())).containsInAnyOrder(10L);
     pipeline.run().waitUntilFinish();
   }
+
+  @Test
+  public void testBalancedPartitioningLongs() {
+    // The rows only cover the first thousandth of the bounds, so PartitioningFn would put all of
+    // them in the first range.
+    PCollection<KV<Long, Long>> ranges =
+        pipeline
+            .apply(Create.of(KV.of(10L, KV.of(0L, 1000000L))))
+            .apply(
+                ParDo.of(
+                    new BalancedPartitioningFn<>(
+                        JdbcIO.DataSourceProviderFromDataSourceConfiguration.of(
+                            DATA_SOURCE_CONFIGURATION),
+                        READ_TABLE_NAME,
+                        "id",
+                        100,
+                        TypeDescriptors.longs())));
+
+    List<KV<Long, Long>> expected = new ArrayList<>();
+    for (long i = 0; i < 900; i += 100) {
+      expected.add(KV.of(i, i + 100));
+    }
+    expected.add(KV.of(900L, 1000001L));
+    PAssert.that(ranges).containsInAnyOrder(expected);
+    pipeline.run().waitUntilFinish();
+  }
 }
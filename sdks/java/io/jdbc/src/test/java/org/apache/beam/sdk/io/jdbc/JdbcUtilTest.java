@@ -104,6 +104,11 @@ public class JdbcUtilTest {
             return KV.of(0L, KV.of(resultSet.getString(1), resultSet.getString(2)));
           }
         }
+
+        @Override
+        public String getPartitionValue(ResultSet resultSet, int columnIndex) throws SQLException {
+          return resultSet.getString(columnIndex);
+        }
       };
 
   @Test
@@ -564,6 +564,10 @@ public class KafkaIO {
         .setCommitOffsetsInFinalizeEnabled(false)
         .setDynamicRead(false)
         .setTimestampPolicyFactory(TimestampPolicyFactory.withProcessingTime())
+        .setPrefetchQueueBatches(0)
+        .setPrefetchQueueBytes(0L)
+        .setDeserializerThreads(0)
+        .setBulkReadEnabled(false)
         .build();
   }
 
@@ -590,6 +594,7 @@ public class KafkaIO {
                 .setProducerConfig(WriteRecords.DEFAULT_PRODUCER_PROPERTIES)
                 .setEOS(false)
                 .setNumShards(0)
+                .setMaxInFlightBytes(0L)
                 .setConsumerFactoryFn(KafkaIOUtils.KAFKA_CONSUMER_FACTORY_FN)
                 .build())
         .build();
@@ -605,6 +610,7 @@ public class KafkaIO {
         .setProducerConfig(WriteRecords.DEFAULT_PRODUCER_PROPERTIES)
         .setEOS(false)
         .setNumShards(0)
+        .setMaxInFlightBytes(0L)
         .setConsumerFactoryFn(KafkaIOUtils.KAFKA_CONSUMER_FACTORY_FN)
         .build();
   }
@@ -659,6 +665,14 @@ public class KafkaIO {
 
     abstract @Nullable SerializableFunction<TopicPartition, Boolean> getCheckStopReadingFn();
 
+    abstract int getPrefetchQueueBatches();
+
+    abstract long getPrefetchQueueBytes();
+
+    abstract int getDeserializerThreads();
+
+    abstract boolean isBulkReadEnabled();
+
     abstract Builder<K, V> toBuilder();
 
     @Experimental(Kind.PORTABILITY)
@@ -706,6 +720,14 @@ public class KafkaIO {
       abstract Builder<K, V> setCheckStopReadingFn(
           SerializableFunction<TopicPartition, Boolean> checkStopReadingFn);
 
+      abstract Builder<K, V> setPrefetchQueueBatches(int prefetchQueueBatches);
+
+      abstract Builder<K, V> setPrefetchQueueBytes(long prefetchQueueBytes);
+
+      abstract Builder<K, V> setDeserializerThreads(int deserializerThreads);
+
+      abstract Builder<K, V> setBulkReadEnabled(boolean bulkReadEnabled);
+
       abstract Read<K, V> build();
 
       static void setupExternalBuilder(Builder builder, Read.External.Configuration config) {
@@ -766,6 +788,11 @@ public class KafkaIO {
         // We can expose dynamic read to external build when ReadFromKafkaDoFn is the default
         // implementation.
         builder.setDynamicRead(false);
+
+        builder.setPrefetchQueueBatches(0);
+        builder.setPrefetchQueueBytes(0L);
+        builder.setDeserializerThreads(0);
+        builder.setBulkReadEnabled(false);
       }
 
       private static Coder resolveCoder(Class deserializer) {
@@ -1174,6 +1201,47 @@ public class KafkaIO {
       return toBuilder().setCommitOffsetsInFinalizeEnabled(true).build();
     }
 
+    /**
+     * Lets the reader poll up to {@code maxBatches} batches of records from Kafka ahead of
+     * processing, instead of handing over one batch at a time. If {@code maxBytes} is positive, the
+     * reader stops polling ahead once the prefetched batches hold that many bytes of keys and
+     * values, though it always prefetches at least one batch.
+     *
+     * <p>By default the poll thread blocks until the previous batch is taken for processing. The
+     * prefetch queue only applies to the {@link UnboundedSource} based reader, not to {@link
+     * ReadFromKafkaDoFn}.
+     */
+    public Read<K, V> withPrefetchQueue(int maxBatches, long maxBytes) {
+      checkArgument(maxBatches > 0, "maxBatches should be positive, but was %s", maxBatches);
+      checkArgument(maxBytes >= 0, "maxBytes should not be negative, but was %s", maxBytes);
+      return toBuilder()
+          .setPrefetchQueueBatches(maxBatches)
+          .setPrefetchQueueBytes(maxBytes)
+          .build();
+    }
+
+    /**
+     * Deserializes keys and values on a pool of {@code numThreads} threads as soon as records are
+     * polled, rather than one at a time on the processing thread. Each thread uses its own
+     * deserializer instances. Mostly useful along with {@link #withPrefetchQueue}, for expensive
+     * deserializers.
+     *
+     * <p>Only applies to the {@link UnboundedSource} based reader, not to {@link
+     * ReadFromKafkaDoFn}.
+     */
+    public Read<K, V> withDeserializerThreads(int numThreads) {
+      checkArgument(numThreads > 0, "numThreads should be positive, but was %s", numThreads);
+      return toBuilder().setDeserializerThreads(numThreads).build();
+    }
+
+    /**
+     * Reads in bulk when reading with {@link ReadFromKafkaDoFn}. See {@link
+     * ReadSourceDescriptors#withBulkRead()}.
+     */
+    public Read<K, V> withBulkRead() {
+      return toBuilder().setBulkReadEnabled(true).build();
+    }
+
     /**
      * Configure the KafkaIO to use {@link WatchKafkaTopicPartitionDoFn} to detect and emit any new
      * available {@link TopicPartition} for {@link ReadFromKafkaDoFn} to consume during pipeline
@@ -1431,6 +1499,9 @@ public class KafkaIO {
         if (kafkaRead.isCommitOffsetsInFinalizeEnabled()) {
           readTransform = readTransform.commitOffsets();
         }
+        if (kafkaRead.isBulkReadEnabled()) {
+          readTransform = readTransform.withBulkRead();
+        }
         PCollection<KafkaSourceDescriptor> output;
         if (kafkaRead.isDynamicRead()) {
           Set<String> topics = new HashSet<>();
@@ -1825,6 +1896,8 @@ public class KafkaIO {
 
     abstract boolean isCommitOffsetEnabled();
 
+    abstract boolean isBulkReadEnabled();
+
     abstract @Nullable TimestampPolicyFactory<K, V> getTimestampPolicyFactory();
 
     abstract ReadSourceDescriptors.Builder<K, V> toBuilder();
@@ -1861,6 +1934,8 @@ public class KafkaIO {
       abstract ReadSourceDescriptors.Builder<K, V> setCommitOffsetEnabled(
           boolean commitOffsetEnabled);
 
+      abstract ReadSourceDescriptors.Builder<K, V> setBulkReadEnabled(boolean bulkReadEnabled);
+
       abstract ReadSourceDescriptors.Builder<K, V> setTimestampPolicyFactory(
           TimestampPolicyFactory<K, V> policy);
 
@@ -1872,6 +1947,7 @@ public class KafkaIO {
           .setConsumerFactoryFn(KafkaIOUtils.KAFKA_CONSUMER_FACTORY_FN)
           .setConsumerConfig(KafkaIOUtils.DEFAULT_CONSUMER_PROPERTIES)
           .setCommitOffsetEnabled(false)
+          .setBulkReadEnabled(false)
           .build()
           .withProcessingTime()
           .withMonotonicallyIncreasingWatermarkEstimator();
@@ -2069,6 +2145,16 @@ public class KafkaIO {
       return toBuilder().setCommitOffsetEnabled(true).build();
     }
 
+    /**
+     * Reads in bulk, for many partitions with low per-partition rates. The records of each poll
+     * are claimed with a single {@code tryClaim()} of the last offset rather than one claim per
+     * record, and Kafka consumers are pooled and reused across the partitions read by the same
+     * {@link DoFn} instance instead of being created for every restriction.
+     */
+    public ReadSourceDescriptors<K, V> withBulkRead() {
+      return toBuilder().setBulkReadEnabled(true).build();
+    }
+
     /**
      * Set additional configuration for the offset consumer. It may be required for a secured Kafka
      * cluster, especially when you see similar WARN log message {@code exception while fetching
@@ -2328,6 +2414,8 @@ public class KafkaIO {
 
     abstract int getNumShards();
 
+    abstract long getMaxInFlightBytes();
+
     abstract @Nullable SerializableFunction<Map<String, Object>, ? extends Consumer<?, ?>>
         getConsumerFactoryFn();
 
@@ -2355,6 +2443,8 @@ public class KafkaIO {
 
       abstract Builder<K, V> setNumShards(int numShards);
 
+      abstract Builder<K, V> setMaxInFlightBytes(long maxInFlightBytes);
+
       abstract Builder<K, V> setConsumerFactoryFn(
           SerializableFunction<Map<String, Object>, ? extends Consumer<?, ?>> fn);
 
@@ -2493,6 +2583,19 @@ public class KafkaIO {
       return toBuilder().setEOS(true).setNumShards(numShards).setSinkGroupId(sinkGroupId).build();
     }
 
+    /**
+     * Limits the size of the records sent to Kafka but not acknowledged yet by each writer. Once
+     * the limit is reached, the writer waits for acknowledgements before sending more records,
+     * rather than buffering up to the producer's {@code buffer.memory}. The size of the records in
+     * flight is estimated from the serialized size of the records acknowledged so far. The default
+     * is 0, which doesn't limit the records in flight. This is not used with {@link #withEOS(int,
+     * String)}.
+     */
+    public WriteRecords<K, V> withMaxInFlightBytes(long maxInFlightBytes) {
+      checkArgument(maxInFlightBytes > 0, "maxInFlightBytes should be > 0");
+      return toBuilder().setMaxInFlightBytes(maxInFlightBytes).build();
+    }
+
     /**
      * When exactly-once semantics are enabled (see {@link #withEOS(int, String)}), the sink needs
      * to fetch previously stored state with Kafka topic. Fetching the metadata requires a consumer.
@@ -2752,6 +2855,15 @@ public class KafkaIO {
       return withWriteRecordsTransform(getWriteRecordsTransform().withEOS(numShards, sinkGroupId));
     }
 
+    /**
+     * Wrapper method over {@link WriteRecords#withMaxInFlightBytes(long)}, used to keep the
+     * compatibility with old API based on KV type of element.
+     */
+    public Write<K, V> withMaxInFlightBytes(long maxInFlightBytes) {
+      return withWriteRecordsTransform(
+          getWriteRecordsTransform().withMaxInFlightBytes(maxInFlightBytes));
+    }
+
     /**
      * Wrapper method over {@link WriteRecords#withConsumerFactoryFn(SerializableFunction)}, used to
      * keep the compatibility with old API based on KV type of element.
@@ -23,14 +23,19 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
@@ -44,11 +49,14 @@ import org.apache.beam.sdk.io.UnboundedSource.UnboundedReader;
 import org.apache.beam.sdk.io.kafka.KafkaCheckpointMark.PartitionMark;
 import org.apache.beam.sdk.io.kafka.KafkaIO.Read;
 import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Distribution;
 import org.apache.beam.sdk.metrics.Gauge;
 import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.metrics.SourceMetrics;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.values.KV;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.annotations.VisibleForTesting;
+import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Throwables;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.ImmutableList;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.collect.Iterators;
 import org.apache.beam.vendor.guava.v26_0_jre.com.google.common.io.Closeables;
@@ -88,6 +96,14 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
         spec.getKeyDeserializerProvider().getDeserializer(spec.getConsumerConfig(), true);
     valueDeserializerInstance =
         spec.getValueDeserializerProvider().getDeserializer(spec.getConsumerConfig(), false);
+    for (int i = 0; i < spec.getDeserializerThreads(); i++) {
+      // Deserializers aren't necessarily thread safe, each thread of the pool takes its own.
+      deserializerPairs.add(
+          KV.of(
+              spec.getKeyDeserializerProvider().getDeserializer(spec.getConsumerConfig(), true),
+              spec.getValueDeserializerProvider()
+                  .getDeserializer(spec.getConsumerConfig(), false)));
+    }
 
     // Seek to start offset for each partition. This is the first interaction with the server.
     // Unfortunately it can block forever in case of network issues like incorrect ACLs.
@@ -163,6 +179,7 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
         elementsReadBySplit.inc();
 
         ConsumerRecord<byte[], byte[]> rawRecord = pState.recordIter.next();
+        KafkaRecord<K, V> deserializedRecord = nextDeserializedRecord(pState);
         long expected = pState.nextOffset;
         long offset = rawRecord.offset();
 
@@ -184,27 +201,20 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
           offsetGap = 0;
         }
 
-        // Apply user deserializers. User deserializers might throw, which will be propagated up
+        // Apply user deserializers, unless the record was already deserialized ahead on the
+        // deserializer pool. User deserializers might throw, which will be propagated up
         // and 'curRecord' remains unchanged. The runner should close this reader.
         // TODO: write records that can't be deserialized to a "dead-letter" additional output.
         KafkaRecord<K, V> record =
-            new KafkaRecord<>(
-                rawRecord.topic(),
-                rawRecord.partition(),
-                rawRecord.offset(),
-                ConsumerSpEL.getRecordTimestamp(rawRecord),
-                ConsumerSpEL.getRecordTimestampType(rawRecord),
-                ConsumerSpEL.hasHeaders() ? rawRecord.headers() : null,
-                ConsumerSpEL.deserializeKey(keyDeserializerInstance, rawRecord),
-                ConsumerSpEL.deserializeValue(valueDeserializerInstance, rawRecord));
+            deserializedRecord != null
+                ? deserializedRecord
+                : deserialize(rawRecord, keyDeserializerInstance, valueDeserializerInstance);
 
         curTimestamp =
             pState.timestampPolicy.getTimestampForRecord(pState.mkTimestampPolicyContext(), record);
         curRecord = record;
 
-        int recordSize =
-            (rawRecord.key() == null ? 0 : rawRecord.key().length)
-                + (rawRecord.value() == null ? 0 : rawRecord.value().length);
+        int recordSize = recordSize(rawRecord);
         pState.recordConsumed(offset, recordSize, offsetGap);
         bytesRead.inc(recordSize);
         bytesReadBySplit.inc(recordSize);
@@ -298,6 +308,13 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
   private static final String CHECKPOINT_MARK_COMMITS_SKIPPED_METRIC =
       "checkpointMarkCommitsSkipped";
 
+  @VisibleForTesting static final String PREFETCH_QUEUE_DEPTH_METRIC = "prefetchQueueDepth";
+
+  @VisibleForTesting static final String PREFETCH_QUEUE_BYTES_METRIC = "prefetchQueueBytes";
+
+  @VisibleForTesting
+  static final String POLL_TO_PROCESS_LATENCY_METRIC = "pollToProcessLatencyMs";
+
   private final KafkaUnboundedSource<K, V> source;
   private final String name;
   private Consumer<byte[], byte[]> consumer;
@@ -320,6 +337,13 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
   // Checkpoint marks skipped in favor of newer mark (only the latest needs to be committed).
   private final Counter checkpointMarkCommitsSkipped =
       Metrics.counter(METRIC_NAMESPACE, CHECKPOINT_MARK_COMMITS_SKIPPED_METRIC);
+  // Updated by the processing thread, since metrics can't be reported from the poll thread.
+  private final Gauge prefetchQueueDepth =
+      Metrics.gauge(METRIC_NAMESPACE, PREFETCH_QUEUE_DEPTH_METRIC);
+  private final Gauge prefetchQueueBytes =
+      Metrics.gauge(METRIC_NAMESPACE, PREFETCH_QUEUE_BYTES_METRIC);
+  private final Distribution pollToProcessLatency =
+      Metrics.distribution(METRIC_NAMESPACE, POLL_TO_PROCESS_LATENCY_METRIC);
 
   /**
    * The poll timeout while reading records from Kafka. If option to commit reader offsets in to
@@ -340,8 +364,17 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
   // consumer achieved best throughput in tests (see `defaultConsumerProperties`).
   private final ExecutorService consumerPollThread = Executors.newSingleThreadExecutor();
   private AtomicReference<Exception> consumerPollException = new AtomicReference<>();
-  private final SynchronousQueue<ConsumerRecords<byte[], byte[]>> availableRecordsQueue =
-      new SynchronousQueue<>();
+  // A SynchronousQueue unless a prefetch queue is configured, see Read#withPrefetchQueue().
+  private final BlockingQueue<PrefetchedBatch<K, V>> availableRecordsQueue;
+  // The bytes of the keys and values of the batches in availableRecordsQueue.
+  private final Object prefetchedBytesLock = new Object();
+  private long prefetchedBytes = 0;
+
+  // Deserializes records ahead of processing, if configured. Each task takes a pair of key and
+  // value deserializers from deserializerPairs for the duration of the task.
+  private final @Nullable ExecutorService deserializerPool;
+  private final BlockingQueue<KV<Deserializer<K>, Deserializer<V>>> deserializerPairs =
+      new LinkedBlockingQueue<>();
   private AtomicReference<KafkaCheckpointMark> finalizedCheckpointMark = new AtomicReference<>();
   private AtomicBoolean closed = new AtomicBoolean(false);
 
@@ -396,6 +429,9 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
     private final TimestampPolicy<K, V> timestampPolicy;
 
     private Iterator<ConsumerRecord<byte[], byte[]>> recordIter = Collections.emptyIterator();
+    // The records of recordIter deserialized ahead on the deserializer pool, if enabled.
+    private @Nullable Future<List<KafkaRecord<K, V>>> deserializedRecords = null;
+    private @Nullable Iterator<KafkaRecord<K, V>> deserializedIter = null;
 
     private KafkaIOUtils.MovingAvg avgRecordSize = new KafkaIOUtils.MovingAvg();
     private KafkaIOUtils.MovingAvg avgOffsetGap =
@@ -459,6 +495,26 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
     }
   }
 
+  // A batch of records polled from Kafka, queued for processing.
+  private static class PrefetchedBatch<K, V> {
+    private final ConsumerRecords<byte[], byte[]> records;
+    // Empty unless records are deserialized ahead on the deserializer pool.
+    private final Map<TopicPartition, Future<List<KafkaRecord<K, V>>>> deserializedRecords;
+    private final long sizeBytes;
+    private final long polledAtNanos;
+
+    PrefetchedBatch(
+        ConsumerRecords<byte[], byte[]> records,
+        Map<TopicPartition, Future<List<KafkaRecord<K, V>>>> deserializedRecords,
+        long sizeBytes,
+        long polledAtNanos) {
+      this.records = records;
+      this.deserializedRecords = deserializedRecords;
+      this.sizeBytes = sizeBytes;
+      this.polledAtNanos = polledAtNanos;
+    }
+  }
+
   KafkaUnboundedReader(
       KafkaUnboundedSource<K, V> source, @Nullable KafkaCheckpointMark checkpointMark) {
     this.source = source;
@@ -505,6 +561,16 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
 
     partitionStates = ImmutableList.copyOf(states);
 
+    Read<K, V> spec = source.getSpec();
+    availableRecordsQueue =
+        spec.getPrefetchQueueBatches() > 0
+            ? new ArrayBlockingQueue<>(spec.getPrefetchQueueBatches())
+            : new SynchronousQueue<>();
+    deserializerPool =
+        spec.getDeserializerThreads() > 0
+            ? Executors.newFixedThreadPool(spec.getDeserializerThreads())
+            : null;
+
     String splitId = String.valueOf(source.getId());
     elementsReadBySplit = SourceMetrics.elementsReadBySplit(splitId);
     bytesReadBySplit = SourceMetrics.bytesReadBySplit(splitId);
@@ -516,14 +582,17 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
     // Read in a loop and enqueue the batch of records, if any, to availableRecordsQueue.
 
     try {
-      ConsumerRecords<byte[], byte[]> records = ConsumerRecords.empty();
+      PrefetchedBatch<K, V> batch = null;
       while (!closed.get()) {
         try {
-          if (records.isEmpty()) {
-            records = consumer.poll(KAFKA_POLL_TIMEOUT.getMillis());
-          } else if (availableRecordsQueue.offer(
-              records, RECORDS_ENQUEUE_POLL_TIMEOUT.getMillis(), TimeUnit.MILLISECONDS)) {
-            records = ConsumerRecords.empty();
+          if (batch == null) {
+            ConsumerRecords<byte[], byte[]> records =
+                consumer.poll(KAFKA_POLL_TIMEOUT.getMillis());
+            if (!records.isEmpty()) {
+              batch = prefetch(records);
+            }
+          } else if (enqueue(batch)) {
+            batch = null;
           }
           KafkaCheckpointMark checkpointMark = finalizedCheckpointMark.getAndSet(null);
           if (checkpointMark != null) {
@@ -544,6 +613,66 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
     }
   }
 
+  /** Wraps a polled batch, and starts deserializing it if a deserializer pool is configured. */
+  private PrefetchedBatch<K, V> prefetch(ConsumerRecords<byte[], byte[]> records) {
+    long sizeBytes = 0;
+    for (ConsumerRecord<byte[], byte[]> rawRecord : records) {
+      sizeBytes += recordSize(rawRecord);
+    }
+    Map<TopicPartition, Future<List<KafkaRecord<K, V>>>> deserialized = new HashMap<>();
+    if (deserializerPool != null) {
+      for (TopicPartition partition : records.partitions()) {
+        List<ConsumerRecord<byte[], byte[]>> partitionRecords = records.records(partition);
+        deserialized.put(
+            partition, deserializerPool.submit(() -> deserializeAll(partitionRecords)));
+      }
+    }
+    return new PrefetchedBatch<>(records, deserialized, sizeBytes, System.nanoTime());
+  }
+
+  private List<KafkaRecord<K, V>> deserializeAll(List<ConsumerRecord<byte[], byte[]>> rawRecords)
+      throws InterruptedException {
+    KV<Deserializer<K>, Deserializer<V>> pair = deserializerPairs.take();
+    try {
+      List<KafkaRecord<K, V>> records = new ArrayList<>(rawRecords.size());
+      for (ConsumerRecord<byte[], byte[]> rawRecord : rawRecords) {
+        records.add(deserialize(rawRecord, pair.getKey(), pair.getValue()));
+      }
+      return records;
+    } finally {
+      deserializerPairs.add(pair);
+    }
+  }
+
+  /**
+   * Tries to hand a batch over to the processing thread. Returns false if there was no room for it
+   * within the configured bounds before a short timeout.
+   */
+  private boolean enqueue(PrefetchedBatch<K, V> batch) throws InterruptedException {
+    long maxBytes = source.getSpec().getPrefetchQueueBytes();
+    synchronized (prefetchedBytesLock) {
+      // Always allow one batch, however large, so that reading makes progress.
+      if (maxBytes > 0 && prefetchedBytes > 0 && prefetchedBytes + batch.sizeBytes > maxBytes) {
+        prefetchedBytesLock.wait(RECORDS_ENQUEUE_POLL_TIMEOUT.getMillis());
+        return false;
+      }
+      prefetchedBytes += batch.sizeBytes;
+    }
+    if (availableRecordsQueue.offer(
+        batch, RECORDS_ENQUEUE_POLL_TIMEOUT.getMillis(), TimeUnit.MILLISECONDS)) {
+      return true;
+    }
+    releasePrefetchedBytes(batch.sizeBytes);
+    return false;
+  }
+
+  private void releasePrefetchedBytes(long sizeBytes) {
+    synchronized (prefetchedBytesLock) {
+      prefetchedBytes -= sizeBytes;
+      prefetchedBytesLock.notifyAll();
+    }
+  }
+
   private void commitCheckpointMark(KafkaCheckpointMark checkpointMark) {
     LOG.debug("{}: Committing finalized checkpoint {}", this, checkpointMark);
 
@@ -573,10 +702,10 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
   private void nextBatch() throws IOException {
     curBatch = Collections.emptyIterator();
 
-    ConsumerRecords<byte[], byte[]> records;
+    PrefetchedBatch<K, V> batch;
     try {
       // poll available records, wait (if necessary) up to the specified timeout.
-      records =
+      batch =
           availableRecordsQueue.poll(
               RECORDS_DEQUEUE_POLL_TIMEOUT.getMillis(), TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
@@ -585,7 +714,7 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
       return;
     }
 
-    if (records == null) {
+    if (batch == null) {
       // Check if the poll thread failed with an exception.
       if (consumerPollException.get() != null) {
         throw new IOException("Exception while reading from Kafka", consumerPollException.get());
@@ -593,12 +722,71 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
       return;
     }
 
-    partitionStates.forEach(p -> p.recordIter = records.records(p.topicPartition).iterator());
+    releasePrefetchedBytes(batch.sizeBytes);
+    prefetchQueueDepth.set(availableRecordsQueue.size());
+    synchronized (prefetchedBytesLock) {
+      prefetchQueueBytes.set(prefetchedBytes);
+    }
+    pollToProcessLatency.update(
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batch.polledAtNanos));
+
+    for (PartitionState<K, V> p : partitionStates) {
+      p.recordIter = batch.records.records(p.topicPartition).iterator();
+      p.deserializedRecords = batch.deserializedRecords.get(p.topicPartition);
+      p.deserializedIter = null;
+    }
 
     // cycle through the partitions in order to interleave records from each.
     curBatch = Iterators.cycle(new ArrayList<>(partitionStates));
   }
 
+  /**
+   * Returns the deserialized counterpart of the record just taken from {@code pState.recordIter},
+   * or null if the records of the partition are deserialized on the processing thread.
+   */
+  private @Nullable KafkaRecord<K, V> nextDeserializedRecord(PartitionState<K, V> pState)
+      throws IOException {
+    Future<List<KafkaRecord<K, V>>> deserializedRecords = pState.deserializedRecords;
+    if (deserializedRecords == null) {
+      return null;
+    }
+    Iterator<KafkaRecord<K, V>> deserializedIter = pState.deserializedIter;
+    if (deserializedIter == null) {
+      try {
+        deserializedIter = deserializedRecords.get().iterator();
+        pState.deserializedIter = deserializedIter;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      } catch (ExecutionException e) {
+        // Propagate exceptions thrown by user deserializers as is.
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new IOException(e.getCause());
+      }
+    }
+    return deserializedIter.next();
+  }
+
+  private static <K, V> KafkaRecord<K, V> deserialize(
+      ConsumerRecord<byte[], byte[]> rawRecord,
+      Deserializer<K> keyDeserializer,
+      Deserializer<V> valueDeserializer) {
+    return new KafkaRecord<>(
+        rawRecord.topic(),
+        rawRecord.partition(),
+        rawRecord.offset(),
+        ConsumerSpEL.getRecordTimestamp(rawRecord),
+        ConsumerSpEL.getRecordTimestampType(rawRecord),
+        ConsumerSpEL.hasHeaders() ? rawRecord.headers() : null,
+        ConsumerSpEL.deserializeKey(keyDeserializer, rawRecord),
+        ConsumerSpEL.deserializeValue(valueDeserializer, rawRecord));
+  }
+
+  private static int recordSize(ConsumerRecord<byte[], byte[]> rawRecord) {
+    return (rawRecord.key() == null ? 0 : rawRecord.key().length)
+        + (rawRecord.value() == null ? 0 : rawRecord.value().length);
+  }
+
   private void setupInitialOffset(PartitionState pState) {
     Read<K, V> spec = source.getSpec();
 
@@ -690,7 +878,7 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
       if (offsetConsumer != null) {
         offsetConsumer.wakeup();
       }
-      availableRecordsQueue.poll(); // drain unread batch, this unblocks consumer thread.
+      availableRecordsQueue.clear(); // drain unread batches, this unblocks consumer thread.
       try {
         isShutdown =
             consumerPollThread.awaitTermination(10, TimeUnit.SECONDS)
@@ -705,8 +893,25 @@ class KafkaUnboundedReader<K, V> extends UnboundedReader<KafkaRecord<K, V>> {
       }
     }
 
+    // The poll thread is done submitting deserialization tasks, and their results are unused.
+    if (deserializerPool != null) {
+      deserializerPool.shutdownNow();
+      try {
+        if (!deserializerPool.awaitTermination(10, TimeUnit.SECONDS)) {
+          LOG.warn("{}: deserializer threads are taking a long time to shutdown.", this);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e); // not expected
+      }
+    }
+
     Closeables.close(keyDeserializerInstance, true);
     Closeables.close(valueDeserializerInstance, true);
+    for (KV<Deserializer<K>, Deserializer<V>> pair : deserializerPairs) {
+      Closeables.close(pair.getKey(), true);
+      Closeables.close(pair.getValue(), true);
+    }
 
     Closeables.close(offsetConsumer, true);
     Closeables.close(consumer, true);
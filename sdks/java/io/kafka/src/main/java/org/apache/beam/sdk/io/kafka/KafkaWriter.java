@@ -22,6 +22,8 @@ import java.util.HashMap;
 import java.util.Map;
 import org.apache.beam.sdk.io.kafka.KafkaIO.WriteRecords;
 import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Distribution;
+import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.metrics.SinkMetrics;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.kafka.clients.producer.Callback;
@@ -55,7 +57,9 @@ class KafkaWriter<K, V> extends DoFn<ProducerRecord<K, V>, Void> {
   @ProcessElement
   @SuppressWarnings("FutureReturnValueIgnored")
   public void processElement(ProcessContext ctx) throws Exception {
+    waitForInFlightBytes();
     checkForFailures();
+    reportSendLatencies();
 
     ProducerRecord<K, V> record = ctx.element();
     Long timestampMillis =
@@ -68,15 +72,26 @@ class KafkaWriter<K, V> extends DoFn<ProducerRecord<K, V>, Void> {
                 : null);
     String topicName = record.topic() != null ? record.topic() : spec.getTopic();
 
-    producer.send(
-        new ProducerRecord<>(
-            topicName,
-            record.partition(),
-            timestampMillis,
-            record.key(),
-            record.value(),
-            record.headers()),
-        new SendCallback());
+    synchronized (this) {
+      inFlightRecords++;
+    }
+    try {
+      producer.send(
+          new ProducerRecord<>(
+              topicName,
+              record.partition(),
+              timestampMillis,
+              record.key(),
+              record.value(),
+              record.headers()),
+          new SendCallback(System.currentTimeMillis()));
+    } catch (RuntimeException e) {
+      // The callback is not invoked for records that send() rejects by throwing.
+      synchronized (this) {
+        inFlightRecords--;
+      }
+      throw e;
+    }
 
     elementsWritten.inc();
   }
@@ -84,6 +99,7 @@ class KafkaWriter<K, V> extends DoFn<ProducerRecord<K, V>, Void> {
   @FinishBundle
   public void finishBundle() throws IOException {
     producer.flush();
+    reportSendLatencies();
     checkForFailures();
   }
 
@@ -104,7 +120,27 @@ class KafkaWriter<K, V> extends DoFn<ProducerRecord<K, V>, Void> {
   private transient Exception sendException = null;
   private transient long numSendFailures = 0;
 
+  // Records sent but not acknowledged yet, and the total size of the records acknowledged so far,
+  // which is used to estimate the size of the records in flight.
+  private transient long inFlightRecords = 0;
+  private transient long ackedRecords = 0;
+  private transient long ackedBytes = 0;
+
+  // Send latencies since the last invocation of reportSendLatencies(). They are reported from the
+  // processing thread since metrics can't be updated from the producer's callbacks.
+  private transient long sendLatencySum = 0;
+  private transient long sendLatencyCount = 0;
+  private transient long sendLatencyMin = 0;
+  private transient long sendLatencyMax = 0;
+
+  static final String SEND_LATENCY_MS_METRIC = "sendLatencyMs";
+
+  // How long to wait for acknowledgements before checking for send failures again.
+  private static final long IN_FLIGHT_WAIT_MILLIS = 1000;
+
   private final Counter elementsWritten = SinkMetrics.elementsWritten();
+  private final Distribution sendLatencyMs =
+      Metrics.distribution(KafkaWriter.class, SEND_LATENCY_MS_METRIC);
 
   KafkaWriter(WriteRecords<K, V> spec) {
     this.spec = spec;
@@ -116,6 +152,44 @@ class KafkaWriter<K, V> extends DoFn<ProducerRecord<K, V>, Void> {
         ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, spec.getValueSerializer());
   }
 
+  /**
+   * Blocks while the records in flight are estimated to take at least {@link
+   * WriteRecords#getMaxInFlightBytes()}, based on the average size of the records acknowledged so
+   * far.
+   */
+  private synchronized void waitForInFlightBytes() throws InterruptedException, IOException {
+    long maxInFlightBytes = spec.getMaxInFlightBytes();
+    if (maxInFlightBytes <= 0) {
+      return;
+    }
+    while (inFlightRecords > 0
+        && ackedRecords > 0
+        && inFlightRecords * (ackedBytes / ackedRecords) >= maxInFlightBytes) {
+      // Callbacks notify on every acknowledgement, the timeout guards against missed ones.
+      wait(IN_FLIGHT_WAIT_MILLIS);
+      checkForFailures();
+    }
+  }
+
+  private void reportSendLatencies() {
+    long sum;
+    long count;
+    long min;
+    long max;
+    synchronized (this) {
+      if (sendLatencyCount == 0) {
+        return;
+      }
+      sum = sendLatencySum;
+      count = sendLatencyCount;
+      min = sendLatencyMin;
+      max = sendLatencyMax;
+      sendLatencySum = 0;
+      sendLatencyCount = 0;
+    }
+    sendLatencyMs.update(sum, count, min, max);
+  }
+
   private synchronized void checkForFailures() throws IOException {
     if (numSendFailures == 0) {
       return;
@@ -134,8 +208,34 @@ class KafkaWriter<K, V> extends DoFn<ProducerRecord<K, V>, Void> {
   }
 
   private class SendCallback implements Callback {
+    private final long sendTimeMillis;
+
+    SendCallback(long sendTimeMillis) {
+      this.sendTimeMillis = sendTimeMillis;
+    }
+
     @Override
     public void onCompletion(RecordMetadata metadata, Exception exception) {
+      long latencyMillis = System.currentTimeMillis() - sendTimeMillis;
+      synchronized (KafkaWriter.this) {
+        inFlightRecords--;
+        if (sendLatencyCount == 0) {
+          sendLatencyMin = latencyMillis;
+          sendLatencyMax = latencyMillis;
+        } else {
+          sendLatencyMin = Math.min(sendLatencyMin, latencyMillis);
+          sendLatencyMax = Math.max(sendLatencyMax, latencyMillis);
+        }
+        sendLatencySum += latencyMillis;
+        sendLatencyCount++;
+        if (exception == null) {
+          ackedRecords++;
+          ackedBytes +=
+              Math.max(0, metadata.serializedKeySize())
+                  + Math.max(0, metadata.serializedValueSize());
+        }
+        KafkaWriter.this.notifyAll();
+      }
       if (exception == null) {
         return;
       }
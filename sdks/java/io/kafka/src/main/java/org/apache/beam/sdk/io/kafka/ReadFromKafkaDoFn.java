@@ -19,6 +19,7 @@ package org.apache.beam.sdk.io.kafka;
 
 import static org.apache.beam.vendor.guava.v26_0_jre.com.google.common.base.Preconditions.checkState;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -155,6 +156,7 @@ class ReadFromKafkaDoFn<K, V>
     this.createWatermarkEstimatorFn = transform.getCreateWatermarkEstimatorFn();
     this.timestampPolicyFactory = transform.getTimestampPolicyFactory();
     this.checkStopReadingFn = transform.getCheckStopReadingFn();
+    this.bulkReadEnabled = transform.isBulkReadEnabled();
   }
 
   private static final Logger LOG = LoggerFactory.getLogger(ReadFromKafkaDoFn.class);
@@ -169,6 +171,7 @@ class ReadFromKafkaDoFn<K, V>
   private final SerializableFunction<Instant, WatermarkEstimator<Instant>>
       createWatermarkEstimatorFn;
   private final TimestampPolicyFactory<K, V> timestampPolicyFactory;
+  private final boolean bulkReadEnabled;
 
   // Valid between bundle start and bundle finish.
   private transient Deserializer<K> keyDeserializerInstance = null;
@@ -176,6 +179,9 @@ class ReadFromKafkaDoFn<K, V>
 
   private transient LoadingCache<TopicPartition, AverageRecordSize> avgRecordSize;
 
+  // Consumers which are not reading, by consumer config. Only used with bulk reads.
+  private transient Map<Map<String, Object>, Consumer<byte[], byte[]>> idleConsumers;
+
   private static final java.time.Duration KAFKA_POLL_TIMEOUT = java.time.Duration.ofSeconds(1);
 
   @VisibleForTesting final DeserializerProvider keyDeserializerProvider;
@@ -326,76 +332,151 @@ class ReadFromKafkaDoFn<K, V>
               kafkaSourceDescriptor.getTopicPartition(),
               Optional.ofNullable(watermarkEstimator.currentWatermark()));
     }
-    try (Consumer<byte[], byte[]> consumer = consumerFactoryFn.apply(updatedConsumerConfig)) {
-      // Check whether current TopicPartition is still available to read.
-      Set<TopicPartition> existingTopicPartitions = new HashSet<>();
-      for (List<PartitionInfo> topicPartitionList : consumer.listTopics().values()) {
-        topicPartitionList.forEach(
-            partitionInfo -> {
-              existingTopicPartitions.add(
-                  new TopicPartition(partitionInfo.topic(), partitionInfo.partition()));
-            });
-      }
-      if (!existingTopicPartitions.contains(kafkaSourceDescriptor.getTopicPartition())) {
-        return ProcessContinuation.stop();
-      }
+    Consumer<byte[], byte[]> consumer = acquireConsumer(updatedConsumerConfig);
+    ProcessContinuation continuation;
+    try {
+      continuation =
+          readPartition(
+              consumer,
+              kafkaSourceDescriptor,
+              tracker,
+              watermarkEstimator,
+              timestampPolicy,
+              receiver);
+    } catch (RuntimeException e) {
+      closeConsumer(consumer);
+      throw e;
+    }
+    releaseConsumer(updatedConsumerConfig, consumer);
+    return continuation;
+  }
 
-      ConsumerSpEL.evaluateAssign(
-          consumer, ImmutableList.of(kafkaSourceDescriptor.getTopicPartition()));
-      long startOffset = tracker.currentRestriction().getFrom();
-
-      long expectedOffset = startOffset;
-      consumer.seek(kafkaSourceDescriptor.getTopicPartition(), startOffset);
-      ConsumerRecords<byte[], byte[]> rawRecords = ConsumerRecords.empty();
-
-      while (true) {
-        rawRecords = consumer.poll(KAFKA_POLL_TIMEOUT);
-        // When there are no records available for the current TopicPartition, self-checkpoint
-        // and move to process the next element.
-        if (rawRecords.isEmpty()) {
-          return ProcessContinuation.resume();
+  private ProcessContinuation readPartition(
+      Consumer<byte[], byte[]> consumer,
+      KafkaSourceDescriptor kafkaSourceDescriptor,
+      RestrictionTracker<OffsetRange, Long> tracker,
+      WatermarkEstimator watermarkEstimator,
+      TimestampPolicy timestampPolicy,
+      OutputReceiver<KV<KafkaSourceDescriptor, KafkaRecord<K, V>>> receiver) {
+    // Check whether current TopicPartition is still available to read.
+    Set<TopicPartition> existingTopicPartitions = new HashSet<>();
+    for (List<PartitionInfo> topicPartitionList : consumer.listTopics().values()) {
+      topicPartitionList.forEach(
+          partitionInfo -> {
+            existingTopicPartitions.add(
+                new TopicPartition(partitionInfo.topic(), partitionInfo.partition()));
+          });
+    }
+    if (!existingTopicPartitions.contains(kafkaSourceDescriptor.getTopicPartition())) {
+      return ProcessContinuation.stop();
+    }
+
+    ConsumerSpEL.evaluateAssign(
+        consumer, ImmutableList.of(kafkaSourceDescriptor.getTopicPartition()));
+    long startOffset = tracker.currentRestriction().getFrom();
+
+    long expectedOffset = startOffset;
+    consumer.seek(kafkaSourceDescriptor.getTopicPartition(), startOffset);
+    ConsumerRecords<byte[], byte[]> rawRecords = ConsumerRecords.empty();
+
+    while (true) {
+      rawRecords = consumer.poll(KAFKA_POLL_TIMEOUT);
+      // When there are no records available for the current TopicPartition, self-checkpoint
+      // and move to process the next element.
+      if (rawRecords.isEmpty()) {
+        return ProcessContinuation.resume();
+      }
+      List<ConsumerRecord<byte[], byte[]>> records =
+          rawRecords.records(kafkaSourceDescriptor.getTopicPartition());
+      // With bulk reads, claim the whole batch at once. If the restriction was split within the
+      // batch, only the offsets before the split point are claimed, and only those are emitted.
+      boolean batchClaimed = true;
+      long lastClaimedOffset = Long.MAX_VALUE;
+      if (bulkReadEnabled && !records.isEmpty()) {
+        long lastOffset = records.get(records.size() - 1).offset();
+        long claimOffset =
+            Math.max(
+                records.get(0).offset(),
+                Math.min(lastOffset, tracker.currentRestriction().getTo() - 1));
+        if (!tracker.tryClaim(claimOffset)) {
+          return ProcessContinuation.stop();
         }
-        for (ConsumerRecord<byte[], byte[]> rawRecord : rawRecords) {
-          if (!tracker.tryClaim(rawRecord.offset())) {
-            return ProcessContinuation.stop();
-          }
-          KafkaRecord<K, V> kafkaRecord =
-              new KafkaRecord<>(
-                  rawRecord.topic(),
-                  rawRecord.partition(),
-                  rawRecord.offset(),
-                  ConsumerSpEL.getRecordTimestamp(rawRecord),
-                  ConsumerSpEL.getRecordTimestampType(rawRecord),
-                  ConsumerSpEL.hasHeaders() ? rawRecord.headers() : null,
-                  ConsumerSpEL.deserializeKey(keyDeserializerInstance, rawRecord),
-                  ConsumerSpEL.deserializeValue(valueDeserializerInstance, rawRecord));
-          int recordSize =
-              (rawRecord.key() == null ? 0 : rawRecord.key().length)
-                  + (rawRecord.value() == null ? 0 : rawRecord.value().length);
-          avgRecordSize
-              .getUnchecked(kafkaSourceDescriptor.getTopicPartition())
-              .update(recordSize, rawRecord.offset() - expectedOffset);
-          expectedOffset = rawRecord.offset() + 1;
-          Instant outputTimestamp;
-          // The outputTimestamp and watermark will be computed by timestampPolicy, where the
-          // WatermarkEstimator should be a manual one.
-          if (timestampPolicy != null) {
-            checkState(watermarkEstimator instanceof ManualWatermarkEstimator);
-            TimestampPolicyContext context =
-                new TimestampPolicyContext(
-                    (long) ((HasProgress) tracker).getProgress().getWorkRemaining(), Instant.now());
-            outputTimestamp = timestampPolicy.getTimestampForRecord(context, kafkaRecord);
-            ((ManualWatermarkEstimator) watermarkEstimator)
-                .setWatermark(ensureTimestampWithinBounds(timestampPolicy.getWatermark(context)));
-          } else {
-            outputTimestamp = extractOutputTimestampFn.apply(kafkaRecord);
+        batchClaimed = claimOffset == lastOffset;
+        lastClaimedOffset = claimOffset;
+      }
+      for (ConsumerRecord<byte[], byte[]> rawRecord : records) {
+        if (bulkReadEnabled) {
+          if (rawRecord.offset() > lastClaimedOffset) {
+            break;
           }
-          receiver.outputWithTimestamp(KV.of(kafkaSourceDescriptor, kafkaRecord), outputTimestamp);
+        } else if (!tracker.tryClaim(rawRecord.offset())) {
+          return ProcessContinuation.stop();
         }
+        KafkaRecord<K, V> kafkaRecord =
+            new KafkaRecord<>(
+                rawRecord.topic(),
+                rawRecord.partition(),
+                rawRecord.offset(),
+                ConsumerSpEL.getRecordTimestamp(rawRecord),
+                ConsumerSpEL.getRecordTimestampType(rawRecord),
+                ConsumerSpEL.hasHeaders() ? rawRecord.headers() : null,
+                ConsumerSpEL.deserializeKey(keyDeserializerInstance, rawRecord),
+                ConsumerSpEL.deserializeValue(valueDeserializerInstance, rawRecord));
+        int recordSize =
+            (rawRecord.key() == null ? 0 : rawRecord.key().length)
+                + (rawRecord.value() == null ? 0 : rawRecord.value().length);
+        avgRecordSize
+            .getUnchecked(kafkaSourceDescriptor.getTopicPartition())
+            .update(recordSize, rawRecord.offset() - expectedOffset);
+        expectedOffset = rawRecord.offset() + 1;
+        Instant outputTimestamp;
+        // The outputTimestamp and watermark will be computed by timestampPolicy, where the
+        // WatermarkEstimator should be a manual one.
+        if (timestampPolicy != null) {
+          checkState(watermarkEstimator instanceof ManualWatermarkEstimator);
+          TimestampPolicyContext context =
+              new TimestampPolicyContext(
+                  (long) ((HasProgress) tracker).getProgress().getWorkRemaining(), Instant.now());
+          outputTimestamp = timestampPolicy.getTimestampForRecord(context, kafkaRecord);
+          ((ManualWatermarkEstimator) watermarkEstimator)
+              .setWatermark(ensureTimestampWithinBounds(timestampPolicy.getWatermark(context)));
+        } else {
+          outputTimestamp = extractOutputTimestampFn.apply(kafkaRecord);
+        }
+        receiver.outputWithTimestamp(KV.of(kafkaSourceDescriptor, kafkaRecord), outputTimestamp);
+      }
+      if (!batchClaimed) {
+        return ProcessContinuation.stop();
       }
     }
   }
 
+  /** Returns a consumer for the given config, reusing an idle one with bulk reads. */
+  private Consumer<byte[], byte[]> acquireConsumer(Map<String, Object> config) {
+    Consumer<byte[], byte[]> consumer = bulkReadEnabled ? idleConsumers.remove(config) : null;
+    return consumer != null ? consumer : consumerFactoryFn.apply(config);
+  }
+
+  /** Keeps the consumer for reuse with bulk reads, or closes it otherwise. */
+  private void releaseConsumer(Map<String, Object> config, Consumer<byte[], byte[]> consumer) {
+    if (!bulkReadEnabled) {
+      closeConsumer(consumer);
+      return;
+    }
+    Consumer<byte[], byte[]> previous = idleConsumers.put(config, consumer);
+    if (previous != null) {
+      closeConsumer(previous);
+    }
+  }
+
+  private static void closeConsumer(Consumer<byte[], byte[]> consumer) {
+    try {
+      Closeables.close(consumer, true);
+    } catch (IOException e) {
+      // Not expected, exceptions are swallowed.
+    }
+  }
+
   @GetRestrictionCoder
   public Coder<OffsetRange> restrictionCoder() {
     return new OffsetRange.Coder();
@@ -414,12 +495,17 @@ class ReadFromKafkaDoFn<K, V>
                     return new AverageRecordSize();
                   }
                 });
+    idleConsumers = new HashMap<>();
     keyDeserializerInstance = keyDeserializerProvider.getDeserializer(consumerConfig, true);
     valueDeserializerInstance = valueDeserializerProvider.getDeserializer(consumerConfig, false);
   }
 
   @Teardown
   public void teardown() throws Exception {
+    if (idleConsumers != null) {
+      idleConsumers.values().forEach(ReadFromKafkaDoFn::closeConsumer);
+      idleConsumers.clear();
+    }
     try {
       Closeables.close(keyDeserializerInstance, true);
       Closeables.close(valueDeserializerInstance, true);
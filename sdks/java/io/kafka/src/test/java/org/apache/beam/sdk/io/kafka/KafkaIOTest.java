@@ -1074,6 +1074,28 @@ public class KafkaIOTest {
     }
   }
 
+  @Test
+  public void testUnboundedSourceWithPrefetchQueueAndDeserializerThreads() throws Exception {
+    int numElements = 85;
+
+    UnboundedSource<KafkaRecord<Integer, Long>, KafkaCheckpointMark> source =
+        mkKafkaReadTransform(numElements, new ValueAsTimestampFn())
+            .withPrefetchQueue(4, 256)
+            .withDeserializerThreads(2)
+            .makeSource()
+            .split(1, PipelineOptionsFactory.create())
+            .get(0);
+
+    // Records are still read in sequence when prefetched and deserialized ahead.
+    UnboundedReader<KafkaRecord<Integer, Long>> reader = source.createReader(null, null);
+    for (int i = 0; i < numElements; i++) {
+      advanceOnce(reader, i > 0);
+      assertEquals(i, (long) reader.getCurrent().getKV().getValue());
+      assertEquals(i, reader.getCurrentTimestamp().getMillis());
+    }
+    reader.close();
+  }
+
   @Test
   public void testUnboundedSourceCheckpointMarkWithEmptyPartitions() throws Exception {
     // Similar to testUnboundedSourceCheckpointMark(), but verifies that source resumes
@@ -1265,6 +1287,52 @@ public class KafkaIOTest {
     }
   }
 
+  @Test
+  public void testSinkWithMaxInFlightBytes() throws Exception {
+    // Similar to testSink(), with a limit of a few records in flight.
+
+    int numElements = 1000;
+
+    try (MockProducerWrapper producerWrapper = new MockProducerWrapper()) {
+
+      ProducerSendCompletionThread completionThread =
+          new ProducerSendCompletionThread(producerWrapper.mockProducer).start();
+
+      String topic = "test";
+
+      p.apply(mkKafkaReadTransform(numElements, new ValueAsTimestampFn()).withoutMetadata())
+          .apply(
+              KafkaIO.<Integer, Long>write()
+                  .withBootstrapServers("none")
+                  .withTopic(topic)
+                  .withKeySerializer(IntegerSerializer.class)
+                  .withValueSerializer(LongSerializer.class)
+                  .withInputTimestamp()
+                  .withMaxInFlightBytes(48)
+                  .withProducerFactoryFn(new ProducerFactoryFn(producerWrapper.producerKey)));
+
+      PipelineResult result = p.run();
+
+      completionThread.shutdown();
+
+      verifyProducerRecords(producerWrapper.mockProducer, topic, numElements, false, true);
+
+      MetricQueryResults sendLatencyMetrics =
+          result
+              .metrics()
+              .queryMetrics(
+                  MetricsFilter.builder()
+                      .addNameFilter(
+                          MetricNameFilter.named(
+                              KafkaWriter.class, KafkaWriter.SEND_LATENCY_MS_METRIC))
+                      .build());
+      assertThat(sendLatencyMetrics.getDistributions(), IsIterableWithSize.iterableWithSize(1));
+      assertEquals(
+          numElements,
+          sendLatencyMetrics.getDistributions().iterator().next().getAttempted().getCount());
+    }
+  }
+
   @Test
   public void testValuesSink() throws Exception {
     // similar to testSink(), but use values()' interface.
@@ -333,6 +333,29 @@ public class ReadFromKafkaDoFnTest {
         createExpectedRecords(descriptor, startOffset, 3, "key", "value"), receiver.getOutputs());
   }
 
+  @Test
+  public void testProcessElementWithBulkRead() throws Exception {
+    ReadFromKafkaDoFn<String, String> instance =
+        new ReadFromKafkaDoFn(makeReadSourceDescriptor(consumer).withBulkRead());
+    instance.setup();
+    MockOutputReceiver receiver = new MockOutputReceiver();
+    consumer.setNumOfRecordsPerPoll(3L);
+    long startOffset = 5L;
+    // The restriction ends within the polled batch, so only the records before the end of the
+    // restriction are claimed and output.
+    OffsetRangeTracker tracker =
+        new OffsetRangeTracker(new OffsetRange(startOffset, startOffset + 3));
+    KafkaSourceDescriptor descriptor =
+        KafkaSourceDescriptor.of(topicPartition, null, null, null, null, null);
+    ProcessContinuation result =
+        instance.processElement(descriptor, tracker, null, (OutputReceiver) receiver);
+    assertEquals(ProcessContinuation.stop(), result);
+    assertEquals(
+        createExpectedRecords(descriptor, startOffset, 3, "key", "value"), receiver.getOutputs());
+    tracker.checkDone();
+    instance.teardown();
+  }
+
   @Test
   public void testProcessElementWithEmptyPoll() throws Exception {
     MockOutputReceiver receiver = new MockOutputReceiver();
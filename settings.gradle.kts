@@ -117,6 +117,7 @@ include(":sdks:java:container:java8")
 include(":sdks:java:container:java11")
 include(":sdks:java:container:java17")
 include(":sdks:java:core")
+include(":sdks:java:core:jmh")
 include(":sdks:java:expansion-service")
 // include(":sdks:java:expansion-service:app")
 include(":sdks:java:extensions:arrow")
@@ -129,6 +130,7 @@ include(":sdks:java:extensions:ml")
 include(":sdks:java:extensions:protobuf")
 // include("sdks:java:extensions:sbe")
 include(":sdks:java:extensions:schemaio-expansion-service")
+include(":sdks:java:extensions:smb")
 // include(":sdks:java:extensions:sketching")
 include(":sdks:java:extensions:sorter")
 include(":sdks:java:extensions:sql")